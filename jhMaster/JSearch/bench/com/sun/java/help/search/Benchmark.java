@@ -0,0 +1,174 @@
+/*
+ * @(#)Benchmark.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package com.sun.java.help.search;
+
+import java.io.PrintStream;
+
+/**
+ * A micro benchmark run by the SearchBenchmarks harness.
+ * <p>
+ * Subclasses implement run() as one operation and return a value
+ * depending on its result, so the work can't be optimized away. The
+ * harness first runs the benchmark for a warmup period, then for a
+ * number of timed iterations, and reports the time per operation.
+ * Iterations are timed with the millisecond clock, so they should
+ * last a second or more.
+ *
+ * @version	1.1	10/19/26
+ */
+
+abstract class Benchmark
+{
+  private String _name;
+
+  // results of the last measurement, in nanoseconds per operation
+  private long _ops;
+  private double _mean;
+  private double _min;
+  private double _max;
+  private double _deviation;
+
+  // consumes the results of run()
+  static volatile int sink;
+
+  protected Benchmark(String name) {
+    _name = name;
+  }
+
+  public String getName() {
+    return _name;
+  }
+
+  /**
+   * Prepares the benchmark. Not timed.
+   */
+  public void setUp() throws Exception {
+  }
+
+  /**
+   * Performs one operation.
+   */
+  public abstract int run() throws Exception;
+
+  /**
+   * Releases the resources of the benchmark. Not timed.
+   */
+  public void tearDown() throws Exception {
+  }
+
+  /**
+   * Runs the benchmark and records the time per operation.
+   *
+   * @param warmup The warmup time in milliseconds
+   * @param iterations The number of timed iterations
+   * @param time The minimal time of an iteration in milliseconds. Every
+   * iteration runs at least one operation.
+   */
+  public void measure(long warmup, int iterations, long time)
+    throws Exception
+  {
+    setUp();
+    try {
+      iterate(warmup);
+      double[] results = new double[iterations];
+      _ops = 0;
+      for (int i = 0; i < iterations; i++)
+	{
+	  long start = System.currentTimeMillis();
+	  long ops = iterate(time);
+	  results[i] = (System.currentTimeMillis() - start) * 1000000.0 / ops;
+	  _ops += ops;
+	}
+      summarize(results);
+    }
+    finally {
+      tearDown();
+    }
+  }
+
+  private long iterate(long millis) throws Exception
+  {
+    long start = System.currentTimeMillis();
+    long ops = 0;
+    int result = 0;
+    do {
+      result += run();
+      ops++;
+    }
+    while (System.currentTimeMillis() - start < millis);
+    sink += result;
+    return ops;
+  }
+
+  private void summarize(double[] results)
+  {
+    double sum = 0.0;
+    _min = Double.MAX_VALUE;
+    _max = 0.0;
+    for (int i = 0; i < results.length; i++)
+      {
+	sum += results[i];
+	_min = Math.min(_min, results[i]);
+	_max = Math.max(_max, results[i]);
+      }
+    _mean = results.length > 0 ? sum / results.length : 0.0;
+    double squares = 0.0;
+    for (int i = 0; i < results.length; i++)
+      squares += (results[i] - _mean) * (results[i] - _mean);
+    _deviation = results.length > 1
+      ? Math.sqrt(squares / (results.length - 1))
+      : 0.0;
+  }
+
+  public static void printHeader(PrintStream out) {
+    out.println(pad("benchmark", 32) + pad("ops", 12) + pad("ns/op", 16)
+		+ pad("+-", 14) + pad("min", 16) + "max");
+  }
+
+  /**
+   * Prints the results of the last measurement as one line.
+   */
+  public void print(PrintStream out) {
+    out.println(pad(_name, 32) + pad(Long.toString(_ops), 12)
+		+ pad(format(_mean), 16) + pad(format(_deviation), 14)
+		+ pad(format(_min), 16) + format(_max));
+  }
+
+  private static String format(double value) {
+    return Long.toString(Math.round(value * 10) / 10) + "."
+      + Math.round(value * 10) % 10;
+  }
+
+  private static String pad(String s, int width) {
+    StringBuffer buffer = new StringBuffer(s);
+    do
+      buffer.append(' ');
+    while (buffer.length() < width);
+    return buffer.toString();
+  }
+}
@@ -0,0 +1,234 @@
+/*
+ * @(#)CorpusGenerator.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package com.sun.java.help.search;
+
+import java.io.*;
+import java.util.Random;
+
+/**
+ * Generates a corpus of HTML topics for the search benchmarks.
+ * <p>
+ * Words are drawn from a synthetic vocabulary with a Zipf distribution,
+ * so the corpus has a few very frequent terms and a long tail of rare
+ * ones, as a real help set does. Some words are inflected with English
+ * suffixes so LiteMorph finds variants of them. The same parameters and
+ * seed always produce the same corpus.
+ *
+ * @version	1.1	10/19/26
+ */
+
+public class CorpusGenerator
+{
+  private static final String[] Syllables = {
+    "ba", "ce", "di", "fo", "gu", "ha", "je", "ki", "lo", "mu",
+    "na", "pe", "ri", "so", "tu", "va", "we", "xi", "yo", "za",
+    "bri", "cla", "dro", "fle", "gra", "pla", "str", "tho"
+  };
+  private static final String[] Suffixes = { "s", "ed", "ing", "er" };
+
+  private int _documents;
+  private int _words;
+  private long _seed;
+  private String[] _vocabulary;
+  private double[] _cumulative;
+
+  /**
+   * @param documents The number of topics
+   * @param words The number of words in a topic
+   * @param vocabulary The number of distinct stems
+   * @param seed The seed of the random generator
+   */
+  public CorpusGenerator(int documents, int words, int vocabulary, long seed)
+  {
+    _documents = documents;
+    _words = words;
+    _seed = seed;
+    makeVocabulary(vocabulary);
+  }
+
+  private void makeVocabulary(int size)
+  {
+    Random random = new Random(_seed);
+    _vocabulary = new String[size];
+    java.util.Hashtable seen = new java.util.Hashtable();
+    for (int i = 0; i < size; i++)
+      {
+	String word;
+	do {
+	  // frequent words are short
+	  int length = 1 + Math.min(4, i / 64) + random.nextInt(2);
+	  StringBuffer buffer = new StringBuffer();
+	  for (int j = 0; j < length; j++)
+	    buffer.append(Syllables[random.nextInt(Syllables.length)]);
+	  word = buffer.toString();
+	}
+	while (seen.containsKey(word));
+	seen.put(word, word);
+	_vocabulary[i] = word;
+      }
+    // Zipf with exponent 1
+    _cumulative = new double[size];
+    double sum = 0.0;
+    for (int i = 0; i < size; i++)
+      _cumulative[i] = sum += 1.0 / (i + 1);
+    for (int i = 0; i < size; i++)
+      _cumulative[i] /= sum;
+  }
+
+  /**
+   * Returns the stem of the given frequency rank, 0 being the most
+   * frequent.
+   */
+  public String getStem(int rank) {
+    return _vocabulary[rank];
+  }
+
+  public int getVocabularySize() {
+    return _vocabulary.length;
+  }
+
+  private String nextWord(Random random)
+  {
+    double x = random.nextDouble();
+    int lo = 0, hi = _cumulative.length - 1;
+    while (lo < hi)
+      {
+	int mid = (lo + hi) / 2;
+	if (_cumulative[mid] < x)
+	  lo = mid + 1;
+	else
+	  hi = mid;
+      }
+    String word = _vocabulary[lo];
+    if (random.nextInt(4) == 0)
+      word += Suffixes[random.nextInt(Suffixes.length)];
+    return word;
+  }
+
+  /**
+   * Returns the text of a topic.
+   */
+  public String makeDocument(int n)
+  {
+    Random random = new Random(_seed + n + 1);
+    StringBuffer buffer = new StringBuffer(_words * 8);
+    String title = nextWord(random) + " " + nextWord(random);
+    buffer.append("<html>\n<head>\n<title>Topic ").append(n).append(": ");
+    buffer.append(title).append("</title>\n</head>\n<body>\n<h1>");
+    buffer.append(title).append("</h1>\n<p>");
+    for (int i = 0; i < _words; i++)
+      {
+	buffer.append(nextWord(random));
+	if (random.nextInt(12) == 0)
+	  buffer.append(random.nextInt(30) == 0 ? ".\n</p>\n<p>" : ". ");
+	else
+	  buffer.append(' ');
+      }
+    buffer.append("</p>\n</body>\n</html>\n");
+    return buffer.toString();
+  }
+
+  /**
+   * Returns queries of one to three words mixing frequent and rare
+   * stems.
+   */
+  public String[] makeQueries(int count)
+  {
+    Random random = new Random(_seed - 1);
+    String[] queries = new String[count];
+    for (int i = 0; i < count; i++)
+      {
+	int terms = 1 + i % 3;
+	StringBuffer buffer = new StringBuffer();
+	for (int j = 0; j < terms; j++)
+	  {
+	    if (j > 0)
+	      buffer.append(' ');
+	    buffer.append(nextWord(random));
+	  }
+	queries[i] = buffer.toString();
+      }
+    return queries;
+  }
+
+  /**
+   * Writes the topics as topicN.html files into a directory.
+   */
+  public void write(File dir) throws IOException
+  {
+    if (!dir.isDirectory() && !dir.mkdirs())
+      throw new IOException("can't create " + dir);
+    for (int n = 0; n < _documents; n++)
+      {
+	Writer out =
+	  new OutputStreamWriter(new FileOutputStream(new File(dir, "topic"
+							       + n + ".html")),
+				 "UTF8");
+	try {
+	  out.write(makeDocument(n));
+	}
+	finally {
+	  out.close();
+	}
+      }
+  }
+
+  public static void main(String[] args)
+  {
+    int documents = 1000, words = 400, vocabulary = 20000;
+    long seed = 1;
+    String dir = null;
+    boolean usage = false;
+    try {
+      for (int i = 0; i < args.length; i++)
+	if (args[i].equals("-docs") && i + 1 < args.length)
+	  documents = Integer.parseInt(args[++i]);
+	else if (args[i].equals("-words") && i + 1 < args.length)
+	  words = Integer.parseInt(args[++i]);
+	else if (args[i].equals("-vocabulary") && i + 1 < args.length)
+	  vocabulary = Integer.parseInt(args[++i]);
+	else if (args[i].equals("-seed") && i + 1 < args.length)
+	  seed = Long.parseLong(args[++i]);
+	else if (!args[i].startsWith("-") && dir == null)
+	  dir = args[i];
+	else
+	  usage = true;
+      if (usage || dir == null)
+	{
+	  System.out.println("Usage: java com.sun.java.help.search.CorpusGenerator"
+			     + " [-docs n] [-words n] [-vocabulary n]"
+			     + " [-seed n] dir");
+	  return;
+	}
+      new CorpusGenerator(documents, words, vocabulary, seed).write(new File(dir));
+    }
+    catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
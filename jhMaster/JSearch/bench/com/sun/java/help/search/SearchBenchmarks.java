@@ -0,0 +1,520 @@
+/*
+ * @(#)SearchBenchmarks.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package com.sun.java.help.search;
+
+import java.io.*;
+import java.util.Locale;
+import java.util.Vector;
+import javax.help.search.SearchQuery;
+
+/**
+ * Runs the search engine benchmarks over a generated corpus.
+ * <p>
+ * The corpus is written and indexed into a work directory, then each
+ * benchmark is measured and printed as one line. The benchmarks are
+ * <ul>
+ * <li>BtreeDict.fetch - looks up terms in the TMAP dictionary
+ * <li>BlockManager.accessBlock - reads random dictionary blocks
+ * <li>Decompressor.ascDecode - decodes a compressed ascending list
+ * <li>Decompressor.decode - decodes a compressed list
+ * <li>Decompressor.ascendingDecode - decodes a concept table into an array
+ * <li>Decompressor.readNext - iterates a compressed list
+ * <li>DocumentList.next - iterates the document lists of the index
+ * <li>LiteMorph.variantsOf - computes the variants of a word
+ * <li>QueryEngine.processQuery - runs queries end to end
+ * <li>Indexer.compile - indexes the whole corpus
+ * </ul>
+ * Run with -help for the options. The results of two builds are only
+ * comparable for the same corpus and codec options.
+ *
+ * @version	1.1	10/19/26
+ */
+
+public class SearchBenchmarks
+{
+  private CorpusGenerator _corpus;
+  private File _corpusDir;
+  private File _indexDir;
+  private String _codec;
+
+  public SearchBenchmarks(CorpusGenerator corpus, File workDir, String codec)
+  {
+    _corpus = corpus;
+    _codec = codec;
+    workDir = workDir.getAbsoluteFile();
+    _corpusDir = new File(workDir, "corpus");
+    _indexDir = new File(workDir, "index");
+  }
+
+  /**
+   * Writes and indexes the corpus.
+   */
+  public void prepare() throws Exception
+  {
+    _corpus.write(_corpusDir);
+    index();
+  }
+
+  private void index() throws Exception
+  {
+    new Indexer().compile(new String[] {
+      "-codec", _codec, "-db", _indexDir.getAbsolutePath(),
+      _corpusDir.getAbsolutePath() });
+  }
+
+  /**
+   * Returns the benchmarks, all of them or those whose name starts
+   * with a prefix.
+   */
+  public Benchmark[] getBenchmarks(String prefix)
+  {
+    Benchmark[] all = {
+      new DictFetch(), new BlockAccess(), new AscDecode(), new Decode(),
+      new AscendingDecode(), new ReadNext(), new DocumentList(),
+      new Variants(), new Queries(), new Compile()
+    };
+    Vector selected = new Vector();
+    for (int i = 0; i < all.length; i++)
+      if (prefix == null || all[i].getName().startsWith(prefix))
+	selected.addElement(all[i]);
+    Benchmark[] result = new Benchmark[selected.size()];
+    selected.copyInto(result);
+    return result;
+  }
+
+  private BtreeDict openDictionary() throws Exception
+  {
+    Schema schema = new Schema(null, _indexDir.getAbsolutePath(), false);
+    BtreeDictParameters params = new BtreeDictParameters(schema, "TMAP");
+    params.readState();
+    return new BtreeDict(params);
+  }
+
+  private String[] getTerms()
+  {
+    // every stem plus as many misses
+    int size = _corpus.getVocabularySize();
+    String[] terms = new String[2 * size];
+    for (int i = 0; i < size; i++)
+      {
+	terms[2 * i] = _corpus.getStem(i);
+	terms[2 * i + 1] = _corpus.getStem(i) + "q";
+      }
+    return terms;
+  }
+
+  private class DictFetch extends Benchmark
+  {
+    private BtreeDict _dict;
+    private String[] _terms;
+    private int _next;
+
+    DictFetch() {
+      super("BtreeDict.fetch");
+    }
+
+    public void setUp() throws Exception {
+      _dict = openDictionary();
+      _terms = getTerms();
+    }
+
+    public int run() throws Exception {
+      if (_next == _terms.length)
+	_next = 0;
+      return _dict.fetch(_terms[_next++]);
+    }
+
+    public void tearDown() throws Exception {
+      _dict.close();
+    }
+  }
+
+  private class BlockAccess extends Benchmark
+  {
+    private BtreeDict _dict;
+    private int[] _blocks;
+    private int _next;
+
+    BlockAccess() {
+      super("BlockManager.accessBlock");
+    }
+
+    public void setUp() throws Exception {
+      _dict = openDictionary();
+      Schema schema = new Schema(null, _indexDir.getAbsolutePath(), false);
+      BtreeDictParameters params = new BtreeDictParameters(schema, "TMAP");
+      params.readState();
+      int count = (int)(new File(_indexDir, "TMAP").length()
+			/ params.getBlockSize());
+      // a fixed random sequence, larger than the block cache
+      java.util.Random random = new java.util.Random(count);
+      _blocks = new int[4096];
+      for (int i = 0; i < _blocks.length; i++)
+	_blocks[i] = random.nextInt(count);
+    }
+
+    public int run() throws Exception {
+      if (_next == _blocks.length)
+	_next = 0;
+      return _dict.blockManager.accessBlock(_blocks[_next++]).number;
+    }
+
+    public void tearDown() throws Exception {
+      _dict.close();
+    }
+  }
+
+  /**
+   * Compresses a posting list like the ones in DOCS.
+   */
+  private byte[] makeList(IntegerArray values, boolean ascending)
+    throws IOException
+  {
+    java.util.Random random = new java.util.Random(values.cardinality());
+    IntegerArray array = new IntegerArray();
+    for (int i = 0, value = 0; i < 2000; i++)
+      array.add(ascending ? value += 1 + random.nextInt(16)
+		: random.nextInt(1000));
+    Compressor compressor = new Compressor();
+    int k = ascending
+      ? compressor.compressAscending(array)
+      : compressor.minimize(array, 8);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.write(k);
+    compressor.write(out);
+    out.close();
+    return bytes.toByteArray();
+  }
+
+  private class AscDecode extends Benchmark
+  {
+    private byte[] _data;
+    private IntegerArray _array = new IntegerArray(2000);
+    private ByteArrayDecompressor _decompressor =
+      new ByteArrayDecompressor();
+
+    AscDecode() {
+      super("Decompressor.ascDecode");
+    }
+
+    public void setUp() throws Exception {
+      _data = makeList(_array, true);
+    }
+
+    public int run() throws Exception {
+      _array.clear();
+      _decompressor.initReading(_data, 1);
+      _decompressor.ascDecode(_data[0], _array);
+      return _array.cardinality();
+    }
+  }
+
+  private class Decode extends Benchmark
+  {
+    private byte[] _data;
+    private IntegerArray _array = new IntegerArray(2000);
+    private ByteArrayDecompressor _decompressor =
+      new ByteArrayDecompressor();
+
+    Decode() {
+      super("Decompressor.decode");
+    }
+
+    public void setUp() throws Exception {
+      _data = makeList(_array, false);
+    }
+
+    public int run() throws Exception {
+      _array.clear();
+      _decompressor.initReading(_data, 1);
+      _decompressor.decode(_data[0], _array);
+      return _array.cardinality();
+    }
+  }
+
+  private class AscendingDecode extends Benchmark
+  {
+    private byte[] _data;
+    private int[] _array = new int[2001];
+    private ByteArrayDecompressor _decompressor =
+      new ByteArrayDecompressor();
+
+    AscendingDecode() {
+      super("Decompressor.ascendingDecode");
+    }
+
+    public void setUp() throws Exception {
+      _data = makeList(new IntegerArray(), true);
+    }
+
+    public int run() throws Exception {
+      _decompressor.initReading(_data, 1);
+      return _decompressor.ascendingDecode(_data[0], 0, _array);
+    }
+  }
+
+  private class ReadNext extends Benchmark implements CompressorIterator
+  {
+    private byte[] _data;
+    private int _sum;
+    private ByteArrayDecompressor _decompressor =
+      new ByteArrayDecompressor();
+
+    ReadNext() {
+      super("Decompressor.readNext");
+    }
+
+    public void setUp() throws Exception {
+      _data = makeList(new IntegerArray(), true);
+    }
+
+    public void value(int value) {
+      _sum += value;
+    }
+
+    public int run() throws Exception {
+      _sum = 0;
+      _decompressor.initReading(_data, 1);
+      while (_decompressor.readNext(_data[0], this))
+	;
+      return _sum;
+    }
+  }
+
+  private class DocumentList extends Benchmark
+  {
+    private SearchEnvironment _env;
+    private int[] _concepts;
+    private int _next;
+
+    DocumentList() {
+      super("DocumentList.next");
+    }
+
+    public void setUp() throws Exception
+    {
+      _env = new SearchEnvironment(_indexDir.getAbsolutePath(), null);
+      IntegerArray concepts = new IntegerArray();
+      for (int i = 0; i < _corpus.getVocabularySize(); i++)
+	{
+	  int concept = _env.fetch(_corpus.getStem(i));
+	  if (concept > 0 && _env.occursInText(concept))
+	    concepts.add(concept);
+	}
+      _concepts = new int[concepts.cardinality()];
+      for (int i = 0; i < _concepts.length; i++)
+	_concepts[i] = concepts.at(i);
+    }
+
+    public int run() throws Exception
+    {
+      if (_next == _concepts.length)
+	_next = 0;
+      NonnegativeIntegerGenerator list =
+	_env.getDocumentIterator(_concepts[_next++]);
+      int count = 0;
+      for (int doc = list.first(); doc != NonnegativeIntegerGenerator.END;
+	   doc = list.next())
+	count++;
+      return count;
+    }
+
+    public void tearDown() throws Exception {
+      _env.close();
+    }
+  }
+
+  private class Variants extends Benchmark
+  {
+    private LiteMorph _morph;
+    private String[] _words;
+    private int _next;
+
+    Variants() {
+      super("LiteMorph.variantsOf");
+    }
+
+    public void setUp() throws Exception {
+      _morph = LiteMorph_en.getMorph();
+      _words = getTerms();
+    }
+
+    public int run() throws Exception {
+      if (_next == _words.length)
+	_next = 0;
+      return _morph.variantsOf(_words[_next++]).length;
+    }
+  }
+
+  /**
+   * Collects the hits of a query instead of notifying listeners.
+   */
+  private static class CountingQuery extends SearchQuery
+  {
+    int hits;
+
+    CountingQuery() {
+      super(null);
+    }
+
+    public boolean isActive() {
+      return false;
+    }
+
+    public void itemsFound(boolean inSearch, Vector docs) {
+      hits += docs.size();
+    }
+  }
+
+  private class Queries extends Benchmark
+  {
+    private QueryEngine _engine;
+    private String[] _queries;
+    private CountingQuery _query = new CountingQuery();
+    private int _next;
+
+    Queries() {
+      super("QueryEngine.processQuery");
+    }
+
+    public void setUp() throws Exception {
+      // SearchItems need a help set base
+      _engine = new QueryEngine(_indexDir.getName(),
+				_indexDir.getParentFile().toURI().toURL());
+      _queries = _corpus.makeQueries(256);
+    }
+
+    public int run() throws Exception {
+      if (_next == _queries.length)
+	_next = 0;
+      _query.hits = 0;
+      _engine.processQuery(_queries[_next++], Locale.ENGLISH, _query);
+      return _query.hits;
+    }
+  }
+
+  private class Compile extends Benchmark
+  {
+    Compile() {
+      super("Indexer.compile");
+    }
+
+    public int run() throws Exception {
+      index();
+      CodecParameters codec = new CodecParameters
+	(new Schema(null, _indexDir.getPath(), false));
+      codec.readState();
+      return (int)new File(_indexDir, codec.getListsName()).length();
+    }
+  }
+
+  private static void usage()
+  {
+    System.out.println("Usage: java com.sun.java.help.search.SearchBenchmarks options");
+    System.out.println(" Options: -dir dir          work directory (required)");
+    System.out.println("          -docs n           topics in the corpus");
+    System.out.println("          -words n          words in a topic");
+    System.out.println("          -vocabulary n     distinct stems");
+    System.out.println("          -seed n           corpus seed");
+    System.out.println("          -codec name       golomb or packed lists");
+    System.out.println("          -warmup ms        warmup time");
+    System.out.println("          -iterations n     timed iterations");
+    System.out.println("          -time ms          time of an iteration");
+    System.out.println("          -only prefix      run matching benchmarks");
+  }
+
+  public static void main(String[] args)
+  {
+    int documents = 1000, words = 400, vocabulary = 20000;
+    long seed = 1;
+    long warmup = 2000, time = 1000;
+    int iterations = 5;
+    String dir = null, only = null, codec = CodecParameters.Golomb;
+    try {
+      for (int i = 0; i < args.length; i++)
+	{
+	  if (i + 1 == args.length)
+	    {
+	      usage();
+	      return;
+	    }
+	  if (args[i].equals("-dir"))
+	    dir = args[++i];
+	  else if (args[i].equals("-docs"))
+	    documents = Integer.parseInt(args[++i]);
+	  else if (args[i].equals("-words"))
+	    words = Integer.parseInt(args[++i]);
+	  else if (args[i].equals("-vocabulary"))
+	    vocabulary = Integer.parseInt(args[++i]);
+	  else if (args[i].equals("-seed"))
+	    seed = Long.parseLong(args[++i]);
+	  else if (args[i].equals("-codec"))
+	    codec = args[++i];
+	  else if (args[i].equals("-warmup"))
+	    warmup = Long.parseLong(args[++i]);
+	  else if (args[i].equals("-iterations"))
+	    iterations = Integer.parseInt(args[++i]);
+	  else if (args[i].equals("-time"))
+	    time = Long.parseLong(args[++i]);
+	  else if (args[i].equals("-only"))
+	    only = args[++i];
+	  else
+	    {
+	      usage();
+	      return;
+	    }
+	}
+      if (dir == null)
+	{
+	  usage();
+	  return;
+	}
+
+      CorpusGenerator corpus =
+	new CorpusGenerator(documents, words, vocabulary, seed);
+      SearchBenchmarks benchmarks =
+	new SearchBenchmarks(corpus, new File(dir), codec);
+      System.out.println("corpus: " + documents + " topics, " + words
+			 + " words, " + vocabulary + " stems, seed " + seed
+			 + ", " + codec + " codec");
+      benchmarks.prepare();
+
+      Benchmark[] list = benchmarks.getBenchmarks(only);
+      Benchmark.printHeader(System.out);
+      for (int i = 0; i < list.length; i++)
+	{
+	  list[i].measure(warmup, iterations, time);
+	  list[i].print(System.out);
+	}
+    }
+    catch (Exception e) {
+      e.printStackTrace();
+    }
+  }
+}
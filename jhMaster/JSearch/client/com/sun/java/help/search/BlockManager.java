@@ -119,6 +119,10 @@ class BlockManager
 
   public Block accessBlock(int blockNumber) throws Exception
   {
+    // counted for the query running on this thread, if any
+    SearchMetrics metrics = SearchMetrics.current();
+    if (metrics != null)
+      metrics.countBlock(blockTab[blockNumber] == null);
     if (blockTab[blockNumber] != null)
       moveToFront(blockNumber);
     else if (nBlocks < nBlocksLimit)
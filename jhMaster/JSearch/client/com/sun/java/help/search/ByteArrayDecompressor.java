@@ -33,28 +33,272 @@
 
 package com.sun.java.help.search;
 
+import java.nio.ByteBuffer;
+
 class ByteArrayDecompressor extends Decompressor
 {
-  private byte[] _array;
+  // 0s before the first 1 of a byte
+  private static final byte[] LeadingZeros = new byte[256];
+
+  static {
+    LeadingZeros[0] = 8;
+    for (int i = 1; i < 256; i++)
+      while ((i & 0x80 >>> LeadingZeros[i]) == 0)
+	LeadingZeros[i]++;
+  }
+
+  // the bytes are read with absolute gets, so the position of the buffer
+  // doesn't matter and a buffer can be shared by several decompressors
+  private ByteBuffer _buffer;
+  private int    _limit;
+  private byte[] _array;	// the array wrapped by _buffer, if any
   private int    _index;
   private int    _index0;
+  // the unread bits taken from the buffer, first bit highest
+  private long   _bits;
+  private int    _count;
   
+  public ByteArrayDecompressor() {
+    initReading((ByteBuffer)null, 0);
+  }
+
   public ByteArrayDecompressor(byte[] array, int index) {
     initReading(array, index);
   }
 
+  public ByteArrayDecompressor(ByteBuffer buffer, int index) {
+    initReading(buffer, index);
+  }
+
   public void initReading(byte[] array, int index)
   {
-    _array = array;
+    if (array != _array)
+      {
+	_array = array;
+	_buffer = array != null ? ByteBuffer.wrap(array) : null;
+      }
+    initReading(_buffer, index);
+  }
+
+  public void initReading(ByteBuffer buffer, int index)
+  {
+    if (buffer != _buffer)
+      {
+	_buffer = buffer;
+	_array = null;
+      }
+    _limit = buffer != null ? buffer.limit() : 0;
     _index = _index0 = index;
+    _bits = 0L;
+    _count = 0;
     initReading();
   }
 
   public int bytesRead() {
-    return _index - _index0;
+    // bytes some of whose bits were read
+    return (((_index - _index0) << 3) - _count + 7) >> 3;
   }
 
   protected int getNextByte() throws Exception {
-    return _array[_index++] & 0xFF;
+    return read(8);
+  }
+
+  // tops up the unread bits to at least 57
+  private void fill()
+  {
+    if (_index + 8 <= _limit)
+      {
+	// the whole bytes that fit of the next 8, bits below them cleared
+	int n = 64 - _count >> 3;
+	_bits = (_bits | _buffer.getLong(_index) >>> _count)
+	  & -1L << (64 - _count & 7);
+	_index += n;
+	_count += n << 3;
+      }
+    else
+      while (_count <= 56)
+	{
+	  // past the end are 0s; the end of a code is found before them
+	  if (_index >= _limit + 16)
+	    throw new IndexOutOfBoundsException(String.valueOf(_index));
+	  if (_index < _limit)
+	    _bits |= (long)(_buffer.get(_index) & 0xFF) << 56 - _count;
+	  _index++;
+	  _count += 8;
+	}
+  }
+
+  public boolean readNext(int k, CompressorIterator it) throws Exception
+  {
+    if (_count <= 32)
+      fill();
+    if (_bits < 0L)		// 'V' + value
+      {
+	int value = k > 0 ? _path | (int)(_bits << 1 >>> 64 - k) : _path;
+	_bits <<= k + 1;
+	_count -= k + 1;
+	it.value(value);
+	return true;
+      }
+    _bits <<= 1;
+    _count--;
+    int count = countZeroes() + 1;
+    int saved = _path;
+    _path = ((_path >>> (k + count) << count) | read(count)) << k;
+    if (_path != saved)
+      {
+	it.value(_path | read(k));
+	return true;
+      }
+    else
+      return false;
+  }
+
+  public void decode(int k, IntegerArray array) throws Exception {
+    decode(k, 0, false, null, array);
+  }
+
+  public void ascDecode(int k, IntegerArray array) throws Exception {
+    decode(k, 0, true, null, array);
+  }
+  
+  public int ascendingDecode(int k, int start, int[] array) throws Exception {
+    return decode(k, start, true, array, null);
+  }
+
+  // the loops of Decompressor with the unread bits kept in locals;
+  // values go to array or, if it is null, to list
+  private int decode(int k, int start, boolean ascending, int[] array,
+		     IntegerArray list)
+    throws Exception
+  {
+    ByteBuffer bytes = _buffer;
+    int limit = _limit - 8;
+    long bits = _bits;
+    int count = _count, index = _index;
+    int path = 0, n = 0;
+    while (true)
+      {
+	// at most 1 + 32 bits are read between refills
+	if (count <= 32)
+	  if (index <= limit)
+	    {
+	      int added = 64 - count >> 3;
+	      bits = (bits | bytes.getLong(index) >>> count)
+		& -1L << (64 - count & 7);
+	      index += added;
+	      count += added << 3;
+	    }
+	  else
+	    {
+	      _bits = bits; _count = count; _index = index;
+	      fill();
+	      bits = _bits; count = _count; index = _index;
+	    }
+	int value;
+	if (bits < 0L)		// 'V' + value
+	  {
+	    value = k > 0 ? path | (int)(bits << 1 >>> 64 - k) : path;
+	    bits <<= k + 1;
+	    count -= k + 1;
+	  }
+	else
+	  {
+	    bits <<= 1;
+	    count--;
+	    int cnt = 1;
+	    while (true)
+	      {
+		if (count < 8)
+		  {
+		    _bits = bits; _count = count; _index = index;
+		    fill();
+		    bits = _bits; count = _count; index = _index;
+		  }
+		int zeroes = LeadingZeros[(int)(bits >>> 56)];
+		bits <<= zeroes;
+		count -= zeroes;
+		if (zeroes < 8)
+		  {
+		    cnt += zeroes;
+		    break;
+		  }
+		cnt += 8;
+	      }
+	    // the 1 and cnt bits of the new path, then k bits of value
+	    if (count <= 32)
+	      {
+		_bits = bits; _count = count; _index = index;
+		fill();
+		bits = _bits; count = _count; index = _index;
+	      }
+	    int Path = (path >>> (k + cnt) << cnt
+			| (int)(bits << 1 >>> 64 - cnt)) << k;
+	    bits <<= cnt + 1;
+	    count -= cnt + 1;
+	    if (Path == path)	// convention for end
+	      break;
+	    path = Path;
+	    if (count < k)
+	      {
+		_bits = bits; _count = count; _index = index;
+		fill();
+		bits = _bits; count = _count; index = _index;
+	      }
+	    value = k > 0 ? path | (int)(bits >>> 64 - k) : path;
+	    bits <<= k;
+	    count -= k;
+	  }
+	if (ascending)
+	  value = start += value;
+	if (array != null)
+	  array[n++] = value;
+	else
+	  list.add(value);
+      }
+    _bits = bits;
+    _count = count;
+    _index = index;
+    return n;
+  }
+
+  protected int read() throws Exception
+  {
+    if (_count == 0)
+      fill();
+    int bit = (int)(_bits >>> 63);
+    _bits <<= 1;
+    _count--;
+    return bit;
+  }
+
+  public int read(int kBits) throws Exception
+  {
+    if (kBits == 0)
+      return 0;
+    if (_count < kBits)
+      fill();
+    int result = (int)(_bits >>> 64 - kBits);
+    _bits <<= kBits;
+    _count -= kBits;
+    return result;
+  }
+
+  protected int countZeroes() throws Exception
+  {
+    for (int count = 0;; count += 8)
+      {
+	if (_count < 8)
+	  fill();
+	int zeroes = LeadingZeros[(int)(_bits >>> 56)];
+	if (zeroes < 8)
+	  {
+	    _bits <<= zeroes + 1;
+	    _count -= zeroes + 1;
+	    return count + zeroes;
+	  }
+	_bits <<= 8;
+	_count -= 8;
+      }
   }
 }
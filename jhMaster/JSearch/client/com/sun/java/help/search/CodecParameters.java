@@ -0,0 +1,123 @@
+/*
+ * @(#)CodecParameters.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package com.sun.java.help.search;
+
+/**
+ * The CODEC line of the SCHEMA: the encoding of the document lists (DOCS)
+ * and of the positions of the concepts in the documents (POSITIONS).
+ * Indexes without the line are written with the adaptive Golomb codec of
+ * Compressor. The packed codec trades index size for decoding speed: it
+ * packs the differences in blocks with one bit width per block.
+ * Golomb indexes may also give their long lists skip tables, see
+ * ConceptList.
+ * <p>
+ * Only indexes in another form get the line, the SCHEMA of plain Golomb
+ * indexes is the one older indexers wrote. Runtimes older than the line
+ * ignore it and read DOCS as plain Golomb lists, so packed lists and lists
+ * with skip tables are written to LISTS instead: such runtimes then fail
+ * to open the index rather than misread it.
+ *
+ * @version	1.1	10/19/26
+ */
+
+class CodecParameters extends DBPartParameters
+{
+  public static final String Golomb = "golomb";
+  public static final String Packed = "packed";
+  // the newest version of each codec this code can read
+  public static final int Version = 1;
+
+  private String _name = Golomb;
+  private int _version = Version;
+  private boolean _skips = false;	// golomb lists with skip tables
+
+  public CodecParameters(Schema schema)
+  {
+    super(schema, "CODEC");
+  }
+
+  public boolean readState() throws Exception
+  {
+    if (parametersKnown())
+      {
+	String name = stringParameter("name");
+	int version = integerParameter("v");
+	if (!Golomb.equals(name) && !Packed.equals(name) || version > Version)
+	  throw new Exception("unsupported codec " + name + " v" + version);
+	_name = name;
+	_version = version;
+	_skips = "true".equals(stringParameter("skips"));
+	return true;
+      }
+    else
+      return false;
+  }
+
+  public void updateSchema() {
+    if (!isDefault())
+      super.updateSchema("name=" + _name + " v=" + _version
+			 + (_skips ? " skips=true" : ""));
+  }
+
+  // true for plain golomb lists, the only form of older indexes
+  public boolean isDefault() {
+    return !isPacked() && !_skips;
+  }
+
+  public String getName() {
+    return _name;
+  }
+
+  public boolean isPacked() {
+    return _name.equals(Packed);
+  }
+
+  public boolean hasSkipTables() {
+    return _skips;
+  }
+
+  // skip tables are only written in the golomb codec
+  public void setSkipTables(boolean skips) {
+    _skips = skips && !isPacked();
+  }
+
+  // the file of the document lists
+  public String getListsName() {
+    return isDefault() ? "DOCS" : "LISTS";
+  }
+
+  public void setName(String name) throws Exception
+  {
+    if (!Golomb.equals(name) && !Packed.equals(name))
+      throw new Exception("unknown codec " + name);
+    _name = name;
+    _version = Version;
+    if (isPacked())
+      _skips = false;
+  }
+}
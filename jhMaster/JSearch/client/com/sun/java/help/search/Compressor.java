@@ -148,6 +148,36 @@ class Compressor
     _buffer.close();
   }
   
+  // the packed codec of positions and labels: the count and the first
+  // position as gamma codes and the first label, then the differences
+  // in k bits with their labels in k2 bits; returns k
+  public int encodePacked(IntegerArray pos, IntegerArray len, int k2)
+  {
+    int n = pos.cardinality(), max = 0;
+    for (int i = 1; i < n; i++)
+      max |= pos.at(i);
+    int k = 0;
+    while (max >>> k != 0)
+      k++;
+    appendGamma(n);
+    appendGamma(pos.at(0) + 1);
+    _buffer.append(len.at(0), k2);
+    for (int i = 1; i < n; i++)
+      _buffer.append(pos.at(i) << k2 | len.at(i), k + k2);
+    _buffer.close();
+    return k;
+  }
+
+  // n > 0 as the count of the leading zeroes of its bits and its bits
+  private void appendGamma(int n)
+  {
+    int bits = 0;
+    while (n >>> bits != 0)
+      bits++;
+    _buffer.append(0, bits - 1);
+    _buffer.append(n, bits);
+  }
+
   // k: starting value for minimization  
   public int minimize(IntegerArray array, int startK)
   {
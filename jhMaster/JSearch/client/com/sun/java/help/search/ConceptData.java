@@ -139,12 +139,22 @@ class ConceptData
     while ((cd = cd._next) != null);
   }
 
-  public void generateFillers(RoleFiller[] array, int pos)
+  // credits the queries whose hits the concept may fill several columns of
+  public void creditOverlaps(Query[] queries)
   {
-    if (array[_query] != RoleFiller.STOP) // 'prohibited'
-      (new RoleFiller(_nColumns, this, _role, pos, pos + _proximity))
-	.use(array, _query);
-    if (_next != null)
-      _next.generateFillers(array, pos);
+    for (ConceptData cd = this; cd != null; cd = cd._next)
+      for (ConceptData other = cd._next; other != null; other = other._next)
+	if (other._query == cd._query)
+	  {
+	    queries[cd._query].addOverlapCredit(_conceptLength);
+	    break;
+	  }
+  }
+
+  public void generateFillers(RoleFillers fillers, int pos)
+  {
+    for (ConceptData cd = this; cd != null; cd = cd._next)
+      if (!fillers.isProhibited(cd._query))
+	fillers.add(cd, cd._query, cd._role, pos, pos + cd._proximity);
   }
 }
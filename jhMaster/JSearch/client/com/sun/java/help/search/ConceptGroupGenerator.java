@@ -33,7 +33,7 @@
 
 package com.sun.java.help.search;
 
-import java.io.InputStream;
+import java.nio.ByteBuffer;
 
 class ConceptGroupGenerator implements CompressorIterator
 {
@@ -44,32 +44,43 @@ class ConceptGroupGenerator implements CompressorIterator
   
   private int           _last;
   private ConceptData[] _table;
-  private Decompressor    _bits;
+  private ByteArrayDecompressor _bits;
   private int          _k1;
   private final int     _k2 = BitsInLabel;
   private ConceptData  _cData;
+  // in the packed codec _k1 is the bit width of the position differences
+  private final boolean _packed;
+  private int          _left;	// packed positions not read yet, -1: header
 
-  public ConceptGroupGenerator()
+  public ConceptGroupGenerator(boolean packed)
   {
     _k1 = 0;
     _table = new ConceptData[NConceptsInGroup];
     _last = 0;
     _bits = null;
+    _packed = packed;
   }
     
-  public ConceptGroupGenerator(byte[] bytes, int index, int k)
+  public ConceptGroupGenerator(ByteBuffer bytes, int index, int k,
+			       boolean packed)
   {
     _k1 = k;
     _table = new ConceptData[NConceptsInGroup];
     _last = 0;
+    _left = -1;
     _bits = new ByteArrayDecompressor(bytes, index);
+    _packed = packed;
   }
 
-  public void init(byte[] bytes, int index, int k)
+  public void init(ByteBuffer bytes, int index, int k)
   {
     _k1 = k;
-    _bits = new ByteArrayDecompressor(bytes, index);
+    if (_bits != null)
+      _bits.initReading(bytes, index);
+    else
+      _bits = new ByteArrayDecompressor(bytes, index);
     _last = 0;
+    _left = -1;
     for (int i = 0; i < NConceptsInGroup; i++)
       _table[i] = null;
   }
@@ -92,6 +103,8 @@ class ConceptGroupGenerator implements CompressorIterator
   
   boolean next() throws Exception
   {
+    if (_packed)
+      return nextPacked();
     try {
       while (_bits.readNext(_k1, this))
 	if ((_cData = _table[_bits.read(_k2)]) != null)
@@ -106,7 +119,37 @@ class ConceptGroupGenerator implements CompressorIterator
     }
   }
   
-  public void generateFillers(RoleFiller[] array) {
-    _cData.generateFillers(array, _last);
+  // the positions of a group in the packed codec: the count and the first
+  // position as gamma codes, the label of the first position, and then
+  // the differences and labels of the others in fields of _k1 + _k2 bits
+  private boolean nextPacked() throws Exception
+  {
+    if (_left < 0)
+      {
+	_left = readGamma() - 1;
+	_last = readGamma() - 1;
+	if ((_cData = _table[_bits.read(_k2)]) != null)
+	  return true;
+      }
+    final int width = _k1 + _k2, mask = (1 << _k2) - 1;
+    while (_left > 0)
+      {
+	_left--;
+	int field = _bits.read(width);
+	_last += field >>> _k2;
+	if ((_cData = _table[field & mask]) != null)
+	  return true;
+      }
+    return false;
+  }
+
+  private int readGamma() throws Exception
+  {
+    int n = _bits.countZeroes();
+    return 1 << n | _bits.read(n);
+  }
+
+  public void generateFillers(RoleFillers fillers) {
+    _cData.generateFillers(fillers, _last);
   }
 }
@@ -33,15 +33,33 @@
 
 package com.sun.java.help.search;
 
+import java.nio.ByteBuffer;
+
 class ConceptList implements NonnegativeIntegerGenerator, CompressorIterator
 {
+  // Lists longer than SkipThreshold documents are written in blocks of
+  // SkipInterval documents. Such lists start with the Skipped flag and a
+  // table of the last document and the offset of each block.
+  static final int SkipInterval = 128;
+  static final int SkipThreshold = 2*SkipInterval;
+  static final int Skipped = 0x80;
+
   private ByteArrayDecompressor _list;
   private byte _k;
   private int  _value = 0;
+  private final ByteBuffer _array;
+  private final int _index;
+  // skip table, null for lists without blocks
+  private IntegerArray _lastDocs = null;
+  private IntegerArray _blockOffsets = null;
+  private int _blocks;		// first byte of the first block
+  private int _block;		// the current block
 
-  public ConceptList(byte[] array, int index)
+  public ConceptList(ByteBuffer array, int index)
   {
-    _k = array[index];
+    _array = array;
+    _index = index;
+    _k = array.get(index);
     _list = new ByteArrayDecompressor(array, index + 1);
   }
   
@@ -52,10 +70,69 @@ class ConceptList implements NonnegativeIntegerGenerator, CompressorIterator
   
   public int first() throws Exception {
     _value = 0;
-    return _list.readNext(_k, this) ? _value : END;
+    if ((_array.get(_index) & Skipped) != 0)
+      {
+	if (_lastDocs == null)
+	  readSkipTable();
+	startBlock(0);
+      }
+    else
+      {
+	_list.initReading(_array, _index + 1);
+	_list.beginIteration();
+      }
+    return next();
   }
 
   public int next() throws Exception {
-    return _list.readNext(_k, this) ? _value : END;
+    while (!_list.readNext(_k, this))
+      if (_lastDocs != null && _block + 1 < _lastDocs.cardinality())
+	startBlock(_block + 1);
+      else
+	return END;
+    return _value;
+  }
+
+  public int advance(int target) throws Exception
+  {
+    if (_lastDocs != null)
+      {
+	// skip the blocks that end before target
+	int block = _block;
+	while (block + 1 < _lastDocs.cardinality() &&
+	       _lastDocs.at(block) < target)
+	  block++;
+	if (block > _block)
+	  {
+	    startBlock(block);
+	    _value = _lastDocs.at(block - 1);
+	  }
+      }
+    int document = _value;
+    while (document < target)
+      if ((document = next()) == END)
+	break;
+    return document;
+  }
+
+  private void readSkipTable() throws Exception
+  {
+    _lastDocs = new IntegerArray();
+    _blockOffsets = new IntegerArray();
+    int index = _index + 1;
+    _list.initReading(_array, index + 1);
+    _list.ascDecode(_array.get(index), _lastDocs);
+    index += 1 + _list.bytesRead();
+    _list.initReading(_array, index + 1);
+    _list.ascDecode(_array.get(index), _blockOffsets);
+    _blocks = index + 1 + _list.bytesRead();
+  }
+
+  private void startBlock(int block)
+  {
+    int index = _blocks + _blockOffsets.at(_block = block);
+    _k = _array.get(index);
+    _list.initReading(_array, index + 1);
+    _list.beginIteration();
   }
 }
@@ -62,6 +62,10 @@ public class DBPartParameters
     return Integer.parseInt(((String)_parameters.get(name)));
   }
 
+  public String stringParameter(String name) {
+    return (String)_parameters.get(name);
+  }
+
   public URL getURL() throws Exception {
     return _schema.getURL(_partName);
   }
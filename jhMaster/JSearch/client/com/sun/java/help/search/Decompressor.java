@@ -33,6 +33,10 @@
 
 package com.sun.java.help.search;
 
+// The codes are read through read(), countZeroes() and read(int),
+// which subclasses with random access to the bytes override to read
+// more than a byte at a time.
+
 abstract class Decompressor
 {
   private static final int BitsInByte = 8;
@@ -40,15 +44,17 @@ abstract class Decompressor
   
   private int _readByte;
   private int _toRead = 0;
-  private int _path = 0;
+  protected int _path = 0;
 
   abstract protected int getNextByte() throws Exception;
 
   protected void initReading() {
     _toRead = 0;
+    _path = 0;
   }
     
-  private int countZeroes() throws Exception
+  // reads up to and including the next bit "1"; returns the count of 0s
+  protected int countZeroes() throws Exception
   {
     for (int count = 0;; _readByte = getNextByte(), _toRead = BitsInByte)
       while (_toRead-- > 0)
@@ -59,7 +65,7 @@ abstract class Decompressor
   }
   
   // reads 1 bit; returns non-0 for bit "1"
-  private int read() throws Exception
+  protected int read() throws Exception
   {
     if (_toRead-- > 0)
       return _readByte & (1 << _toRead);
@@ -105,22 +111,18 @@ abstract class Decompressor
 	return true;
       }
     else
-      for (int count = 1;; _readByte = getNextByte(), _toRead = BitsInByte)
-	while (_toRead-- > 0)
-	  if ((_readByte & (1 << _toRead)) != 0)
-	    {
-	      int saved = _path;
-	      _path = ((_path >>> (k + count) << count) | read(count)) << k;
-	      if (_path != saved)
-		{
-		  it.value(_path | read(k));
-		  return true;
-		}
-	      else
-		return false;
-	    }
-	  else
-	    ++count;
+      {
+	int count = countZeroes() + 1;
+	int saved = _path;
+	_path = ((_path >>> (k + count) << count) | read(count)) << k;
+	if (_path != saved)
+	  {
+	    it.value(_path | read(k));
+	    return true;
+	  }
+	else
+	  return false;
+      }
   }
   
   public void decode(int k, IntegerArray array) throws Exception
@@ -160,26 +162,17 @@ abstract class Decompressor
   public int ascendingDecode(int k, int start, int[] array) throws Exception
   {
     int path = 0, index = 0;
-  LOOP:
     while (true)
       if (read() != 0)
 	array[index++] = (start += path | read(k));
       else
-	for (int cnt = 0;; _readByte = getNextByte(), _toRead = BitsInByte)
-	  while (_toRead-- > 0)
-	    if ((_readByte & (1 << _toRead)) != 0)
-	      {
-		++cnt;
-		int Path = ((path >>> (k + cnt) << cnt) | read(cnt)) << k;
-		if (Path != path)
-		  {
-		    array[index++] = (start += (path = Path) | read(k));
-		    continue LOOP;
-		  }
-		else
-		  return index;
-	      }
-	    else
-	      ++cnt;
+	{
+	  int cnt = countZeroes() + 1;
+	  int Path = ((path >>> (k + cnt) << cnt) | read(cnt)) << k;
+	  if (Path != path)
+	    array[index++] = (start += (path = Path) | read(k));
+	  else
+	    return index;
+	}
   }
 }
@@ -95,6 +95,26 @@ public class DefaultSearchEngine extends SearchEngine {
 	return qe;
     }
 
+    /**
+     * Adds a listener notified with the timings and counters of every
+     * query run by this engine.
+     *
+     * @param l The listener to add.
+     * @see SearchStatistics
+     */
+    public void addSearchMetricsListener(SearchMetricsListener l) {
+	qe.addSearchMetricsListener(l);
+    }
+
+    /**
+     * Removes a listener added with addSearchMetricsListener.
+     *
+     * @param l The listener to remove.
+     */
+    public void removeSearchMetricsListener(SearchMetricsListener l) {
+	qe.removeSearchMetricsListener(l);
+    }
+
     /**
      * For printf debugging.
      */
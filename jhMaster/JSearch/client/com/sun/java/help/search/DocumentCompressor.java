@@ -65,9 +65,15 @@ class DocumentCompressor
   private IntegerArray _positions = new IntegerArray();
   private IntegerArray _labels = new IntegerArray();
   private RandomAccessFile _posFile;
+  private final boolean _packed;	// the codec of the positions
 
-  public DocumentCompressor(URL url) throws Exception
+  public DocumentCompressor(URL url) throws Exception {
+    this(url, false);
+  }
+
+  public DocumentCompressor(URL url, boolean packed) throws Exception
   {
+    _packed = packed;
     URL posURL = new URL(url, "POSITIONS");
     if (isFileURL(posURL))
       {
@@ -227,10 +233,16 @@ class DocumentCompressor
 	  lastPos = locations[i].getBegin();
 	  _labels.add(locations[i].getConcept()); // now: a label
 	}
-    // first find k by minimizing just positions w/o labels
-    _kTable.add(k = _posCompressor.minimize(_positions, initK));
     _posCompressor.clear();
-    _posCompressor.encode(_positions, _labels, k, cK);
+    if (_packed)
+      _kTable.add(_posCompressor.encodePacked(_positions, _labels, cK));
+    else
+      {
+	// first find k by minimizing just positions w/o labels
+	_kTable.add(k = _posCompressor.minimize(_positions, initK));
+	_posCompressor.clear();
+	_posCompressor.encode(_positions, _labels, k, cK);
+      }
     _currentCompressor.concatenate(_posCompressor);
   }
   
@@ -0,0 +1,116 @@
+/*
+ * @(#)DocumentTable.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package com.sun.java.help.search;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+
+/**
+ * The names and titles of the documents of an index, read from the
+ * DOCUMENTS file. The file holds the name and then the title of every
+ * document in the order of OFFSETS, each as a varint byte count
+ * followed by its UTF8 bytes. The table keeps the bytes and the offset
+ * of each document and decodes the strings of the documents asked for,
+ * so a hit doesn't need lookups in the dictionary.
+ *
+ * @version	1.1	10/19/26
+ */
+
+class DocumentTable
+{
+  private final ByteBuffer _data;
+  private final int[] _offsets;	// of the name of each document
+
+  public DocumentTable(ByteBuffer data, int count) throws IOException
+  {
+    _data = data;
+    _offsets = new int[count];
+    int index = 0;
+    for (int i = 0; i < count; i++)
+      {
+	_offsets[i] = index;
+	index = skipString(skipString(index));
+	if (index > data.limit())
+	  throw new IOException("DOCUMENTS doesn't match OFFSETS");
+      }
+  }
+
+  public int getCount() {
+    return _offsets.length;
+  }
+
+  public String getName(int document) throws IOException {
+    return readString(_offsets[document]);
+  }
+
+  public String getTitle(int document) throws IOException {
+    return readString(skipString(_offsets[document]));
+  }
+
+  private int skipString(int index)
+  {
+    int length = 0;
+    for (int shift = 0;; shift += 7)
+      {
+	int b = _data.get(index++);
+	length |= (b & 0x7F) << shift;
+	if (b >= 0)
+	  return index + length;
+      }
+  }
+
+  private String readString(int index) throws IOException
+  {
+    int length = 0;
+    for (int shift = 0;; shift += 7)
+      {
+	int b = _data.get(index++);
+	length |= (b & 0x7F) << shift;
+	if (b >= 0)
+	  break;
+      }
+    byte[] bytes = new byte[length];
+    for (int i = 0; i < length; i++)
+      bytes[i] = _data.get(index++);
+    return new String(bytes, "UTF8");
+  }
+
+  /**
+   * Writes a name or a title the way the table reads it.
+   */
+  public static void writeString(DataOutput out, String string)
+    throws IOException
+  {
+    byte[] bytes = string.getBytes("UTF8");
+    int length = bytes.length;
+    for (; length >= 0x80; length >>>= 7)
+      out.write(length & 0x7F | 0x80);
+    out.write(length);
+    out.write(bytes);
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * @(#)DocumentUnion.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package com.sun.java.help.search;
+
+/**
+ * The union of the document lists of several concepts, enumerated
+ * in increasing order. Used to test documents against the required and
+ * excluded terms of a query without scoring them.
+ *
+ * @version	1.1	10/19/26
+ */
+
+class DocumentUnion implements NonnegativeIntegerGenerator
+{
+  private NonnegativeIntegerGenerator[] _lists;
+  private int[] _current;
+  private int _value = END;
+
+  public DocumentUnion(NonnegativeIntegerGenerator[] lists)
+  {
+    _lists = lists;
+    _current = new int[lists.length];
+  }
+
+  public int first() throws Exception
+  {
+    for (int i = 0; i < _lists.length; i++)
+      _current[i] = _lists[i].first();
+    return _value = minimum();
+  }
+
+  public int next() throws Exception
+  {
+    return _value == END ? END : advance(_value + 1);
+  }
+
+  public int advance(int target) throws Exception
+  {
+    if (_value == END || _value >= target)
+      return _value;
+    for (int i = 0; i < _lists.length; i++)
+      if (_current[i] != END && _current[i] < target)
+	_current[i] = _lists[i].advance(target);
+    return _value = minimum();
+  }
+
+  private int minimum()
+  {
+    int min = END;
+    for (int i = 0; i < _lists.length; i++)
+      if (_current[i] != END && (min == END || _current[i] < min))
+	min = _current[i];
+    return min;
+  }
+}
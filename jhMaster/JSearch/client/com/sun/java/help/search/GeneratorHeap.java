@@ -33,6 +33,8 @@
 
 package com.sun.java.help.search;
 
+import java.nio.ByteBuffer;
+
 class GeneratorHeap
 {
   private static final int        InitSize = 128;
@@ -40,16 +42,20 @@ class GeneratorHeap
   private ConceptGroupGenerator[] _heap;
   private int                     _size = InitSize;
   private int                     _free = 0;
+  private final boolean           _packed;
   
-  public GeneratorHeap() {
+  public GeneratorHeap(boolean packed) {
     _heap = new ConceptGroupGenerator[InitSize];
+    _packed = packed;
   }
   
   public void reset() {
     _free = 0;
   }
   
-  public void addGenerator(ConceptGroupGenerator gen)
+  // reuses the generators of earlier documents
+  public ConceptGroupGenerator addGenerator(ByteBuffer bytes, int index,
+					    int k)
   {
     if (_free == _size)
       {
@@ -58,7 +64,13 @@ class GeneratorHeap
 	System.arraycopy(_heap, 0, newArray, 0, _free);
 	_heap = newArray;
       }
-    _heap[_free++] = gen;
+    ConceptGroupGenerator gen = _heap[_free];
+    if (gen != null)
+      gen.init(bytes, index, k);
+    else
+      gen = _heap[_free] = new ConceptGroupGenerator(bytes, index, k, _packed);
+    _free++;
+    return gen;
   }
 
   private void buildHeap()
@@ -83,34 +95,39 @@ class GeneratorHeap
       }
   }
 
-  public boolean start(RoleFiller[] array) throws Exception
+  public boolean start(RoleFillers fillers) throws Exception
   {
     if ((_heapSize = _free) > 0)
       {
 	for (int i = 0; i < _free; i++)
 	  _heap[i].next();
 	buildHeap();
-	_heap[0].generateFillers(array);
+	_heap[0].generateFillers(fillers);
 	return true;
       }
     else
       return false;
   }
 
-  public boolean next(RoleFiller[] array) throws Exception
+  public boolean next(RoleFillers fillers) throws Exception
   {
     if (_heapSize > 0)
       {
 	if (!_heap[0].next()) // no more
 	  if (_heapSize > 1)
-	    _heap[0] = _heap[--_heapSize];
+	    {
+	      // keep the generator for reuse
+	      ConceptGroupGenerator done = _heap[0];
+	      _heap[0] = _heap[--_heapSize];
+	      _heap[_heapSize] = done;
+	    }
 	  else
 	    {
 	      _heapSize = 0;
 	      return false;
 	    }
 	heapify(0);
-	_heap[0].generateFillers(array);
+	_heap[0].generateFillers(fillers);
 	return true;
       }
     else
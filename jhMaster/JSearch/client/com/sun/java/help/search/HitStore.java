@@ -1,5 +1,5 @@
 /*
- * @(#)HitStore.java	1.7 06/10/30
+ * @(#)HitStore.java	1.8 06/10/30
  * 
  * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
  * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
@@ -33,242 +33,159 @@
 
 package com.sun.java.help.search;
 
-import java.util.Vector;
+// Keeps the best hits of a query.
+// The hits are held in slots of parallel arrays and a heap of slot
+// numbers keeps the worst hit on top, so that once the store is full a
+// better hit takes the slot of the worst one. The penalty of the worst
+// hit is the standard later hits and documents have to meet.
 
-class HitStoreNode
+class HitStore
 {
-  private int           _free = 0;
-  private int           _size;
-  private QueryHit[]    _array;
-  private int           _hitCount = 0;
-  private double         _divider = 0.0;
-  private double         _min = 10000000.0;
-  private double         _max = 0.0;
-  private HitStoreNode[] _children = new HitStoreNode[2]; // left & right
-  private int           _index = 0;
+  private final int      _limit;
+  private final int      _nColumns;
+  private double         _standard;
+  private int            _free = 0;
+  private boolean        _sorted = false;
+  private int            _current;
+  // hit slots
+  private final double[] _scores;
+  private final int[]    _documents;
+  private final int[]    _begins;
+  private final int[]    _ends;
+  private final int[]    _concepts; // _nColumns per hit
+  // heap of slots, worst hit first; best hit first once sorted
+  private final int[]    _heap;
 
-  public HitStoreNode(int size) {
-    _array = new QueryHit[_size = size];
-  }
-  
-  public QueryHit getNextHit() {
-    return _index < _free ? _array[_index++] : null;
-  }
-  
-  private void fastAdd(QueryHit hit)
+  public HitStore(double initialStandard, int limit, int nColumns)
   {
-    _hitCount++;
-    _divider += hit.getScore();
-    if (hit.getScore() > _max)
-      _max = hit.getScore();
-    if (hit.getScore() < _min)
-      _min = hit.getScore();
-    _array[_free++] = hit;
+    _limit = limit;
+    _nColumns = nColumns;
+    _standard = initialStandard;
+    _scores = new double[limit];
+    _documents = new int[limit];
+    _begins = new int[limit];
+    _ends = new int[limit];
+    _concepts = new int[limit*nColumns];
+    _heap = new int[limit];
   }
-
-  public boolean add(QueryHit hit)
+  
+  // returns the slot of the new hit or -1 if the hit isn't good enough
+  public int addQueryHit(double score, int document, int begin, int end)
   {
-    if (_array != null)
+    int slot;
+    if (_free < _limit)
       {
-	if (_free < _size)
-	  {
-	    fastAdd(hit);
-	    return false;
-	  }
-	else if (_min != _max)
-	  {
-	    split();
-	    _hitCount++;
-	    _children[hit.getScore() > _divider ? 1 : 0].fastAdd(hit);
-	    return true;
-	  }
-	else
-	  {
-	    QueryHit[] newArray = new QueryHit[_size *= 2];
-	    System.arraycopy(_array, 0, newArray, 0, _free);
-	    _array = newArray;
-	    fastAdd(hit);
-	    return true;
-	  }
+	slot = _heap[_free] = _free;
+	set(slot, score, document, begin, end);
+	siftUp(_free++);
       }
-    else
+    else if (_limit > 0 && worse(_heap[0], score, document, begin, end))
       {
-	_hitCount++;
-	return _children[hit.getScore() > _divider ? 1 : 0].add(hit);
+	slot = _heap[0];
+	set(slot, score, document, begin, end);
+	siftDown(0, _free);
       }
+    else
+      return -1;
+    if (_free == _limit)
+      _standard = Math.min(_standard, _scores[_heap[0]]);
+    return slot;
   }
 
-  private void split()
-  {
-    _children[0] = new HitStoreNode(_size);
-    _children[1] = new HitStoreNode(_size);
-    _divider /= _hitCount;	// becomes average
-    for (int i = 0; i < _free; i++)
-      _children[_array[i].getScore() > _divider ? 1 : 0].fastAdd(_array[i]);
-    _array = null;			// becomes internal
-  }
-  public int getCount() {
-    return _hitCount;
-  }
-  public double getDivider() {
-    return _divider;
-  }
-  public HitStoreNode getLChild() {
-    return _children[0];
-  }
-  public HitStoreNode getRChild() {
-    return _children[1];
-  }
-  public void setLChild(HitStoreNode node) {
-    _children[0] = node;
-  }
-  public void setRChild(HitStoreNode node) {
-    _children[1] = node;
-  }
-  public void decrementCount(int delta) {
-    _hitCount -= delta;
-  }
-  public boolean isLeaf() {
-    return _array != null;
-  }
-  
-  public void sort() {
-    quicksort(0, _free - 1);
+  public void setConcept(int slot, int column, int concept) {
+    _concepts[slot*_nColumns + column] = concept;
   }
 
-  public void gatherLeaves(Vector vector)
-  {
-    if (isLeaf())
-      vector.addElement(this);
-    else
-      {
-	getLChild().gatherLeaves(vector);
-	getRChild().gatherLeaves(vector);
-      }
+  public int getHitCount() {
+    return _free;
   }
   
-  // part of quicksearch
-  private int partition(int p, int r)
+  // no hits can be added once hits are taken out
+  public QueryHit firstBestQueryHit()
   {
-    QueryHit x = _array[p];
-    int i = p - 1, j = r + 1;
-    while (true)
+    if (!_sorted)
       {
-	while (x.betterThan(_array[--j]))
-	  ;
-	while (_array[++i].betterThan(x))
-	  ;
-	if (i < j)
+	// heapsort leaves the best hit first
+	for (int n = _free - 1; n > 0; n--)
 	  {
-	    QueryHit t = _array[i];
-	    _array[i] = _array[j];
-	    _array[j] = t;
+	    int t = _heap[0];
+	    _heap[0] = _heap[n];
+	    _heap[n] = t;
+	    siftDown(0, n);
 	  }
-	else
-	  return j;
+	_sorted = true;
       }
+    _current = 0;
+    return nextBestQueryHit();
   }
-
-  private void quicksort(int p, int r)
+  
+  public QueryHit nextBestQueryHit()
   {
-    if (p < r)
-      {
-	int q = partition(p, r);
-	quicksort(p, q);
-	quicksort(q + 1, r);
-      }
+    if (_current == _free)
+      return null;
+    int slot = _heap[_current++];
+    QueryHit hit = new QueryHit(_documents[slot], _begins[slot], _ends[slot],
+				_scores[slot], _nColumns);
+    System.arraycopy(_concepts, slot*_nColumns, hit.getArray(), 0,
+		     _nColumns);
+    return hit;
   }
-}
-
-
-class HitStore
-{
-  private static final int ArraySize = 128;
-  private static final int DefaultLimit = 300;
   
-  private HitStoreNode _root = new HitStoreNode(ArraySize);
-  private int           _limit;
-  private double        _standard;
-  private Vector       _leaves = null;
-  private HitStoreNode _current = null;
+  double getCurrentStandard() {
+    return _standard;
+  }
 
-  public HitStore(double initialStandard) {
-    this(initialStandard, DefaultLimit);
+  private void set(int slot, double score, int document, int begin, int end)
+  {
+    _scores[slot] = score;
+    _documents[slot] = document;
+    _begins[slot] = begin;
+    _ends[slot] = end;
   }
-  
-  public HitStore(double initialStandard, int limit)
+
+  // same order as QueryHit.betterThan, then by document
+  private boolean worse(int slot, double score, int document,
+			int begin, int end)
   {
-    _limit = limit;
-    _standard = initialStandard;
+    if (_scores[slot] > score) return true;
+    if (_scores[slot] < score) return false;
+    if (_begins[slot] > begin) return true;
+    if (_begins[slot] < begin) return false;
+    if (_ends[slot] > end) return true;
+    if (_ends[slot] < end) return false;
+    return _documents[slot] > document;
   }
-  
-  public void addQueryHit(QueryHit hit) {
-    if(_root.add(hit))
-      adapt();
+
+  private boolean worse(int slot, int other) {
+    return worse(slot, _scores[other], _documents[other], _begins[other],
+		 _ends[other]);
   }
-  
-  private HitStoreNode getNextNode()
+
+  private void siftUp(int i)
   {
-    if (_leaves.size() > 0)
+    int slot = _heap[i];
+    while (i > 0)
       {
-	HitStoreNode node = (HitStoreNode)_leaves.firstElement();
-	_leaves.removeElementAt(0);
-	node.sort();
-	return node;
+	int parent = (i - 1) >> 1;
+	if (!worse(slot, _heap[parent]))
+	  break;
+	_heap[i] = _heap[parent];
+	i = parent;
       }
-    else
-      return null;
+    _heap[i] = slot;
   }
 
-  public QueryHit firstBestQueryHit()
-  {
-    _leaves = new Vector();
-    _root.gatherLeaves(_leaves);
-    _current = getNextNode();
-    return _current.getNextHit();
-  }
-  
-  public QueryHit nextBestQueryHit()
-  {
-    QueryHit result = _current.getNextHit();
-    if (result != null)
-      return result;
-    else if ((_current = getNextNode()) != null)
-      return _current.getNextHit();
-    else
-      return null;
-  }
-  
-  double getCurrentStandard() {
-    return _standard;
-  }
-  
-  private void adapt()
+  private void siftDown(int i, int size)
   {
-    if (_root.getCount() > _limit)
-      if (!_root.isLeaf())
-	{
-	  HitStoreNode ptr = _root;
-	  // find rightmost internal
-	  while (!ptr.getRChild().isLeaf())
-	    ptr = ptr.getRChild();
-      
-	  _standard = ptr.getDivider();
-      
-	  if (ptr == _root)
-	    _root = ptr.getLChild();
-	  else
-	    {
-	      int count = ptr.getRChild().getCount();
-	      HitStoreNode ptr2 = _root;
-	      while (ptr2.getRChild() != ptr)
-		{
-		  ptr2.decrementCount(count);
-		  ptr2 = ptr2.getRChild();
-		}
-	      ptr2.setRChild(ptr.getLChild());
-	    }
-	  ptr.setLChild(null);
-	}
+    int slot = _heap[i];
+    for (int child; (child = (i << 1) + 1) < size; i = child)
+      {
+	if (child + 1 < size && worse(_heap[child + 1], _heap[child]))
+	  child++;
+	if (!worse(_heap[child], slot))
+	  break;
+	_heap[i] = _heap[child];
+      }
+    _heap[i] = slot;
   }
 }
@@ -0,0 +1,83 @@
+/*
+ * @(#)IndexSearchItem.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package com.sun.java.help.search;
+
+import java.net.URL;
+import java.net.MalformedURLException;
+import java.util.Enumeration;
+import java.util.Vector;
+import javax.help.search.SearchItem;
+
+/**
+ * A SearchItem made by a SearchEnvironment. The URL of the document is
+ * the one cached by the environment, and the concepts of the hit are
+ * looked up in the dictionary only when they are asked for.
+ *
+ * @version	1.1	10/19/26
+ */
+
+class IndexSearchItem extends SearchItem
+{
+  private final SearchEnvironment _env;
+  private final int[] _conceptIDs;
+  private final URL _url;
+  private Vector _concepts = null;
+
+  public IndexSearchItem(SearchEnvironment env, URL base, String title,
+			 String lang, String filename, URL url,
+			 double confidence, int begin, int end,
+			 int[] conceptIDs)
+  {
+    super(base, title, lang, filename, confidence, begin, end, new Vector());
+    _env = env;
+    _url = url;
+    _conceptIDs = conceptIDs;
+  }
+
+  public URL getURL() throws MalformedURLException {
+    return _url != null ? _url : super.getURL();
+  }
+
+  public synchronized Enumeration getConcepts()
+  {
+    if (_concepts == null)
+      {
+	Vector concepts = new Vector(_conceptIDs.length);
+	for (int i = 0; i < _conceptIDs.length; i++)
+	  if (_conceptIDs[i] > 0)
+	    try {
+	      concepts.addElement(_env.fetch(_conceptIDs[i]));
+	    }
+	    catch (Exception e) {
+	      System.err.println(e + " concept not translated");
+	    }
+	_concepts = concepts;
+      }
+    return _concepts.elements();
+  }
+}
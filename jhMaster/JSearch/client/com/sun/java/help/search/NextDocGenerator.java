@@ -59,6 +59,10 @@ class NextDocGenerator
     return _document = _iterator.next();
   }
   
+  public int advance(int document) throws Exception {
+    return _document = _iterator.advance(document);
+  }
+  
   public int getDocument() {
     return _document;
   }
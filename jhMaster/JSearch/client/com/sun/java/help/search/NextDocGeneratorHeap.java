@@ -84,6 +84,41 @@ class NextDocGeneratorHeap
       _nonEmpty = false;
   }
   
+  // moves all generators to their first document not less than document
+  public void skipTo(int document) throws Exception
+  {
+    while (_nonEmpty && _heap[0].getDocument() < document)
+      if (_heap[0].advance(document) != NonnegativeIntegerGenerator.END)
+	heapify(0);
+      else if (_heapSize > 1)
+	{
+	  _heap[0] = _heap[--_heapSize];
+	  heapify(0);
+	}
+      else
+	_nonEmpty = false;
+  }
+  
+  // stores the current document, role, and penalty of every term of query
+  // and returns the number of terms stored
+  public int getCurrentTerms(int query, int[] documents, int[] roles,
+			     double[] penalties)
+  {
+    int count = 0;
+    for (int i = 0; i < _heapSize; i++)
+      {
+	int document = _heap[i].getDocument();
+	for (ConceptData cd = _heap[i].getTerms(); cd != null; cd = cd.getNext())
+	  if (cd.getQuery() == query)
+	    {
+	      documents[count] = document;
+	      roles[count] = cd.getRole();
+	      penalties[count++] = cd.getPenalty();
+	    }
+      }
+    return count;
+  }
+  
   public int getDocument() {
     return _heap[0].getDocument();
   }
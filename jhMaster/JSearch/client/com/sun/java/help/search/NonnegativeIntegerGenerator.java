@@ -39,4 +39,7 @@ interface NonnegativeIntegerGenerator
 
   int first() throws Exception;
   int next() throws Exception;
+  // returns the first value not less than target, starting with the
+  // current value
+  int advance(int target) throws Exception;
 }
@@ -0,0 +1,151 @@
+/*
+ * @(#)PackedConceptList.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package com.sun.java.help.search;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The document list of a concept in the packed codec. The list starts
+ * with the number of documents and is made of blocks of BlockSize
+ * documents. A block starts with the bit width of its differences and
+ * the difference of its last document from the last document of the
+ * previous block, so blocks can be skipped without decoding them.
+ * The differences follow, packed most significant bit first.
+ * Counts and block headers are varints: 7 bits per byte, low bits first,
+ * the high bit set in all bytes but the last.
+ *
+ * @version	1.1	10/19/26
+ */
+
+class PackedConceptList implements NonnegativeIntegerGenerator
+{
+  static final int BlockSize = ConceptList.SkipInterval;
+
+  private final ByteBuffer _array;
+  private final int _index;
+  private final int[] _documents = new int[BlockSize];
+  private int _left;		// documents in the blocks not started yet
+  private int _count;		// documents in the current block
+  private int _current;		// index of the current document
+  private int _value;
+  private int _width;		// bit width of the current block
+  private int _data;		// first byte of the differences
+  private int _next;		// first byte of the next block
+  private int _previous;	// last document of the previous block
+  private int _last;		// last document of the current block
+  private boolean _decoded;
+
+  public PackedConceptList(ByteBuffer array, int index)
+  {
+    _array = array;
+    _index = index;
+  }
+
+  public int first() throws Exception
+  {
+    _next = _index;
+    _left = readVarint();
+    _last = 0;
+    _count = _current = 0;
+    _value = 0;
+    return next();
+  }
+
+  public int next() throws Exception
+  {
+    if (_current == _count)
+      if (_left > 0)
+	startBlock();
+      else
+	return END;
+    if (!_decoded)
+      decodeBlock();
+    return _value = _documents[_current++];
+  }
+
+  public int advance(int target) throws Exception
+  {
+    if (_value >= target)
+      return _value;
+    // skip the blocks that end before target without decoding them
+    while (_last < target && _left > 0)
+      startBlock();
+    if (_last < target)
+      return _value = END;
+    if (!_decoded)
+      decodeBlock();
+    while (_documents[_current] < target)
+      _current++;
+    return _value = _documents[_current++];
+  }
+
+  private void startBlock()
+  {
+    _count = Math.min(_left, BlockSize);
+    _left -= _count;
+    _current = 0;
+    _width = _array.get(_next++);
+    _previous = _last;
+    _last += readVarint();
+    _data = _next;
+    _next += (_count*_width + 7) >> 3;
+    _decoded = false;
+  }
+
+  private void decodeBlock()
+  {
+    final ByteBuffer array = _array;
+    final int[] documents = _documents;
+    final int width = _width, mask = (1 << width) - 1;
+    int index = _data, document = _previous, bits = 0;
+    long buffer = 0;
+    for (int i = 0; i < _count; i++)
+      {
+	while (bits < width)
+	  {
+	    buffer = buffer << 8 | array.get(index++) & 0xFF;
+	    bits += 8;
+	  }
+	bits -= width;
+	documents[i] = document += (int)(buffer >>> bits) & mask;
+      }
+    _decoded = true;
+  }
+
+  private int readVarint()
+  {
+    int value = 0;
+    for (int shift = 0;; shift += 7)
+      {
+	int b = _array.get(_next++);
+	value |= (b & 0x7F) << shift;
+	if (b >= 0)
+	  return value;
+      }
+  }
+}
@@ -49,10 +49,16 @@ class Query
   private final SearchEnvironment _env;
   private int                 _hitCounter;
   private boolean                 _vote;
+  private IntegerArray _phrases = new IntegerArray();
+  // the words dropped from phrases after each column and their length
+  private int[] _skippedWords;
+  private int[] _skippedLength;
+  private double _overlapCredit = 0.0;
   
   private HitStore  _store;
   
-  public Query(SearchEnvironment env, int nColumns, double[] missingPenalties)
+  public Query(SearchEnvironment env, int nColumns, double[] missingPenalties,
+	       int maxHits)
   {
     _env = env;
     _nColumns = nColumns;
@@ -62,7 +68,7 @@ class Query
     _hitCounter = 0;
     _vote = false;
     _currentStandard = (nColumns - 1) * 10.0 + 9.9999;
-    _store = new HitStore(_currentStandard);
+    _store = new HitStore(_currentStandard, maxHits, nColumns);
     for (int i = 0; i < _nColumns; i++)
       _missingPenalty[i] = missingPenalties != null
 	? missingPenalties[i]
@@ -91,9 +97,17 @@ class Query
     searchQuery.itemsFound(true, hits);
     }
 
+  public int getHitCount() {
+    return _hitCounter;
+  }
+
   public double lookupPenalty(int pattern) {
     return _penalties[pattern];
   }
+
+  public double getMissingPenalty(int role) {
+    return _missingPenalty[role];
+  }
   
   public double getOutOufOrderPenalty() {
     return 0.25;
@@ -111,12 +125,17 @@ class Query
     return penalty <= _currentStandard;
   }
   
-  public int[] getConceptArrayOfNewHit(double penalty, Location loc)
+  // returns the slot of the new hit or -1 if it isn't stored
+  public int addHit(double penalty, int doc, int begin, int end)
   {
-    QueryHit hit = new QueryHit(loc, penalty, _nColumns);
-    _store.addQueryHit(hit);
-    _hitCounter++;
-    return hit.getArray();
+    int slot = _store.addQueryHit(penalty, doc, begin, end);
+    if (slot >= 0)
+      _hitCounter++;
+    return slot;
+  }
+
+  public void setHitConcept(int slot, int column, int concept) {
+    _store.setConcept(slot, column, concept);
   }
 
   public void resetForNextDocument()
@@ -133,7 +152,58 @@ class Query
     double sum = 0.0;
     for (int i = 0; i < _nColumns; i++)
       sum += _upperboundTemplate[i];
-    return _vote = (sum <= _currentStandard);
+    return _vote = (sum - _overlapCredit <= _currentStandard);
+  }
+
+  // false if a document whose penalty is at least penalty
+  // can't be voted for
+  public boolean canVote(double penalty) {
+    return penalty - _overlapCredit <= _store.getCurrentStandard();
+  }
+
+  // an occurrence filling two columns makes the gap of its hits negative
+  // by the length of the concept
+  public void addOverlapCredit(int conceptLength) {
+    _overlapCredit += (conceptLength + 1)*getGapPenalty();
+  }
+
+  // the columns of a phrase have to be filled by consecutive words
+  public void addPhrase(int firstColumn, int lastColumn)
+  {
+    _phrases.add(firstColumn);
+    _phrases.add(lastColumn);
+  }
+
+  public int getPhraseCount() {
+    return _phrases.cardinality() / 2;
+  }
+
+  public int getPhraseStart(int phrase) {
+    return _phrases.at(2*phrase);
+  }
+
+  public int getPhraseEnd(int phrase) {
+    return _phrases.at(2*phrase + 1);
+  }
+
+  // a word of a phrase without concepts was dropped after the column
+  public void skipPhraseWord(int column, int length)
+  {
+    if (_skippedWords == null)
+      {
+	_skippedWords = new int[_nColumns];
+	_skippedLength = new int[_nColumns];
+      }
+    _skippedWords[column]++;
+    _skippedLength[column] += length;
+  }
+
+  public int getSkippedWords(int column) {
+    return _skippedWords != null ? _skippedWords[column] : 0;
+  }
+
+  public int getSkippedLength(int column) {
+    return _skippedLength != null ? _skippedLength[column] : 0;
   }
 
   public void updateEstimate(int role, double penalty) {
@@ -33,8 +33,10 @@ package com.sun.java.help.search;
 
 import java.text.BreakIterator;
 import java.util.Vector;
+import java.util.BitSet;
 import java.util.Locale;
 import java.util.Enumeration;
+import java.util.StringTokenizer;
 import java.lang.reflect.Method;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
@@ -42,6 +44,7 @@ import java.io.File;
 import java.net.URL;
 import javax.help.search.SearchQuery;
 import javax.help.HelpUtilities;
+import javax.help.event.EventListenerList;
 
 /**
  * This class is the initial interface into the search engine. It can be 
@@ -56,102 +59,465 @@ import javax.help.HelpUtilities;
 public class QueryEngine
 {
     private SearchEnvironment _env;
+    private EventListenerList _listenerList = new EventListenerList();
+
+    // the maximum number of terms a pattern is expanded to
+    private static final int MaxExpansions = 128;
+    // the maximum number of edits of a fuzzy term
+    private static final int MaxEdits = 2;
+    // the deepest descendants of a term searched
+    private static final int MaxChildDepth = 4;
+    // the most descendants of a term searched
+    private static final int MaxChildren = 256;
+    // the penalty of a descendant for each level below its term
+    private static final double ChildPenalty = 0.1;
 
     public QueryEngine(String indexDir, URL hsBase) throws Exception {
 	_env = new SearchEnvironment(indexDir, hsBase);
     }
 
+    /**
+     * Adds a listener notified with the timings and counters of every
+     * query processed.
+     */
+    public void addSearchMetricsListener(SearchMetricsListener l) {
+	_listenerList.add(SearchMetricsListener.class, l);
+    }
+
+    public void removeSearchMetricsListener(SearchMetricsListener l) {
+	_listenerList.remove(SearchMetricsListener.class, l);
+    }
+
     public void processQuery(String query, Locale l, SearchQuery searchQuery) throws Exception
     {
-	BreakIterator boundary;
-	int start;
+	SearchMetrics metrics = null;
+	if (_listenerList.getListenerCount() > 0) {
+	    metrics = new SearchMetrics(query);
+	    metrics.startCounting();
+	}
+	try {
+	    processQuery(query, l, searchQuery, metrics);
+	} finally {
+	    if (metrics != null) {
+		metrics.stopCounting();
+	    }
+	}
+	if (metrics != null) {
+	    fireQueryCompleted(metrics);
+	}
+    }
+
+    private void processQuery(String query, Locale l, SearchQuery searchQuery,
+			      SearchMetrics metrics) throws Exception
+    {
 	String term;
+	Vector excluded = new Vector();
+	IntegerArray required = new IntegerArray();
+	IntegerArray phrases = new IntegerArray();
+	IntegerArray skipped = new IntegerArray();
 	Vector ids = new Vector();;
 	LiteMorph morph = getMorphForLocale(l);
 	int col=-1;
+	long morphTime = 0;
+	long tokenize = System.currentTimeMillis();
 
 	try {
-	    boundary = BreakIterator.getWordInstance(l);
-	    boundary.setText(query);
-	    start = boundary.first();
-	    for (int end = boundary.next();
-		 end != BreakIterator.DONE;
-		 start = end, end = boundary.next()) {
-		term = new String(query.substring(start,end));
-		term = term.trim();
-		term = term.toLowerCase(l);
-		if (term.length() > 1) {
-		    col += 1;
-		    int id = _env.fetch(term);
-		    if (id > 0) {
-			ids.addElement(new SearchIds(col, id, 0.0));
+	    Vector clauses = getClauses(query, l);
+	    for (int c = 0; c < clauses.size(); c++) {
+		Clause clause = (Clause) clauses.elementAt(c);
+		if (clause.occur == Clause.EXCLUDED) {
+		    for (int t = 0; t < clause.words.size(); t++) {
+			term = (String) clause.words.elementAt(t);
+			morphTime += addTermIds(term, -1, morph, excluded);
 		    }
-		    if (morph != null) {
-			String [] morphs = morph.variantsOf(term);
-			for (int i=0; i < morphs.length ; i++) {
-			    int id2 = _env.fetch(morphs[i]);
-			    if (id2 > 0) {
-				ids.addElement(new SearchIds(col, id2, 0.1));
-			    }
-			}
+		    continue;
+		}
+		int first = col + 1;
+		boolean require = clause.occur == Clause.REQUIRED || clause.phrase;
+		Vector columnIds = new Vector();
+		for (int t = 0; t < clause.words.size(); t++) {
+		    term = (String) clause.words.elementAt(t);
+		    morphTime += addTermIds(term, col + 1, morph, columnIds);
+		    // the words of a group share a column
+		    if (clause.group && t + 1 < clause.words.size()) {
+			continue;
 		    }
-		} else if (term.length() == 1) {
-		    int charType = Character.getType(term.charAt(0));
-		    if ((charType == Character.DECIMAL_DIGIT_NUMBER) || 
-			(charType == Character.LETTER_NUMBER) || 
-			(charType == Character.LOWERCASE_LETTER) || 
-			(charType == Character.OTHER_LETTER) || 
-			(charType == Character.OTHER_NUMBER) || 
-			(charType == Character.TITLECASE_LETTER) || 
-			(charType == Character.UNASSIGNED) || 
-			(charType == Character.UPPERCASE_LETTER)) {
-			col += 1;
-			int id = _env.fetch(term);
-			if (id > 0) {
-			    ids.addElement(new SearchIds(col, id, 0.0));
-			}
-			if (morph != null) {
-			    String [] morphs = morph.variantsOf(term);
-			    for (int i=0; i < morphs.length ; i++) {
-				int id2 = _env.fetch(morphs[i]);
-				if (id2 > 0) {
-				    ids.addElement(new SearchIds(col, id2, 0.1));
-				}
-			    }
+		    if (require && columnIds.isEmpty()) {
+			// a word without concepts, e.g. a stopword, isn't
+			// required; a phrase may skip it
+			if (col >= first) {
+			    skipped.add(col);
+			    skipped.add(term.length());
 			}
+			continue;
 		    }
+		    col += 1;
+		    if (require) {
+			required.add(col);
+		    }
+		    for (int i = 0; i < columnIds.size(); i++) {
+			ids.addElement(columnIds.elementAt(i));
+		    }
+		    columnIds.removeAllElements();
+		}
+		if (clause.phrase && !clause.group && col > first) {
+		    phrases.add(first);
+		    phrases.add(col);
 		}
 	    }
 	}
 	catch (Exception e) {
 	    e.printStackTrace();
+	    if (metrics != null) {
+		metrics.setException(e);
+	    }
 	}
+	long expand = System.currentTimeMillis();
 	int size = ids.size();
 	Search search = new Search(_env, col + 1);
+	search.setMetrics(metrics);
 	IntegerArray children = new IntegerArray();
+	IntegerArray depths = new IntegerArray();
 
-	// add the terms and any children of a given term to the list of 
-	// searched items. Penalize the children slightly
+	// add the terms and their descendants to the list of searched
+	// items. Penalize the descendants by their depth
 	for (int i = 0; i < size; i++)
 	    {
 		SearchIds id = (SearchIds) ids.elementAt(i);
 		search.addTerm(id.col, id.concept, id.score, 0);
 		children.clear();
-		_env.getChildren(id.concept, children);
-		if (children.cardinality() > 0)
-		    for (int j = 0; j < children.cardinality(); j++)
-			{
-			    search.addTerm(id.col, children.at(j), 
-					   id.score + 0.1, 0);
-			    // appending (grand)+children
-			    //!!! as it is too many duplicates are added
-			    _env.getChildren(children.at(j), children);
-			}
+		depths.clear();
+		addDescendants(id.concept, MaxChildDepth, MaxChildren,
+			       children, depths);
+		for (int j = 0; j < children.cardinality(); j++) {
+		    search.addTerm(id.col, children.at(j),
+				   id.score + ChildPenalty * depths.at(j), 0);
+		}
 	    }
+	for (int i = 0; i < required.cardinality(); i++) {
+	    search.requireColumn(required.at(i));
+	}
+	for (int i = 0; i < phrases.cardinality(); i += 2) {
+	    search.addPhrase(phrases.at(i), phrases.at(i + 1));
+	}
+	for (int i = 0; i < skipped.cardinality(); i += 2) {
+	    search.skipPhraseWord(skipped.at(i), skipped.at(i + 1));
+	}
+	for (int i = 0; i < excluded.size(); i++) {
+	    SearchIds id = (SearchIds) excluded.elementAt(i);
+	    search.excludeConcept(id.concept);
+	    children.clear();
+	    depths.clear();
+	    // exclude every descendant
+	    addDescendants(id.concept, Integer.MAX_VALUE, Integer.MAX_VALUE,
+			   children, depths);
+	    for (int j = 0; j < children.cardinality(); j++) {
+		search.excludeConcept(children.at(j));
+	    }
+	}
+
+	if (metrics != null) {
+	    metrics.addTime(SearchMetrics.TOKENIZE,
+			    expand - tokenize - morphTime);
+	    metrics.addTime(SearchMetrics.MORPH, morphTime);
+	    metrics.addTime(SearchMetrics.CHILDREN,
+			    System.currentTimeMillis() - expand);
+	}
 
 	search.startSearch(searchQuery);
     }
 
+    /**
+     * Appends the descendants of a concept to concepts breadth first and
+     * their depth below the concept to depths. Every descendant is added
+     * once, at its smallest depth, even if the children form cycles.
+     * At most maxDepth levels and maxCount descendants are added.
+     */
+    private void addDescendants(int concept, int maxDepth, int maxCount,
+				IntegerArray concepts, IntegerArray depths)
+	throws Exception
+    {
+	BitSet visited = new BitSet();
+	visited.set(concept);
+	IntegerArray level = new IntegerArray();
+	IntegerArray children = new IntegerArray();
+	level.add(concept);
+	int count = 0;
+	for (int depth = 1; depth <= maxDepth && level.cardinality() > 0;
+	     depth++) {
+	    IntegerArray next = new IntegerArray();
+	    for (int i = 0; i < level.cardinality(); i++) {
+		children.clear();
+		_env.getChildren(level.at(i), children);
+		for (int j = 0; j < children.cardinality(); j++) {
+		    int child = children.at(j);
+		    if (visited.get(child)) {
+			continue;
+		    }
+		    if (count++ == maxCount) {
+			return;
+		    }
+		    visited.set(child);
+		    concepts.add(child);
+		    depths.add(depth);
+		    next.add(child);
+		}
+	    }
+	    level = next;
+	}
+    }
+
+    /**
+     * Parses a query into clauses. Without operators every term is a
+     * clause of its own. Otherwise the query is split at whitespace and
+     *
+     * <ul>
+     * <li>a word prefixed with '+' is required in the documents found
+     * <li>a word prefixed with '-' is excluded from them
+     * <li>words in double quotes are a phrase; documents have to contain
+     *     it and hits have to hold its words in order and next to each
+     *     other
+     * <li>required words and words of phrases without concepts in the
+     *     index, such as stopwords, are dropped; a phrase allows a gap
+     *     where one was
+     * <li>clauses joined by OR form a group whose terms share a column,
+     *     so any of them fills it; the first clause's prefix applies to
+     *     the whole group
+     * </ul>
+     */
+    private Vector getClauses(String query, Locale l) {
+	Vector clauses = new Vector();
+	if (!hasOperators(query)) {
+	    Vector terms = getTerms(query, l);
+	    for (int i = 0; i < terms.size(); i++) {
+		Vector words = new Vector(1);
+		words.addElement(terms.elementAt(i));
+		clauses.addElement(new Clause(Clause.NORMAL, words, false));
+	    }
+	    return clauses;
+	}
+	Clause current = null;
+	boolean or = false;
+	int i = 0, length = query.length();
+	while (true) {
+	    while (i < length && Character.isWhitespace(query.charAt(i))) {
+		i++;
+	    }
+	    if (i == length) {
+		break;
+	    }
+	    int occur = Clause.NORMAL;
+	    char c = query.charAt(i);
+	    if ((c == '+' || c == '-') && i + 1 < length &&
+		!Character.isWhitespace(query.charAt(i + 1))) {
+		occur = c == '+' ? Clause.REQUIRED : Clause.EXCLUDED;
+		c = query.charAt(++i);
+	    }
+	    String text;
+	    boolean phrase = c == '"';
+	    if (phrase) {
+		int end = query.indexOf('"', i + 1);
+		if (end == -1) {
+		    end = length;
+		}
+		text = query.substring(i + 1, end);
+		i = Math.min(end + 1, length);
+	    } else {
+		int end = i;
+		while (end < length && !Character.isWhitespace(query.charAt(end))) {
+		    end++;
+		}
+		text = query.substring(i, end);
+		i = end;
+	    }
+	    if (current != null && occur == Clause.NORMAL && !phrase &&
+		text.equals("OR")) {
+		or = true;
+		continue;
+	    }
+	    Vector words = getTerms(text, l);
+	    if (or && occur == Clause.NORMAL) {
+		for (int j = 0; j < words.size(); j++) {
+		    current.words.addElement(words.elementAt(j));
+		}
+		current.group = true;
+	    } else {
+		current = new Clause(occur, words, phrase);
+		clauses.addElement(current);
+	    }
+	    or = false;
+	}
+	return clauses;
+    }
+
+    private static boolean hasOperators(String query) {
+	if (query.indexOf('"') >= 0) {
+	    return true;
+	}
+	StringTokenizer chunks = new StringTokenizer(query);
+	while (chunks.hasMoreTokens()) {
+	    String chunk = chunks.nextToken();
+	    if (chunk.equals("OR") ||
+		(chunk.length() > 1 &&
+		 (chunk.charAt(0) == '+' || chunk.charAt(0) == '-'))) {
+		return true;
+	    }
+	}
+	return false;
+    }
+
+    /**
+     * Adds the concepts of a term and of its morphological variants.
+     * Returns the time spent finding the variants.
+     */
+    private long addTermIds(String term, int col, LiteMorph morph, Vector ids)
+	throws Exception {
+	if (isPattern(term)) {
+	    addPatternIds(term, col, ids);
+	    return 0;
+	}
+	int id = _env.fetch(term);
+	if (id > 0) {
+	    ids.addElement(new SearchIds(col, id, 0.0));
+	}
+	if (morph == null) {
+	    return 0;
+	}
+	long mark = System.currentTimeMillis();
+	String [] morphs = morph.variantsOf(term);
+	for (int i=0; i < morphs.length ; i++) {
+	    int id2 = _env.fetch(morphs[i]);
+	    if (id2 > 0) {
+		ids.addElement(new SearchIds(col, id2, 0.1));
+	    }
+	}
+	return System.currentTimeMillis() - mark;
+    }
+
+    /**
+     * Splits a query into its terms. If the index has a term trie,
+     * whitespace separated words with wildcards ('*' or '?') or ending
+     * with '~' and an optional maximum number of edits are kept whole
+     * as patterns. Everything else is split at word boundaries.
+     */
+    private Vector getTerms(String query, Locale l) {
+	Vector terms = new Vector();
+	if (!isPattern(query) || _env.getTermTrie() == null) {
+	    addWords(query, l, terms);
+	    return terms;
+	}
+	StringTokenizer chunks = new StringTokenizer(query);
+	while (chunks.hasMoreTokens()) {
+	    String chunk = chunks.nextToken();
+	    String pattern = trimPattern(chunk).toLowerCase(l);
+	    if (isPattern(pattern)) {
+		terms.addElement(pattern);
+	    } else {
+		addWords(chunk, l, terms);
+	    }
+	}
+	return terms;
+    }
+
+    private void addWords(String text, Locale l, Vector terms) {
+	BreakIterator boundary = BreakIterator.getWordInstance(l);
+	boundary.setText(text);
+	int start = boundary.first();
+	for (int end = boundary.next();
+	     end != BreakIterator.DONE;
+	     start = end, end = boundary.next()) {
+	    String term = new String(text.substring(start,end));
+	    term = term.trim();
+	    term = term.toLowerCase(l);
+	    if (term.length() > 1) {
+		terms.addElement(term);
+	    } else if (term.length() == 1) {
+		int charType = Character.getType(term.charAt(0));
+		if ((charType == Character.DECIMAL_DIGIT_NUMBER) || 
+		    (charType == Character.LETTER_NUMBER) || 
+		    (charType == Character.LOWERCASE_LETTER) || 
+		    (charType == Character.OTHER_LETTER) || 
+		    (charType == Character.OTHER_NUMBER) || 
+		    (charType == Character.TITLECASE_LETTER) || 
+		    (charType == Character.UNASSIGNED) || 
+		    (charType == Character.UPPERCASE_LETTER)) {
+		    terms.addElement(term);
+		}
+	    }
+	}
+    }
+
+    private static boolean isPattern(String term) {
+	return term.indexOf('*') >= 0 || term.indexOf('?') >= 0 ||
+	    term.indexOf('~') > 0;
+    }
+
+    // strips the punctuation around a pattern
+    // patterns without a letter or digit are reduced to nothing
+    private static String trimPattern(String chunk) {
+	int start = 0, end = chunk.length();
+	while (start < end && !isPatternChar(chunk.charAt(start))) {
+	    start++;
+	}
+	while (end > start && !isPatternChar(chunk.charAt(end - 1))) {
+	    end--;
+	}
+	for (int i = start; i < end; i++) {
+	    if (Character.isLetterOrDigit(chunk.charAt(i))) {
+		return chunk.substring(start, end);
+	    }
+	}
+	return "";
+    }
+
+    private static boolean isPatternChar(char c) {
+	return Character.isLetterOrDigit(c) || c == '*' || c == '?' || c == '~';
+    }
+
+    /**
+     * Adds the terms of the index matching a pattern. Fuzzy matches are
+     * penalized by 0.1 for every edit, wildcard matches aren't.
+     */
+    private void addPatternIds(String pattern, int col, Vector ids) {
+	TermTrie trie = _env.getTermTrie();
+	if (trie == null) {
+	    return;
+	}
+	IntegerArray matches = new IntegerArray();
+	int tilde = pattern.indexOf('~');
+	if (tilde > 0 && pattern.indexOf('*') < 0 && pattern.indexOf('?') < 0) {
+	    int maxEdits = 1;
+	    try {
+		if (tilde + 1 < pattern.length()) {
+		    maxEdits = Integer.parseInt(pattern.substring(tilde + 1));
+		}
+	    } catch (NumberFormatException e) {
+	    }
+	    maxEdits = Math.max(0, Math.min(maxEdits, MaxEdits));
+	    IntegerArray distances = new IntegerArray();
+	    trie.fuzzyMatches(pattern.substring(0, tilde), maxEdits,
+			      MaxExpansions, matches, distances);
+	    for (int i = 0; i < matches.cardinality(); i++) {
+		ids.addElement(new SearchIds(col, matches.at(i),
+					     0.1 * distances.at(i)));
+	    }
+	} else {
+	    trie.wildcardMatches(pattern, MaxExpansions, matches);
+	    for (int i = 0; i < matches.cardinality(); i++) {
+		ids.addElement(new SearchIds(col, matches.at(i), 0.0));
+	    }
+	}
+    }
+
+    private void fireQueryCompleted(SearchMetrics metrics) {
+	Object[] listeners = _listenerList.getListenerList();
+	for (int i = listeners.length - 2; i >= 0; i -= 2) {
+	    if (listeners[i] == SearchMetricsListener.class) {
+		((SearchMetricsListener)listeners[i+1]).queryCompleted(metrics);
+	    }
+	}
+    }
+
     private LiteMorph getMorphForLocale(Locale l) {
 	// In the event that nolocale has been defined try English
 	if (l == null) {
@@ -217,6 +583,23 @@ public class QueryEngine
 	}
     }
 
+    private static class Clause {
+	static final int NORMAL = 0;
+	static final int REQUIRED = 1;
+	static final int EXCLUDED = 2;
+
+	int occur;
+	Vector words;
+	boolean phrase;
+	boolean group = false;
+
+	Clause(int occur, Vector words, boolean phrase) {
+	    this.occur = occur;
+	    this.words = words;
+	    this.phrase = phrase;
+	}
+    }
+
     private class SearchIds {
 	public int col;
 	public int concept;
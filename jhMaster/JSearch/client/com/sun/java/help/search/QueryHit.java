@@ -41,12 +41,12 @@ class QueryHit
   private double _score;
   private final int[] _concepts;
 
-  public QueryHit(Location loc, double penalty, int nColumns)
+  public QueryHit(int doc, int begin, int end, double penalty, int nColumns)
   {
     _score = penalty;
-    _doc = loc.getDocument();
-    _begin = loc.getBegin();
-    _end = loc.getEnd();
+    _doc = doc;
+    _begin = begin;
+    _end = end;
     _concepts = new int[nColumns];
   }
   
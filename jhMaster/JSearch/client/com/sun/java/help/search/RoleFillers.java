@@ -0,0 +1,275 @@
+/*
+ * @(#)RoleFillers.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package com.sun.java.help.search;
+
+// The role fillers of the document being scored.
+// A filler is an occurrence of a query concept; it fixes its role and
+// gathers the fillers of other roles found within its limit into a hit.
+// Fillers are kept in parallel arrays reused from document to document
+// and the fillers of each query are linked, latest first.
+
+class RoleFillers
+{
+  private static final int InitSize = 256;
+  // list heads
+  private static final int Empty = -1;
+  private static final int Stop = -2;	// 'prohibited'
+  // the most characters between the words of a phrase
+  private static final int MaxPhraseGap = 2;
+
+  private final int     _nColumns;
+  private final int[]   _heads;
+  private int           _size = InitSize;
+  private int           _free = 0;
+  private ConceptData[] _conceptData = new ConceptData[InitSize];
+  private byte[]        _fixedRole = new byte[InitSize];
+  private short[]       _filled = new short[InitSize];
+  private int[]         _begin = new int[InitSize];
+  private int[]         _end = new int[InitSize];
+  private int[]         _limit = new int[InitSize];
+  private int[]         _next = new int[InitSize];
+  private int[]         _fillers;	// _nColumns per filler
+
+  public RoleFillers(int nQueries, int nColumns)
+  {
+    _nColumns = nColumns;
+    _heads = new int[nQueries];
+    _fillers = new int[InitSize*nColumns];
+  }
+
+  // drops the fillers of the previous document
+  public void startDocument()
+  {
+    _free = 0;
+    for (int i = 0; i < _heads.length; i++)
+      _heads[i] = Empty;
+  }
+
+  // the query voted against the document
+  public void prohibit(int query) {
+    _heads[query] = Stop;
+  }
+
+  public boolean isProhibited(int query) {
+    return _heads[query] == Stop;
+  }
+
+  public void add(ConceptData first, int query, int role, int pos, int limit)
+  {
+    if (_free == _size)
+      grow();
+    int filler = _free++;
+    _conceptData[filler] = first;
+    _fixedRole[filler] = (byte)role; // primary/constitutive concept/role
+    _filled[filler] = (short)(1 << role);
+    _begin[filler] = pos;		// offset in file
+    _end[filler] = pos + first.getConceptLength();
+    _limit[filler] = limit;
+    _next[filler] = Empty;
+    _fillers[filler*_nColumns + role] = filler;
+    use(filler, query);
+  }
+
+  private void grow()
+  {
+    int size = _size*2;
+    ConceptData[] conceptData = new ConceptData[size];
+    System.arraycopy(_conceptData, 0, conceptData, 0, _free);
+    _conceptData = conceptData;
+    byte[] fixedRole = new byte[size];
+    System.arraycopy(_fixedRole, 0, fixedRole, 0, _free);
+    _fixedRole = fixedRole;
+    short[] filled = new short[size];
+    System.arraycopy(_filled, 0, filled, 0, _free);
+    _filled = filled;
+    _begin = grow(_begin, size);
+    _end = grow(_end, size);
+    _limit = grow(_limit, size);
+    _next = grow(_next, size);
+    int[] fillers = new int[size*_nColumns];
+    System.arraycopy(_fillers, 0, fillers, 0, _free*_nColumns);
+    _fillers = fillers;
+    _size = size;
+  }
+
+  private int[] grow(int[] array, int size)
+  {
+    int[] newArray = new int[size];
+    System.arraycopy(array, 0, newArray, 0, _free);
+    return newArray;
+  }
+
+  private void use(int filler, int query)
+  {
+    int rf = _heads[query];
+    _heads[query] = filler;
+    if (rf != Empty)
+      {
+	int role = _fixedRole[filler];
+	_next[filler] = rf;
+	while (_limit[rf] >= _begin[filler])
+	  {
+	    // check if we can grow/improve a hit
+	    // we don't ever replace filler's fixed role
+	    if (role != _fixedRole[rf])
+	      {
+		if ((_filled[rf] & (1 << role)) == 0) // not filled yet
+		  {
+		    _filled[rf] |= 1 << role;
+		    _fillers[rf*_nColumns + role] = filler;
+		    _end[rf] = _end[filler];
+		  }
+		else
+		  considerReplacement(rf, filler);
+	      }
+	      
+	    if ((rf = _next[rf]) == Empty)
+	      return;
+	  }
+      }
+  }
+  
+  private void considerReplacement(int filler, int replacement)
+  {
+    // !!! simplistic for now
+    // needs gap and out of order
+    int index = filler*_nColumns + _fixedRole[replacement];
+    if (_conceptData[replacement].getScore() >
+	_conceptData[_fillers[index]].getScore())
+      _fillers[index] = replacement;
+  }
+
+  private void makeQueryHit(Query q, int nColumns, int filler, int doc,
+			    double penalty)
+  {
+    if (q.goodEnough(penalty))
+      {
+	int slot = q.addHit(penalty, doc, _begin[filler], _end[filler]);
+	if (slot < 0)
+	  return;
+	int filled = _filled[filler], base = filler*_nColumns;
+	for (int i = 0; i < nColumns; i++)
+	  q.setHitConcept(slot, i, (filled & 1 << i) != 0
+			  ? _conceptData[_fillers[base + i]].getConcept()
+			  : 0);
+      }
+  }
+
+  private double penalty(Query query, int nColumns, int filler)
+  {
+    // a hit has to hold every phrase of the query
+    if (query.getPhraseCount() > 0 && !holdsPhrases(query, filler))
+      return Double.POSITIVE_INFINITY;
+    int filled = _filled[filler], base = filler*_nColumns;
+    int length = _end[filler] - _begin[filler] + 1;
+    double penalty = query.lookupPenalty(filled);
+    // !!! here is a chance to check against query if hit worth scoring further
+    // might not be if query already has lots of good hits
+    for (int i = 0; i < nColumns; i++)
+      if ((filled & (1 << i)) != 0)
+	{
+	  ConceptData cd = _conceptData[_fillers[base + i]];
+	  penalty += cd.getPenalty();
+	  length -= cd.getConceptLength() + 1;
+	  if ((filled >> (i + 1)) != 0)
+	    for (int j = i + 1; j < nColumns; j++)
+	      if ((filled & 1 << j) != 0
+		  && _begin[_fillers[base + j]] < _begin[filler])
+		penalty += query.getOutOufOrderPenalty();
+	}
+    return penalty + length*query.getGapPenalty();
+  }
+  
+  private boolean holdsPhrases(Query query, int filler)
+  {
+    int filled = _filled[filler], base = filler*_nColumns;
+    for (int i = 0; i < query.getPhraseCount(); i++)
+      {
+	int start = query.getPhraseStart(i), end = query.getPhraseEnd(i);
+	for (int j = start; j <= end; j++)
+	  if ((filled & 1 << j) == 0)
+	    return false;
+	for (int j = start; j < end; j++)
+	  {
+	    int word = _fillers[base + j], next = _fillers[base + j + 1];
+	    if (_begin[next] <= _begin[word])
+	      return false;
+	    // a dropped word takes its length and a gap of its own
+	    int gap = MaxPhraseGap*(1 + query.getSkippedWords(j))
+	      + query.getSkippedLength(j);
+	    if (_begin[next] - _begin[word]
+		     - _conceptData[word].getConceptLength() > gap)
+	      return false;
+	  }
+      }
+    return true;
+  }
+
+  public void scoreLists(Query[] queries, int document)
+  {
+    for (int i = 0; i < _heads.length; i++)
+      if (_heads[i] >= 0 && queries[i] != null)
+	scoreList(queries[i], _heads[i], document);
+  }
+
+  private void scoreList(Query query, int head, int document)
+  {
+    int nColumns = query.getNColumns();
+    int candidateHit = head; // function called for the head of list
+    int next;			// lookahead: if overlap, if so, is it better
+
+    // 'candidateHit' always points at the current candidate to be converted to a QueryHit
+    // 'penalty' is its penalty
+    // 'next' is used to explore earlier overlapping fillers
+    // the decision to emit a QueryHit is made when either there's no next
+    // or next doesn't overlap the current candidate
+    // the loop's logic makes sure that at emit time there's no better/earlier filler
+    // to overlap with the candidate
+
+    double penalty = penalty(query, nColumns, candidateHit);
+  
+    for (next = _next[candidateHit]; next != Empty; next = _next[next])
+      if (_end[next] < _begin[candidateHit]) // no overlap
+	{
+	  makeQueryHit(query, nColumns, candidateHit, document, penalty);
+	  candidateHit = next;
+	  penalty = penalty(query, nColumns, candidateHit);
+	}
+      else
+	{
+	  // !!! can be computed in two steps
+	  double penalty2 = penalty(query, nColumns, next);
+	  if (penalty2 <= penalty)	// prefer next, disregard candidateHit
+	    {
+	      penalty = penalty2;
+	      candidateHit = next;
+	    }
+	}
+    makeQueryHit(query, nColumns, candidateHit, document, penalty);
+  }
+}
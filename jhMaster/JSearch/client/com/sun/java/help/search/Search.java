@@ -34,6 +34,8 @@
 package com.sun.java.help.search;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.Vector;
 import javax.help.search.SearchQuery;
 
 class Search
@@ -44,7 +46,7 @@ class Search
   private int _max;
   private int _nConcepts;
   private int _nQueries;
-  private ConceptGroupGenerator _firstGenerator = new ConceptGroupGenerator();
+  private ConceptGroupGenerator _firstGenerator;
   private int[] _concepts = new int[DocumentCompressor.NConceptsInGroup];
   private int _free2;
   private int _size2;
@@ -52,9 +54,11 @@ class Search
   private int _limit = 0;
   private Query[] _query;
   private ConceptData[] _conceptData;
-  private GeneratorHeap _genHeap = new GeneratorHeap();
+  private GeneratorHeap _genHeap;
+  private ByteArrayDecompressor _tableDecompressor =
+    new ByteArrayDecompressor();
   private int _document;
-  private byte[] _data = null;
+  private ByteBuffer _data = null;
   private int _base = 0;	// index into _data
   private NextDocGeneratorHeap _nextDocGenHeap = new NextDocGeneratorHeap();
   private IntegerArray _kTable = new IntegerArray();
@@ -64,10 +68,24 @@ class Search
   private IntegerArray _docConcepts = new IntegerArray();
   private IntegerArray _queryMasks = new IntegerArray();
   private int _maxHitsToShow = 100;
+  private SearchMetrics _metrics = null;
+  private int _documentsScanned = 0;
+  private int[] _termDocuments;
+  private int[] _termRoles;
+  private double[] _termPenalties;
+  private double[] _rolePenalties;
+  private double[] _worstPenalties;
+  private IntegerArray _requiredColumns = new IntegerArray();
+  private IntegerArray _excludedConcepts = new IntegerArray();
+  private DocumentUnion[] _required;
+  private DocumentUnion _excluded;
+  private boolean _filtering;
 
   public Search(SearchEnvironment se, int nColumns)
   {
     _env = se;
+    _firstGenerator = new ConceptGroupGenerator(se.isPacked());
+    _genHeap = new GeneratorHeap(se.isPacked());
     _nQueries = 1;
     _query = new Query[_nQueries];
 
@@ -75,7 +93,7 @@ class Search
     _free2 = 0;
     _conceptData = new ConceptData[_size2];
 
-    _query[0] = new Query(se, nColumns, null);
+    _query[0] = new Query(se, nColumns, null, _maxHitsToShow);
     /*
       _query[1] = new Query(se, 3, null);
       _query[2] = new Query(se, 3, null);
@@ -99,10 +117,48 @@ class Search
       }
   }
   
+  /**
+   * Only documents with a concept of the column are searched.
+   */
+  public void requireColumn(int col) {
+    _requiredColumns.add(col);
+  }
+
+  /**
+   * Documents with the concept aren't searched.
+   */
+  public void excludeConcept(int concept) {
+    _excludedConcepts.add(concept);
+  }
+
+  /**
+   * Hits have to fill the columns from firstCol to lastCol
+   * with consecutive words.
+   */
+  public void addPhrase(int firstCol, int lastCol) {
+    _query[0].addPhrase(firstCol, lastCol);
+  }
+
+  /**
+   * A word of the given length was dropped from a phrase after column
+   * col; its words may be that much further apart.
+   */
+  public void skipPhraseWord(int col, int length) {
+    _query[0].skipPhraseWord(col, length);
+  }
+
+  /**
+   * Sets the metrics the phases of the search are recorded in.
+   */
+  public void setMetrics(SearchMetrics metrics) {
+    _metrics = metrics;
+  }
+
   public void startSearch(SearchQuery searchQuery)
   {
     //  fprintf(stderr, "startSearch: setup\n");
     int i, j;
+    long start = System.currentTimeMillis();
     // set up ConceptData lists
     // order search terms
     quicksort(0, _free2 - 1);
@@ -125,15 +181,11 @@ class Search
 	  else
 	    i = j;
     // densify
-    for (i = 0; i < _free2 - 1; i++)
-      if (_conceptData[i] == null)
-	for (j = i + 1; j < _free2; j++)
-	  if (_conceptData[j] != null)
-	    {
-	      _conceptData[i] = _conceptData[j];
-	      _conceptData[j] = null;
-	      break;
-	    }
+    for (i = j = 0; j < _free2; j++)
+      if (_conceptData[j] != null)
+	_conceptData[i++] = _conceptData[j];
+    for (j = i; j < _free2; j++)
+      _conceptData[j] = null;
     // set up new document generators
     _nextDocGenHeap.reset();
     for (i = 0; i < _free2 && _conceptData[i] != null; i++)
@@ -146,6 +198,7 @@ class Search
 	      _conceptData[i].
 		setConceptLength(_env.
 				 getConceptLength(_conceptData[i].getConcept()));
+	      _conceptData[i].creditOverlaps(_query);
 	      _nextDocGenHeap.addGenerator(gen);
 	    }
 	}
@@ -153,53 +206,72 @@ class Search
 	  e.printStackTrace();
 	}
       }
+    int nTerms = i;
+    prepareSkipping(nTerms);
     _nextDocGenHeap.start(); 
+    try {
+      prepareFilter(nTerms);
+    }
+    catch (Exception e) {
+      e.printStackTrace();
+    }
+    long scoring = System.currentTimeMillis();
     searchDocument();
+    long materialize = System.currentTimeMillis();
     if (searchQuery == null) {
 	printResults(_maxHitsToShow);
     } else {
 	_query[0].makeEvent(_maxHitsToShow, searchQuery);
     }
+    if (_metrics != null)
+      {
+	_metrics.addTime(SearchMetrics.SETUP, scoring - start);
+	_metrics.addTime(SearchMetrics.SCORING, materialize - scoring);
+	_metrics.addTime(SearchMetrics.MATERIALIZE,
+			 System.currentTimeMillis() - materialize);
+	_metrics.setTermCount(nTerms);
+	_metrics.setDocumentsScanned(_documentsScanned);
+	_metrics.setHitsStored(_query[0].getHitCount());
+      }
   }
 
   private void searchDocument()
   {
-    RoleFiller[] start = new RoleFiller[_nQueries];
+    int nColumns = 0;
+    for (int i = 0; i < _nQueries; i++)
+      if (_query[i] != null && _query[i].getNColumns() > nColumns)
+	nColumns = _query[i].getNColumns();
+    RoleFillers fillers = new RoleFillers(_nQueries, nColumns);
     do {
       try {
-	switch (nextDocument(start))
+	switch (nextDocument(fillers))
 	  {
 	  case 0:		// multi group
-	    _genHeap.start(start);
-	    while (_genHeap.next(start))
+	    _genHeap.start(fillers);
+	    while (_genHeap.next(fillers))
 	      ;
 	    break;
 	    
 	  case 1:		// single group
 	    if (_firstGenerator.next())
 	      {
-		_firstGenerator.generateFillers(start);
+		_firstGenerator.generateFillers(fillers);
 		while (_firstGenerator.next())
-		  _firstGenerator.generateFillers(start);
+		  _firstGenerator.generateFillers(fillers);
 	      }
 	    break;
 	    
 	  case 2:		// reached the end
 	    return;
 	  }
+	_documentsScanned++;
       }
       catch (Exception e) {
 	e.printStackTrace(System.err);
 	continue;
       }
       
-      for (int i = 0; i < _nQueries; i++)
-	{
-	  RoleFiller next;
-	  if ((next = start[i]) != null && next != RoleFiller.STOP)
-	    next.scoreList(_query[i], _document);
-	  
-	}
+      fillers.scoreLists(_query, _document);
       _genHeap.reset();
     }
     while (_nextDocGenHeap.isNonEmpty());
@@ -251,14 +323,13 @@ class Search
   
     // initialize generator
     ConceptGroupGenerator gen =
-      new ConceptGroupGenerator(_data, index, _kTable.at(2*group + 1));
+      _genHeap.addGenerator(_data, index, _kTable.at(2*group + 1));
     // decode concept table
     _nConcepts = gen.decodeConcepts(_kTable.at(2*group), shift, _concepts);
     if (group < _limit)
       _max = _concepts[_nConcepts] = _maxConcepts.at(group);
     else
       _max = _concepts[_nConcepts - 1];
-    _genHeap.addGenerator(gen);
     _startingIndex = 0;		// in _concepts; lower search index
     return gen;
   }
@@ -266,16 +337,15 @@ class Search
   // returns true if multigroup
   private boolean openDocumentIndex(int docID) throws Exception
   {
-      // The data is only the data for this document id. Thus the base is set
-      // to zero.
+      // The data of this document id starts at the position of the buffer.
     _data = _env.getPositions(docID);
-    _base = 0;
+    _base = _data.position();
     _startingIndex = 0;
-    int kk = _data[_base] & 0xFF, k2;
+    int kk = _data.get(_base) & 0xFF, k2;
     switch (kk >> 6)		// get type
       {
       case 0:			// single group, no extents
-	k2 = _data[_base + 1];
+	k2 = _data.get(_base + 1);
 	_firstGenerator.init(_data, _base += 2, k2);
 	// decode concept table
 	_nConcepts = _firstGenerator.decodeConcepts(kk & 0x3F, 0, _concepts);
@@ -285,8 +355,8 @@ class Search
 	_kTable.clear();
 	_offsets.clear();
 	_maxConcepts.clear();
-	ByteArrayDecompressor compr =
-	  new ByteArrayDecompressor(_data, _base + 1);
+	ByteArrayDecompressor compr = _tableDecompressor;
+	compr.initReading(_data, _base + 1);
 	compr.decode(kk & 0x3F, _kTable);
 	compr.ascDecode(_kTable.popLast(), _offsets);
 	compr.ascDecode(_kTable.popLast(), _maxConcepts);
@@ -301,10 +371,187 @@ class Search
     return false;
   }
 
-  private int nextDocument(RoleFiller[] start) throws Exception
+  // Sets up the document lists of the required and excluded concepts
+  private void prepareFilter(int nTerms) throws Exception
+  {
+    _required = new DocumentUnion[_requiredColumns.cardinality()];
+    for (int i = 0; i < _required.length; i++)
+      {
+	int col = _requiredColumns.at(i);
+	IntegerArray concepts = new IntegerArray();
+	for (int j = 0; j < nTerms; j++)
+	  for (ConceptData cd = _conceptData[j]; cd != null; cd = cd.getNext())
+	    if (cd.getQuery() == 0 && cd.getRole() == col)
+	      concepts.add(cd.getConcept());
+	_required[i] = makeUnion(concepts);
+	if (_required[i].first() == NonnegativeIntegerGenerator.END)
+	  _nextDocGenHeap.reset();	// nothing can match
+      }
+    _excluded = null;
+    if (_excludedConcepts.cardinality() > 0)
+      {
+	_excluded = makeUnion(_excludedConcepts);
+	_excluded.first();
+      }
+    _filtering = _required.length > 0 || _excluded != null;
+  }
+
+  private DocumentUnion makeUnion(IntegerArray concepts)
+  {
+    Vector lists = new Vector();
+    for (int i = 0; i < concepts.cardinality(); i++)
+      {
+	NonnegativeIntegerGenerator list =
+	  _env.getDocumentIterator(concepts.at(i));
+	if (list != null)
+	  lists.addElement(list);
+      }
+    NonnegativeIntegerGenerator[] array =
+      new NonnegativeIntegerGenerator[lists.size()];
+    lists.copyInto(array);
+    return new DocumentUnion(array);
+  }
+
+  // Skips the documents without a required concept or with an excluded
+  // one. Returns false if no document is left.
+  private boolean filterDocuments() throws Exception
+  {
+    while (_nextDocGenHeap.isNonEmpty())
+      {
+	int document = _nextDocGenHeap.getDocument();
+	int target = document;
+	for (int i = 0; i < _required.length; i++)
+	  {
+	    int next = _required[i].advance(document);
+	    if (next == NonnegativeIntegerGenerator.END)
+	      return false;
+	    if (next > target)
+	      target = next;
+	  }
+	if (target == document && _excluded != null
+	    && _excluded.advance(document) == document)
+	  target = document + 1;
+	if (target == document)
+	  return true;
+	_nextDocGenHeap.skipTo(target);
+      }
+    return false;
+  }
+
+  // Finds the penalty of the worst term of each role of the first query
+  private void prepareSkipping(int nTerms)
+  {
+    Query query = _query[0];
+    int nColumns = query.getNColumns();
+    int count = 0;
+    _rolePenalties = new double[nColumns];
+    _worstPenalties = new double[nColumns];
+    for (int i = 0; i < nColumns; i++)
+      _worstPenalties[i] = -1.0;
+    for (int i = 0; i < nTerms; i++)
+      for (ConceptData cd = _conceptData[i]; cd != null; cd = cd.getNext())
+	if (cd.getQuery() == 0)
+	  {
+	    count++;
+	    if (cd.getPenalty() > _worstPenalties[cd.getRole()])
+	      _worstPenalties[cd.getRole()] = cd.getPenalty();
+	  }
+    _termDocuments = new int[count];
+    _termRoles = new int[count];
+    _termPenalties = new double[count];
+  }
+
+  // Skips the documents whose best possible penalty is too high for them
+  // to be voted for. The penalty of a document is bounded by the penalties
+  // of the terms whose lists are at or before it; when the lists are skip
+  // indexed whole blocks of them are passed over undecoded.
+  // Returns false if no remaining document can be voted for.
+  private boolean skipDocuments() throws Exception
+  {
+    Query query = _query[0];
+    int nColumns = query.getNColumns();
+    // nothing to skip while any term on its own can be voted for
+    int i;
+    for (i = 0; i < nColumns; i++)
+      if (_worstPenalties[i] >= 0.0
+	  && !query.canVote(query.lookupPenalty(1 << i) + _worstPenalties[i]))
+	break;
+    if (i == nColumns)
+      return true;
+    while (_nextDocGenHeap.isNonEmpty())
+      {
+	int count = _nextDocGenHeap.getCurrentTerms(0, _termDocuments,
+						    _termRoles,
+						    _termPenalties);
+	sortTerms(count);
+	for (i = 0; i < nColumns; i++)
+	  _rolePenalties[i] = query.getMissingPenalty(i);
+	// the lowest document whose penalty bound is good enough
+	int pivot = Integer.MAX_VALUE;
+	for (i = 0; i < count; i++)
+	  {
+	    int role = _termRoles[i];
+	    if (_termPenalties[i] < _rolePenalties[role])
+	      _rolePenalties[role] = _termPenalties[i];
+	    if (i + 1 < count && _termDocuments[i + 1] == _termDocuments[i])
+	      continue;
+	    // summed as in Query.vote
+	    double sum = 0.0;
+	    for (int j = 0; j < nColumns; j++)
+	      sum += _rolePenalties[j];
+	    if (query.canVote(sum))
+	      {
+		pivot = _termDocuments[i];
+		break;
+	      }
+	  }
+	if (pivot == Integer.MAX_VALUE)
+	  return false;
+	if (pivot <= _nextDocGenHeap.getDocument())
+	  return true;
+	_nextDocGenHeap.skipTo(pivot);
+      }
+    return true;
+  }
+
+  // orders the current terms by document
+  private void sortTerms(int count)
+  {
+    for (int i = 1; i < count; i++)
+      {
+	int document = _termDocuments[i];
+	int role = _termRoles[i];
+	double penalty = _termPenalties[i];
+	int j = i;
+	for ( ; j > 0 && _termDocuments[j - 1] > document; j--)
+	  {
+	    _termDocuments[j] = _termDocuments[j - 1];
+	    _termRoles[j] = _termRoles[j - 1];
+	    _termPenalties[j] = _termPenalties[j - 1];
+	  }
+	_termDocuments[j] = document;
+	_termRoles[j] = role;
+	_termPenalties[j] = penalty;
+      }
+  }
+
+  private int nextDocument(RoleFillers fillers) throws Exception
   {
     while (_nextDocGenHeap.isNonEmpty())		// still something to do
       {
+	// leapfrog over documents a single query won't vote for
+	// and the documents the query's operators rule out
+	int document;
+	do {
+	  if (_nQueries == 1 && !skipDocuments())
+	    return 2;
+	  if (!_nextDocGenHeap.isNonEmpty())
+	    return 2;
+	  document = _nextDocGenHeap.getDocument();
+	  if (_filtering && !filterDocuments())
+	    return 2;
+	}
+	while (_nextDocGenHeap.getDocument() != document);
 	for (int i = 0; i < _nQueries; i++)
 	  if (_query[i] != null)
 	    _query[i].resetForNextDocument();
@@ -329,15 +576,13 @@ class Search
 	// and, with more care, creation of some GroupGenerators can be avoided
 	// saturating queries with lots of good hits will lead to best results
 	int voteMask = 0;
+	fillers.startDocument();
 	for (int i = 0; i < _nQueries; i++)
 	  if (_query[i] != null)
 	    if (_query[i].vote())
-	      {
-		start[i] = null;	// normal reset
-		voteMask |= 1 << i;
-	      }
+	      voteMask |= 1 << i;
 	    else
-	      start[i] = RoleFiller.STOP;	// prohibit setting
+	      fillers.prohibit(i);	// prohibit setting
       
 	// we may eliminate some ConceptGroupGenerators
 	// those which would be used only by Queries which voted NO
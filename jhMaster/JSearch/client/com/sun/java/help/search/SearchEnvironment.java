@@ -33,9 +33,11 @@ package com.sun.java.help.search;
 
 import javax.help.search.SearchItem;
 import java.io.*;
-import java.util.Vector;		// consider removal
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.net.URL;
 import java.net.URLConnection;
+import java.net.URISyntaxException;
 import java.net.MalformedURLException;
 import java.util.Locale;
 import java.awt.datatransfer.DataFlavor;
@@ -52,19 +54,28 @@ import java.lang.reflect.Method;
 class SearchEnvironment {
   private IntegerArray concepts;
   private IntegerArray offsets;
-  private byte[]       allLists;
+  private ByteBuffer   allLists;
+  private boolean      packed = false;	// the codec of DOCS and POSITIONS
 
   private IntegerArray concepts3;
   private IntegerArray offsets3;
-  private byte[]       allChildren;
+  private ByteBuffer   allChildren;
 
   
   private IntegerArray documents;
   private IntegerArray offsets2;
   private IntegerArray titles;
+  private DocumentTable documentTable = null;	// null for older indexes
+  private URL[]        documentURLs;		// cached by makeItem
+  private String       lang;
 
+  // POSITIONS is mapped for file URLs and read through a RAFFile otherwise
+  private ByteBuffer positionsBuffer = null;
   private RAFFile positionsFile = null;
-  private byte[]  positions;
+
+  // term trie, read on first use; absent in older indexes
+  private boolean      termsRead = false;
+  private TermTrie     terms = null;
   
   private ByteArrayDecompressor compr;
   
@@ -79,37 +90,65 @@ class SearchEnvironment {
     this.indexDir = indexDir;
 
     readFromDB();
-    compr = new ByteArrayDecompressor(null, 0);
+    compr = new ByteArrayDecompressor();
+    documentURLs = new URL[documents.cardinality()];
+    lang = Locale.getDefault().toString();
   }
 
-  public int fetch(String conceptName) throws Exception {
+  // the dictionary is also read by the items translating their concepts
+  public synchronized int fetch(String conceptName) throws Exception {
     return tmap.fetch(conceptName);
   }
   
-  public String fetch(int conceptID) throws Exception {
+  public synchronized String fetch(int conceptID) throws Exception {
     return tmap.fetch(conceptID);
   }
   
+  /**
+   * Makes the SearchItem of a hit. The name and the title of the
+   * document come from the DOCUMENTS table and its URL is resolved
+   * once; the concepts are translated when the item is asked for them.
+   */
   public SearchItem makeItem(QueryHit hit) throws Exception
   {
-    Vector concepts = new Vector();
-    int[] conceptIDs = hit.getArray();
-    for (int i = 0; i < conceptIDs.length; i++) {
-      if (conceptIDs[i] > 0) {
-	concepts.addElement(fetch(conceptIDs[i]));
+    int document = hit.getDocument();
+    String name = documentName(document);
+    String title = documentTitle(document);
+    return new IndexSearchItem(this,
+			       this.base,
+			       title,
+			       lang,
+			       name,
+			       documentURL(document, name),
+			       hit.getScore(),
+			       hit.getBegin(),
+			       hit.getEnd(),
+			       hit.getArray());
+  }
+
+  private String documentName(int document) throws Exception {
+    return documentTable != null
+      ? documentTable.getName(document)
+      : fetch(documents.at(document));
+  }
+
+  private String documentTitle(int document) throws Exception {
+    // an untitled document has no entry in TMAP either
+    return documentTable != null && titles.at(document) != 0
+      ? documentTable.getTitle(document)
+      : fetch(titles.at(document));
+  }
+
+  // null if the name can't be resolved, SearchItem reports it
+  private synchronized URL documentURL(int document, String name) {
+    if (documentURLs[document] == null) {
+      try {
+	documentURLs[document] = new URL(base, name);
+      } catch (MalformedURLException e) {
+	return null;
       }
     }
-
-    int begin = hit.getBegin();
-    int end = hit.getEnd();
-    return new SearchItem(this.base,
-			  fetch(titles.at(hit.getDocument())),
-			  Locale.getDefault().toString(),
-			  fetch(documents.at(hit.getDocument())),
-			  hit.getScore(),
-			  begin,
-			  end, 
-			  concepts);
+    return documentURLs[document];
   }
 
   public String hitToString(QueryHit hit) throws Exception
@@ -117,10 +156,10 @@ class SearchEnvironment {
     StringBuffer result = new StringBuffer();
     result.append(hit.getScore());
     result.append(" ");
-    result.append(fetch(documents.at(hit.getDocument())));
+    result.append(documentName(hit.getDocument()));
     if (false) {
       result.append(" ");
-      result.append(fetch(titles.at(hit.getDocument())));
+      result.append(documentTitle(hit.getDocument()));
     }
     result.append(" [");
     int begin = hit.getBegin();
@@ -143,20 +182,61 @@ class SearchEnvironment {
     return result.toString();
   }
   
-  public byte[] getPositions(int docId) throws java.io.IOException
+  /**
+   * Returns the positions data of a document. The data starts at
+   * the position of the returned buffer.
+   */
+  public ByteBuffer getPositions(int docId) throws java.io.IOException
   {
-      // Later on we should do some caching of this
       int offset = offsets2.at(docId);
       int upto;
-      if (docId+1 == offsets2.cardinality()) {
-	  upto = (int)positionsFile.length();
-      } else {
+      if (docId+1 < offsets2.cardinality()) {
 	  upto = offsets2.at(docId+1);
+      } else if (positionsBuffer != null) {
+	  upto = positionsBuffer.limit();
+      } else {
+	  upto = (int)positionsFile.length();
+      }
+      SearchMetrics metrics = SearchMetrics.current();
+      if (metrics != null) {
+	  metrics.countPositions(upto - offset);
+      }
+      if (positionsBuffer != null) {
+	  // queries run on threads of their own; each gets its own position
+	  ByteBuffer data = positionsBuffer.duplicate();
+	  data.position(offset);
+	  return data;
       }
-      positions = new byte[upto - offset];
+      byte[] positions = new byte[upto - offset];
       positionsFile.seek(offset);
       positionsFile.read(positions, 0, upto - offset);
-      return positions;
+      return ByteBuffer.wrap(positions);
+  }
+
+  /**
+   * Returns the trie of the words of the index or null if the index
+   * doesn't have one.
+   */
+  public synchronized TermTrie getTermTrie()
+  {
+    if (!termsRead)
+      {
+	termsRead = true;
+	try {
+	  URL url = getURL("TERMS");
+	  InputStream in =
+	    new BufferedInputStream(url.openConnection().getInputStream());
+	  try {
+	    terms = new TermTrie(in);
+	  }
+	  finally {
+	    in.close();
+	  }
+	} catch (Exception e) {
+	  debug("no term trie: " + e);
+	}
+      }
+    return terms;
   }
 
   public int getDocumentIndex(int docId) {
@@ -164,7 +244,9 @@ class SearchEnvironment {
   }
   
   public void close() throws java.io.IOException {
-    positionsFile.close();
+    if (positionsFile != null) {
+      positionsFile.close();
+    }
   }
 
   public boolean occursInText(int concept) {
@@ -175,11 +257,19 @@ class SearchEnvironment {
   {
     int index = concepts.indexOf(concept);
     if (index >= 0)
-      return new ConceptList(allLists, offsets.at(index));
+      return packed
+	? (NonnegativeIntegerGenerator)
+	  new PackedConceptList(allLists, offsets.at(index))
+	: new ConceptList(allLists, offsets.at(index));
     else
       return null;
   }
   
+  // true if the index is written with the packed codec
+  public boolean isPacked() {
+    return packed;
+  }
+
   public NonnegativeIntegerGenerator getChildIterator(int concept)
   {
     int index = concepts3.indexOf(concept);
@@ -196,11 +286,11 @@ class SearchEnvironment {
       {
 	int where = offsets3.at(index);
 	compr.initReading(allChildren, where + 1);
-	compr.ascDecode(allChildren[where], array);
+	compr.ascDecode(allChildren.get(where), array);
       }
   }
   
-  public int getConceptLength(int concept) throws Exception {
+  public synchronized int getConceptLength(int concept) throws Exception {
     return tmap.fetch(concept).length();
   }
   
@@ -274,20 +364,7 @@ class SearchEnvironment {
       in.close();
     
       // Read the Chilren data
-      url = getURL("CHILDREN");
-      connect = url.openConnection();
-      ois = connect.getInputStream();
-
-      if (ois == null) {
-	  concepts3 = new IntegerArray(1);
-	  return;
-      }
-
-      in = new BufferedInputStream(ois);
-      int length = connect.getContentLength();
-      allChildren = new byte[length];
-      in.read(allChildren);
-      in.close();
+      allChildren = readFile(getURL("CHILDREN"));
     } catch (MalformedURLException e) {
       concepts3 = new IntegerArray(1);
     } catch (FileNotFoundException e2) {
@@ -306,6 +383,9 @@ class SearchEnvironment {
     BtreeDictParameters params = new BtreeDictParameters(schema, "TMAP");
     params.readState();
     tmap = new BtreeDict(params);
+    CodecParameters codec = new CodecParameters(schema);
+    codec.readState();
+    packed = codec.isPacked();
 
     readChildrenData();
 
@@ -324,19 +404,7 @@ class SearchEnvironment {
     in.close();
 
     // Read the Lists data
-    url = getURL("DOCS");
-    connect = url.openConnection();
-    in = new BufferedInputStream(connect.getInputStream());
-    // Note: I'd rather look a the length in the URLConnection
-    // and read in all the data at once, but it doesn't work on 1.1
-    ByteArrayOutputStream data = new ByteArrayOutputStream();
-    byte [] buff = new byte[512];
-    int i = 0;
-    while ((i = in.read(buff)) != -1) {
-      data.write(buff, 0, i);
-    }
-    allLists = data.toByteArray();
-    in.close();
+    allLists = readFile(getURL(codec.getListsName()));
 
     // Read the positions offset data
     url = getURL("OFFSETS");
@@ -357,10 +425,71 @@ class SearchEnvironment {
     sdtitles.decode(k3, titles);
     in.close();
 
+    // The names and titles of the documents, missing in older indexes
+    try {
+      documentTable = new DocumentTable(readFile(getURL("DOCUMENTS")),
+					documents.cardinality());
+    } catch (Exception e) {
+      documentTable = null;
+    }
+
     // Read in the Positions data
-    RAFFileFactory factory = RAFFileFactory.create();
     url = getURL("POSITIONS");
-    positionsFile = factory.get(url, false);
+    positionsBuffer = mapFile(url);
+    if (positionsBuffer == null) {
+      positionsFile = RAFFileFactory.create().get(url, false);
+    }
+  }
+
+  /**
+   * Returns the contents of an index file. Files of file URLs are
+   * mapped, other URLs are read into the heap.
+   */
+  private ByteBuffer readFile(URL url) throws IOException {
+    ByteBuffer result = mapFile(url);
+    if (result != null) {
+      return result;
+    }
+    InputStream in = url.openConnection().getInputStream();
+    if (in == null) {
+      throw new FileNotFoundException(url.toString());
+    }
+    // Note: I'd rather look a the length in the URLConnection
+    // and read in all the data at once, but it isn't always known
+    ByteArrayOutputStream data = new ByteArrayOutputStream();
+    byte [] buff = new byte[4096];
+    int i = 0;
+    while ((i = in.read(buff)) != -1) {
+      data.write(buff, 0, i);
+    }
+    in.close();
+    return ByteBuffer.wrap(data.toByteArray());
+  }
+
+  /**
+   * Maps the file of a file URL read only. The pages of the file are
+   * shared with the other engines and JVMs that map it. Returns null
+   * for other URLs or if the file can't be mapped.
+   */
+  private ByteBuffer mapFile(URL url) throws IOException {
+    if (!url.getProtocol().equalsIgnoreCase("file")) {
+      return null;
+    }
+    FileInputStream in;
+    try {
+      in = new FileInputStream(new File(url.toURI()));
+    } catch (URISyntaxException e) {
+      return null;
+    } catch (SecurityException e) {
+      return null;
+    }
+    try {
+      FileChannel channel = in.getChannel();
+      // the mapping stays valid after the channel is closed
+      return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    } finally {
+      in.close();
+    }
   }
 
   /**
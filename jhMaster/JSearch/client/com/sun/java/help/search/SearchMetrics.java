@@ -0,0 +1,227 @@
+/*
+ * @(#)SearchMetrics.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package com.sun.java.help.search;
+
+/**
+ * The timings and counters of one query, reported to
+ * SearchMetricsListeners when the query completes.
+ * <p>
+ * Times are in milliseconds. The block and POSITIONS counters count
+ * the work done on the thread running the query, so queries running
+ * concurrently on the same engine don't count each other's reads.
+ *
+ * @see SearchMetricsListener
+ * @version	1.1	10/19/26
+ */
+
+public class SearchMetrics
+{
+  /** Splitting the query into terms and looking them up */
+  public static final int TOKENIZE = 0;
+  /** Looking up the morphological variants of the terms */
+  public static final int MORPH = 1;
+  /** Adding the children of the terms */
+  public static final int CHILDREN = 2;
+  /** Creating the document generators */
+  public static final int SETUP = 3;
+  /** Scanning documents and scoring hits */
+  public static final int SCORING = 4;
+  /** Creating the SearchItems of the best hits */
+  public static final int MATERIALIZE = 5;
+
+  static final int NPhases = 6;
+  private static final String[] PhaseNames = {
+    "tokenize", "morph", "children", "setup", "scoring", "materialize"
+  };
+
+  private String _query;
+  private long[] _times = new long[NPhases];
+  private int _terms;
+  private int _documents;
+  private int _hits;
+  private long _blockReads;
+  private long _blockMisses;
+  private long _positionBytes;
+  private Exception _exception;
+
+  // the metrics of the query running on each thread
+  private static final ThreadLocal Current = new ThreadLocal();
+
+  SearchMetrics(String query) {
+    _query = query;
+  }
+
+  public String getQuery() {
+    return _query;
+  }
+
+  public static String getPhaseName(int phase) {
+    return PhaseNames[phase];
+  }
+
+  /**
+   * Returns the time spent in a phase.
+   *
+   * @param phase One of TOKENIZE, MORPH, CHILDREN, SETUP, SCORING or
+   * MATERIALIZE
+   */
+  public long getTime(int phase) {
+    return _times[phase];
+  }
+
+  public long getTotalTime()
+  {
+    long total = 0;
+    for (int i = 0; i < NPhases; i++)
+      total += _times[i];
+    return total;
+  }
+
+  /**
+   * Returns the number of concepts searched, including variants and
+   * children.
+   */
+  public int getTermCount() {
+    return _terms;
+  }
+
+  /**
+   * Returns the number of documents containing a searched concept.
+   */
+  public int getDocumentsScanned() {
+    return _documents;
+  }
+
+  /**
+   * Returns the number of hits added to the HitStore.
+   */
+  public int getHitsStored() {
+    return _hits;
+  }
+
+  /**
+   * Returns the number of dictionary block accesses.
+   */
+  public long getBlockReads() {
+    return _blockReads;
+  }
+
+  /**
+   * Returns the number of dictionary block accesses that had to read
+   * the block from the file.
+   */
+  public long getBlockMisses() {
+    return _blockMisses;
+  }
+
+  /**
+   * Returns the number of bytes read from the POSITIONS file.
+   */
+  public long getPositionBytes() {
+    return _positionBytes;
+  }
+
+  /**
+   * Returns the exception that interrupted the query or null.
+   */
+  public Exception getException() {
+    return _exception;
+  }
+
+  void addTime(int phase, long time) {
+    _times[phase] += time;
+  }
+
+  void setTermCount(int terms) {
+    _terms = terms;
+  }
+
+  void setDocumentsScanned(int documents) {
+    _documents = documents;
+  }
+
+  void setHitsStored(int hits) {
+    _hits = hits;
+  }
+
+  /**
+   * Returns the metrics of the query running on the current thread or
+   * null if its metrics aren't collected.
+   */
+  static SearchMetrics current() {
+    return (SearchMetrics)Current.get();
+  }
+
+  /**
+   * Makes these the metrics of the current thread until
+   * stopCounting is called.
+   */
+  void startCounting() {
+    Current.set(this);
+  }
+
+  void stopCounting() {
+    Current.set(null);
+  }
+
+  void countBlock(boolean miss)
+  {
+    _blockReads++;
+    if (miss)
+      _blockMisses++;
+  }
+
+  void countPositions(int bytes) {
+    _positionBytes += bytes;
+  }
+
+  void setException(Exception e) {
+    _exception = e;
+  }
+
+  public String toString()
+  {
+    StringBuffer result = new StringBuffer("\"");
+    result.append(_query).append("\" ").append(getTotalTime()).append(" ms [");
+    for (int i = 0; i < NPhases; i++)
+      {
+	if (i > 0)
+	  result.append(", ");
+	result.append(PhaseNames[i]).append(' ').append(_times[i]);
+      }
+    result.append("] terms ").append(_terms);
+    result.append(" documents ").append(_documents);
+    result.append(" hits ").append(_hits);
+    result.append(" blocks ").append(_blockReads);
+    result.append('/').append(_blockMisses);
+    result.append(" positions ").append(_positionBytes);
+    if (_exception != null)
+      result.append(" failed ").append(_exception);
+    return result.toString();
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * @(#)SearchMetricsListener.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package com.sun.java.help.search;
+
+import java.util.EventListener;
+
+/**
+ * Receives the timings and counters of the queries run by a
+ * DefaultSearchEngine or a QueryEngine.
+ * <p>
+ * Listeners are called on the thread running the query, after the
+ * results have been delivered, and should return quickly.
+ *
+ * @see DefaultSearchEngine#addSearchMetricsListener
+ * @see SearchStatistics
+ * @version	1.1	10/19/26
+ */
+
+public interface SearchMetricsListener extends EventListener
+{
+  /**
+   * Called when a query completes.
+   */
+  public void queryCompleted(SearchMetrics metrics);
+}
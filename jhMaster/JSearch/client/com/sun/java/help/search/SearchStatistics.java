@@ -0,0 +1,187 @@
+/*
+ * @(#)SearchStatistics.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package com.sun.java.help.search;
+
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A SearchMetricsListener that accumulates the metrics of all queries
+ * and logs them.
+ * <p>
+ * Every query is logged at level FINE to the "com.sun.java.help.search"
+ * logger, and queries slower than the slow query threshold at level
+ * INFO. The totals are available through the SearchStatisticsMBean
+ * interface, so an application running on a VM with JMX can register
+ * an instance as a standard MBean:
+ * <pre>
+ *   SearchStatistics stats = new SearchStatistics();
+ *   engine.addSearchMetricsListener(stats);
+ *   ManagementFactory.getPlatformMBeanServer().registerMBean(stats,
+ *       new ObjectName("javax.help:type=SearchStatistics"));
+ * </pre>
+ *
+ * @version	1.1	10/19/26
+ */
+
+public class SearchStatistics implements SearchMetricsListener,
+					 SearchStatisticsMBean
+{
+  private static final Logger logger =
+    Logger.getLogger("com.sun.java.help.search");
+
+  private long _slowQueryThreshold = 1000;
+  private long _queries;
+  private long _failed;
+  private long[] _times = new long[SearchMetrics.NPhases];
+  private long _maxTime;
+  private long _documents;
+  private long _hits;
+  private long _blockReads;
+  private long _blockMisses;
+  private long _positionBytes;
+
+  public void queryCompleted(SearchMetrics metrics)
+  {
+    long total = metrics.getTotalTime();
+    long threshold;
+    synchronized (this) {
+      threshold = _slowQueryThreshold;
+      _queries++;
+      if (metrics.getException() != null)
+	_failed++;
+      for (int i = 0; i < SearchMetrics.NPhases; i++)
+	_times[i] += metrics.getTime(i);
+      _maxTime = Math.max(_maxTime, total);
+      _documents += metrics.getDocumentsScanned();
+      _hits += metrics.getHitsStored();
+      _blockReads += metrics.getBlockReads();
+      _blockMisses += metrics.getBlockMisses();
+      _positionBytes += metrics.getPositionBytes();
+    }
+    if (metrics.getException() != null)
+      logger.log(Level.WARNING, "query " + metrics, metrics.getException());
+    else if (total >= threshold)
+      logger.info("slow query " + metrics);
+    else if (logger.isLoggable(Level.FINE))
+      logger.fine("query " + metrics);
+  }
+
+  public synchronized long getQueryCount() {
+    return _queries;
+  }
+
+  public synchronized long getFailedQueryCount() {
+    return _failed;
+  }
+
+  public synchronized long getTokenizeTime() {
+    return _times[SearchMetrics.TOKENIZE];
+  }
+
+  public synchronized long getMorphTime() {
+    return _times[SearchMetrics.MORPH];
+  }
+
+  public synchronized long getChildrenTime() {
+    return _times[SearchMetrics.CHILDREN];
+  }
+
+  public synchronized long getSetupTime() {
+    return _times[SearchMetrics.SETUP];
+  }
+
+  public synchronized long getScoringTime() {
+    return _times[SearchMetrics.SCORING];
+  }
+
+  public synchronized long getMaterializeTime() {
+    return _times[SearchMetrics.MATERIALIZE];
+  }
+
+  public synchronized long getTotalTime()
+  {
+    long total = 0;
+    for (int i = 0; i < SearchMetrics.NPhases; i++)
+      total += _times[i];
+    return total;
+  }
+
+  public synchronized long getMaxTime() {
+    return _maxTime;
+  }
+
+  public synchronized long getDocumentsScanned() {
+    return _documents;
+  }
+
+  public synchronized long getHitsStored() {
+    return _hits;
+  }
+
+  public synchronized long getBlockReads() {
+    return _blockReads;
+  }
+
+  public synchronized long getBlockMisses() {
+    return _blockMisses;
+  }
+
+  public synchronized long getPositionBytes() {
+    return _positionBytes;
+  }
+
+  public synchronized long getSlowQueryThreshold() {
+    return _slowQueryThreshold;
+  }
+
+  /**
+   * Sets the time in milliseconds from which a query is logged at
+   * level INFO.
+   */
+  public synchronized void setSlowQueryThreshold(long millis) {
+    _slowQueryThreshold = millis;
+  }
+
+  public synchronized void reset()
+  {
+    _queries = _failed = 0;
+    for (int i = 0; i < SearchMetrics.NPhases; i++)
+      _times[i] = 0;
+    _maxTime = _documents = _hits = 0;
+    _blockReads = _blockMisses = _positionBytes = 0;
+  }
+
+  public synchronized String toString()
+  {
+    return "queries " + _queries + " failed " + _failed + " time "
+      + getTotalTime() + " ms max " + _maxTime + " ms documents "
+      + _documents + " hits " + _hits + " blocks " + _blockReads + "/"
+      + _blockMisses + " positions " + _positionBytes;
+  }
+}
@@ -0,0 +1,62 @@
+/*
+ * @(#)SearchStatisticsMBean.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package com.sun.java.help.search;
+
+/**
+ * The management interface of SearchStatistics. Times are cumulative
+ * milliseconds since the last reset.
+ *
+ * @see SearchStatistics
+ * @version	1.1	10/19/26
+ */
+
+public interface SearchStatisticsMBean
+{
+  public long getQueryCount();
+  public long getFailedQueryCount();
+
+  public long getTokenizeTime();
+  public long getMorphTime();
+  public long getChildrenTime();
+  public long getSetupTime();
+  public long getScoringTime();
+  public long getMaterializeTime();
+  public long getTotalTime();
+  public long getMaxTime();
+
+  public long getDocumentsScanned();
+  public long getHitsStored();
+  public long getBlockReads();
+  public long getBlockMisses();
+  public long getPositionBytes();
+
+  public long getSlowQueryThreshold();
+  public void setSlowQueryThreshold(long millis);
+
+  public void reset();
+}
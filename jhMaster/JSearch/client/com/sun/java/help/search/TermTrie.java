@@ -0,0 +1,327 @@
+/*
+ * @(#)TermTrie.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package com.sun.java.help.search;
+
+import java.io.InputStream;
+
+/**
+ * A memory resident dictionary of the terms of an index, stored by the
+ * indexer in the TERMS file. The terms are kept in a compressed trie,
+ * each node holding the characters of the edge leading to it, so terms
+ * can be enumerated by prefix, by wildcard pattern or by edit distance
+ * without reading the TMAP blocks.
+ * <p>
+ * Nodes are numbered breadth first, so the children of a node are
+ * consecutive and ordered by their first character.
+ *
+ * @version	1.1	10/19/26
+ */
+
+class TermTrie
+{
+  private char[] _labels;
+  private int[]  _labelStarts;	// node i's label is [_labelStarts[i], _labelStarts[i+1])
+  private int[]  _firstChildren;	// node i's children are [_firstChildren[i], _firstChildren[i+1])
+  private int[]  _ids;		// 0 if no term ends at the node
+  private int    _nNodes;
+
+  /**
+   * Reads a dictionary.
+   *
+   * @param in The contents of a TERMS file
+   */
+  public TermTrie(InputStream in) throws Exception
+  {
+    IntegerArray childCounts = new IntegerArray();
+    IntegerArray labelLengths = new IntegerArray();
+    IntegerArray ids = new IntegerArray();
+    IntegerArray labels = new IntegerArray();
+    read(in, childCounts);
+    read(in, labelLengths);
+    read(in, ids);
+    read(in, labels);
+
+    _nNodes = childCounts.cardinality();
+    _labelStarts = new int[_nNodes + 1];
+    _firstChildren = new int[_nNodes + 1];
+    _ids = new int[_nNodes];
+    int next = 1;
+    for (int i = 0; i < _nNodes; i++)
+      {
+	_labelStarts[i + 1] = _labelStarts[i] + labelLengths.at(i);
+	_firstChildren[i] = next;
+	next += childCounts.at(i);
+	_ids[i] = ids.at(i);
+      }
+    _firstChildren[_nNodes] = next;
+    _labels = new char[labels.cardinality()];
+    for (int i = 0; i < _labels.length; i++)
+      _labels[i] = (char)labels.at(i);
+  }
+
+  private static void read(InputStream in, IntegerArray array)
+    throws Exception
+  {
+    int k = in.read();
+    new StreamDecompressor(in).decode(k, array);
+  }
+
+  /**
+   * Returns the ID of a term or 0 if it isn't in the dictionary.
+   */
+  public int fetch(String term)
+  {
+    int node = 0, i = 0;
+    while (i < term.length())
+      {
+	node = child(node, term.charAt(i));
+	if (node == -1)
+	  return 0;
+	for (int j = _labelStarts[node]; j < _labelStarts[node + 1]; j++, i++)
+	  if (i == term.length() || _labels[j] != term.charAt(i))
+	    return 0;
+      }
+    return _ids[node];
+  }
+
+  /**
+   * Adds the IDs of the terms beginning with prefix to ids.
+   *
+   * @param limit The maximum number of IDs added
+   */
+  public void prefixMatches(String prefix, int limit, IntegerArray ids)
+  {
+    wildcardMatches(prefix + '*', limit, ids);
+  }
+
+  /**
+   * Adds the IDs of the terms matching a pattern to ids. In the pattern
+   * '*' matches any sequence of characters and '?' any single character.
+   * Only the terms beginning with the characters before the first
+   * wildcard are compared.
+   *
+   * @param limit The maximum number of IDs added
+   */
+  public void wildcardMatches(String pattern, int limit, IntegerArray ids)
+  {
+    int length = 0;
+    while (length < pattern.length()
+	   && pattern.charAt(length) != '*' && pattern.charAt(length) != '?')
+      length++;
+    // find the node whose subtree holds the terms with the literal prefix
+    int node = 0, i = 0;
+    StringBuffer term = new StringBuffer(pattern.substring(0, length));
+    while (i < length)
+      {
+	node = child(node, pattern.charAt(i));
+	if (node == -1)
+	  return;
+	for (int j = _labelStarts[node]; j < _labelStarts[node + 1]; j++, i++)
+	  if (i >= length)
+	    term.append(_labels[j]);
+	  else if (_labels[j] != pattern.charAt(i))
+	    return;
+      }
+    new WildcardMatcher(pattern, limit, ids).match(node, term);
+  }
+
+  /**
+   * Adds the IDs of the terms at most maxEdits insertions, deletions or
+   * substitutions away from term to ids and their distances to distances.
+   *
+   * @param limit The maximum number of IDs added
+   */
+  public void fuzzyMatches(String term, int maxEdits, int limit,
+			   IntegerArray ids, IntegerArray distances)
+  {
+    new FuzzyMatcher(term, maxEdits, limit, ids, distances).match();
+  }
+
+  // the child of node whose label begins with c or -1
+  private int child(int node, char c)
+  {
+    int low = _firstChildren[node], high = _firstChildren[node + 1] - 1;
+    while (low <= high)
+      {
+	int middle = (low + high) >>> 1;
+	char first = _labels[_labelStarts[middle]];
+	if (first < c)
+	  low = middle + 1;
+	else if (first > c)
+	  high = middle - 1;
+	else
+	  return middle;
+      }
+    return -1;
+  }
+
+  // true if the whole of term matches the whole of pattern
+  private static boolean matches(String pattern, String term)
+  {
+    int p = 0, t = 0, star = -1, mark = 0;
+    while (t < term.length())
+      if (p < pattern.length()
+	  && (pattern.charAt(p) == '?' || pattern.charAt(p) == term.charAt(t)))
+	{
+	  p++;
+	  t++;
+	}
+      else if (p < pattern.length() && pattern.charAt(p) == '*')
+	{
+	  star = p++;
+	  mark = t;
+	}
+      else if (star != -1)
+	{
+	  p = star + 1;
+	  t = ++mark;
+	}
+      else
+	return false;
+    while (p < pattern.length() && pattern.charAt(p) == '*')
+      p++;
+    return p == pattern.length();
+  }
+
+  private final class WildcardMatcher
+  {
+    private String       _pattern;
+    private int          _limit;
+    private IntegerArray _matches;
+
+    public WildcardMatcher(String pattern, int limit, IntegerArray ids)
+    {
+      _pattern = pattern;
+      _limit = limit;
+      _matches = ids;
+    }
+
+    // term holds the characters up to and including node's label
+    public boolean match(int node, StringBuffer term)
+    {
+      if (_matches.cardinality() >= _limit)
+	return false;
+      if (_ids[node] > 0 && matches(_pattern, term.toString()))
+	_matches.add(_ids[node]);
+      int length = term.length();
+      for (int i = _firstChildren[node]; i < _firstChildren[node + 1]; i++)
+	{
+	  term.append(_labels, _labelStarts[i],
+		      _labelStarts[i + 1] - _labelStarts[i]);
+	  boolean more = match(i, term);
+	  term.setLength(length);
+	  if (!more)
+	    return false;
+	}
+      return true;
+    }
+  }
+
+  private final class FuzzyMatcher
+  {
+    private String       _term;
+    private int          _maxEdits;
+    private int          _limit;
+    private IntegerArray _matches;
+    private IntegerArray _matchDistances;
+    private int[][]      _rows = new int[16][]; // one per depth
+
+    public FuzzyMatcher(String term, int maxEdits, int limit,
+			IntegerArray ids, IntegerArray distances)
+    {
+      _term = term;
+      _maxEdits = maxEdits;
+      _limit = limit;
+      _matches = ids;
+      _matchDistances = distances;
+    }
+
+    public void match()
+    {
+      int[] row = row(0);
+      for (int i = 0; i < row.length; i++)
+	row[i] = i;
+      for (int i = _firstChildren[0]; i < _firstChildren[1]; i++)
+	if (!match(i, 0))
+	  return;
+    }
+
+    // row(depth) holds the distances of the term's prefixes
+    // to the first depth characters of node's path
+    private boolean match(int node, int depth)
+    {
+      for (int j = _labelStarts[node]; j < _labelStarts[node + 1]; j++)
+	if (!step(depth++, _labels[j]))
+	  return true;		// nothing below can be close enough
+      int distance = _rows[depth][_term.length()];
+      if (_ids[node] > 0 && distance <= _maxEdits)
+	{
+	  if (_matches.cardinality() >= _limit)
+	    return false;
+	  _matches.add(_ids[node]);
+	  _matchDistances.add(distance);
+	}
+      for (int i = _firstChildren[node]; i < _firstChildren[node + 1]; i++)
+	if (!match(i, depth))
+	  return false;
+      return true;
+    }
+
+    // computes row(depth + 1) for the next character c
+    // false if all of its distances are too large
+    private boolean step(int depth, char c)
+    {
+      int[] previous = _rows[depth];
+      int[] row = row(depth + 1);
+      row[0] = depth + 1;
+      int min = row[0];
+      for (int i = 1; i < row.length; i++)
+	{
+	  int cost = _term.charAt(i - 1) == c ? 0 : 1;
+	  row[i] = Math.min(Math.min(row[i - 1] + 1, previous[i] + 1),
+			    previous[i - 1] + cost);
+	  if (row[i] < min)
+	    min = row[i];
+	}
+      return min <= _maxEdits;
+    }
+
+    private int[] row(int depth)
+    {
+      if (depth == _rows.length)
+	{
+	  int[][] newRows = new int[depth * 2][];
+	  System.arraycopy(_rows, 0, newRows, 0, depth);
+	  _rows = newRows;
+	}
+      if (_rows[depth] == null)
+	_rows[depth] = new int[_term.length() + 1];
+      return _rows[depth];
+    }
+  }
+}
@@ -35,15 +35,19 @@ package com.sun.java.help.search;
 
 import java.net.URL;
 import java.io.*;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
 import java.util.Hashtable;
 import java.util.Enumeration;
+import java.util.Vector;
 import javax.help.search.IndexBuilder;
 
 public class DefaultIndexBuilder extends IndexBuilder
 {
   private static int InitSize = 4096;
-  private FullBtreeDict dict;
   protected Hashtable cache = new Hashtable(15000);
+  private BitSet textIDs = new BitSet();	// IDs of the words of the text
   private DocumentCompressor compr;
   private int free = 0;
   private int size = InitSize;
@@ -52,9 +56,31 @@ public class DefaultIndexBuilder extends IndexBuilder
   private int currentDocID = 0;
   private Schema _schema;
   private BtreeDictParameters _tmapParams;
+  private CodecParameters _codec;
   private int _title = 0;
+  private String _titleName = "";
+  private DataOutputStream _documents;	// names and titles, see DocumentTable
 
-  public DefaultIndexBuilder(String indexDir) throws Exception
+  public DefaultIndexBuilder(String indexDir) throws Exception {
+    this(indexDir, CodecParameters.Golomb);
+  }
+
+  /**
+   * Creates an index written with the named codec, one of
+   * CodecParameters.Golomb and CodecParameters.Packed.
+   */
+  public DefaultIndexBuilder(String indexDir, String codec) throws Exception
+  {
+    this(indexDir, codec, false);
+  }
+
+  /**
+   * Creates an index written with the named codec. If skipTables is true
+   * long golomb lists are written with skip tables, which runtimes
+   * older than them cannot read.
+   */
+  public DefaultIndexBuilder(String indexDir, String codec,
+			     boolean skipTables) throws Exception
   {
     super (indexDir);
     // temporary code to disable incremental updates
@@ -76,9 +102,13 @@ public class DefaultIndexBuilder extends IndexBuilder
       params = BtreeDictParameters.create(url);
     }
     */
-    dict = new FullBtreeDict(_tmapParams, true);
     freeID = _tmapParams.getFreeID();
-    compr = new DocumentCompressor(url);
+    _codec = new CodecParameters(_schema);
+    _codec.setName(codec);
+    _codec.setSkipTables(skipTables);
+    compr = new DocumentCompressor(url, _codec.isPacked());
+    _documents = new DataOutputStream(new BufferedOutputStream
+      (new FileOutputStream(indexDir + "DOCUMENTS")));
   }
 
     // temporary until Jacek incorporates stop words into IndexBuilder
@@ -106,37 +136,27 @@ public class DefaultIndexBuilder extends IndexBuilder
 
   public void close() throws Exception
   {
-    dict.close(freeID);
-    _tmapParams.setFreeID(freeID);
-    _tmapParams.updateSchema();
-    
-    debug("compacting...");
-    BtreeDictCompactor source = new BtreeDictCompactor(_tmapParams, false);
-    URL url = new URL("file", "", indexDir + "compacted");
-    BtreeDictParameters params =
-      new BtreeDictParameters(url, _tmapParams.getBlockSize(), 0, freeID);
-    source.compact(params);
-    URL tmapURL = new URL("file", "", indexDir + "TMAP");
-    File tmap = new File(tmapURL.toURI());
-    tmap.delete();
-    File compacted = new File(url.toURI());
-    compacted.renameTo(tmap);
-    _tmapParams.setRoot(params.getRootPosition());
-    _tmapParams.updateSchema();
+    debug("writing dictionary...");
+    writeDictionary();
     
     debug("freeID is " + freeID);
     compr.close(indexDir + "OFFSETS");
+    _documents.close();
     debug("inverting index");
-    DocumentLists.invert(indexDir);
+    DocumentLists.invert(indexDir, _codec);
+    _codec.updateSchema();
     _schema.save();
   }
 
+  private String currentDocName;
+
   public void openDocument(String name) throws Exception
   {
     if (currentDocID != 0) {
       throw new Exception("document already open");
     }
     currentDocID = intern(name);
+    currentDocName = name;
   }
   
   public void closeDocument() throws Exception
@@ -145,9 +165,13 @@ public class DefaultIndexBuilder extends IndexBuilder
       throw new Exception("no document open");
     }
     compr.compress(currentDocID, _title, locations, free, null, 0);
+    // in the order of OFFSETS
+    DocumentTable.writeString(_documents, currentDocName);
+    DocumentTable.writeString(_documents, _titleName);
     free = 0;
     currentDocID = 0;		// state: nothing open
     _title = 0;
+    _titleName = "";
   }
 
   public void storeLocation(String text, int position) throws Exception
@@ -160,7 +184,9 @@ public class DefaultIndexBuilder extends IndexBuilder
       System.arraycopy(locations, 0, newArray, 0, free);
       locations = newArray;
     }
-    locations[free++] = new ConceptLocation(intern(text),
+    int id = intern(text);
+    textIDs.set(id);
+    locations[free++] = new ConceptLocation(id,
 					    position,
 					    position + text.length());
   }
@@ -168,8 +194,10 @@ public class DefaultIndexBuilder extends IndexBuilder
   public void storeTitle(String title) throws Exception
   {
     _title = intern(title);
+    _titleName = title;
   }
 
+  // every name is kept in the cache until the dictionary is written
   private int intern(String name) throws Exception
   {
     Integer cached = (Integer)cache.get(name);
@@ -177,15 +205,106 @@ public class DefaultIndexBuilder extends IndexBuilder
       return cached.intValue();
     else
       {
-	int id = dict.fetch(name);
-	if (id == 0) {
-	  dict.store(name, id = freeID++);
-	}
+	int id = freeID++;
 	cache.put(name, new Integer(id));
 	return id;
       }
   }
 
+  /**
+   * Writes all the interned names to TMAP in one sequential pass.
+   * The names are sorted by their UTF8 bytes, the order of the B-tree,
+   * and the blocks are filled bottom-up as BtreeDictCompactor does when
+   * it compacts a dictionary.
+   */
+  private void writeDictionary() throws Exception
+  {
+    DictEntry[] entries = new DictEntry[cache.size()];
+    int n = 0;
+    for (Enumeration e = cache.keys(); e.hasMoreElements(); )
+      {
+	String name = (String)e.nextElement();
+	entries[n++] = new DictEntry(name, name.getBytes("UTF8"),
+				     ((Integer)cache.get(name)).intValue());
+      }
+    Arrays.sort(entries, DictEntry.ORDER);
+    writeTerms(entries);
+    
+    URL url = new URL("file", "", indexDir + "TMAP");
+    BtreeDictParameters params =
+      new BtreeDictParameters(url, _tmapParams.getBlockSize(), 0, freeID);
+    BtreeDictCompactor target = new BtreeDictCompactor(params, true);
+    for (int i = 0; i < n; i++)
+      target.store(entries[i].key, entries[i].key.length, entries[i].id);
+    target.close();
+    _tmapParams.setFreeID(freeID);
+    _tmapParams.setRoot(params.getRootPosition());
+    _tmapParams.updateSchema();
+  }
+
+  /**
+   * Writes the words of the text to TERMS as a trie, for the prefix,
+   * wildcard and fuzzy matching of query terms.
+   * Document names and titles are left out.
+   */
+  private void writeTerms(DictEntry[] entries) throws Exception
+  {
+    Vector words = new Vector();
+    for (int i = 0; i < entries.length; i++)
+      if (textIDs.get(entries[i].id))
+	words.addElement(entries[i]);
+    // the trie is ordered by characters rather than UTF8 bytes
+    DictEntry[] sorted = new DictEntry[words.size()];
+    words.copyInto(sorted);
+    Arrays.sort(sorted, DictEntry.TERM_ORDER);
+    TermTrieBuilder builder = new TermTrieBuilder();
+    for (int i = 0; i < sorted.length; i++)
+      builder.add(sorted[i].name, sorted[i].id);
+    RandomAccessFile out = new RandomAccessFile(indexDir + "TERMS", "rw");
+    try {
+      builder.write(out);
+      out.setLength(out.getFilePointer());
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  private static final class DictEntry
+  {
+    // unsigned byte order, shorter keys first
+    static final Comparator ORDER = new Comparator() {
+      public int compare(Object o1, Object o2)
+      {
+	byte[] key1 = ((DictEntry)o1).key;
+	byte[] key2 = ((DictEntry)o2).key;
+	int length = Math.min(key1.length, key2.length);
+	for (int i = 0; i < length; i++)
+	  if (key1[i] != key2[i])
+	    return (key1[i]&0xFF) - (key2[i]&0xFF);
+	return key1.length - key2.length;
+      }
+    };
+    
+    static final Comparator TERM_ORDER = new Comparator() {
+      public int compare(Object o1, Object o2)
+      {
+	return ((DictEntry)o1).name.compareTo(((DictEntry)o2).name);
+      }
+    };
+    
+    final String name;    
+    final byte[] key;
+    final int id;
+    
+    DictEntry(String name, byte[] key, int id)
+    {
+      this.name = name;
+      this.key = key;
+      this.id = id;
+    }
+  }
+
     /** 
      * Temporary code to remove existing files
      * remove when updates actually works
@@ -204,6 +323,11 @@ public class DefaultIndexBuilder extends IndexBuilder
 		    docs.delete();
 		} catch (java.lang.NullPointerException de) {
 		}
+		try {
+		    File lists = new File(test, "LISTS");
+		    lists.delete();
+		} catch (java.lang.NullPointerException le) {
+		}
 		try {
 		    File docstab = new File(test, "DOCS.TAB");
 		    docstab.delete();
@@ -214,11 +338,21 @@ public class DefaultIndexBuilder extends IndexBuilder
 		    offsets.delete();
 		} catch (java.lang.NullPointerException oe) {
 		}
+		try {
+		    File documents = new File(test, "DOCUMENTS");
+		    documents.delete();
+		} catch (java.lang.NullPointerException de) {
+		}
 		try {
 		    File positions = new File(test, "POSITIONS");
 		    positions.delete();
 		} catch (java.lang.NullPointerException pe) {
 		}
+		try {
+		    File terms = new File(test, "TERMS");
+		    terms.delete();
+		} catch (java.lang.NullPointerException te) {
+		}
 		try {
 		    File schema = new File(test, "SCHEMA");
 		    schema.delete();
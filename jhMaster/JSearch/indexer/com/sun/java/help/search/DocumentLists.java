@@ -48,9 +48,14 @@ class DocumentLists
   private final IntegerArray _offsets = new IntegerArray();
   private final Compressor _compr = new Compressor();
   private final IntegerArray _diffs = new IntegerArray();
-  private final ByteArrayDecompressor _decmp =
-  new ByteArrayDecompressor(null, 0);
+  private final IntegerArray _lastDocs = new IntegerArray();
+  private final IntegerArray _blockOffsets = new IntegerArray();
+  private final ByteArrayOutputStream _blocks = new ByteArrayOutputStream();
+  private final DataOutputStream _blocksOut = new DataOutputStream(_blocks);
+  private final ByteArrayDecompressor _decmp = new ByteArrayDecompressor();
   private DataOutputStream _mainFile;
+  private final boolean _packed;	// the codec of the lists
+  private final boolean _skips;		// long golomb lists get skip tables
   // heap
   private int          _heapSize = 0;
   private MicroIndex[] _heap;
@@ -164,13 +169,16 @@ class DocumentLists
     }
   }
 
-  private DocumentLists(String indexDir) throws Exception
+  private DocumentLists(String indexDir, CodecParameters codec)
+    throws Exception
   {
+    _packed = codec.isPacked();
+    _skips = codec.hasSkipTables();
     for (int i = 0; i < RANGE; i++)
       _arrays[i] = new IntegerArray();
     _mainFile = new DataOutputStream
       (new BufferedOutputStream
-       (new FileOutputStream(indexDir + "DOCS")));
+       (new FileOutputStream(indexDir + codec.getListsName())));
     // main work
     InputStream file =
       new BufferedInputStream(new FileInputStream(indexDir + "OFFSETS"));
@@ -251,7 +259,20 @@ class DocumentLists
   private void flush() throws IOException
   {
     for (int i = 0; i < RANGE; i++)
-      if (_arrays[i].cardinality() > 0)
+      if (_packed && _arrays[i].cardinality() > 0)
+	{
+	  _offsets.add(writePacked(_arrays[i]));
+	  _concepts.add(_minConcept + i);
+	  _arrays[i].clear();
+	}
+      else if (_skips
+	       && _arrays[i].cardinality() > ConceptList.SkipThreshold)
+	{
+	  _offsets.add(writeBlocks(_arrays[i]));
+	  _concepts.add(_minConcept + i);
+	  _arrays[i].clear();
+	}
+      else if (_arrays[i].cardinality() > 0)
 	{
 	  _arrays[i].toDifferences(_diffs);
 	  _mainFile.write(_compr.minimize(_diffs, K)); // write k
@@ -266,15 +287,120 @@ class DocumentLists
     _minConcept += RANGE;
   }
 
+  /**
+   * Writes a long document list in blocks of ConceptList.SkipInterval
+   * documents preceded by a table of the last document and the offset of
+   * each block, so readers can skip blocks. Returns the number of bytes
+   * written.
+   */
+  private int writeBlocks(IntegerArray documents) throws IOException
+  {
+    int n = documents.cardinality();
+    _lastDocs.clear();
+    _blockOffsets.clear();
+    _blocks.reset();
+    for (int start = 0; start < n; start += ConceptList.SkipInterval)
+      {
+	int end = Math.min(start + ConceptList.SkipInterval, n);
+	// differences continue from the last document of the previous block
+	int previous = start > 0 ? documents.at(start - 1) : 0;
+	_diffs.clear();
+	for (int j = start; j < end; j++)
+	  {
+	    _diffs.add(documents.at(j) - previous);
+	    previous = documents.at(j);
+	  }
+	_blockOffsets.add(_blocks.size());
+	_blocksOut.write(_compr.minimize(_diffs, K)); // write k
+	_compr.write(_blocksOut);
+	_compr.clear();
+	_lastDocs.add(documents.at(end - 1));
+      }
+    _diffs.clear();
+    _mainFile.write(ConceptList.Skipped);
+    _mainFile.write(_compr.compressAscending(_lastDocs)); // write k
+    int count = 2 + _compr.byteCount();
+    _compr.write(_mainFile);
+    _compr.clear();
+    _mainFile.write(_compr.compressAscending(_blockOffsets)); // write k
+    count += 1 + _compr.byteCount();
+    _compr.write(_mainFile);
+    _compr.clear();
+    _blocksOut.flush();
+    _blocks.writeTo(_mainFile);
+    return count + _blocks.size();
+  }
+
+  /**
+   * Writes a document list in the packed codec of PackedConceptList:
+   * the number of documents and then blocks of the differences packed
+   * with the bit width of the largest difference of the block.
+   * Returns the number of bytes written.
+   */
+  private int writePacked(IntegerArray documents) throws IOException
+  {
+    int n = documents.cardinality();
+    _blocks.reset();
+    writeVarint(n);
+    int last = 0;
+    for (int start = 0; start < n; start += PackedConceptList.BlockSize)
+      {
+	int end = Math.min(start + PackedConceptList.BlockSize, n);
+	int previous = last, max = 0;
+	for (int j = start; j < end; j++)
+	  {
+	    max |= documents.at(j) - previous;
+	    previous = documents.at(j);
+	  }
+	int width = 0;
+	while (max >>> width != 0)
+	  width++;
+	_blocksOut.write(width);
+	writeVarint(documents.at(end - 1) - last);
+	// the differences, most significant bit first
+	long buffer = 0;
+	int bits = 0;
+	for (int j = start; j < end; j++)
+	  {
+	    buffer = buffer << width | documents.at(j) - last;
+	    last = documents.at(j);
+	    for (bits += width; bits >= 8; bits -= 8)
+	      _blocksOut.write((int)(buffer >>> bits - 8));
+	  }
+	if (bits > 0)
+	  _blocksOut.write((int)(buffer << 8 - bits));
+      }
+    _blocksOut.flush();
+    _blocks.writeTo(_mainFile);
+    return _blocks.size();
+  }
+
+  private void writeVarint(int value) throws IOException
+  {
+    for (; value >= 0x80; value >>>= 7)
+      _blocksOut.write(value & 0x7F | 0x80);
+    _blocksOut.write(value);
+  }
+
+  // writes the lists in the default codec
   public static void invert(String indexDir) throws Exception {
-    new DocumentLists(indexDir);
+    invert(indexDir, new CodecParameters(new Schema(null, indexDir, false)));
+  }
+
+  public static void invert(String indexDir, CodecParameters codec)
+    throws Exception
+  {
+    new DocumentLists(indexDir, codec);
   }
 
   public static void main(String[] args)
   {
     String indexDir = args[0];
     try {
-      new DocumentLists(indexDir);
+      CodecParameters codec =
+	new CodecParameters(new Schema(null, indexDir, false));
+      codec.readState();
+      new DocumentLists(indexDir, codec);
     }
     catch (Exception e) {
       e.printStackTrace();
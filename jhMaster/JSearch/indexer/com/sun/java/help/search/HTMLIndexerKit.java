@@ -169,7 +169,7 @@ public class HTMLIndexerKit extends DefaultIndexerKit{
     // --- variables ------------------------------------------
 
     private static HTMLEditorKit.Parser defaultParser = null;
-    private static HTMLParserCallback defaultCallback = null;
+    private HTMLParserCallback defaultCallback = null;
 
     private static char[] NEWLINE;
 
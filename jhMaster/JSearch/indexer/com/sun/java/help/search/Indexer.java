@@ -114,6 +114,8 @@ public class Indexer {
 	int size;
 	sourcepath="";
 	boolean nostopwords = false;
+	String codec = CodecParameters.Golomb;
+	boolean skipTables = false;
 	
 	for (int i=0; i < args.length ; i++) { 
 	    if(args[i].equals("-db")) {
@@ -160,6 +162,14 @@ public class Indexer {
 	    }	   
 	    else if(args[i].equals("-verbose")) verbose = System.out;
 	    else if(args[i].equals("-nostopwords")) nostopwords = true;
+	    else if(args[i].equals("-skiptables")) skipTables = true;
+	    else if(args[i].equals("-codec")) {
+		if ((i + 1) < args.length) {
+		    codec = args[++i];
+		} else {
+		    System.out.println (args[i] + "-codec requires argument");
+		}
+	    }
 	    else if(args[i].equals("-c")) {
 		if ((i + 1) < args.length) {
 		    configFile = args[++i];
@@ -194,7 +204,7 @@ public class Indexer {
 		return;
 	}
 
-	indexBuilder= new DefaultIndexBuilder(dbName);
+	indexBuilder= new DefaultIndexBuilder(dbName, codec, skipTables);
 	// set the stopwords in the indexBuilder
 	indexBuilder.storeStopWords(config.getStopWords());
     
@@ -293,6 +303,10 @@ public class Indexer {
 	System.out.println("          -db file  generated database file name");
 	System.out.println("          -verbose  verbose documentation");
 	System.out.println("          -nostopwords ignore stop words");
+	System.out.println("          -codec golomb|packed  list encoding;");
+	System.out.println("                 packed is larger, faster to search");
+	System.out.println("          -skiptables  skip tables in long golomb lists;");
+	System.out.println("                 needs a runtime that reads them");
 	System.out.println("          -locale language_country_variant");
 	System.out.println("          -logfile log file name");
 	System.out.println("Note: config file composition:");
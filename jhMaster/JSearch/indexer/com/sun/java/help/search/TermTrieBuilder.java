@@ -0,0 +1,141 @@
+/*
+ * @(#)TermTrieBuilder.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package com.sun.java.help.search;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Vector;
+
+/**
+ * Builds the compressed trie of the TERMS file read by TermTrie.
+ * The terms have to be added in increasing order.
+ *
+ * @version	1.1	10/19/26
+ */
+
+class TermTrieBuilder
+{
+  private Vector _terms = new Vector();
+  private IntegerArray _ids = new IntegerArray();
+
+  public void add(String term, int id)
+  {
+    _terms.addElement(term);
+    _ids.add(id);
+  }
+
+  /**
+   * Writes the nodes breadth first as four compressed arrays: the
+   * number of children, the label length, the term ID and the label
+   * characters.
+   */
+  public void write(DataOutput out) throws IOException
+  {
+    IntegerArray childCounts = new IntegerArray();
+    IntegerArray labelLengths = new IntegerArray();
+    IntegerArray ids = new IntegerArray();
+    IntegerArray labels = new IntegerArray();
+
+    Vector queue = new Vector();
+    queue.addElement(new Node(0, _terms.size(), 0, 0));
+    for (int n = 0; n < queue.size(); n++)
+      {
+	Node node = (Node)queue.elementAt(n);
+	queue.setElementAt(null, n);
+	String first =
+	  node.from < node.to ? (String)_terms.elementAt(node.from) : "";
+	for (int i = node.depth; i < node.end; i++)
+	  labels.add(first.charAt(i));
+	labelLengths.add(node.end - node.depth);
+	int from = node.from;
+	if (from < node.to && first.length() == node.end)
+	  ids.add(_ids.at(from++));
+	else
+	  ids.add(0);
+	// the remaining terms are grouped by their next character
+	int children = 0;
+	while (from < node.to)
+	  {
+	    char c = ((String)_terms.elementAt(from)).charAt(node.end);
+	    int to = from + 1;
+	    while (to < node.to
+		   && ((String)_terms.elementAt(to)).charAt(node.end) == c)
+	      to++;
+	    queue.addElement(new Node(from, to, node.end,
+				      commonLength(from, to, node.end + 1)));
+	    children++;
+	    from = to;
+	  }
+	childCounts.add(children);
+      }
+
+    write(out, childCounts);
+    write(out, labelLengths);
+    write(out, ids);
+    write(out, labels);
+  }
+
+  private static void write(DataOutput out, IntegerArray array)
+    throws IOException
+  {
+    Compressor compr = new Compressor();
+    out.write(compr.minimize(array, 8));
+    compr.write(out);
+  }
+
+  // the length of the prefix shared by terms from to to - 1, which are
+  // known to share length characters
+  private int commonLength(int from, int to, int length)
+  {
+    // the terms are sorted, so the first and the last are the least alike
+    String first = (String)_terms.elementAt(from);
+    String last = (String)_terms.elementAt(to - 1);
+    int max = Math.min(first.length(), last.length());
+    while (length < max && first.charAt(length) == last.charAt(length))
+      length++;
+    return length;
+  }
+
+  // the terms from to to - 1 sharing the first end characters,
+  // of which the first depth belong to the ancestors
+  private static final class Node
+  {
+    final int from;
+    final int to;
+    final int depth;
+    final int end;
+
+    Node(int from, int to, int depth, int end)
+    {
+      this.from = from;
+      this.to = to;
+      this.depth = depth;
+      this.end = end;
+    }
+  }
+}
@@ -78,6 +78,14 @@ public abstract class DocumentParser {
     ScanBuffer  documentSource;
     boolean     shouldCacheSource;
 
+    // The name and attributes of the last tag. The name is at the start
+    // of tagBuffer, attRanges holds the offset and length of the name and
+    // of the value of each attribute.
+    ScanBuffer	tagBuffer;
+    int		tagNameLength;
+    int []	attRanges = new int [32];
+    int		attCount;
+
     /************************************************************************
     *****								*****
     *****		Public interface 				*****
@@ -310,6 +318,7 @@ public abstract class DocumentParser {
         // bigger buffer size gives some performance win
 	escapeBuffer = new ScanBuffer(8192,4);	// YK
 	documentSource = new ScanBuffer(8192,4);	// YK
+	tagBuffer = new ScanBuffer(256, 2);
 	readOffset = 0;
     }
 
@@ -413,13 +422,71 @@ public abstract class DocumentParser {
     }
 
 
+    /**
+     * Copies the characters of the buffer from offset to its end to the
+     * tag buffer. Returns the offset of the copy in the tag buffer.
+     */
+    private int saveTagChars(int offset) {
+	int start = tagBuffer.buflen;
+	int length = buffer.buflen - offset;
+	if (start + length > tagBuffer.buf.length) {
+	    int size = tagBuffer.buf.length;
+	    while (start + length > size) {
+		size *= tagBuffer.scale;
+	    }
+	    char [] x = new char [size];
+	    System.arraycopy(tagBuffer.buf, 0, x, 0, start);
+	    tagBuffer.buf = x;
+	}
+	System.arraycopy(buffer.buf, offset, tagBuffer.buf, start, length);
+	tagBuffer.buflen += length;
+	return start;
+    }
+
+    private void addAttribute(int name, int nameLength,
+			      int value, int valueLength) {
+	int index = attCount * 4;
+	if (index + 4 > attRanges.length) {
+	    int [] x = new int [attRanges.length * 2];
+	    System.arraycopy(attRanges, 0, x, 0, attRanges.length);
+	    attRanges = x;
+	}
+	attRanges[index] = name;
+	attRanges[index + 1] = nameLength;
+	attRanges[index + 2] = value;
+	attRanges[index + 3] = valueLength;
+	attCount++;
+    }
+
+    /**
+     * This method emits the tag just parsed. The name of the tag and the
+     * names and values of its attributes are in the tag buffer until the
+     * next tag is parsed.
+     *
+     * The default implementation calls tag(String, TagProperties, boolean,
+     * boolean).
+     */
+    protected void tag(boolean endTag, boolean emptyTag) {
+	TagProperties attributes = null;
+	if (attCount > 0) {
+	    attributes = new TagProperties();
+	    for (int i = 0; i < attCount * 4; i += 4) {
+		attributes.put(new String(tagBuffer.buf, attRanges[i],
+					  attRanges[i + 1]),
+			       new String(tagBuffer.buf, attRanges[i + 2],
+					  attRanges[i + 3]));
+	    }
+	}
+	tag(new String(tagBuffer.buf, 0, tagNameLength), attributes,
+	    endTag, emptyTag);
+    }
+
     protected void setXmlEntities(TagProperties attr) {
 	// Don't do anything for now
     }
 
     protected char parseTag() throws IOException {
 	char		c;
-	String		name;
 	TagProperties	attributes;
 	int		offset;
 	int		tagStartOffset;
@@ -673,8 +740,10 @@ public abstract class DocumentParser {
 	}
 	offset = buffer.length();
 	c = scanIdentifier(c);
-	name = buffer.extract(offset);
-	attributes = null;
+	tagBuffer.clear();
+	saveTagChars(offset);
+	tagNameLength = tagBuffer.length();
+	attCount = 0;
 	for (;;){
 	    c = skipWhite(c);
 	    if (c == EOF){
@@ -713,7 +782,7 @@ public abstract class DocumentParser {
 		// <TABLE width=500 border=5 color="e0e0e0"
 		// <CAPTION>....
 
-		tag(name, attributes, endTag, false);
+		tag(endTag, false);
 		buffer.clear();
 		return (DocPConst.LANGLE);
 	    }
@@ -725,11 +794,10 @@ public abstract class DocumentParser {
 		skipToCloseAngle(c);
 		return readChar();
 	    }
-	    String attname = buffer.extract(offset);
+	    int attname = saveTagChars(offset);
+	    int attnameLength = tagBuffer.length() - attname;
 	    c = skipWhite(c);
-	    if (attributes == null)
-		attributes = new TagProperties();
-	    String	attvalue;
+	    int	attvalue;
 	    if (c == DocPConst.EQUALS) {		// parsing attribute value
 		buffer.add(c);
 		c = readChar();
@@ -739,7 +807,7 @@ public abstract class DocumentParser {
 		c = skipWhite(c);
 		// delimit on RANGLE and LANGLE in case of incomplete line
 		if (c == DocPConst.RANGLE || c == DocPConst.LANGLE ){
-		    attvalue = "";
+		    attvalue = tagBuffer.length();
 		} else if (c == DocPConst.DQUOTE){
 		    buffer.add(c);
 		    voff = buffer.length();
@@ -756,7 +824,7 @@ public abstract class DocumentParser {
 			    c = parseEscape();
 			buffer.add(c);
 		    }
-		    attvalue = buffer.extract(voff);
+		    attvalue = saveTagChars(voff);
 		    buffer.add(c);
 		    c = readChar();
 		} else {
@@ -779,14 +847,19 @@ public abstract class DocumentParser {
 			    c = parseEscape();
 			buffer.add(c);
 		    }
-		    attvalue = buffer.extract(voff);
+		    attvalue = saveTagChars(voff);
 		}
 	    } else {
-		attvalue = "true";
+		attvalue = tagBuffer.length();
+		tagBuffer.add('t');
+		tagBuffer.add('r');
+		tagBuffer.add('u');
+		tagBuffer.add('e');
 	    }
-	    attributes.put(attname, attvalue);
+	    addAttribute(attname, attnameLength,
+			 attvalue, tagBuffer.length() - attvalue);
 	}
-	tag(name, attributes, endTag, emptyTag);
+	tag(endTag, emptyTag);
 	buffer.clear();
 	return readChar();
     }
@@ -1242,67 +1315,6 @@ public abstract class DocumentParser {
     }
 } // class DocumentParser
 
-class ScanBuffer {
-    char []	buf;
-    int		buflen;
-    int scale = 2;
-
-    ScanBuffer() {
-	buf = new char [ 256 ];
-    }
-
-    //...........................................................
-    // YK -extra constructor with the initial buffer size
-    //...........................................................
-    ScanBuffer(int l, int s) {
-        buf = new char [l];
-	scale = s;
-    }
-
-    protected void clear() {
-	buflen = 0;
-    }
- 
-    protected void reset(int offset) {
-	buflen = offset;
-    }
-
-    protected void flush(DocumentParser owner) {
-	if (buflen > 0){
-	    owner.callFlush(buf, 0, buflen);
-	    buflen = 0;
-	}
-    }
-
-    protected void add(char c) {
-	if (buflen >= buf.length){
-	    char [] x = new char [buf.length * scale];
-	    System.arraycopy(buf, 0, x, 0, buf.length);
-	    buf = x;
-	}
-	buf[buflen++] = c;
-    }
-
-    protected int length() {
-	return buflen;
-    }
-
-    public String toString() {
- 	return "ScanBuffer, buf = " + buf + ", buflen = " + buflen;
-    } 
-
-    //....................................................
-    // YK: optimized creating new strings
-    // without any data copying (big performance win)
-    // as this method is called allover the place
-    //....................................................
-   
-    protected String extract(int offset) {
-	return new String(buf, offset, buflen - offset);
-    }
-
-} // class ScanBuffer
-
 
 // YK: This class is created to fix NullPointerException
 // in BufferedReader::read(...) having lock == null
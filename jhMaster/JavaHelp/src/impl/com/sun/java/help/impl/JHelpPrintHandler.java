@@ -38,8 +38,14 @@ import javax.swing.text.*;
 import javax.swing.event.*;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
 import java.net.MalformedURLException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EventListener;
+import java.util.LinkedHashMap;
 import java.util.Vector;
 import java.util.WeakHashMap;
 
@@ -68,6 +74,20 @@ public class JHelpPrintHandler implements ActionListener {
     // private DefaultListModel listModel = new DefaultListModel();
     private URL documentURL;
     private String documentTitle;
+    private Vector progressListeners = new Vector();
+
+    // documents paginated in parallel and loaded ahead while printing
+    private static final int PRINT_THREADS =
+	Math.min(4, Runtime.getRuntime().availableProcessors());
+    private static final int PRINT_LOOKAHEAD = 2;
+
+    // page breaks by URL and page format
+    private static final int PAGINATION_CACHE_SIZE = 512;
+    private LinkedHashMap paginations = new LinkedHashMap(16, 0.75f, true) {
+	protected boolean removeEldestEntry(java.util.Map.Entry eldest) {
+	    return size() > PAGINATION_CACHE_SIZE;
+	}
+    };
     
     
     
@@ -453,14 +473,13 @@ public class JHelpPrintHandler implements ActionListener {
             PrinterJob job = getPrinterJob();
             if (job != null) {
                 synchronized (job) {
-		    JEditorPane editor = new JHEditorPane();
-		    
-		    JFrame frame = new JHFrame();
-		    frame.setContentPane(editor);
-		    
+		    PrintJobPageable pageable = null;
 		    try {
-			job.setPageable(new JHPageable(editor, urls, 
-						       (PageFormat)JHelpPrintHandler.this.getPageFormat().clone()));
+			pageable = new PrintJobPageable(urls, 
+							(PageFormat)JHelpPrintHandler.this.getPageFormat().clone());
+			// paginate while the print dialog is up
+			pageable.start();
+			job.setPageable(pageable);
 		    } catch (Exception e) {
 			processException(e);
 		    }
@@ -472,7 +491,9 @@ public class JHelpPrintHandler implements ActionListener {
                             processException(e);
                         }
                     }
-		    frame.dispose();
+		    if (pageable != null) {
+			pageable.dispose();
+		    }
                 }
             }
         }
@@ -550,14 +571,230 @@ public class JHelpPrintHandler implements ActionListener {
         }
         
         public Vector createTransforms() {
-	    
-	    int page = 0;
-            Vector transforms = new Vector();
+	    PreparedDocument doc = new PreparedDocument(editor);
+	    try {
+		doc.layout(pf, scaleToFit);
+	    } catch (Exception e) {
+		processException(e);
+		return new Vector();
+	    }
+	    Pagination pages = getCachedPagination(url, pf, scaleToFit);
+	    if (pages == null) {
+		pages = doc.paginate(pf);
+		cachePagination(url, pf, scaleToFit, pages);
+	    }
+	    return pages.transforms;
+        }
+        
+        public int print(Graphics pg, PageFormat pageFormat, int pi) {
+            
+            debug("Printing document page=" + pi);
+            pi -= firstPage;
+            debug("Printing page=" + pi);
+            
+            if (pi >= getNumberOfPages()) {
+                return Printable.NO_SUCH_PAGE;
+            }
+            
+            return printPage((Graphics2D) pg, editor, pf, transforms, pi);
+        }
+    }
+    
+    /**
+     * Prints a page of the document in an editor.
+     */
+    private static int printPage(Graphics2D g2d, JEditorPane editor,
+				 PageFormat pf, Vector transforms, int pi) {
+	printHeader(g2d, editor, pf, pi, transforms.size());
+            
+	// Apply transformation for current page
+	g2d.transform((AffineTransform) transforms.get(pi));
+	debug("Graphics tansform=" + g2d.getTransform());
+	debug("Graphics clip=" + g2d.getClip());
+            
+	// Get the Rectangle of the adjusted print graphics. This helps in
+	// printing the correct height. Indirectly gotten through
+	// the shape to perserve the coordinates (prevent rounding)
+	Rectangle2D g2dRec = g2d.getClip().getBounds2D();
+            
+	// See if any adjustments to the height are necessary
+	// If so create a new Rectangle and apply it to the g2d
+	double height = ((PageTransform)transforms.get(pi)).getHeight();
+	double adjheight = g2dRec.getY() + g2dRec.getHeight() - 1.0 - height;
+	if (adjheight > 0.0) {
+	    debug("Graphics adjusted height=" + adjheight);
+	    g2d.clip(new Rectangle2D.Double(
+	    g2dRec.getX(),
+	    g2dRec.getY(),
+	    g2dRec.getWidth(),
+	    g2dRec.getHeight() - adjheight
+	    ));
+	    g2dRec = g2d.getClip().getBounds2D();
+	    debug("Graphics tansform=" + g2d.getTransform());
+	    debug("Graphics clip=" + g2d.getClip());
+	}
+            
+	// Just print editor
+	if (g2dRec.getY() < height) {
+	    // using editor.printAll(g2d) here should be better for jdk1.3
+	    // but there are bugs in jdk1.2
+	    editor.paint(g2d);
+	} else {
+	    return Printable.NO_SUCH_PAGE;
+	}
+            
+	return Printable.PAGE_EXISTS;
+    }
+        
+    private static void printHeader(Graphics2D g2d, JEditorPane editor,
+				    PageFormat pf, int pi, int pages) {
             
-            double curHeight = 0.0, height = 0.0;
-            double yval = 0.0;
-            double scale = 1.0;
+	g2d.setClip(new Rectangle2D.Double(0.0, 0.0, pf.getWidth(), pf.getHeight()));
+	g2d.setFont(new Font("Serif", Font.ITALIC, 10));
             
+	String s = (String)editor.getDocument().getProperty(Document.TitleProperty)
+	    + " " + (pi + 1) + "/" + pages;
+            
+	Rectangle2D rec = g2d.getFontMetrics().getStringBounds(s, g2d);
+	g2d.drawString(s, (float)(pf.getWidth() - rec.getX() - rec.getWidth() - 36.0), (float)36.0);
+	g2d.setClip(new Rectangle2D.Double(
+	pf.getImageableX(),
+	pf.getImageableY(),
+	pf.getImageableWidth(),
+	pf.getImageableHeight()
+	));
+    }
+
+    /**
+     * The page breaks of a document for a page format.
+     */
+    static class Pagination {
+	/**
+	 * The PageTransforms of the pages.
+	 */
+	Vector transforms;
+
+	Pagination(Vector transforms) {
+	    this.transforms = transforms;
+	}
+    }
+
+    /**
+     * Returns the cached page breaks of a URL or null.
+     */
+    Pagination getCachedPagination(URL url, PageFormat pf, boolean scaleToFit) {
+	synchronized (paginations) {
+	    return (Pagination) paginations.get(getPaginationKey(url, pf, scaleToFit));
+	}
+    }
+
+    void cachePagination(URL url, PageFormat pf, boolean scaleToFit,
+			 Pagination pages) {
+	synchronized (paginations) {
+	    paginations.put(getPaginationKey(url, pf, scaleToFit), pages);
+	}
+    }
+
+    private static String getPaginationKey(URL url, PageFormat pf,
+					   boolean scaleToFit) {
+	StringBuffer key = new StringBuffer(url.toExternalForm());
+	key.append(' ').append(pf.getOrientation());
+	key.append(' ').append(pf.getWidth()).append(' ').append(pf.getHeight());
+	key.append(' ').append(pf.getImageableX());
+	key.append(' ').append(pf.getImageableY());
+	key.append(' ').append(pf.getImageableWidth());
+	key.append(' ').append(pf.getImageableHeight());
+	key.append(' ').append(scaleToFit);
+	return key.toString();
+    }
+
+    /**
+     * An editor with a document laid out for printing. The document is
+     * laid out in the window of the editor, which never gets displayed.
+     * The editor is only touched on the event dispatching thread, Swing
+     * text isn't thread safe; the page breaks can be worked out anywhere.
+     */
+    class PreparedDocument implements PropertyChangeListener {
+	JEditorPane editor;
+	Rectangle viewRec;
+	Insets insets;
+	double scale = 1.0;
+	private Rows rows;
+	private JFrame frame;
+	private boolean loaded = false;
+
+	/**
+	 * Creates a document in a new off-screen editor.
+	 */
+	PreparedDocument() throws Exception {
+	    runOnEventThread(new Runnable() {
+		public void run() {
+		    editor = new JHEditorPane();
+		    frame = new JHFrame();
+		    frame.setContentPane(editor);
+		}
+	    });
+	}
+
+	/**
+	 * Uses an existing editor.
+	 */
+	PreparedDocument(JEditorPane editor) {
+	    this.editor = editor;
+	}
+
+	/**
+	 * Loads a URL into the editor and waits until it is loaded.
+	 * Must not be called on the event dispatching thread.
+	 */
+	void load(final URL url) throws Exception {
+	    debug("PreparedDocument.load(): "+url);
+	    final IOException[] failure = new IOException[1];
+	    editor.addPropertyChangeListener("page", this);
+	    try {
+		runOnEventThread(new Runnable() {
+		    public void run() {
+			try {
+			    editor.setPage(url);
+			} catch (IOException e) {
+			    failure[0] = e;
+			}
+		    }
+		});
+		if (failure[0] != null) {
+		    throw failure[0];
+		}
+		// the notification comes from the event dispatching thread
+		// once the editor has read the document
+		synchronized (this) {
+		    while (!loaded) {
+			wait();
+		    }
+		}
+	    } finally {
+		editor.removePropertyChangeListener("page", this);
+	    }
+	}
+
+	public synchronized void propertyChange(PropertyChangeEvent evt) {
+	    loaded = true;
+	    notifyAll();
+	}
+
+	/**
+	 * Lays the document out for the width of a page and collects its
+	 * rows for the page breaks.
+	 */
+	void layout(final PageFormat pf, final boolean scaleToFit)
+	    throws Exception {
+	    runOnEventThread(new Runnable() {
+		public void run() {
+		    layoutNow(pf, scaleToFit);
+		}
+	    });
+	}
+
+	private void layoutNow(PageFormat pf, boolean scaleToFit) {
             Component root = SwingUtilities.windowForComponent(editor);
             if (root == null) {
                 root = editor;
@@ -566,14 +803,15 @@ public class JHelpPrintHandler implements ActionListener {
             root.addNotify();
             
             View rootview = editor.getUI().getRootView(editor);
-            Rectangle viewRec = JHelpPrintHandler.getViewRec(rootview, (float)pf.getImageableWidth(), (float)pf.getImageableHeight());
+            viewRec = JHelpPrintHandler.getViewRec(rootview, (float)pf.getImageableWidth(), (float)pf.getImageableHeight());
             debug("viewRec=" + viewRec);
             
-            Insets i = JHelpPrintHandler.getInsetsForContainer(editor);
-            root.setBounds(0, 0, viewRec.width + i.left + i.right, viewRec.height + i.top + i.bottom);
+            insets = JHelpPrintHandler.getInsetsForContainer(editor);
+            root.setBounds(0, 0, viewRec.width + insets.left + insets.right, viewRec.height + insets.top + insets.bottom);
             root.setVisible(true);
             
             // Do any scaling that is necessary
+	    scale = 1.0;
             if (scaleToFit) {
                 if (viewRec.getWidth() > pf.getImageableWidth()) {
                     scale = pf.getImageableWidth() / viewRec.getWidth();
@@ -582,263 +820,583 @@ public class JHelpPrintHandler implements ActionListener {
                 + " ImageableWidth=" + pf.getImageableWidth()
                 + " width=" + viewRec.getWidth());
             }
-            
-            // Determine the print Rectangle size
-            Rectangle2D.Double printRec =
-            new Rectangle2D.Double(0.0, 0.0, pf.getImageableWidth(), pf.getImageableHeight() / scale);
-            debug("printRec=" + printRec);
-            Position.Bias[] bias = new Position.Bias[1];
-            
-            while (true) {
-                debug("preparing page=" + page + " curHeight=" + curHeight);
-                
-                double maxHeight = printRec.getHeight() + curHeight;
-                
-                // Find the point that corresponds to the end of the current
-                // page that we are printing.
-                int point = rootview.viewToModel(0, (float) maxHeight, viewRec, bias);
-                debug("point=" + point);
-                try {
-                    // Get the Rectangle around that point
-                    Shape s = rootview.modelToView(point, viewRec, bias[0]);
-                    Rectangle2D pointRec = s.getBounds2D();
-                    debug("pointRec=" + pointRec);
-                    
-                    // Create a proper offset on the printed page
-                    yval = curHeight;
-                    
-                    // Create the proper height to print.
-                    // Be carefull not chop anything off.
-                    // All print the full view if it will fit, otherwise
-                    // print the point above.
-                    height = pointRec.getY() - 1.0;
-                    debug("Starting height=" + height);
-                    if (maxHeight >= pointRec.getY() + pointRec.getHeight()) {
-                        height = pointRec.getY() + pointRec.getHeight() - 1.0;
-                        debug("Adjusted height=" + height);
-                    }
-                    
-                    // Make sure there isn't any other object that would be slightly
-                    // lower.
-                    double baseY = pointRec.getY();
-                    double baseHeight = pointRec.getY() + pointRec.getHeight() - 1.0;
-                    // move over 20 pixels. We'd user pointRec.getWidth() but it's 0
-                    double nextX = pointRec.getX() + 20.0;
-                    double testY = 0.0, testHeight = 0.0;
-                    Rectangle2D testRec = pointRec;
-                    while (true) {
-                        // don't look past max width.
-                        if (nextX > (pf.getImageableWidth() * scale)) {
-                            break;
-                        }
-                        int point2 =
-                        rootview.viewToModel((float) nextX,
-                        (float) maxHeight,
-                        viewRec, bias);
-                        Shape s2 = rootview.modelToView(point2, viewRec, bias[0]);
-                        Rectangle2D pointRec2 = s2.getBounds2D();
-                        // if this is same Rectangle then try 20 pixels over
-                        if (testRec.equals(pointRec2) || pointRec2.getX() < nextX) {
-                            nextX += 20.0;
-                            continue;
-                        }
-                        debug("pointRec2=" + pointRec2);
-                        testY = pointRec2.getY();
-                        testHeight = pointRec2.getY() + pointRec2.getHeight() - 1.0;
-                        
-                        // if test height is less than base y then don't bother
-                        // testing. Just pass through
-                        if (testHeight > baseY) {
-                            
-                            // if the testHeight is greater than the baseHeight
-                            // we might want to use the test height values
-                            if (testHeight > baseHeight) {
-                                // if the test height is less than the max height
-                                // use that height instead
-                                if (testHeight < maxHeight) {
-                                    height = testHeight;
-                                    baseHeight = testHeight;
-                                    if (testY < baseY) {
-                                        baseY = testY;
-                                    }
-                                    debug("Adjust height to testheight " + height);
-                                } else {
-                                    // the test height is greater than the max
-                                    // height.
-                                    if (testY > baseHeight) {
-                                        // test Y is greater than the base height
-                                        // move the base height to just above
-                                        // test Y
-                                        height = testY - 1.0;
-                                        baseHeight = testHeight;
-                                        baseY = testY;
-                                        debug("new base component " + height);
-                                    } else {
-                                        // test Y is less than base height.
-                                        // if the test Y is less than the base y
-                                        // use it
-                                        if (testY < baseY) {
-                                            height = testY - 1.0;
-                                            baseY = testY;
-                                            baseHeight = testHeight;
-                                            debug("test height > maxheight. Adjust height testY - 1 " + height);
-                                        } else {
-                                            // otherwise use the base y
-                                            height = baseY - 1.0;
-                                            baseHeight = testHeight;
-                                            debug("test height > maxheight. Adjust height baseY - 1 " + height);
-                                        }
-                                    }
-                                }
-                            } else {
-                                // the base height is greater than the test
-                                // height use the base height values
-                                if (baseHeight < maxHeight) {
-                                    // this value has already been set to this
-                                    // height but I'm doing this for consistency
-                                    // The baseHeight is valid so use it.
-                                    height = baseHeight;
-                                    if (testY < baseY) {
-                                        baseY = testY;
-                                    }
-                                    debug("baseHeight ok " + height);
-                                } else {
-                                    // the base height is greater than the max height
-                                    // if the base Y is less than the test y use it
-                                    if (baseY <= testY) {
-                                        height = baseY - 1.0;
-                                        debug("baseHeight too long - height ok" + height);
-                                    } else {
-                                        // otherwise use the test Y
-                                        height = testY - 1.0;
-                                        baseY = testY;
-                                        debug("baseHeight too long - use testY - 1 " + height);
-                                    }
-                                }
-                            }
-                        }
-                        testRec = pointRec2;
-                        // move over 20 pixels. pointRec.width is 0
-                        nextX = testRec.getX() + 20.0;
-                    }
-                    
-                    // Create new transform for each page to be printed
-                    PageTransform t = new PageTransform();
-                    
-                    // Set the translation values so we print the
-                    // correct part of editor componenet.
-                    t.translate(pf.getImageableX(), pf.getImageableY());
-                    debug("t.translate="+t);
-                    t.translate(- (double) i.left * scale, - ((double) i.top + yval) * scale);
-                    debug("t.translate="+t);
-                    
-                    // Scaling will advirsely affect the yval. Multiple yval to scale
-                    // to correct the future scaling.
-                    t.scale(scale, scale);
-                    debug("t.scale="+t);
-                    
-                    // Store height
-                    t.setHeight(height + (double) i.top);
-                    
-		    // bug fix for JDK1.4 which caused repeated pages to be printed
-		    if (curHeight == height + 1.0) {
-			break;
+
+	    rows = new Rows(viewRec.getHeight());
+	    rows.collect(rootview, viewRec);
+	}
+
+	/**
+	 * Works out the page breaks of the laid out document.
+	 */
+	Pagination paginate(PageFormat pf) {
+	    return new Pagination(createTransforms(rows, viewRec, insets,
+						   pf, scale));
+	}
+
+	void dispose() {
+	    if (frame != null) {
+		final JFrame f = frame;
+		frame = null;
+		SwingUtilities.invokeLater(new Runnable() {
+		    public void run() {
+			f.dispose();
 		    }
+		});
+	    }
+	}
+    }
 
-                    // Strore transform
-                    transforms.add(page, t);
-                    
-                    // Set the current Height for the next page.
-                    curHeight = height + 1.0;
-                    debug("Setting curHeight=" + curHeight);
+    /**
+     * Runs a task on the event dispatching thread and waits for it.
+     */
+    static void runOnEventThread(Runnable task) throws Exception {
+	if (SwingUtilities.isEventDispatchThread()) {
+	    task.run();
+	    return;
+	}
+	try {
+	    SwingUtilities.invokeAndWait(task);
+	} catch (InvocationTargetException e) {
+	    Throwable t = e.getTargetException();
+	    if (t instanceof Exception) {
+		throw (Exception) t;
+	    }
+	    throw (Error) t;
+	}
+    }
+
+    /**
+     * Works out the page breaks of a laid out document. The pages break
+     * between the rows of the paragraphs and between leaf views, so no
+     * line is cut in two unless it is taller than a page.
+     *
+     * @param rows The rows of the document, collected but not sorted.
+     * @return The PageTransforms of the pages.
+     */
+    Vector createTransforms(Rows rows, Rectangle viewRec, Insets i,
+			    PageFormat pf, double scale) {
+	Vector transforms = new Vector();
+	rows.sort();
+
+	double pageHeight = pf.getImageableHeight() / scale;
+	double curHeight = 0.0;
+	while (true) {
+	    double maxHeight = curHeight + pageHeight;
+	    double height = rows.findBreak(curHeight, maxHeight) - 1.0;
+	    debug("page " + transforms.size() + " from " + curHeight + " to " + height);
+
+	    // bug fix for JDK1.4 which caused repeated pages to be printed
+	    if (curHeight == height + 1.0) {
+		break;
+	    }
+
+	    // Create new transform for each page to be printed
+	    PageTransform t = new PageTransform();
                     
-                    // increment the page counter
-                    page++;
+	    // Set the translation values so we print the
+	    // correct part of editor componenet.
+	    t.translate(pf.getImageableX(), pf.getImageableY());
+	    t.translate(- (double) i.left * scale, - ((double) i.top + curHeight) * scale);
                     
-                    // If the current Height is greater than the viewRec height
-                    // then we are done.
-		    debug ("curHeight="+curHeight+" viewRec.getHeight()="+ viewRec.getHeight());
-                    if (curHeight >= viewRec.getHeight()) {
-                        break;
-                    }
+	    // Scaling will advirsely affect the yval. Multiple yval to scale
+	    // to correct the future scaling.
+	    t.scale(scale, scale);
                     
-                } catch (BadLocationException ble) {
-                    break;
-                }
-            }
-            return transforms;
-        }
-        
-        private void printHeader(Graphics2D g2d, int pi) {
-            
-            g2d.setClip(new Rectangle2D.Double(0.0, 0.0, pf.getWidth(), pf.getHeight()));
-            g2d.setFont(new Font("Serif", Font.ITALIC, 10));
-            
-            String s = (String)editor.getDocument().getProperty(Document.TitleProperty)
-            + " " + (pi + 1) + "/" +transforms.size();
-            
-            Rectangle2D rec = g2d.getFontMetrics().getStringBounds(s, g2d);
-            g2d.drawString(s, (float)(pf.getWidth() - rec.getX() - rec.getWidth() - 36.0), (float)36.0);
-            g2d.setClip(new Rectangle2D.Double(
-            pf.getImageableX(),
-            pf.getImageableY(),
-            pf.getImageableWidth(),
-            pf.getImageableHeight()
-            ));
-        }
+	    // Store height
+	    t.setHeight(height + (double) i.top);
+	    transforms.addElement(t);
+
+	    // Set the current Height for the next page.
+	    curHeight = height + 1.0;
+
+	    // If the current Height is greater than the viewRec height
+	    // or only blank space is left then we are done.
+	    if (curHeight >= viewRec.getHeight() || rows.isAfterLastRow(curHeight)) {
+		break;
+	    }
+	}
+	return transforms;
+    }
+
+    /**
+     * The vertical extents of the rows of a laid out document.
+     * A row is a row of a paragraph or a view without children.
+     */
+    static class Rows {
+	private Row[] rows = new Row[256];
+	private int count = 0;
+	private double[] maxBottoms;	// highest bottom of rows 0..n
+	private double height;
+
+	/**
+	 * @param height The height of the document. Rows are cut off there.
+	 */
+	Rows(double height) {
+	    this.height = height;
+	}
+
+	private static class Row {
+	    double top;
+	    double bottom;
+	    Row(double top, double bottom) {
+		this.top = top;
+		this.bottom = bottom;
+	    }
+	}
+
+	/**
+	 * Adds the rows of a view and its descendants.
+	 */
+	void collect(View v, Shape a) {
+	    if (a == null) {
+		return;
+	    }
+	    int n = v.getViewCount();
+	    if (n == 0 || v instanceof ParagraphView) {
+		if (n == 0) {
+		    add(a.getBounds2D());
+		} else {
+		    for (int i = 0; i < n; i++) {
+			Shape ca = v.getChildAllocation(i, a);
+			if (ca != null) {
+			    add(ca.getBounds2D());
+			}
+		    }
+		}
+		return;
+	    }
+	    for (int i = 0; i < n; i++) {
+		collect(v.getView(i), v.getChildAllocation(i, a));
+	    }
+	}
+
+	private void add(Rectangle2D r) {
+	    double bottom = Math.min(r.getY() + r.getHeight(), height);
+	    if (bottom <= r.getY()) {
+		return;
+	    }
+	    if (count == rows.length) {
+		Row[] bigger = new Row[count * 2];
+		System.arraycopy(rows, 0, bigger, 0, count);
+		rows = bigger;
+	    }
+	    rows[count++] = new Row(r.getY(), bottom);
+	}
+
+	/**
+	 * Sorts the rows by their tops. Must be called after all the rows
+	 * have been collected.
+	 */
+	void sort() {
+	    Row[] sorted = new Row[count];
+	    System.arraycopy(rows, 0, sorted, 0, count);
+	    Arrays.sort(sorted, new Comparator() {
+		public int compare(Object o1, Object o2) {
+		    double t1 = ((Row) o1).top;
+		    double t2 = ((Row) o2).top;
+		    return t1 < t2 ? -1 : (t1 > t2 ? 1 : 0);
+		}
+	    });
+	    rows = sorted;
+	    maxBottoms = new double[count];
+	    double max = Double.NEGATIVE_INFINITY;
+	    for (int i = 0; i < count; i++) {
+		max = Math.max(max, rows[i].bottom);
+		maxBottoms[i] = max;
+	    }
+	}
+
+	/**
+	 * Returns where a page starting at top and ending at most at
+	 * maxBottom should end: after the last row that ends on the page,
+	 * and where no row is cut in two if possible.
+	 */
+	double findBreak(double top, double maxBottom) {
+	    // the rows starting above the end of the page
+	    int k = lastRowAbove(maxBottom);
+	    if (k < 0) {
+		return maxBottom;
+	    }
+	    if (maxBottoms[k] <= top) {
+		// nothing but blank space left on the page
+		return maxBottom;
+	    }
+	    if (maxBottoms[k] <= maxBottom) {
+		// no row is cut, end after the lowest one
+		return maxBottoms[k];
+	    }
+	    // break before the lowest row with no row across its top
+	    for (; k > 0 && rows[k].top > top; k--) {
+		if (maxBottoms[k - 1] <= rows[k].top) {
+		    return rows[k].top;
+		}
+	    }
+	    // a row taller than the page, cut it
+	    return maxBottom;
+	}
+
+	/**
+	 * Returns true if no row ends below y.
+	 */
+	boolean isAfterLastRow(double y) {
+	    return count == 0 || maxBottoms[count - 1] <= y;
+	}
+
+	/**
+	 * Returns the index of the last row whose top is above y, or -1.
+	 */
+	private int lastRowAbove(double y) {
+	    int low = 0;
+	    int high = count - 1;
+	    while (low <= high) {
+		int mid = (low + high) >>> 1;
+		if (rows[mid].top < y) {
+		    low = mid + 1;
+		} else {
+		    high = mid - 1;
+		}
+	    }
+	    return high;
+	}
+    }
+
+    /**
+     * A Pageable for a print job. The documents are paginated in the
+     * background as soon as the job is started, several at a time, each
+     * in its own off-screen editor. When the pages are printed the
+     * next documents are loaded ahead of the printer. The background
+     * threads wait for the documents to be read and work out the page
+     * breaks; the editors themselves are set up, laid out and painted on
+     * the event dispatching thread.
+     */
+    class PrintJobPageable implements Pageable {
+	private URL[] urls;
+	private PageFormat pf;
+	private Pagination[] pages;
+	private PreparedDocument[] prepared;
+	private boolean[] preparing;
+	private int[] firstPages;
+	private int numPages = 0;
+	private int nextToPaginate = 0;
+	private int paginated = 0;
+	private int released = 0;
+	private int lastPage = -1;
+	private boolean disposed = false;
+
+	PrintJobPageable(URL[] urls, PageFormat pf) {
+	    this.urls = urls == null ? new URL[0] : urls;
+	    this.pf = pf;
+	    int count = this.urls.length;
+	    pages = new Pagination[count];
+	    prepared = new PreparedDocument[count];
+	    preparing = new boolean[count];
+	}
+
+	/**
+	 * Starts paginating the documents.
+	 */
+	void start() {
+	    int threads = Math.min(urls.length, PRINT_THREADS);
+	    for (int i = 0; i < threads; i++) {
+		Thread t = new Thread(new Runnable() {
+		    public void run() {
+			paginate();
+		    }
+		}, "JavaHelp print pagination");
+		t.setDaemon(true);
+		t.start();
+	    }
+	}
+
+	/**
+	 * Stops the pagination and disposes of the editors.
+	 */
+	synchronized void dispose() {
+	    disposed = true;
+	    for (int i = 0; i < prepared.length; i++) {
+		if (prepared[i] != null) {
+		    prepared[i].dispose();
+		    prepared[i] = null;
+		}
+	    }
+	    notifyAll();
+	}
+
+	/**
+	 * The body of the pagination threads.
+	 */
+	private void paginate() {
+	    while (true) {
+		int d;
+		synchronized (this) {
+		    if (disposed || nextToPaginate >= urls.length) {
+			return;
+		    }
+		    d = nextToPaginate++;
+		}
+		Pagination p = null;
+		PreparedDocument doc = null;
+		if (urls[d] != null) {
+		    p = getCachedPagination(urls[d], pf, true);
+		    if (p == null) {
+			doc = prepare(urls[d]);
+			if (doc != null) {
+			    p = doc.paginate(pf);
+			    cachePagination(urls[d], pf, true, p);
+			}
+		    }
+		}
+		if (p == null) {
+		    p = new Pagination(new Vector());
+		}
+		int done;
+		synchronized (this) {
+		    pages[d] = p;
+		    // keep the first documents for printing
+		    if (doc != null && !disposed && d < PRINT_LOOKAHEAD &&
+			prepared[d] == null) {
+			prepared[d] = doc;
+			doc = null;
+		    }
+		    done = ++paginated;
+		    notifyAll();
+		}
+		if (doc != null) {
+		    doc.dispose();
+		}
+		firePaginationProgress(done, urls.length);
+	    }
+	}
+
+	/**
+	 * Loads and lays out a document in a new editor. Returns null if
+	 * the document can't be loaded.
+	 */
+	private PreparedDocument prepare(URL url) {
+	    PreparedDocument doc = null;
+	    try {
+		doc = new PreparedDocument();
+		doc.load(url);
+		doc.layout(pf, true);
+		return doc;
+	    } catch (Exception e) {
+		processException(e);
+		if (doc != null) {
+		    doc.dispose();
+		}
+		return null;
+	    }
+	}
+
+	/**
+	 * Waits for the pagination of all the documents.
+	 */
+	private synchronized void waitForPagination() {
+	    try {
+		while (paginated < urls.length && !disposed) {
+		    wait();
+		}
+	    } catch (InterruptedException e) {
+		processException(e);
+	    }
+	    if (firstPages == null) {
+		firstPages = new int[urls.length];
+		numPages = 0;
+		for (int i = 0; i < urls.length; i++) {
+		    firstPages[i] = numPages;
+		    if (pages[i] != null) {
+			numPages += pages[i].transforms.size();
+		    }
+		}
+	    }
+	}
+
+	public PageFormat getPageFormat(int pageIndex) throws IndexOutOfBoundsException {
+	    return pf;
+	}
         
-        public int print(Graphics pg, PageFormat pageFormat, int pi) {
-            
-            debug("Printing document page=" + pi);
-            pi -= firstPage;
-            debug("Printing page=" + pi);
-            
-            if (pi >= getNumberOfPages()) {
-                return Printable.NO_SUCH_PAGE;
-            }
-            
-            Graphics2D g2d = (Graphics2D) pg;
-            
-            printHeader(g2d, pi);
-            
-            // Apply transformation for current page
-            g2d.transform((AffineTransform) transforms.get(pi));
-            debug("Graphics tansform=" + g2d.getTransform());
-            debug("Graphics clip=" + g2d.getClip());
-            
-            // Get the Rectangle of the adjusted print graphics. This helps in
-            // printing the correct height. Indirectly gotten through
-            // the shape to perserve the coordinates (prevent rounding)
-            Rectangle2D g2dRec = g2d.getClip().getBounds2D();
-            
-            // See if any adjustments to the height are necessary
-            // If so create a new Rectangle and apply it to the g2d
-            double height = ((PageTransform)transforms.get(pi)).getHeight();
-            double adjheight = g2dRec.getY() + g2dRec.getHeight() - 1.0 - height;
-            if (adjheight > 0.0) {
-                debug("Graphics adjusted height=" + adjheight);
-                g2d.clip(new Rectangle2D.Double(
-                g2dRec.getX(),
-                g2dRec.getY(),
-                g2dRec.getWidth(),
-                g2dRec.getHeight() - adjheight
-                ));
-                g2dRec = g2d.getClip().getBounds2D();
-                debug("Graphics tansform=" + g2d.getTransform());
-                debug("Graphics clip=" + g2d.getClip());
-            }
-            
-            // Just print editor
-            if (g2dRec.getY() < height) {
-                // using editor.printAll(g2d) here should be better for jdk1.3
-                // but there are bugs in jdk1.2
-                editor.paint(g2d);
-            } else {
-                return Printable.NO_SUCH_PAGE;
-            }
-            
-            return Printable.PAGE_EXISTS;
-        }
+	public int getNumberOfPages() {
+	    waitForPagination();
+	    return numPages;
+	}
+
+	public Printable getPrintable(int pageIndex) throws IndexOutOfBoundsException {
+	    debug("PrintJobPageable.getPrintable("+pageIndex+")");
+	    waitForPagination();
+	    if (pageIndex < 0 || pageIndex >= numPages) {
+		throw new IndexOutOfBoundsException(pageIndex + " not in 0.." + numPages);
+	    }
+	    // the last document starting at or before the page
+	    int low = 0;
+	    int high = urls.length - 1;
+	    while (low < high) {
+		int mid = (low + high + 1) >>> 1;
+		if (firstPages[mid] <= pageIndex) {
+		    low = mid;
+		} else {
+		    high = mid - 1;
+		}
+	    }
+	    return new DocumentPrintable(low);
+	}
+
+	/**
+	 * Returns the document prepared for printing, loading it if needed,
+	 * and starts loading the documents after it.
+	 */
+	private PreparedDocument getPrepared(int d) {
+	    synchronized (this) {
+		// the printer moves forward, free the documents done
+		for (; released < d; released++) {
+		    if (prepared[released] != null) {
+			prepared[released].dispose();
+			prepared[released] = null;
+		    }
+		}
+		for (int i = d + 1; i <= d + PRINT_LOOKAHEAD && i < urls.length; i++) {
+		    prefetch(i);
+		}
+		try {
+		    while (preparing[d] && !disposed) {
+			wait();
+		    }
+		} catch (InterruptedException e) {
+		    return null;
+		}
+		if (prepared[d] != null || disposed) {
+		    return prepared[d];
+		}
+		preparing[d] = true;
+	    }
+	    PreparedDocument doc = prepare(urls[d]);
+	    return prepared(d, doc);
+	}
+
+	/**
+	 * Loads a document in the background.
+	 */
+	private synchronized void prefetch(final int d) {
+	    if (prepared[d] != null || preparing[d] || urls[d] == null ||
+		pages[d].transforms.size() == 0) {
+		return;
+	    }
+	    preparing[d] = true;
+	    Thread t = new Thread(new Runnable() {
+		public void run() {
+		    prepared(d, prepare(urls[d]));
+		}
+	    }, "JavaHelp print loader");
+	    t.setDaemon(true);
+	    t.start();
+	}
+
+	private synchronized PreparedDocument prepared(int d, PreparedDocument doc) {
+	    preparing[d] = false;
+	    notifyAll();
+	    if (disposed || d < released) {
+		if (doc != null) {
+		    doc.dispose();
+		}
+		return null;
+	    }
+	    prepared[d] = doc;
+	    return doc;
+	}
+
+	/**
+	 * Prints the pages of one document.
+	 */
+	class DocumentPrintable implements Printable {
+	    private int d;
+
+	    DocumentPrintable(int d) {
+		this.d = d;
+	    }
+
+	    public int print(Graphics pg, PageFormat pageFormat, int pi) {
+		debug("Printing document " + d + " page=" + pi);
+		Vector transforms = pages[d].transforms;
+		int page = pi - firstPages[d];
+		if (page < 0 || page >= transforms.size()) {
+		    return Printable.NO_SUCH_PAGE;
+		}
+		if (pi != lastPage) {
+		    // pages are printed more than once in bands
+		    lastPage = pi;
+		    firePrintProgress(pi, numPages);
+		}
+		final PreparedDocument doc = getPrepared(d);
+		if (doc == null) {
+		    // leave the page blank rather than end the job
+		    return Printable.PAGE_EXISTS;
+		}
+		final Graphics2D g2d = (Graphics2D) pg;
+		final Vector pageTransforms = transforms;
+		final int[] result = { Printable.PAGE_EXISTS };
+		final int docPage = page;
+		try {
+		    runOnEventThread(new Runnable() {
+			public void run() {
+			    result[0] = printPage(g2d, doc.editor, pf,
+						  pageTransforms, docPage);
+			}
+		    });
+		} catch (Exception e) {
+		    processException(e);
+		}
+		return result[0];
+	    }
+	}
+    }
+
+    /**
+     * The listener interface for the progress of print jobs. The methods
+     * are called on the threads paginating and printing the documents.
+     */
+    public interface PrintProgressListener extends EventListener {
+	/**
+	 * Documents of a print job have been paginated.
+	 *
+	 * @param documents The number of documents paginated so far.
+	 * @param count The number of documents in the job.
+	 */
+	public void documentsPaginated(int documents, int count);
+
+	/**
+	 * A page is being printed.
+	 *
+	 * @param page The zero based index of the page.
+	 * @param count The number of pages in the job.
+	 */
+	public void pagePrinting(int page, int count);
+    }
+
+    /**
+     * Adds a listener for the progress of print jobs.
+     */
+    public void addPrintProgressListener(PrintProgressListener l) {
+	progressListeners.addElement(l);
+    }
+
+    /**
+     * Removes a listener for the progress of print jobs.
+     */
+    public void removePrintProgressListener(PrintProgressListener l) {
+	progressListeners.removeElement(l);
+    }
+
+    private void firePaginationProgress(int documents, int count) {
+	Object[] listeners = progressListeners.toArray();
+	for (int i = 0; i < listeners.length; i++) {
+	    ((PrintProgressListener) listeners[i]).documentsPaginated(documents, count);
+	}
+    }
+
+    private void firePrintProgress(int page, int count) {
+	Object[] listeners = progressListeners.toArray();
+	for (int i = 0; i < listeners.length; i++) {
+	    ((PrintProgressListener) listeners[i]).pagePrinting(page, count);
+	}
     }
     
     class EmptyPrintable implements Printable {
@@ -33,12 +33,25 @@ package com.sun.java.help.impl;
 
 /**
  * This class parses an HTML or XML document.
+ * <p>
+ * The document is either parsed at once with parse(), which reports
+ * ParserEvents to the ParserListeners, or a piece at a time with next(),
+ * which moves a cursor to the next tag, text, PI, doctype, comment or
+ * error. The two can not be mixed on the same Parser.
+ * <p>
+ * The cursor does not create objects for the tags it finds. The name of
+ * a tag and the names of its attributes are returned as interned
+ * Strings when they are among the names used by JavaHelp files, and the
+ * characters of attribute values and text can be read in place. The
+ * characters remain valid until next() is called again.
  *
  * @author Roger D. Brinkley
  * @author Eduardo Pelegri-Llopart
  * @version	1.13	10/30/06
  */
 import java.util.Vector;
+import java.util.Hashtable;
+import java.io.IOException;
 import java.io.Reader;
 import java.io.InputStream;
 import java.util.EventListener;
@@ -46,6 +59,58 @@ import java.util.EventListener;
 public class Parser extends DocumentParser {
     protected ParserListener listenerList;
 
+    /**
+     * Returned by next() at the end of the document.
+     */
+    public static final int END_DOCUMENT = 0;
+
+    /**
+     * Returned by next() for a tag.
+     */
+    public static final int TAG = 1;
+
+    /**
+     * Returned by next() for a block of text.
+     */
+    public static final int TEXT = 2;
+
+    /**
+     * Returned by next() for a PI.
+     */
+    public static final int PI = 3;
+
+    /**
+     * Returned by next() for a DOCTYPE.
+     */
+    public static final int DOCTYPE = 4;
+
+    /**
+     * Returned by next() for a comment.
+     */
+    public static final int COMMENT = 5;
+
+    /**
+     * Returned by next() for a parse error.
+     */
+    public static final int ERROR = 6;
+
+    // cursor state
+    private boolean pulling = false;
+    private boolean pullEnded = false;
+    private char pullChar;
+
+    // The events found by the last step of the cursor. Most steps find
+    // one event, some errors produce two or three.
+    private int eventCount = 0;
+    private int eventIndex = 0;
+    private int[] eventTypes = new int[4];
+    private int[] textOffsets = new int[4];
+    private int[] textLengths = new int[4];
+    private Object[] eventData = new Object[4];
+    private ScanBuffer textBuffer;
+    private boolean endTag;
+    private boolean emptyTag;
+
     public Parser(Reader src) {
         super(src);
     }
@@ -54,16 +119,34 @@ public class Parser extends DocumentParser {
         super(in);
     }
 
+    protected void tag(boolean endTag, boolean emptyTag) {
+	if (pulling) {
+	    this.endTag = endTag;
+	    this.emptyTag = emptyTag;
+	    addEvent(TAG, null);
+	} else {
+	    super.tag(endTag, emptyTag);
+	}
+    }
+
     protected void tag(String name, TagProperties atts, boolean endTag, boolean emptyTag) {
 	Tag tag = new Tag(name, atts, endTag, emptyTag);
 	listenerList.tagFound(new ParserEvent(this, tag));
     }
 
     protected void pi(String target, String data) {
+	if (pulling) {
+	    addEvent(PI, new String[] { target, data });
+	    return;
+	}
 	listenerList.piFound(new ParserEvent(this, target, data));
     }
 
     protected void doctype(String root, String publicId, String systemId) {
+	if (pulling) {
+	    addEvent(DOCTYPE, new String[] { root, publicId, systemId });
+	    return;
+	}
 	listenerList.doctypeFound(new ParserEvent(this, root, publicId, systemId));
     }
 
@@ -73,21 +156,433 @@ public class Parser extends DocumentParser {
 			   (buf[offset] == DocPConst.RETURN))) {
 	    return;
 	}
+	if (pulling) {
+	    if (textBuffer == null) {
+		textBuffer = new ScanBuffer(8192, 4);
+	    }
+	    int start = textBuffer.length();
+	    for (int i = 0; i < length; i++) {
+		textBuffer.add(buf[offset + i]);
+	    }
+	    addEvent(TEXT, null);
+	    textOffsets[eventCount - 1] = start;
+	    textLengths[eventCount - 1] = length;
+	    return;
+	}
 	String text = new String(buf, offset, length);
 	listenerList.textFound(new ParserEvent(this, text));
     }
 
     protected void comment(String s) { 
+	if (pulling) {
+	    addEvent(COMMENT, s);
+	    return;
+	}
 	listenerList.commentFound(new ParserEvent(this, s));
     }
 
     protected void errorString(String s) { 
+	if (pulling) {
+	    addEvent(ERROR, s);
+	    return;
+	}
 	listenerList.errorFound(new ParserEvent(this, s));
     } 
 
     // Not need for our version of Parser
     protected String documentAttribute(String name) {return null;}
 
+    /**
+     * Moves the cursor to the next event of the document.
+     *
+     * @return The type of the event: TAG, TEXT, PI, DOCTYPE, COMMENT, ERROR
+     * or END_DOCUMENT at the end of the document.
+     * @exception IOException if the document can not be read
+     */
+    public int next() throws IOException {
+	if (eventIndex < eventCount) {
+	    return eventTypes[eventIndex++];
+	}
+	eventCount = 0;
+	eventIndex = 0;
+	if (textBuffer != null) {
+	    textBuffer.clear();
+	}
+	if (! pulling) {
+	    pulling = true;
+	    buffer.clear();
+	    pullChar = (source == null) ? EOF : readChar();
+	}
+
+	char c = pullChar;
+	while (eventCount == 0) {
+	    if (c == EOF) {
+		if (pullEnded) {
+		    return END_DOCUMENT;
+		}
+		pullEnded = true;
+		buffer.flush(this);
+	    } else if (c == DocPConst.AMPERSAND) {
+		c = parseEscape();
+	    } else if (c == DocPConst.LANGLE) {
+		if (buffer.length() > 0) {
+		    // report the text before the tag first
+		    buffer.flush(this);
+		} else {
+		    c = parseTag();
+		}
+	    } else {
+		// fixes bug 4056036 - cannot open bat-text files
+		if (c != DocPConst.RETURN) {
+		    buffer.add(c);
+		}
+		c = readChar();
+	    }
+	}
+	pullChar = c;
+	return eventTypes[eventIndex++];
+    }
+
+    private void addEvent(int type, Object data) {
+	if (eventCount == eventTypes.length) {
+	    int size = eventCount * 2;
+	    int[] types = new int[size];
+	    int[] offsets = new int[size];
+	    int[] lengths = new int[size];
+	    Object[] datas = new Object[size];
+	    System.arraycopy(eventTypes, 0, types, 0, eventCount);
+	    System.arraycopy(textOffsets, 0, offsets, 0, eventCount);
+	    System.arraycopy(textLengths, 0, lengths, 0, eventCount);
+	    System.arraycopy(eventData, 0, datas, 0, eventCount);
+	    eventTypes = types;
+	    textOffsets = offsets;
+	    textLengths = lengths;
+	    eventData = datas;
+	}
+	eventTypes[eventCount] = type;
+	eventData[eventCount] = data;
+	eventCount++;
+    }
+
+    private int getEventType() {
+	return (eventIndex == 0) ? END_DOCUMENT : eventTypes[eventIndex - 1];
+    }
+
+    private Object getEventData() {
+	return (eventIndex == 0) ? null : eventData[eventIndex - 1];
+    }
+
+    /**
+     * Returns the name of the current tag or null if the cursor is not on
+     * a tag. Well known names are returned as interned Strings.
+     */
+    public String getName() {
+	if (getEventType() != TAG) {
+	    return null;
+	}
+	return Names.get(tagBuffer.buf, 0, tagNameLength);
+    }
+
+    /**
+     * Returns true if the current tag is an end tag, &lt;/tag&gt;, or an
+     * empty tag, &lt;tag/&gt;.
+     */
+    public boolean isEndTag() {
+	return endTag;
+    }
+
+    /**
+     * Returns true if the current tag is an empty tag, &lt;tag/&gt;.
+     */
+    public boolean isEmptyTag() {
+	return emptyTag;
+    }
+
+    /**
+     * Returns the number of attributes of the current tag.
+     */
+    public int getAttributeCount() {
+	return (getEventType() == TAG) ? attCount : 0;
+    }
+
+    /**
+     * Returns the name of an attribute of the current tag. Well known
+     * names are returned as interned Strings.
+     */
+    public String getAttributeName(int index) {
+	checkAttribute(index);
+	return Names.get(tagBuffer.buf, attRanges[index * 4],
+			 attRanges[index * 4 + 1]);
+    }
+
+    /**
+     * Returns the value of an attribute of the current tag.
+     */
+    public String getAttributeValue(int index) {
+	checkAttribute(index);
+	return new String(tagBuffer.buf, attRanges[index * 4 + 2],
+			  attRanges[index * 4 + 3]);
+    }
+
+    /**
+     * Returns the value of the named attribute of the current tag or null.
+     * If the attribute is repeated the last value is returned.
+     */
+    public String getAttributeValue(String name) {
+	int index = getAttributeIndex(name);
+	return (index == -1) ? null : getAttributeValue(index);
+    }
+
+    /**
+     * Returns the index of the named attribute of the current tag or -1.
+     * If the attribute is repeated the index of the last one is returned.
+     */
+    public int getAttributeIndex(String name) {
+	int length = name.length();
+	for (int i = getAttributeCount() - 1; i >= 0; i--) {
+	    if (attRanges[i * 4 + 1] != length) {
+		continue;
+	    }
+	    int offset = attRanges[i * 4];
+	    int j = 0;
+	    while (j < length && tagBuffer.buf[offset + j] == name.charAt(j)) {
+		j++;
+	    }
+	    if (j == length) {
+		return i;
+	    }
+	}
+	return -1;
+    }
+
+    /**
+     * Returns the characters holding the name and the attributes of the
+     * current tag.
+     *
+     * @see #getAttributeValueStart
+     * @see #getAttributeValueLength
+     */
+    public char[] getTagCharacters() {
+	return tagBuffer.buf;
+    }
+
+    /**
+     * Returns the offset of the value of an attribute in the array
+     * returned by getTagCharacters.
+     */
+    public int getAttributeValueStart(int index) {
+	checkAttribute(index);
+	return attRanges[index * 4 + 2];
+    }
+
+    /**
+     * Returns the length of the value of an attribute.
+     */
+    public int getAttributeValueLength(int index) {
+	checkAttribute(index);
+	return attRanges[index * 4 + 3];
+    }
+
+    private void checkAttribute(int index) {
+	if (index < 0 || index >= getAttributeCount()) {
+	    throw new IndexOutOfBoundsException("attribute " + index);
+	}
+    }
+
+    /**
+     * Returns the attributes of the current tag in a new Hashtable, or
+     * null if the tag has no attributes.
+     */
+    public Hashtable getAttributes() {
+	int count = getAttributeCount();
+	if (count == 0) {
+	    return null;
+	}
+	Hashtable attributes = new Hashtable(count * 2 + 1);
+	for (int i = 0; i < count; i++) {
+	    attributes.put(getAttributeName(i), getAttributeValue(i));
+	}
+	return attributes;
+    }
+
+    /**
+     * Returns the current tag as a new Tag object, or null if the cursor
+     * is not on a tag.
+     */
+    public Tag getTag() {
+	if (getEventType() != TAG) {
+	    return null;
+	}
+	TagProperties atts = null;
+	Hashtable attributes = getAttributes();
+	if (attributes != null) {
+	    atts = new TagProperties();
+	    atts.setHashtable(attributes);
+	}
+	return new Tag(getName(), atts, endTag, emptyTag);
+    }
+
+    /**
+     * Returns the current text, or the text of the current comment or
+     * error. Returns null for other events.
+     */
+    public String getText() {
+	switch (getEventType()) {
+	case TEXT:
+	    return new String(textBuffer.buf, getTextStart(), getTextLength());
+	case COMMENT:
+	case ERROR:
+	    return (String) getEventData();
+	default:
+	    return null;
+	}
+    }
+
+    /**
+     * Returns the characters holding the current text.
+     *
+     * @see #getTextStart
+     * @see #getTextLength
+     */
+    public char[] getTextCharacters() {
+	return (getEventType() == TEXT) ? textBuffer.buf : null;
+    }
+
+    /**
+     * Returns the offset of the current text in the array returned by
+     * getTextCharacters.
+     */
+    public int getTextStart() {
+	return (getEventType() == TEXT) ? textOffsets[eventIndex - 1] : 0;
+    }
+
+    /**
+     * Returns the length of the current text.
+     */
+    public int getTextLength() {
+	return (getEventType() == TEXT) ? textLengths[eventIndex - 1] : 0;
+    }
+
+    /**
+     * Returns true if the current text is only white space.
+     */
+    public boolean isWhitespace() {
+	if (getEventType() != TEXT) {
+	    return false;
+	}
+	char[] buf = textBuffer.buf;
+	int end = getTextStart() + getTextLength();
+	for (int i = getTextStart(); i < end; i++) {
+	    if (buf[i] > ' ') {
+		return false;
+	    }
+	}
+	return true;
+    }
+
+    /**
+     * Returns the target of the current PI or null.
+     */
+    public String getTarget() {
+	return (getEventType() == PI) ? ((String[]) getEventData())[0] : null;
+    }
+
+    /**
+     * Returns the data of the current PI or null.
+     */
+    public String getData() {
+	return (getEventType() == PI) ? ((String[]) getEventData())[1] : null;
+    }
+
+    /**
+     * Returns the root of the current DOCTYPE or null.
+     */
+    public String getRoot() {
+	return (getEventType() == DOCTYPE) ?
+	    ((String[]) getEventData())[0] : null;
+    }
+
+    /**
+     * Returns the public id of the current DOCTYPE or null.
+     */
+    public String getPublicId() {
+	return (getEventType() == DOCTYPE) ?
+	    ((String[]) getEventData())[1] : null;
+    }
+
+    /**
+     * Returns the system id of the current DOCTYPE or null.
+     */
+    public String getSystemId() {
+	return (getEventType() == DOCTYPE) ?
+	    ((String[]) getEventData())[2] : null;
+    }
+
+    /**
+     * The names of the tags and attributes of the JavaHelp files. They are
+     * looked up from characters without creating a String.
+     */
+    static class Names {
+	private static final String[] known = {
+	    // helpset
+	    "helpset", "title", "maps", "homeID", "mapref", "location",
+	    "view", "name", "label", "type", "data", "engine", "image",
+	    "mergetype", "presentation", "subhelpset", "impl",
+	    "helpsetregistry", "helpbrokerclass", "viewerregistry",
+	    "viewertype", "viewerclass", "size", "width", "height", "x", "y",
+	    "toolbar", "helpaction", "displayviews", "displayviewimages",
+	    "default", "version", "xml:lang",
+	    // map
+	    "map", "mapID", "target", "url",
+	    // toc, index and glossary
+	    "toc", "tocitem", "index", "indexitem", "text", "expand",
+	    "presentationtype", "presentationname",
+	    "categoryopenimage", "categoryclosedimage", "topicimage",
+	    // favorites
+	    "favorites", "favoriteitem", "hstitle"
+	};
+	private static final String[] table = new String[256];
+
+	static {
+	    for (int i = 0; i < known.length; i++) {
+		String name = known[i].intern();
+		int h = name.hashCode() & (table.length - 1);
+		while (table[h] != null) {
+		    h = (h + 1) & (table.length - 1);
+		}
+		table[h] = name;
+	    }
+	}
+
+	/**
+	 * Returns the interned name for the characters if it is a known
+	 * name, a new String otherwise.
+	 */
+	static String get(char[] buf, int offset, int length) {
+	    int hash = 0;
+	    for (int i = 0; i < length; i++) {
+		hash = 31 * hash + buf[offset + i];
+	    }
+	    int h = hash & (table.length - 1);
+	    for (String name = table[h]; name != null;
+		 name = table[h = (h + 1) & (table.length - 1)]) {
+		if (name.length() == length && matches(name, buf, offset)) {
+		    return name;
+		}
+	    }
+	    return new String(buf, offset, length);
+	}
+
+	private static boolean matches(String name, char[] buf, int offset) {
+	    for (int i = name.length() - 1; i >= 0; i--) {
+		if (name.charAt(i) != buf[offset + i]) {
+		    return false;
+		}
+	    }
+	    return true;
+	}
+    }
+
     public void addParserListener(ParserListener l) {
         listenerList = ParserMulticaster.add(listenerList, l);
     }
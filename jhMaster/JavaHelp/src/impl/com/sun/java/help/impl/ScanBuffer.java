@@ -0,0 +1,95 @@
+/*
+ * @(#)ScanBuffer.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+/*
+ * @(#) ScanBuffer.java 1.1 - last change made 10/19/26
+ *
+ * A growable character buffer used by the parsers to collect text.
+ */
+
+package com.sun.java.help.impl;
+
+class ScanBuffer {
+    char []	buf;
+    int		buflen;
+    int scale = 2;
+
+    ScanBuffer() {
+	buf = new char [ 256 ];
+    }
+
+    //...........................................................
+    // YK -extra constructor with the initial buffer size
+    //...........................................................
+    ScanBuffer(int l, int s) {
+        buf = new char [l];
+	scale = s;
+    }
+
+    protected void clear() {
+	buflen = 0;
+    }
+ 
+    protected void reset(int offset) {
+	buflen = offset;
+    }
+
+    protected void flush(DocumentParser owner) {
+	if (buflen > 0){
+	    owner.callFlush(buf, 0, buflen);
+	    buflen = 0;
+	}
+    }
+
+    protected void add(char c) {
+	if (buflen >= buf.length){
+	    char [] x = new char [buf.length * scale];
+	    System.arraycopy(buf, 0, x, 0, buf.length);
+	    buf = x;
+	}
+	buf[buflen++] = c;
+    }
+
+    protected int length() {
+	return buflen;
+    }
+
+    public String toString() {
+ 	return "ScanBuffer, buf = " + buf + ", buflen = " + buflen;
+    } 
+
+    //....................................................
+    // YK: optimized creating new strings
+    // without any data copying (big performance win)
+    // as this method is called allover the place
+    //....................................................
+   
+    protected String extract(int offset) {
+	return new String(buf, offset, buflen - offset);
+    }
+
+} // class ScanBuffer
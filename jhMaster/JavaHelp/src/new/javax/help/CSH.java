@@ -44,6 +44,8 @@ import java.awt.Toolkit;
 import java.awt.Window;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
 import java.awt.event.InputEvent;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
@@ -72,6 +74,8 @@ import java.util.Vector;
 import java.util.Enumeration;
 import java.util.WeakHashMap;
 import java.lang.ref.WeakReference;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 
 /**
  * A convenience class that provides simple
@@ -87,9 +91,19 @@ import java.lang.ref.WeakReference;
  */
 public class CSH {
     
-    static private java.util.Map comps;
+    // All maps are weak keyed and guarded by registryLock
+    static private java.util.Map comps = new WeakHashMap(5);
     static private java.util.Map parents;
     static private java.util.Vector managers = new Vector();
+    static private final Object registryLock = new Object();
+
+    // Static help resolved for Components while no manager is registered,
+    // see resolve(Component)
+    static private java.util.Map resolved = new WeakHashMap();
+    static private java.util.Map moveWatched = new WeakHashMap();
+    static private java.util.Map propertyWatched = new WeakHashMap();
+    static private int generation = 0;
+    static private final Invalidator invalidator = new Invalidator();
     
     /**
      * Registers the specified manager to maintain dynamic CSH.
@@ -191,32 +205,29 @@ public class CSH {
             // For MenuItems and Components we have an internal Hashtable of
             // components and their properties.
             
-            // Initialize as necessary
-            if (comps == null) {
-                comps = new WeakHashMap(5);
-            }
-            
-            // See if this component has already set some client properties
-            // If so update.
-            // If not then create the client props (as needed) and add to
-            // the internal Hashtable of components and properties
-            Hashtable clientProps = (Hashtable) comps.get(comp);
-            if (clientProps != null) {
-                if (helpID != null) {
-                    clientProps.put("HelpID", helpID);
+            synchronized (registryLock) {
+                // See if this component has already set some client properties
+                // If so update.
+                // If not then create the client props (as needed) and add to
+                // the internal Hashtable of components and properties
+                Hashtable clientProps = (Hashtable) comps.get(comp);
+                if (clientProps != null) {
+                    if (helpID != null) {
+                        clientProps.put("HelpID", helpID);
+                    } else {
+                        clientProps.remove("HelpID");
+                        if (clientProps.isEmpty()) {
+                            comps.remove(comp);
+                        }
+                    }
                 } else {
-                    clientProps.remove("HelpID");
-                    if (clientProps.isEmpty()) {
-                        comps.remove(comp);
+                    // Only create properties if there is a valid helpID
+                    if (helpID != null) {
+                        clientProps = new Hashtable(2);
+                        clientProps.put("HelpID", helpID);
+                        comps.put(comp, clientProps);
                     }
                 }
-            } else {
-                // Only create properties if there is a valid helpID
-                if (helpID != null) {
-                    clientProps = new Hashtable(2);
-                    clientProps.put("HelpID", helpID);
-                    comps.put(comp, clientProps);
-                }
             }
             
         } else {
@@ -235,7 +246,7 @@ public class CSH {
             if (comp instanceof JComponent) {
                 helpID = (String) ((JComponent)comp).getClientProperty("HelpID");
             } else if ((comp instanceof Component) || (comp instanceof MenuItem)) {
-                if (comps != null) {
+                synchronized (registryLock) {
                     Hashtable clientProps = (Hashtable)comps.get(comp);
                     if (clientProps !=null) {
                         helpID = (String) clientProps.get("HelpID");
@@ -290,8 +301,12 @@ public class CSH {
             throw new IllegalArgumentException("Invalid Component");
         }
         
-        if (parent == null && parents != null) {
-            parent = parents.get(comp);
+        if (parent == null) {
+            synchronized (registryLock) {
+                if (parents != null) {
+                    parent = parents.get(comp);
+                }
+            }
         }
         
         return parent;
@@ -305,6 +320,7 @@ public class CSH {
      */
     public static void setHelpIDString(Component comp, String helpID) {
         _setHelpIDString(comp, helpID);
+        invalidate();
     }
     
     /**
@@ -314,6 +330,7 @@ public class CSH {
      */
     public static void setHelpIDString(MenuItem comp, String helpID) {
         _setHelpIDString(comp, helpID);
+        invalidate();
     }
     
     /**
@@ -331,6 +348,10 @@ public class CSH {
             return null;
         }
         
+        if (managers.isEmpty() && comp instanceof Component) {
+            return resolve((Component)comp).helpID;
+        }
+        
         String helpID = _getHelpIDString(comp, evt);
         
         if (helpID == null) {
@@ -435,32 +456,29 @@ public class CSH {
             // For MenuItem and Components we have an internal Hashtable of
             // components and their properties.
             
-            // Initialize as necessary
-            if (comps == null) {
-                comps = new WeakHashMap(5);
-            }
-            
-            // See if this component has already set some client properties
-            // If so update.
-            // If not then create the client props (as needed) and add to
-            // the internal Hashtable of components and properties
-            Hashtable clientProps = (Hashtable) comps.get(comp);
-            if (clientProps != null) {
-                if (hs != null) {
-                    clientProps.put("HelpSet", hs);
+            synchronized (registryLock) {
+                // See if this component has already set some client properties
+                // If so update.
+                // If not then create the client props (as needed) and add to
+                // the internal Hashtable of components and properties
+                Hashtable clientProps = (Hashtable) comps.get(comp);
+                if (clientProps != null) {
+                    if (hs != null) {
+                        clientProps.put("HelpSet", hs);
+                    } else {
+                        clientProps.remove("HelpSet");
+                        if (clientProps.isEmpty()) {
+                            comps.remove(comp);
+                        }
+                    }
                 } else {
-                    clientProps.remove("HelpSet");
-                    if (clientProps.isEmpty()) {
-                        comps.remove(comp);
+                    // Only create properties if there is a valid helpID
+                    if (hs != null) {
+                        clientProps = new Hashtable(2);
+                        clientProps.put("HelpSet", hs);
+                        comps.put(comp, clientProps);
                     }
                 }
-            } else {
-                // Only create properties if there is a valid helpID
-                if (hs != null) {
-                    clientProps = new Hashtable(2);
-                    clientProps.put("HelpSet", hs);
-                    comps.put(comp, clientProps);
-                }
             }
         } else {
             throw new IllegalArgumentException("Invalid Component");
@@ -478,7 +496,7 @@ public class CSH {
             if (comp instanceof JComponent) {
                 hs = (HelpSet) ((JComponent)comp).getClientProperty("HelpSet");
             } else if ((comp instanceof Component) || (comp instanceof MenuItem)) {
-                if (comps != null) {
+                synchronized (registryLock) {
                     Hashtable clientProps = (Hashtable)comps.get(comp);
                     if (clientProps !=null) {
                         hs = (HelpSet) clientProps.get("HelpSet");
@@ -517,6 +535,7 @@ public class CSH {
      */
     public static void setHelpSet(Component comp, HelpSet hs) {
         _setHelpSet(comp, hs);
+        invalidate();
     }
     
     /**
@@ -526,6 +545,7 @@ public class CSH {
      */
     public static void setHelpSet(MenuItem comp, HelpSet hs) {
         _setHelpSet(comp, hs);
+        invalidate();
     }
     
     /**
@@ -548,6 +568,10 @@ public class CSH {
             return null;
         }
         
+        if (managers.isEmpty() && comp instanceof Component) {
+            return resolve((Component)comp).hs;
+        }
+        
         String helpID = _getHelpIDString(comp, evt);
         if (helpID == null) {
             helpID = _getHelpIDString(comp);
@@ -656,6 +680,123 @@ public class CSH {
          */
     }
     
+    /**
+     * Returns the static helpID and HelpSet of a Component or of its
+     * nearest ancestor with a helpID.
+     * <p>
+     * Results are remembered as long as the path from the component to
+     * that ancestor is made of plain parent links. A remembered result is
+     * dropped when the component or one of its ancestors changes parent
+     * and all results are dropped when a helpID or HelpSet changes.
+     * Only used while no manager is registered as managers may answer
+     * differently for each event.
+     */
+    private static Resolved resolve(Component comp) {
+        int gen;
+        synchronized (registryLock) {
+            Resolved r = (Resolved) resolved.get(comp);
+            if (r != null) {
+                return r;
+            }
+            gen = generation;
+        }
+        
+        Resolved r = new Resolved();
+        Vector path = new Vector();
+        boolean cacheable = true;
+        Object c = comp;
+        while (c != null) {
+            if (c instanceof JComponent) {
+                path.addElement(c);
+            }
+            String helpID = _getHelpIDString(c);
+            if (helpID != null) {
+                r.helpID = helpID;
+                r.hs = _getHelpSet(c);
+                break;
+            }
+            Object parent = getParent(c);
+            // popup invokers and renderer parents change without notice
+            if (c instanceof JPopupMenu || !(c instanceof Component) ||
+                (parent != null && parent != ((Component)c).getParent())) {
+                cacheable = false;
+            }
+            c = parent;
+        }
+        if (!cacheable) {
+            return r;
+        }
+        
+        boolean watchMoves;
+        synchronized (registryLock) {
+            watchMoves = moveWatched.put(comp, Boolean.TRUE) == null;
+            for (int i = path.size() - 1; i >= 0; i--) {
+                if (propertyWatched.put(path.elementAt(i), Boolean.TRUE) != null) {
+                    path.removeElementAt(i);
+                }
+            }
+        }
+        
+        // Listeners are added outside of the lock as AWT holds the tree
+        // lock while it notifies them.
+        // The component is told when it or an ancestor is moved.
+        if (watchMoves) {
+            comp.addHierarchyListener(invalidator);
+        }
+        for (int i = 0; i < path.size(); i++) {
+            JComponent jc = (JComponent) path.elementAt(i);
+            jc.addPropertyChangeListener("HelpID", invalidator);
+            jc.addPropertyChangeListener("HelpSet", invalidator);
+        }
+        
+        synchronized (registryLock) {
+            // don't keep a result that changed while it was resolved
+            if (gen == generation) {
+                resolved.put(comp, r);
+            }
+        }
+        return r;
+    }
+        
+    /**
+     * Drops all resolved helpIDs and HelpSets.
+     */
+    private static void invalidate() {
+        synchronized (registryLock) {
+            generation++;
+            resolved.clear();
+        }
+    }
+        
+    /**
+     * The helpID and HelpSet resolved for a Component.
+     */
+    private static class Resolved {
+        String helpID;
+        HelpSet hs;
+    }
+        
+    /**
+     * Drops resolved results when components are moved or the helpID
+     * or HelpSet client properties of a JComponent change.
+     */
+    private static class Invalidator implements HierarchyListener,
+        PropertyChangeListener {
+        
+        public void hierarchyChanged(HierarchyEvent e) {
+            if ((e.getChangeFlags() & HierarchyEvent.PARENT_CHANGED) != 0) {
+                synchronized (registryLock) {
+                    generation++;
+                    resolved.remove(e.getComponent());
+                }
+            }
+        }
+        
+        public void propertyChange(PropertyChangeEvent e) {
+            invalidate();
+        }
+    }
+    
     /**
      * Context Sensitive Event Tracking
      *
@@ -1032,23 +1173,25 @@ public class CSH {
         // It is needed for backtrack searching of HelpSet and HelpID
         // in getHelpSet() and getHelpIDString().
         if (comp != null) {
-            if (parents == null) {
-                // WeakHashMap of WeakReferences
-                parents = new WeakHashMap(4) {
-                    public Object put(Object key, Object value) {
-                        return super.put(key, new WeakReference(value));
-                    }
-                    public Object get(Object key) {
-                        WeakReference wr = (WeakReference)super.get(key);
-                        if (wr != null) {
-                            return wr.get();
-                        } else {
-                            return null;
+            synchronized (registryLock) {
+                if (parents == null) {
+                    // WeakHashMap of WeakReferences
+                    parents = new WeakHashMap(4) {
+                        public Object put(Object key, Object value) {
+                            return super.put(key, new WeakReference(value));
                         }
-                    }
-                };
+                        public Object get(Object key) {
+                            WeakReference wr = (WeakReference)super.get(key);
+                            if (wr != null) {
+                                return wr.get();
+                            } else {
+                                return null;
+                            }
+                        }
+                    };
+                }
+                parents.put(comp, cont);
             }
-            parents.put(comp, cont);
         }
         return comp;
     }
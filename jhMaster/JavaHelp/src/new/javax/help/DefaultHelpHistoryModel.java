@@ -37,25 +37,70 @@ import java.net.URL;
 import java.util.Stack;
 /**
  * DefaultHelpHistoryModel is default implementation of HelpHistoryModel interface
+ * <p>
+ * The history holds at most <code>getMaxEntries()</code> entries. When it
+ * is full the oldest entry is dropped for each new one. Only the ID, the
+ * URL, the history name and the navigator of each location are kept, not
+ * the HelpModelEvents themselves.
  *
  * @author  Richard Gregor
- * @version   1.4     10/30/06
+ * @version   1.5     10/30/06
  */
 
 public class DefaultHelpHistoryModel implements HelpHistoryModel{
     
+    /**
+     * The default maximum number of history entries.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+    
+    /**
+     * The HelpModelEvents of the history entries, oldest first. It is kept
+     * in sync with the entries; changes made to it by a subclass are
+     * picked up by the next call to the model.
+     *
+     * @deprecated Use <code>getHistory()</code>.
+     */
     protected Vector history = new Vector();
     protected int historyIndex = -1;
     protected HelpModel helpModel;
     protected EventListenerList listenerList = new EventListenerList();
     protected JHelp help;
     
+    // the entries form a ring; entries[first] is the oldest one
+    private Entry[] entries = new Entry[16];
+    private int first = 0;
+    private int count = 0;
+    private int maxEntries;
+    
+    // lists handed out until the history changes
+    private transient Vector backwardHistory;
+    private transient Vector forwardHistory;
+    // the index the lists were made for
+    private transient int listIndex;
+    
     /** 
      * Creates new DefaultHelpHistoryModel for given JHelp
      *
      * @param help The JHelp
      */
     public DefaultHelpHistoryModel(JHelp help) {
+        this(help, DEFAULT_MAX_ENTRIES);
+    }
+  
+    /** 
+     * Creates new DefaultHelpHistoryModel for given JHelp that holds
+     * at most maxEntries entries.
+     *
+     * @param help The JHelp
+     * @param maxEntries The maximum number of entries
+     * @throws IllegalArgumentException if maxEntries is less than one.
+     */
+    public DefaultHelpHistoryModel(JHelp help, int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        this.maxEntries = maxEntries;
         this.help = help;
         if (help != null){
             setHelpModel(help.getModel());            
@@ -79,6 +124,43 @@ public class DefaultHelpHistoryModel implements HelpHistoryModel{
          helpModel = model;        
     }
         
+    /**
+     * Returns the maximum number of history entries
+     *
+     * @return The maximum number of entries
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+    
+    /**
+     * Sets the maximum number of history entries. If the history holds
+     * more entries the oldest ones are dropped, followed by the newest ones
+     * if the current entry would be dropped otherwise.
+     *
+     * @param maxEntries The maximum number of entries
+     * @throws IllegalArgumentException if maxEntries is less than one.
+     */
+    public void setMaxEntries(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be positive");
+        }
+        syncEntries();
+        this.maxEntries = maxEntries;
+        if (count <= maxEntries) {
+            return;
+        }
+        while (count > maxEntries && historyIndex > 0) {
+            removeFirst();
+        }
+        if (count > maxEntries) {
+            truncate(maxEntries);
+        }
+        if (entries.length > maxEntries) {
+            resize(maxEntries);
+        }
+        fireHistoryChanged(this,(historyIndex > 0),(historyIndex < count-1));
+    }
             
     /**
      * Removes a listener previously added with <tt>addHelpHistoryModelListener</tt>
@@ -105,17 +187,20 @@ public class DefaultHelpHistoryModel implements HelpHistoryModel{
      * Discards a history
      */
     public void discard() {
-        history.setSize(0);
+        syncEntries();
+        truncate(0);
         historyIndex = -1;
         fireHistoryChanged(this,false,false);
     }
     
     /**
-     * Returns a history
+     * Returns a history. The returned Vector is the history itself and
+     * must not be modified.
      *
      * @return The vector of history entries
      */
     public Vector getHistory(){
+        syncEntries();
         return history;
     }
     
@@ -124,9 +209,9 @@ public class DefaultHelpHistoryModel implements HelpHistoryModel{
      *
      */
     public void removeLastEntry(){
-        int size = history.size();
-        if(size > 0)
-            history.removeElementAt(history.size() -1);
+        syncEntries();
+        if(count > 0)
+            truncate(count - 1);
     }
     /**
      * Returns a current history position
@@ -152,37 +237,33 @@ public class DefaultHelpHistoryModel implements HelpHistoryModel{
     }
     
     /**
-     * Returns a forward history vector
+     * Returns a forward history vector. The returned Vector is shared
+     * until the history changes and must not be modified.
      *
      * @return The vector of forward history entries
      */
     public Vector getForwardHistory() {
-        Vector historyCopy = (Vector)history.clone();
-        Vector forwardHistory = new Vector();
-        int size = historyCopy.size();
-        debug(" forward size : "+size);
-        for(int i = historyIndex + 1 ; i < size; i++){
-            forwardHistory.addElement(historyCopy.elementAt(i)); 
+        debug(" forward size : "+count);
+        syncEntries();
+        if (forwardHistory == null) {
+            forwardHistory = getEntries(historyIndex + 1, count);
         }
         return forwardHistory;
     }
     
     /**
-     * Returns a backward history vector
+     * Returns a backward history vector. The returned Vector is shared
+     * until the history changes and must not be modified.
      *
      * @return The vector of backward history entries
      */
     public Vector getBackwardHistory() {        
-        Vector backwardHistory = new Vector();
-        Vector historyCopy = (Vector)history.clone();
-        debug(" backward size : "+historyCopy.size());
+        debug(" backward size : "+count);
         debug(" backward index : "+historyIndex);
-        if(historyCopy != null){
-            for(int i = 0 ; i < historyIndex; i++){            
-                backwardHistory.addElement(historyCopy.elementAt(i));
-            }
+        syncEntries();
+        if (backwardHistory == null) {
+            backwardHistory = getEntries(0, historyIndex);
         }
-        
         return backwardHistory;        
     }
     
@@ -199,15 +280,17 @@ public class DefaultHelpHistoryModel implements HelpHistoryModel{
             return;
         }
         
-        if (index < 0 || index >= history.size()) {
+        syncEntries();
+        if (index < 0 || index >= count) {
             // invalid index
             discard();
             return;
         }
         
-        HelpModelEvent e = (HelpModelEvent) history.elementAt(index);
+        Entry e = entryAt(index);
         // set the historyIndex so it is ready to take the next event...
         historyIndex = index-1;
+        changed();
         ID id = e.getID();
         URL url = e.getURL();
         JHelpNavigator navigator = e.getNavigator();
@@ -215,7 +298,7 @@ public class DefaultHelpHistoryModel implements HelpHistoryModel{
             // try to set the ID
             try {
                 debug("  setCurrentID"+id);
-                helpModel.setCurrentID(id, e.getHistoryName(),e.getNavigator());
+                helpModel.setCurrentID(id, e.getHistoryName(), navigator);
                 if(navigator != null)
                     help.setCurrentNavigator(navigator);
                 return;
@@ -227,7 +310,7 @@ public class DefaultHelpHistoryModel implements HelpHistoryModel{
             // try to set the URL
             try {
                 debug("  setCurrentURL"+url);
-                helpModel.setCurrentURL(url,e.getHistoryName(),e.getNavigator());
+                helpModel.setCurrentURL(url, e.getHistoryName(), navigator);
                 if(navigator != null)
                     help.setCurrentNavigator(navigator);                    
                 return;
@@ -270,36 +353,31 @@ public class DefaultHelpHistoryModel implements HelpHistoryModel{
     public void idChanged(HelpModelEvent e) {
         debug("idChanged("+e+")");
         debug("  historyIndex=="+historyIndex);
-        debug("  history.size=="+history.size());
+        debug("  history.size=="+count);
         
-        if (historyIndex == history.size()-1) {
+        syncEntries();
+        if (historyIndex == count-1) {
             // we are at the end
             // (this covers the initial case of historyIndex == -1
-            history.addElement(e);
+            add(new Entry(this, e));
             historyIndex += 1;
-            fireHistoryChanged(this,(historyIndex > 0),(historyIndex < history.size()-1));           
+            fireHistoryChanged(this,(historyIndex > 0),(historyIndex < count-1));           
             return;
         }
         
         if (historyIndex >= -1 &&
-        historyIndex < history.size()-1) {
+        historyIndex < count-1) {
             // check the next slot where to record
             
             historyIndex += 1;	// advance
-            HelpModelEvent h
-            = (HelpModelEvent) history.elementAt(historyIndex);
-            
-            if (h == null) {
-                // this really should not happen
-                discard();
-                return;
-            }
+            changed();
+            Entry h = entryAt(historyIndex);
             
             // compare ID's first
-            if (h.getID() != null &&	e.getID() != null &&
+            if (h.getID() != null && e.getID() != null &&
             h.getID().equals(e.getID())) {
                 // we are were we wanted to be, just return
-                fireHistoryChanged(this,(historyIndex > 0),(historyIndex < history.size()-1));
+                fireHistoryChanged(this,(historyIndex > 0),(historyIndex < count-1));
                 return;
             }
             
@@ -307,15 +385,15 @@ public class DefaultHelpHistoryModel implements HelpHistoryModel{
             if (h.getURL() != null && e.getURL() != null &&
             h.getURL().sameFile(e.getURL())) {
                 // we are were we wanted to be, just return
-                fireHistoryChanged(this,(historyIndex > 0),(historyIndex < history.size()-1));
+                fireHistoryChanged(this,(historyIndex > 0),(historyIndex < count-1));
                 return;
             }
             
             // new location is different, so throw away object and the rest
-            history.setSize(historyIndex);
+            truncate(historyIndex);
             // add the new element
-            history.addElement(e);
-            fireHistoryChanged(this,(historyIndex > 0),(historyIndex < history.size()-1));
+            add(new Entry(this, e));
+            fireHistoryChanged(this,(historyIndex > 0),(historyIndex < count-1));
         }
     }
     
@@ -325,47 +403,52 @@ public class DefaultHelpHistoryModel implements HelpHistoryModel{
      * @param hs The removed HelpSet
      */
     public void removeHelpSet(HelpSet hs){
-        Enumeration e = history.elements();
-        debug(" size before " +history.size());
+        debug(" size before " +count);
         
+        syncEntries();
         if(debug){
             System.err.println("before : ");
-            for(int j = 0; j < history.size(); j++){
-                System.err.println(((HelpModelEvent)history.elementAt(j)).getID());
+            for(int j = 0; j < count; j++){
+                System.err.println(entryAt(j).getID());
             }
         }
-        int size = history.size();
-        Vector newHistory = new Vector();
-        int index = historyIndex;
         
+        // keep the remaining entries in place
+        int size = count;
+        int kept = 0;
         for(int i = 0; i < size; i++){
-            HelpModelEvent evt = (HelpModelEvent)history.elementAt(i);
-            ID id = evt.getID();
+            Entry entry = entryAt(i);
+            ID id = entry.getID();
             debug(" update id "+id);
-            URL url = evt.getURL();
+            URL url = entry.getURL();
             debug(" update url " +url);
+            boolean remain = false;
             if ((id != null) && (id.hs != hs)) {
                 debug(" remain - "+id);
-                newHistory.addElement(history.elementAt(i));
+                remain = true;
             }
             else if (url != null) {
                 //find out if there is a matching ID for this URL
                 ID idcan = hs.getCombinedMap().getIDFromURL(url);
                 if(idcan == null){
                     debug(" remain > "+idcan);
-                    newHistory.addElement(history.elementAt(i));
+                    remain = true;
                 }
             }
+            if (remain) {
+                entries[(first + kept) % entries.length] = entry;
+                history.setElementAt(entry, kept);
+                kept++;
+            }
         }
+        truncate(kept);
+        historyIndex = count -1;
         
-        history = newHistory;
-        historyIndex = history.size() -1;
-        
-        debug(" size after " + history.size());
+        debug(" size after " + count);
         if(debug){
             System.err.println("after : ");
-            for(int j = 0; j < history.size(); j++){
-                System.err.println(((HelpModelEvent)history.elementAt(j)).getID());
+            for(int j = 0; j < count; j++){
+                System.err.println(entryAt(j).getID());
             }
         }
         setHistoryEntry(historyIndex);
@@ -381,6 +464,119 @@ public class DefaultHelpHistoryModel implements HelpHistoryModel{
     protected HelpModel getModel(){
         return helpModel;
     }
+    
+    private Entry entryAt(int index) {
+        return entries[(first + index) % entries.length];
+    }
+    
+    /**
+     * Appends an entry, dropping the oldest one if the history is full.
+     */
+    private void add(Entry entry) {
+        if (count == maxEntries) {
+            removeFirst();
+        } else if (count == entries.length) {
+            resize(Math.min(maxEntries, entries.length * 2));
+        }
+        entries[(first + count) % entries.length] = entry;
+        count++;
+        history.addElement(entry);
+        changed();
+    }
+    
+    private void removeFirst() {
+        entries[first] = null;
+        first = (first + 1) % entries.length;
+        count--;
+        history.removeElementAt(0);
+        historyIndex--;
+        changed();
+    }
+    
+    /**
+     * Drops all entries from index on.
+     */
+    private void truncate(int index) {
+        for (int i = index; i < count; i++) {
+            entries[(first + i) % entries.length] = null;
+        }
+        count = index;
+        history.setSize(index);
+        changed();
+    }
+    
+    private void resize(int length) {
+        Entry[] newEntries = new Entry[Math.max(length, 1)];
+        for (int i = 0; i < count; i++) {
+            newEntries[i] = entryAt(i);
+        }
+        entries = newEntries;
+        first = 0;
+    }
+    
+    /**
+     * Takes over the changes a subclass made to the history Vector or
+     * to the history index.
+     */
+    private void syncEntries() {
+        if (historyIndex != listIndex) {
+            changed();
+            listIndex = historyIndex;
+        }
+        if (history == null) {
+            history = new Vector();
+        }
+        int size = history.size();
+        boolean same = size == count;
+        for (int i = 0; same && i < size; i++) {
+            same = history.elementAt(i) == entryAt(i);
+        }
+        if (same) {
+            return;
+        }
+        entries = new Entry[Math.max(size, 1)];
+        first = 0;
+        count = size;
+        for (int i = 0; i < size; i++) {
+            HelpModelEvent e = (HelpModelEvent) history.elementAt(i);
+            entries[i] = e instanceof Entry ? (Entry) e : new Entry(this, e);
+            history.setElementAt(entries[i], i);
+        }
+        while (count > maxEntries) {
+            removeFirst();
+        }
+        changed();
+    }
+    
+    /**
+     * Forgets the lists handed out so far.
+     */
+    private void changed() {
+        backwardHistory = null;
+        forwardHistory = null;
+    }
+    
+    private Vector getEntries(int from, int to) {
+        Vector v = new Vector(Math.max(to - from, 0));
+        for (int i = from; i < to; i++) {
+            v.addElement(entryAt(i));
+        }
+        return v;
+    }
+    
+    /**
+     * A history entry. It keeps the location of the event and not the
+     * event itself.
+     */
+    private static class Entry extends HelpModelEvent {
+        private static final long serialVersionUID = 4087628212941432592L;
+        
+        Entry(Object source, HelpModelEvent e) {
+            super(source, e.getID(), e.getURL(), e.getHistoryName(),
+                  e.getNavigator());
+        }
+    }
+    
     /**
      * For printf debugging.
      */
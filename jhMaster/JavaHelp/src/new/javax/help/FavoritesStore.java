@@ -0,0 +1,353 @@
+/*
+ * @(#)FavoritesStore.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package javax.help;
+
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+
+/**
+ * Writes the user's favorites file in the background.
+ * <p>
+ * Saves are coalesced. A save requested on the event dispatching thread
+ * only remembers the tree; the tree is serialized on that thread once it
+ * has not been saved again for DELAY milliseconds, so a burst of edits
+ * results in a single write and the tree is never read while the UI
+ * modifies it. Saves requested on other threads are serialized right away.
+ * <p>
+ * The serialized tree is written by a daemon thread to a temporary file
+ * in the same directory which then replaces the favorites file, so the
+ * file is never left partially written. Pending saves are written when
+ * the virtual machine exits.
+ *
+ * @version	1.1	10/19/26
+ */
+
+class FavoritesStore {
+    /**
+     * The time in milliseconds a save is delayed to coalesce edits.
+     */
+    static final int DELAY = 500;
+
+    private static FavoritesStore store;
+
+    private File dir;
+    private File file;
+    private FavoritesNode node;		// saved but not yet serialized
+    private byte[] data;		// serialized but not yet written
+    private boolean writing = false;
+    private boolean enabled = true;
+    private Thread writer;
+    private Timer timer;
+
+    private FavoritesStore(File dir) {
+	this.dir = dir;
+	file = new File(dir, "Favorites.xml");
+    }
+
+    /**
+     * Returns the store for the favorites file of the user.
+     *
+     * @exception SecurityException if the user's home directory can not
+     * be determined.
+     */
+    static synchronized FavoritesStore getStore() {
+	if (store == null) {
+	    String userDir = System.getProperty("user.home");
+	    store = new FavoritesStore(new File(userDir, ".JavaHelp"));
+	    try {
+		Runtime.getRuntime().addShutdownHook(new Thread() {
+		    public void run() {
+			store.close();
+		    }
+		});
+	    } catch (SecurityException se) {
+		debug("no shutdown hook: " + se);
+	    }
+	}
+	return store;
+    }
+
+    /**
+     * Writes any pending save of the favorites file before the file is
+     * read. Does nothing if nothing was saved yet.
+     */
+    static void flushStore() {
+	FavoritesStore s;
+	synchronized (FavoritesStore.class) {
+	    s = store;
+	}
+	if (s != null) {
+	    s.flush();
+	}
+    }
+
+    /**
+     * Returns the favorites file.
+     */
+    File getFile() {
+	return file;
+    }
+
+    /**
+     * Schedules the tree to be written to the favorites file.
+     */
+    void save(FavoritesNode node) {
+	if (!isEnabled()) {
+	    return;
+	}
+	if (SwingUtilities.isEventDispatchThread()) {
+	    synchronized (this) {
+		this.node = node;
+	    }
+	    if (timer == null) {
+		timer = new Timer(DELAY, new ActionListener() {
+		    public void actionPerformed(ActionEvent e) {
+			serializePending();
+		    }
+		});
+		timer.setRepeats(false);
+	    }
+	    timer.restart();
+	} else {
+	    synchronized (this) {
+		// a later save supersedes one still waiting for the timer
+		this.node = null;
+	    }
+	    submit(serialize(node));
+	}
+    }
+
+    /**
+     * Writes pending saves and waits until they are written.
+     */
+    void flush() {
+	if (SwingUtilities.isEventDispatchThread()) {
+	    if (timer != null) {
+		timer.stop();
+	    }
+	    serializePending();
+	} else {
+	    boolean pending;
+	    synchronized (this) {
+		pending = node != null;
+	    }
+	    if (pending) {
+		try {
+		    SwingUtilities.invokeAndWait(new Runnable() {
+			public void run() {
+			    serializePending();
+			}
+		    });
+		} catch (Exception e) {
+		    debug("flush failed: " + e);
+		}
+	    }
+	}
+	synchronized (this) {
+	    while (data != null || writing) {
+		try {
+		    wait();
+		} catch (InterruptedException e) {
+		    Thread.currentThread().interrupt();
+		    return;
+		}
+	    }
+	}
+    }
+
+    /**
+     * Writes pending saves on exit. The event dispatching thread may
+     * be blocked in <code>System.exit</code> so the tree is serialized on
+     * the calling thread.
+     */
+    private void close() {
+	FavoritesNode pending;
+	synchronized (this) {
+	    pending = node;
+	    node = null;
+	}
+	if (pending != null) {
+	    submit(serialize(pending));
+	}
+	byte[] bytes;
+	synchronized (this) {
+	    long end = System.currentTimeMillis() + 2000;
+	    while (writing) {
+		long left = end - System.currentTimeMillis();
+		if (left <= 0) {
+		    return;
+		}
+		try {
+		    wait(left);
+		} catch (InterruptedException e) {
+		    return;
+		}
+	    }
+	    bytes = data;
+	    data = null;
+	}
+	if (bytes != null) {
+	    write(bytes);
+	}
+    }
+
+    private synchronized boolean isEnabled() {
+	return enabled;
+    }
+
+    private void serializePending() {
+	FavoritesNode pending;
+	synchronized (this) {
+	    pending = node;
+	    node = null;
+	}
+	if (pending != null) {
+	    submit(serialize(pending));
+	}
+    }
+
+    private static byte[] serialize(FavoritesNode node) {
+	ByteArrayOutputStream out = new ByteArrayOutputStream();
+	try {
+	    node.export(out);
+	} catch (IOException e) {
+	    // can't happen with a ByteArrayOutputStream
+	    debug("export failed: " + e);
+	    return null;
+	}
+	return out.toByteArray();
+    }
+
+    /**
+     * Hands serialized data to the writer thread, replacing data that
+     * is not written yet.
+     */
+    private synchronized void submit(byte[] bytes) {
+	if (bytes == null || !enabled) {
+	    return;
+	}
+	data = bytes;
+	if (writer == null) {
+	    writer = new Thread(new Writer(), "JavaHelp favorites writer");
+	    writer.setDaemon(true);
+	    writer.start();
+	}
+	notifyAll();
+    }
+
+    private synchronized byte[] nextData() throws InterruptedException {
+	while (data == null) {
+	    wait();
+	}
+	byte[] bytes = data;
+	data = null;
+	writing = true;
+	return bytes;
+    }
+
+    private synchronized void written() {
+	writing = false;
+	notifyAll();
+    }
+
+    /**
+     * Writes the data to a temporary file and renames it to the
+     * favorites file.
+     */
+    private void write(byte[] bytes) {
+	File tmp = null;
+	try {
+	    dir.mkdirs();
+	    tmp = File.createTempFile("Favorites", ".tmp", dir);
+	    FileOutputStream out = new FileOutputStream(tmp);
+	    try {
+		out.write(bytes);
+		out.getFD().sync();
+	    } finally {
+		out.close();
+	    }
+	    if (!tmp.renameTo(file)) {
+		// some platforms don't rename over an existing file
+		file.delete();
+		if (!tmp.renameTo(file)) {
+		    throw new IOException("can't rename " + tmp + " to " + file);
+		}
+	    }
+	    debug("wrote " + file);
+	    tmp = null;
+	} catch (SecurityException se) {
+	    synchronized (this) {
+		enabled = false;
+	    }
+	    se.printStackTrace();
+	} catch (IOException e) {
+	    e.printStackTrace();
+	} finally {
+	    if (tmp != null) {
+		tmp.delete();
+	    }
+	}
+    }
+
+    /**
+     * The body of the writer thread.
+     */
+    private class Writer implements Runnable {
+	public void run() {
+	    while (true) {
+		byte[] bytes;
+		try {
+		    bytes = nextData();
+		} catch (InterruptedException e) {
+		    return;
+		}
+		try {
+		    write(bytes);
+		} finally {
+		    written();
+		}
+	    }
+	}
+    }
+
+    /**
+     * For printf debugging.
+     */
+    private final static boolean debug = false;
+    private static void debug(String str) {
+	if (debug) {
+	    System.out.println("FavoritesStore: " + str);
+	}
+    }
+}
@@ -159,8 +159,9 @@ public class FavoritesView extends NavigatorView{
         DefaultMutableTreeNode node = null;
         URL url= null;
         try {            
-            String user_dir = System.getProperty("user.home");
-            File file = new File(user_dir+File.separator+".JavaHelp"+File.separator+"Favorites.xml");            
+            // read what has been saved, not what has been written so far
+            FavoritesStore.flushStore();
+            File file = FavoritesStore.getStore().getFile();
             if(!file.exists())
                 return new FavoritesNode(new FavoritesItem("Favorites"));
             try{
@@ -184,7 +185,11 @@ public class FavoritesView extends NavigatorView{
     
 
     /**
-     * Saves favorites file
+     * Saves favorites file. The file is written in the background once
+     * no further saves have been requested for a short time, so it is
+     * cheap to call this method after every change. The tree must not be
+     * modified outside of the event dispatching thread after it has been
+     * saved on that thread.
      *
      * @param node The FavoritesNode
      */
@@ -193,19 +198,10 @@ public class FavoritesView extends NavigatorView{
         if(!enabledSave)
             return;
         try{
-            FileOutputStream out;
-            String user_dir = System.getProperty("user.home");
-            File file = new File(user_dir+File.separator+".JavaHelp");
-            file.mkdirs();                            
-            String userFile = file.getPath()+File.separator+"Favorites.xml";
-            debug("new file:"+userFile);
-            node.export(out = new FileOutputStream(userFile));
-            out.close();
+            FavoritesStore.getStore().save(node);
         }catch(SecurityException se){
             enabledSave = false;
             se.printStackTrace();
-        }catch(Exception excp){
-            excp.printStackTrace();
         }
     }
     /**
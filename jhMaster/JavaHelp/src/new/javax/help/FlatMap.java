@@ -320,60 +320,90 @@ public class FlatMap implements Map, Serializable {
 	    lookup = new Hashtable(10);
 
 	    Parser parser = new Parser(src); // the XML parser instance
-	    parser.addParserListener(this);
-	    parser.parse();
+	    for (int type = parser.next(); type != Parser.END_DOCUMENT;
+		 type = parser.next()) {
+		switch (type) {
+		case Parser.TAG:
+		    String name = parser.getName();
+		    if (name.equals("mapID")) {
+			mapIDFound(parser.getAttributeValue("target"),
+				   parser.getAttributeValue("url"));
+		    } else if (name.equals("map")) {
+			mapFound(parser.isEndTag(),
+				 parser.getAttributeValue("version"));
+		    }
+		    break;
+		case Parser.DOCTYPE:
+		    publicIDFound(parser.getPublicId());
+		    break;
+		case Parser.ERROR:
+		    reportMessage(parser.getText(), false);
+		    break;
+		}
+	    }
 	}
 
 	/**
 	 *  A tag was parsed.
 	 */
 	public void tagFound(ParserEvent e) {
-	    Locale locale = null;
 	    Tag tag = e.getTag();
 	    FlatMap.debug("TagFound: "+tag.name);
 	    TagProperties attr = tag.atts;
 
-	    // Nothing tricky about mapID it doesn't have any hierarchy to it.
 	    if (tag.name.equals("mapID")) {
-		if (!startedmap) {
-		    parsingError("map.invalidMapFormat");
-		}
-
 		String target = null;
 		String url = null;
 		if (attr != null) {
 		    target = attr.getProperty("target");
 		    url = attr.getProperty("url");
 		}
-		if (target == null || url == null) {
-		    reportMessage("Failure in mapID Creation;", true);
-		    reportMessage("  target: "+ target, true);
-		    reportMessage("  url: "+ url, true);
-		    return;
-		}
-		lookup.put(target, url);
-		return;
+		mapIDFound(target, url);
 	    } else if (tag.name.equals("map")) {
-		if (!tag.isEnd) {
-		    if (attr != null) {
-		        String version = attr.getProperty("version");
-			if (version != null && 
-			    (version.compareTo("1.0") != 0 &&
-			     version.compareTo("2.0") != 0)) {
-			    parsingError("map.unknownVersion", version);
-			}
-		    }
-		    if (startedmap) {
-			parsingError("map.invalidMapFormat");
-		    }
-		    startedmap = true;
-		} else {
-		    if (startedmap) {
-			startedmap = false;
-		    }
+		String version = null;
+		if (attr != null) {
+		    version = attr.getProperty("version");
 		}
+		mapFound(tag.isEnd, version);
+	    }
+	}
+
+	/**
+	 * A mapID tag was parsed.
+	 */
+	private void mapIDFound(String target, String url) {
+	    // Nothing tricky about mapID it doesn't have any hierarchy to it.
+	    if (!startedmap) {
+		parsingError("map.invalidMapFormat");
+	    }
+	    if (target == null || url == null) {
+		reportMessage("Failure in mapID Creation;", true);
+		reportMessage("  target: "+ target, true);
+		reportMessage("  url: "+ url, true);
 		return;
 	    }
+	    lookup.put(target, url);
+	}
+
+	/**
+	 * A map tag was parsed.
+	 */
+	private void mapFound(boolean isEnd, String version) {
+	    if (!isEnd) {
+		if (version != null && 
+		    (version.compareTo("1.0") != 0 &&
+		     version.compareTo("2.0") != 0)) {
+		    parsingError("map.unknownVersion", version);
+		}
+		if (startedmap) {
+		    parsingError("map.invalidMapFormat");
+		}
+		startedmap = true;
+	    } else {
+		if (startedmap) {
+		    startedmap = false;
+		}
+	    }
 	}
 
 	/**
@@ -387,7 +417,10 @@ public class FlatMap implements Map, Serializable {
 	 *  A DOCTYPE was parsed.  This method is not intended to be of general use.
 	 */
 	public void doctypeFound(ParserEvent e) {
-	    String publicID = e.getPublicId();
+	    publicIDFound(e.getPublicId());
+	}
+
+	private void publicIDFound(String publicID) {
 	    if (publicID == null ||
 		(publicID.compareTo(publicIDString) != 0 &&
 		 publicID.compareTo(publicIDString_V2) != 0)) {
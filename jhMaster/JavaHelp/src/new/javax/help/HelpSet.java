@@ -42,8 +42,6 @@ import javax.help.Map.ID;
 
 // implementation-specific
 import com.sun.java.help.impl.Parser;
-import com.sun.java.help.impl.ParserListener;
-import com.sun.java.help.impl.ParserEvent;
 import com.sun.java.help.impl.Tag;
 import com.sun.java.help.impl.TagProperties;
 import com.sun.java.help.impl.XmlReader;
@@ -1246,7 +1244,7 @@ public class HelpSet implements Serializable{
      * the parse method in the enclosing class.
      */
 
-    private static class HelpSetParser implements ParserListener {
+    private static class HelpSetParser {
 	private Stack tagStack;	// the collection of active Parse tags
 	private Locale defaultLocale;
 	private Locale lastLocale;
@@ -1276,7 +1274,7 @@ public class HelpSet implements Serializable{
 	private String helpAction;
 
 	/**
-	 * Creates a Parser (Listener) instance.
+	 * Creates a Parser instance.
 	 */
 	HelpSetParser (HelpSetFactory factory) {
 	    this.factory = factory;
@@ -1295,15 +1293,30 @@ public class HelpSet implements Serializable{
 	    myHS = hs;
 	    myHSLocale = hs.getLocale();
 	    Parser parser = new Parser(src); // the XML parser instance
-	    parser.addParserListener(this);
-	    parser.parse();
+	    for (int type = parser.next(); type != Parser.END_DOCUMENT;
+		 type = parser.next()) {
+		switch (type) {
+		case Parser.TAG:
+		    tagFound(parser.getTag());
+		    break;
+		case Parser.TEXT:
+		    textFound(parser.getText());
+		    break;
+		case Parser.PI:
+		    factory.processPI(myHS, parser.getTarget(), parser.getData());
+		    break;
+		case Parser.DOCTYPE:
+		    factory.processDOCTYPE(parser.getRoot(), parser.getPublicId(),
+					   parser.getSystemId());
+		    break;
+		}
+	    }
 	}
 
-	public void tagFound(ParserEvent e) {
-            debug("tagFound " + e.getTag().name);
+	private void tagFound(Tag tag) {
+            debug("tagFound " + tag.name);
 	    Locale locale = null;
 	    LangElement le;
-	    Tag tag = e.getTag();
 	    String name = tag.name;
 	    int x=0, y=0, width=0, height=0;
 	    TagProperties attr = tag.atts;
@@ -1709,23 +1722,15 @@ public class HelpSet implements Serializable{
 	    }
 	}
 
-	public void piFound(ParserEvent e) {
-	    factory.processPI(myHS, e.getTarget(), e.getData());
-	}
-
-	public void doctypeFound(ParserEvent e) {
-	    factory.processDOCTYPE(e.getRoot(), e.getPublicId(), e.getSystemId());
-	}
-
 	private void checkNull(String name, String t) {
 	    if (! t.equals("")) {
 		parsingError("helpset.wrongText", name, t);
 	    }
 	}
 
-	public void textFound(ParserEvent e) {
+	private void textFound(String text) {
 	    debug("textFound: ");
-	    debug("  text: "+e.getText());
+	    debug("  text: "+text);
 
 	    if (tagStack.empty()) {
 		return;		// ignore
@@ -1734,7 +1739,7 @@ public class HelpSet implements Serializable{
 	    Tag tag = le.getTag();
 	    TagProperties attr = tag.atts;
 	    Hashtable ht = (attr == null) ? null : attr.getHashtable();
-	    String text = e.getText().trim();
+	    text = text.trim();
 	    String name = tag.name;
 
 	    if (name.equals("helpset")) {
@@ -1792,20 +1797,6 @@ public class HelpSet implements Serializable{
             }
 	}
 
-	/**
-	 * Method used to parse a HelpSet.
-	 */
-	public void errorFound(ParserEvent e) {
-	    // Ignore it for now
-	}
-
-	/**
-	 * Method used to parse a HelpSet.
-	 */
-	public void commentFound(ParserEvent e) {
-	    // Ignore it for now
-	}
-    
     	/**
 	 * addTag keeps track of tags and their locale attributes.
 	 */
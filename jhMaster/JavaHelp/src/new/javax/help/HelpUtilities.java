@@ -37,6 +37,7 @@ import java.util.Locale;
 import java.util.MissingResourceException;
 import java.util.ResourceBundle;
 import java.util.Vector;
+import java.util.WeakHashMap;
 
 import java.beans.BeanInfo;
 import java.beans.Introspector;
@@ -193,6 +194,78 @@ public class HelpUtilities {
 					   String back,
 					   Locale locale,
 					   boolean tryRead) {
+	ResourceKey key = new ResourceKey(front, back, locale,
+					  Locale.getDefault(), tryRead);
+	Hashtable resolved = getResolvedResources(cl);
+	Object cached = resolved.get(key);
+	if (cached != null) {
+	    debug("getLocalizedResource - cached ", key);
+	    return cached == NOT_FOUND ? null : (URL) cached;
+	}
+	URL url = findLocalizedResource(cl, front, back, locale, tryRead);
+	resolved.put(key, url == null ? NOT_FOUND : (Object) url);
+	return url;
+    }
+
+    /**
+     * Clears the cache of resolved localized resources for all
+     * ClassLoaders. Both resources that were found and the misses are
+     * forgotten, so the next call to getLocalizedResource will probe the
+     * ClassLoaders again.
+     *
+     * This should be called when resources are added to or removed from
+     * a ClassLoader after it has been searched, for instance when a jar
+     * file is replaced while the application is running.
+     */
+    public static void clearLocalizedResourceCache() {
+	synchronized (resolvedPerLoader) {
+	    resolvedPerLoader.clear();
+	}
+    }
+
+    /**
+     * Clears the cache of resolved localized resources for a given
+     * ClassLoader.
+     * @param cl The ClassLoader whose entries are removed. If cl is null the
+     * entries for the default ClassLoader are removed.
+     */
+    public static void clearLocalizedResourceCache(ClassLoader cl) {
+	synchronized (resolvedPerLoader) {
+	    resolvedPerLoader.remove(cl == null ? SYSTEM_LOADER : (Object) cl);
+	}
+    }
+
+    /**
+     * Resolved localized resources, per ClassLoader.
+     * The ClassLoaders are weakly referenced so they can still be collected.
+     * Each value is a Hashtable from a ResourceKey to the URL found or to
+     * NOT_FOUND when no candidate exists.
+     */
+    private static final WeakHashMap resolvedPerLoader = new WeakHashMap();
+    private static final Object SYSTEM_LOADER = new Object();
+    private static final Object NOT_FOUND = new Object();
+
+    private static Hashtable getResolvedResources(ClassLoader cl) {
+	Object loaderKey = cl == null ? SYSTEM_LOADER : (Object) cl;
+	synchronized (resolvedPerLoader) {
+	    Hashtable resolved = (Hashtable) resolvedPerLoader.get(loaderKey);
+	    if (resolved == null) {
+		resolved = new Hashtable();
+		resolvedPerLoader.put(loaderKey, resolved);
+	    }
+	    return resolved;
+	}
+    }
+
+    /**
+     * Probes the ClassLoader for every candidate tail of the locale.
+     * This is the uncached part of getLocalizedResource.
+     */
+    private static URL findLocalizedResource(ClassLoader cl,
+					     String front,
+					     String back,
+					     Locale locale,
+					     boolean tryRead) {
 	URL url;
 	for (Enumeration tails = getCandidates(locale);
 	     tails.hasMoreElements(); ) {
@@ -226,6 +299,52 @@ public class HelpUtilities {
 	return null;
     }
 
+    /**
+     * Auxiliary class used as the key of the resolved resources cache.
+     * The default locale is part of the key because it is part of the
+     * candidates returned by getCandidates.
+     */
+
+    static class ResourceKey {
+	ResourceKey(String front, String back, Locale locale,
+		    Locale defaultLocale, boolean tryRead) {
+	    this.front = front;
+	    this.back = back;
+	    this.locale = locale;
+	    this.defaultLocale = defaultLocale;
+	    this.tryRead = tryRead;
+	}
+
+	public int hashCode() {
+	    int h = front.hashCode() * 31 + back.hashCode();
+	    h = h * 31 + locale.hashCode();
+	    h = h * 31 + defaultLocale.hashCode();
+	    return tryRead ? h + 1 : h;
+	}
+
+	public boolean equals(Object obj) {
+	    if (obj == null || ! (obj instanceof ResourceKey)) {
+		return false;
+	    } else {
+		ResourceKey k = (ResourceKey) obj;
+		return tryRead == k.tryRead &&
+		    front.equals(k.front) && back.equals(k.back) &&
+		    locale.equals(k.locale) &&
+		    defaultLocale.equals(k.defaultLocale);
+	    }
+	}
+
+	public String toString() {
+	    return front + "[" + locale + "]" + back;
+	}
+
+	String front;
+	String back;
+	Locale locale;
+	Locale defaultLocale;
+	boolean tryRead;
+    }
+
     private static Hashtable tailsPerLocales = new Hashtable();
 
     /**
@@ -123,6 +123,10 @@ public class IndexView extends NavigatorView {
 	return mergeType;
     }
 
+    // the sizes of the batches of top level nodes reported while parsing
+    private static final int FIRST_BATCH = 16;
+    private static final int MAX_BATCH = 1024;
+
     // turn this on if you want messages on failures
     private static boolean warningOfFailures = false;
 
@@ -135,7 +139,30 @@ public class IndexView extends NavigatorView {
      * it may create the tree programatically.
      */
     public DefaultMutableTreeNode getDataAsTree() {
-	HelpSet hs = getHelpSet();
+	return getDataAsTree(getHelpSet(), null);
+    }
+
+    /**
+     * Gets a DefaultMutableTreeNode representing the information in this
+     * view instance and reports the top level nodes to a listener while
+     * they are parsed.
+     *
+     * If a subclass overrides <tt>getDataAsTree()</tt> the listener is
+     * ignored and the tree is obtained from that method.
+     *
+     * @param listener The listener told about the top level nodes. May
+     * be null.
+     * @see TreeParseListener
+     */
+    public DefaultMutableTreeNode getDataAsTree(TreeParseListener listener) {
+	if (listener == null || isOverridden(IndexView.class, "getDataAsTree")) {
+	    return getDataAsTree();
+	}
+	return getDataAsTree(getHelpSet(), listener);
+    }
+
+    private DefaultMutableTreeNode getDataAsTree(HelpSet hs,
+						 TreeParseListener listener) {
         debug("helpSet in "+this+hs.toString());
 	Hashtable params = getParameters();
 	URL url;
@@ -152,7 +179,8 @@ public class IndexView extends NavigatorView {
 	    throw new Error("Trouble getting URL to Index data; "+ex);
 	}
         debug("url,hs: "+url.toString()+";"+hs.toString());
-	return parse(url, hs, hs.getLocale(), new DefaultIndexFactory());
+	return parse(url, hs, hs.getLocale(), new DefaultIndexFactory(),
+		     listener);
     }
 
     /**
@@ -174,13 +202,39 @@ public class IndexView extends NavigatorView {
 					HelpSet hs,
 					Locale locale,
 					TreeItemFactory factory) {
+	return parse(url, hs, locale, factory, null);
+    }
+
+    /**
+     * Public method for parsing an Index in a URL that reports the top
+     * level nodes to a listener while they are parsed.
+     * It returns a DefaultMutableTreeNode and its children
+     * that correspond to the indexitems in the Index.  The factory is invoked to create
+     * the TreeItems that are included in the DefaultMutableTreeNode as user
+     * data.
+     *
+     * @param url Location of the Index. If null, causes null value to be returned.
+     * @param hs The HelpSet context for this Index. Null hs is ignored.
+     * @param locale The default locale to interpret the data in this Index. Null
+     * locale is treated as the default locale.
+     * @param factory A factory instance that is used to create the IndexItems
+     * @param listener The listener told about the top level nodes. May be null.
+     * @return a TreeNode that represents the Index. Returns null if parsing errors 
+     * were encountered.
+     * @see TreeParseListener
+     */
+    public static DefaultMutableTreeNode parse(URL url,
+					HelpSet hs,
+					Locale locale,
+					TreeItemFactory factory,
+					TreeParseListener listener) {
 	Reader src;
 	DefaultMutableTreeNode node = null;
 	try {
 	    URLConnection uc = url.openConnection();
 	    src = XmlReader.createReader(uc);
 	    factory.parsingStarted(url);
-	    node = (new IndexParser(factory)).parse(src, hs, locale);
+	    node = (new IndexParser(factory, listener)).parse(src, hs, locale);
 	    src.close();
 	} catch (Exception e) {
 	    factory.reportMessage("Exception caught while parsing "+url+
@@ -354,7 +408,7 @@ public class IndexView extends NavigatorView {
      * the parse method in the enclosing class.
      */
 
-    private static class IndexParser implements ParserListener {
+    private static class IndexParser {
 	private HelpSet currentParseHS; // HelpSet we are parsing into
 	private Stack nodeStack;	// to track the parsing
 	private Stack itemStack;
@@ -363,6 +417,9 @@ public class IndexView extends NavigatorView {
 	private Locale lastLocale;
 	private boolean startedindex;
 	private TreeItemFactory factory;
+	private TreeParseListener listener;
+	private Vector batch;		// top level nodes not reported yet
+	private int batchSize;
 
 	/**
 	 * Creates an Index Parser using a factory instance to create the item nodes.
@@ -371,8 +428,9 @@ public class IndexView extends NavigatorView {
 	 * has been recognized.
 	 */
 
-	IndexParser(TreeItemFactory factory) {
+	IndexParser(TreeItemFactory factory, TreeParseListener listener) {
 	    this.factory = factory;
+	    this.listener = listener;
 	}
 
 	/**
@@ -395,51 +453,75 @@ public class IndexView extends NavigatorView {
 	    }
 	    lastLocale = defaultLocale;
 
+	    batch = new Vector();
+	    batchSize = FIRST_BATCH;
+
 	    DefaultMutableTreeNode node = new DefaultMutableTreeNode();
 	    nodeStack.push(node);
 	    
 	    currentParseHS = context;
 	    
 	    Parser parser = new Parser(src); // the XML parser instance
-	    parser.addParserListener(this);
-	    parser.parse();
+	    for (int type = parser.next(); type != Parser.END_DOCUMENT;
+		 type = parser.next()) {
+		switch (type) {
+		case Parser.TAG:
+		    tagFound(parser);
+		    break;
+		case Parser.TEXT:
+		    textFound(parser);
+		    break;
+		case Parser.DOCTYPE:
+		    factory.processDOCTYPE(parser.getRoot(),
+					   parser.getPublicId(),
+					   parser.getSystemId());
+		    break;
+		case Parser.ERROR:
+		    factory.reportMessage(parser.getText(), false);
+		    break;
+		}
+	    }
+	    flush();
 	    return node;
 	}
 
 	/**
 	 *  A Tag was parsed.  This method is not intended to be of general use.
 	 */
-	public void tagFound(ParserEvent e) {
+	private void tagFound(Parser parser) {
 	    Locale locale = null;
-	    Tag tag = e.getTag();
-	    TagProperties attr = tag.atts;
+	    String name = parser.getName();
+	    boolean isEnd = parser.isEndTag();
+	    boolean isEmpty = parser.isEmptyTag();
+	    boolean hasAttributes = parser.getAttributeCount() > 0;
 
-	    if (attr != null) {
-		String lang = attr.getProperty("xml:lang");
+	    if (hasAttributes) {
+		String lang = parser.getAttributeValue("xml:lang");
 		locale = HelpUtilities.localeFromLang(lang);
 	    }
 	    if (locale == null) {
 		locale = lastLocale;
 	    }
 
-	    if (tag.name.equals("indexitem")) {
+	    if (name.equals("indexitem")) {
 		if (!startedindex) {
 		    factory.reportMessage(HelpUtilities.getText("index.invalidIndexFormat"),
 					  false);
 		}
-		if (tag.isEnd && ! tag.isEmpty) {
-		    nodeStack.pop();
+		if (isEnd && !isEmpty) {
+		    DefaultMutableTreeNode done =
+			(DefaultMutableTreeNode) nodeStack.pop();
 		    itemStack.pop();
-		    removeTag(tag);
+		    removeTag(name);
+		    if (nodeStack.size() == 1) {
+			topLevelNodeParsed(done);
+		    }
 		    return;
 		}
 
 		TreeItem item = null;
 		try {
-		    Hashtable t = null;
-		    if (attr != null) {
-			t = attr.getHashtable();
-		    }
+		    Hashtable t = parser.getAttributes();
 		    item = factory.createItem("indexitem",
 					      t,
 					      currentParseHS,
@@ -447,8 +529,8 @@ public class IndexView extends NavigatorView {
 		} catch (Exception ex) {
 		    if (warningOfFailures) {
 			String id=null;
-			if (attr != null) {
-			    id = attr.getProperty("target");
+			if (hasAttributes) {
+			    id = parser.getAttributeValue("target");
 			}
 			System.err.println("Failure in IndexItem Creation; ");
 			System.err.println("  id: "+id);
@@ -469,15 +551,17 @@ public class IndexView extends NavigatorView {
 		DefaultMutableTreeNode parent = 
 		    (DefaultMutableTreeNode) nodeStack.peek();
 		parent.add(node);
-		if (! tag.isEmpty) {
+		if (! isEmpty) {
 		    itemStack.push(item);
 		    nodeStack.push(node);
-		    addTag(tag, locale);
+		    addTag(name, locale);
+		} else if (nodeStack.size() == 1) {
+		    topLevelNodeParsed(node);
 		}
-	    }  else if (tag.name.equals("index")) {
-		if (!tag.isEnd) {
-		    if (attr != null) {
-		        String version = attr.getProperty("version");
+	    }  else if (name.equals("index")) {
+		if (!isEnd) {
+		    if (hasAttributes) {
+		        String version = parser.getAttributeValue("version");
 			if (version != null && 
 			    (version.compareTo("1.0") != 0 &&
 			     version.compareTo("2.0") != 0 )) {
@@ -489,36 +573,21 @@ public class IndexView extends NavigatorView {
 					      false);
 		    }
 		    startedindex = true;
-		    addTag(tag, locale);
+		    addTag(name, locale);
 		} else {
 		    if (startedindex) {
 			startedindex = false;
 		    }
-		    removeTag(tag);
+		    removeTag(name);
 		}
 		return;
 	    }
 	}
 
-	/**
-	 *  A PI was parsed.  This method is not intended to be of general use.
-	 */
-	public void piFound(ParserEvent e) {
-	    // ignore
-	}
-
-	/**
-	 *  A DOCTYPE was parsed.  This method is not intended to be of general use.
-	 */
-	public void doctypeFound(ParserEvent e) {
-	    // ignore for now
-	    factory.processDOCTYPE(e.getRoot(), e.getPublicId(), e.getSystemId());
-	}
-
 	/**
 	 * A continous block of text was parsed.
 	 */
-	public void textFound(ParserEvent e) {
+	private void textFound(Parser parser) {
 	    if (tagStack.empty()) {
 		return;		// ignore
 	    }
@@ -528,25 +597,49 @@ public class IndexView extends NavigatorView {
 		IndexItem item = (IndexItem) itemStack.peek();
 		String oldName = item.getName();
 		if (oldName == null) {
-		    item.setName(e.getText().trim());
-		} else {
-		    item.setName(oldName.concat(e.getText()).trim());
+		    item.setName(parser.getText().trim());
+		} else if (!parser.isWhitespace() || oldName.trim() != oldName) {
+		    // white space after a trimmed name leaves it unchanged
+		    item.setName(oldName.concat(parser.getText()).trim());
 		}
 	    }
 	}
 
-	// The remaing events from Parser are ignored
-	public void commentFound(ParserEvent e) {}
+	/**
+	 * Queues a complete top level node for the listener.
+	 */
+	private void topLevelNodeParsed(DefaultMutableTreeNode node) {
+	    if (listener == null) {
+		return;
+	    }
+	    batch.addElement(node);
+	    if (batch.size() >= batchSize) {
+		flush();
+		// small batches first to show something quickly
+		batchSize = Math.min(batchSize * 2, MAX_BATCH);
+	    }
+	}
 
-	public void errorFound(ParserEvent e){
-	    factory.reportMessage(e.getText(), false);
+	/**
+	 * Reports the queued top level nodes to the listener.
+	 */
+	private void flush() {
+	    if (listener == null || batch.size() == 0) {
+		return;
+	    }
+	    DefaultMutableTreeNode[] nodes =
+		new DefaultMutableTreeNode[batch.size()];
+	    batch.copyInto(nodes);
+	    batch.removeAllElements();
+	    listener.nodesParsed(nodes);
 	}
 
 	/**
 	 * Keeps track of tags and their locale attributes.
 	 */
-	protected void addTag(Tag tag, Locale locale) {
-	    LangElement el = new LangElement(tag, locale);
+	protected void addTag(String name, Locale locale) {
+	    LangElement el =
+		new LangElement(new Tag(name, null, false, false), locale);
 	    tagStack.push(el);
 	    // It's possible for lastLocale not be specified ergo null.
 	    // If it is then set lastLocale to null even if locale is null.
@@ -568,9 +661,8 @@ public class IndexView extends NavigatorView {
 	 * Removes a tag from the tagStack. The tagStack is
 	 * used to keep track of tags and locales.
 	 */
-	protected void removeTag(Tag tag) {
+	protected void removeTag(String name) {
 	    LangElement el;
-	    String name = tag.name;
 	    Locale newLocale=null;
 
 	    for (;;) {
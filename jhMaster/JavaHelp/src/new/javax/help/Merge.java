@@ -104,6 +104,34 @@ public abstract class Merge {
     public static void mergeNodeChildren(TreeNode node) {
 	// Doesn't do anything
     }
+
+    /**
+     * Merges the data of several slave NavigatorViews into a master node.
+     * The data of the slave views is read in parallel, the merges are
+     * then processed in the order of the views, so the result is the
+     * same as merging the views one by one.
+     * <p>
+     * The master node is changed in the calling thread. The method may
+     * be called outside of the event dispatching thread on a node that
+     * is not displayed.
+     *
+     * @param node The master node
+     * @param masterView The master NavigatorView
+     * @param slaveViews The slave NavigatorViews
+     * @return The changed master node
+     * @see DefaultMergeFactory#getMerges
+     */
+    public static TreeNode processMerge(TreeNode node,
+					NavigatorView masterView,
+					NavigatorView[] slaveViews) {
+	Merge[] merges = DefaultMergeFactory.getMerges(masterView, slaveViews);
+	for (int i = 0; i < merges.length; i++) {
+	    if (merges[i] != null) {
+		node = merges[i].processMerge(node);
+	    }
+	}
+	return node;
+    }
     
     /**
      * Default Merge factory which creates concrete Merge objects
@@ -154,5 +182,109 @@ public abstract class Merge {
 	    }
             return mergeObject;
         }
+
+        /**
+         * Returns the Merge objects for several slave views. The Merge
+         * objects, which read the data of the slave views, are created by
+         * a few threads in parallel.
+         *
+         * @param masterView The master NavigatorView
+         * @param slaveViews The slave NavigatorViews
+         * @return The Merge objects, in the order of slaveViews
+         * @see #getMerge
+         */
+        public static Merge[] getMerges(NavigatorView masterView,
+					NavigatorView[] slaveViews) {
+	    // throw an NPE early
+	    if (masterView == null || slaveViews == null) {
+		throw new NullPointerException("masterView and/or slaveViews are null");
+	    }
+	    Merge[] merges = new Merge[slaveViews.length];
+	    int count = Math.min(slaveViews.length,
+				 Math.min(MAX_THREADS, Runtime.getRuntime().
+					  availableProcessors()));
+	    if (count <= 1) {
+		for (int i = 0; i < slaveViews.length; i++) {
+		    merges[i] = getMerge(masterView, slaveViews[i]);
+		}
+		return merges;
+	    }
+
+	    MergeCreator creator =
+		new MergeCreator(masterView, slaveViews, merges);
+	    Thread threads[] = new Thread[count];
+	    for (int i = 0; i < count; i++) {
+		threads[i] = new Thread(creator, "JavaHelp merge " + i);
+		threads[i].setDaemon(true);
+		threads[i].start();
+	    }
+	    boolean interrupted = false;
+	    for (int i = 0; i < count; i++) {
+		while (threads[i].isAlive()) {
+		    try {
+			threads[i].join();
+		    } catch (InterruptedException ex) {
+			interrupted = true;
+		    }
+		}
+	    }
+	    if (interrupted) {
+		Thread.currentThread().interrupt();
+	    }
+	    if (creator.failure instanceof RuntimeException) {
+		throw (RuntimeException) creator.failure;
+	    } else if (creator.failure instanceof Error) {
+		throw (Error) creator.failure;
+	    }
+	    return merges;
+        }
+
+	/**
+	 * The maximum number of threads reading slave views.
+	 */
+	private static final int MAX_THREADS = 4;
+
+	/**
+	 * Creates the Merge objects for the next slave view until all are
+	 * created or one fails.
+	 */
+	private static class MergeCreator implements Runnable {
+	    private NavigatorView masterView;
+	    private NavigatorView[] slaveViews;
+	    private Merge[] merges;
+	    private int next = 0;
+	    Throwable failure;
+
+	    MergeCreator(NavigatorView masterView, NavigatorView[] slaveViews,
+			 Merge[] merges) {
+		this.masterView = masterView;
+		this.slaveViews = slaveViews;
+		this.merges = merges;
+	    }
+
+	    private synchronized int nextIndex() {
+		if (failure != null || next >= slaveViews.length) {
+		    return -1;
+		}
+		return next++;
+	    }
+
+	    private synchronized void failed(Throwable t) {
+		if (failure == null) {
+		    failure = t;
+		}
+	    }
+
+	    public void run() {
+		int i;
+		while ((i = nextIndex()) != -1) {
+		    try {
+			merges[i] = getMerge(masterView, slaveViews[i]);
+		    } catch (Throwable t) {
+			failed(t);
+		    }
+		}
+	    }
+	}
     }
 }
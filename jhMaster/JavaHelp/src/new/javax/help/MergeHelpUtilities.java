@@ -41,6 +41,11 @@ import java.lang.reflect.Method;
 
 public class MergeHelpUtilities extends Object {
 
+    // merge type -> Strategy
+    private static Hashtable strategies = new Hashtable();
+
+    // per thread Locale -> Collator, Collators aren't thread safe
+    private static ThreadLocal collators = new ThreadLocal();
 
     /**
      * Merge the nodes according the merging rules of the masterNode's
@@ -60,22 +65,7 @@ public class MergeHelpUtilities extends Object {
 	if (mergeType == null) {
 	    mergeType = masterMergeType;
 	}
-
-	Class klass;
-	Class types[] =  { TreeNode.class, 
-			   TreeNode.class };
-	Method m;
-	Object args[] = { masterNode, slaveNode };
-	try {
-	    klass = Class.forName(mergeType);
-	    m = klass.getDeclaredMethod("mergeNodes", types);
-	    m.invoke(null, args);
-	} catch (Exception ex) {
-	    ex.printStackTrace();
-	    throw new RuntimeException
-		("Could not find or execute mergeNodes for " +
-		 mergeType);
-	}
+	getStrategy(mergeType).mergeNodes(masterNode, slaveNode);
     }
 
     /**
@@ -93,20 +83,65 @@ public class MergeHelpUtilities extends Object {
 	if (mergeType == null) {
 	    mergeType = masterMergeType;
 	}
-	Class klass;
-	Class types[] =  { TreeNode.class };
-	Method m;
-	Object args[] = { node };
-	try {
-	    klass = Class.forName(mergeType);
-	    m = klass.getDeclaredMethod("mergeNodeChildren", types);
-	    m.invoke(null, args);
-	} catch (Exception ex) {
-	    ex.printStackTrace();
-	    throw new RuntimeException
-		("Could not find or execute mergeNodeChildren for " +
-		 mergeType);
+	getStrategy(mergeType).mergeNodeChildren(node);
+    }
+
+    /**
+     * Returns the strategy for a merge type. The built in merge types are
+     * called directly, others through reflection. Strategies are created
+     * once per merge type.
+     */
+    private static Strategy getStrategy(String mergeType) {
+	synchronized (strategies) {
+	    Strategy strategy = (Strategy) strategies.get(mergeType);
+	    if (strategy == null) {
+		strategy = createStrategy(mergeType);
+		strategies.put(mergeType, strategy);
+	    }
+	    return strategy;
+	}
+    }
+
+    private static Strategy createStrategy(String mergeType) {
+	if (mergeType.equals("javax.help.AppendMerge")) {
+	    return new Strategy() {
+		void mergeNodes(TreeNode master, TreeNode slave) {
+		    AppendMerge.mergeNodes(master, slave);
+		}
+		void mergeNodeChildren(TreeNode node) {
+		    AppendMerge.mergeNodeChildren(node);
+		}
+	    };
+	}
+	if (mergeType.equals("javax.help.UniteAppendMerge")) {
+	    return new Strategy() {
+		void mergeNodes(TreeNode master, TreeNode slave) {
+		    UniteAppendMerge.mergeNodes(master, slave);
+		}
+		void mergeNodeChildren(TreeNode node) {
+		    UniteAppendMerge.mergeNodeChildren(node);
+		}
+	    };
 	}
+	if (mergeType.equals("javax.help.SortMerge")) {
+	    return new Strategy() {
+		void mergeNodes(TreeNode master, TreeNode slave) {
+		    SortMerge.mergeNodes(master, slave);
+		}
+		void mergeNodeChildren(TreeNode node) {
+		    SortMerge.mergeNodeChildren(node);
+		}
+	    };
+	}
+	if (mergeType.equals("javax.help.NoMerge")) {
+	    return new Strategy() {
+		void mergeNodes(TreeNode master, TreeNode slave) {
+		}
+		void mergeNodeChildren(TreeNode node) {
+		}
+	    };
+	}
+	return new ReflectiveStrategy(mergeType);
     }
 
     /**
@@ -207,9 +242,42 @@ public class MergeHelpUtilities extends Object {
             slaveName = " ";
 	}
 
-	Collator collator = Collator.getInstance(getLocale(master));
+	Collator collator = getCollator(getLocale(master));
         return collator.compare(masterName, slaveName);
     }
+
+    /**
+     * Returns the collator of a locale. Collators are cached per thread.
+     */
+    static Collator getCollator(Locale locale) {
+	Hashtable cache = (Hashtable) collators.get();
+	if (cache == null) {
+	    cache = new Hashtable();
+	    collators.set(cache);
+	}
+	Collator collator = (Collator) cache.get(locale);
+	if (collator == null) {
+	    collator = Collator.getInstance(locale);
+	    cache.put(locale, collator);
+	}
+	return collator;
+    }
+
+    /**
+     * Returns the collation key of the name of a node, as compared by
+     * compareNames.
+     *
+     * @param node The node
+     * @param locale The locale of the node the name is compared to
+     */
+    static CollationKey getCollationKey(DefaultMutableTreeNode node,
+					Locale locale) {
+	String name = getNodeName(node);
+	if (name == null) {
+	    name = " ";
+	}
+	return getCollator(locale).getCollationKey(name);
+    }
         
     /**
      * Method for comparing ID of nodes
@@ -281,6 +349,148 @@ public class MergeHelpUtilities extends Object {
 	}
     }
 
+    /**
+     * The merge operations of a merge type.
+     */
+    private static abstract class Strategy {
+	abstract void mergeNodes(TreeNode master, TreeNode slave);
+	abstract void mergeNodeChildren(TreeNode node);
+    }
+
+    /**
+     * Calls the static mergeNodes and mergeNodeChildren methods of a merge
+     * type class. The methods are looked up on first use.
+     */
+    private static class ReflectiveStrategy extends Strategy {
+	private String mergeType;
+	private Method mergeNodes;
+	private Method mergeNodeChildren;
+
+	ReflectiveStrategy(String mergeType) {
+	    this.mergeType = mergeType;
+	}
+
+	void mergeNodes(TreeNode master, TreeNode slave) {
+	    Object args[] = { master, slave };
+	    try {
+		if (mergeNodes == null) {
+		    Class types[] =  { TreeNode.class, 
+				       TreeNode.class };
+		    Class klass = Class.forName(mergeType);
+		    mergeNodes = klass.getDeclaredMethod("mergeNodes", types);
+		}
+		mergeNodes.invoke(null, args);
+	    } catch (Exception ex) {
+		ex.printStackTrace();
+		throw new RuntimeException
+		    ("Could not find or execute mergeNodes for " +
+		     mergeType);
+	    }
+	}
+
+	void mergeNodeChildren(TreeNode node) {
+	    Object args[] = { node };
+	    try {
+		if (mergeNodeChildren == null) {
+		    Class types[] =  { TreeNode.class };
+		    Class klass = Class.forName(mergeType);
+		    mergeNodeChildren =
+			klass.getDeclaredMethod("mergeNodeChildren", types);
+		}
+		mergeNodeChildren.invoke(null, args);
+	    } catch (Exception ex) {
+		ex.printStackTrace();
+		throw new RuntimeException
+		    ("Could not find or execute mergeNodeChildren for " +
+		     mergeType);
+	    }
+	}
+    }
+
+    /**
+     * Finds the first of the children of a node whose name compares
+     * equal to the name of another node, without comparing the names one
+     * by one. The collation keys of the children are computed once, with
+     * the locale of each child, as compareNames does.
+     */
+    static class NameTable {
+	private DefaultMutableTreeNode parent;
+	private Locale[] locales;
+	private CollationKey[] keys;
+	// Locale -> (CollationKey -> Vector of ascending child indexes)
+	private Hashtable tables = new Hashtable();
+
+	/**
+	 * @param parent The node
+	 * @param count The number of children of the node to look at
+	 */
+	NameTable(DefaultMutableTreeNode parent, int count) {
+	    this.parent = parent;
+	    locales = new Locale[count];
+	    keys = new CollationKey[count];
+	    for (int i = 0; i < count; i++) {
+		add(i);
+	    }
+	}
+
+	private void add(int index) {
+	    DefaultMutableTreeNode child =
+		(DefaultMutableTreeNode) parent.getChildAt(index);
+	    Locale locale = getLocale(child);
+	    CollationKey key = getCollationKey(child, locale);
+	    locales[index] = locale;
+	    keys[index] = key;
+	    Hashtable table = (Hashtable) tables.get(locale);
+	    if (table == null) {
+		table = new Hashtable();
+		tables.put(locale, table);
+	    }
+	    Vector indexes = (Vector) table.get(key);
+	    if (indexes == null) {
+		indexes = new Vector(1);
+		table.put(key, indexes);
+	    }
+	    int i = indexes.size();
+	    while (i > 0 && ((Integer) indexes.elementAt(i - 1)).intValue() > index) {
+		i--;
+	    }
+	    indexes.insertElementAt(new Integer(index), i);
+	}
+
+	/**
+	 * Returns the index of the first child whose name compares equal
+	 * to the name of node or -1.
+	 */
+	int indexOf(DefaultMutableTreeNode node) {
+	    int result = -1;
+	    for (Enumeration e = tables.keys(); e.hasMoreElements(); ) {
+		Locale locale = (Locale) e.nextElement();
+		Hashtable table = (Hashtable) tables.get(locale);
+		Vector indexes = (Vector) table.get(getCollationKey(node, locale));
+		if (indexes != null) {
+		    int index = ((Integer) indexes.firstElement()).intValue();
+		    if (result == -1 || index < result) {
+			result = index;
+		    }
+		}
+	    }
+	    return result;
+	}
+
+	/**
+	 * Updates the table after the name of a child has changed.
+	 */
+	void nameChanged(int index) {
+	    Hashtable table = (Hashtable) tables.get(locales[index]);
+	    Vector indexes = (Vector) table.get(keys[index]);
+	    indexes.removeElement(new Integer(index));
+	    if (indexes.size() == 0) {
+		table.remove(keys[index]);
+	    }
+	    add(index);
+	}
+    }
+
     private static boolean debug = false;
     private static void debug(String msg) {
         if (debug) {
@@ -216,4 +216,23 @@ public abstract class NavigatorView implements Serializable{
     public Map.ID getImageID() {
         return imageID;
     }
+
+    /**
+     * Returns true if the class of this view overrides a public method
+     * without arguments that is declared in a superclass.
+     *
+     * @param declaringClass The class that declares the method.
+     * @param name The name of the method.
+     */
+    boolean isOverridden(Class declaringClass, String name) {
+	try {
+	    Method m = getClass().getMethod(name, new Class[0]);
+	    return m.getDeclaringClass() != declaringClass;
+	} catch (NoSuchMethodException ex) {
+	    return false;
+	} catch (SecurityException ex) {
+	    // assume the worst
+	    return true;
+	}
+    }
 }
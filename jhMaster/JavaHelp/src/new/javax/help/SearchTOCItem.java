@@ -69,7 +69,7 @@ public class SearchTOCItem extends TOCItem {
 	inTOC = false;
 	setName(item.getTitle());
 	try {
-	    this.url = new URL(item.getBase(), item.getFilename());
+	    this.url = item.getURL();
 	} catch (MalformedURLException me) {
 	    this.url = null;
 	}
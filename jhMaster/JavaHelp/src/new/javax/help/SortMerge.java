@@ -113,14 +113,34 @@ public class SortMerge extends Merge{
 	}
 
 	DefaultMutableTreeNode slaveNodeChild = null;
+
+	// The names are compared with the locale of the master child, as
+	// in compareNames. Keys are only computed again when a node or
+	// its name changes.
+	Locale masterLocale = null;
+	CollationKey masterKey = null;
+	DefaultMutableTreeNode keyedSlave = null;
+	Locale slaveLocale = null;
+	CollationKey slaveKey = null;
 	
 	//Loop through the slaves
 	while (slaveNode.getChildCount() > 0 && masterAtM != null) {
 	    slaveNodeChild = (DefaultMutableTreeNode)slaveNode.getFirstChild();
 	    
 	    // compare this slaveChild to the masterChild
-	    int compareVal = MergeHelpUtilities.compareNames(masterAtM,
-							     slaveNodeChild);
+	    if (masterKey == null) {
+		masterLocale = MergeHelpUtilities.getLocale(masterAtM);
+		masterKey = MergeHelpUtilities.getCollationKey(masterAtM,
+							       masterLocale);
+	    }
+	    if (slaveNodeChild != keyedSlave ||
+		!masterLocale.equals(slaveLocale)) {
+		keyedSlave = slaveNodeChild;
+		slaveLocale = masterLocale;
+		slaveKey = MergeHelpUtilities.getCollationKey(slaveNodeChild,
+							      slaveLocale);
+	    }
+	    int compareVal = masterKey.compareTo(slaveKey);
 	    
 	    // if < 0 get the next master child
 	    if (compareVal < 0 ) {
@@ -130,6 +150,7 @@ public class SortMerge extends Merge{
 		    break;
 		}
 		masterAtM = (DefaultMutableTreeNode)masterNode.getChildAt(m);
+		masterKey = null;
 		continue;
 	    } else if (compareVal > 0) {
 		// slaveNodeChild is lexically procedes the masterNodeChild
@@ -156,6 +177,7 @@ public class SortMerge extends Merge{
 		    // Names are the same but the ID are not
 		    // Mark the nodes and add the slaveChild
 		    MergeHelpUtilities.markNodes(masterAtM, slaveNodeChild);
+		    masterKey = null;
 		    masterNode.add(slaveNodeChild);
 		    MergeHelpUtilities.mergeNodeChildren("javax.help.SortMerge",
 							 slaveNodeChild);
@@ -203,6 +225,10 @@ public class SortMerge extends Merge{
 
     /**
      * Sorts children of node using Array.sort 
+     * <p>
+     * The sort is stable, children whose names compare equal keep their
+     * order. The collation key of each child is computed once. Children
+     * without a name sort as a space, as in MergeHelpUtilities.compareNames.
      *
      * @param node The node to sort
      * @param locale The locale
@@ -214,35 +240,43 @@ public class SortMerge extends Merge{
             locale = Locale.getDefault();
 	}
         
-	//Locale locale = MergeHelpUtilities.getLocale(node);         
-	CollationKey temp;
 	int size = node.getChildCount();
-	DefaultMutableTreeNode sortedNode = new DefaultMutableTreeNode();
-	
-	Collator collator = Collator.getInstance(locale);
-	CollationKey[] keys = new CollationKey[size];
+	SortEntry[] entries = new SortEntry[size];
 	
 	for (int i = 0; i < size; i++) {
-	    String string = MergeHelpUtilities.getNodeName((DefaultMutableTreeNode)node.getChildAt(i));
-	    debug("String , i:"+string+" , "+i);
-	    keys[i] = collator.getCollationKey(string);
+	    DefaultMutableTreeNode child =
+		(DefaultMutableTreeNode) node.getChildAt(i);
+	    debug("String , i:"+MergeHelpUtilities.getNodeName(child)+" , "+i);
+	    entries[i] = new SortEntry
+		(MergeHelpUtilities.getCollationKey(child, locale), child);
 	}
 	
-	Arrays.sort(keys);
-	
+	Arrays.sort(entries);
+
+	node.removeAllChildren();
 	for (int i = 0; i < size; i++) {
-	    DefaultMutableTreeNode child = MergeHelpUtilities.getChildWithName(node,keys[i].getSourceString()); 
-	    if (child != null) {
-		sortedNode.add(child);
-	    }
-	}
-            
-	while (sortedNode.getChildCount() > 0) {
-	    node.add((DefaultMutableTreeNode) sortedNode.getFirstChild());
+	    node.add(entries[i].node);
 	}
         
 	debug ("end sortNode");
     }
+
+    /**
+     * A child and the collation key of its name.
+     */
+    private static class SortEntry implements Comparable {
+	CollationKey key;
+	DefaultMutableTreeNode node;
+
+	SortEntry(CollationKey key, DefaultMutableTreeNode node) {
+	    this.key = key;
+	    this.node = node;
+	}
+
+	public int compareTo(Object o) {
+	    return key.compareTo(((SortEntry) o).key);
+	}
+    }
     
   
     private static boolean debug = false;
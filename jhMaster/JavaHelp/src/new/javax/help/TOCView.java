@@ -121,6 +121,10 @@ public class TOCView extends NavigatorView {
 	return mergeType;
     }
 
+    // the sizes of the batches of top level nodes reported while parsing
+    private static final int FIRST_BATCH = 16;
+    private static final int MAX_BATCH = 1024;
+
     // turn this on if you want messages on failures
     private static boolean warningOfFailures = false;
 
@@ -133,7 +137,30 @@ public class TOCView extends NavigatorView {
      * by creating the tree programatically.
      */
     public DefaultMutableTreeNode getDataAsTree() {
-	HelpSet hs = getHelpSet();
+	return getDataAsTree(getHelpSet(), null);
+    }
+
+    /**
+     * Gets a DefaultMutableTreeNode representing the information in this
+     * view instance and reports the top level nodes to a listener while
+     * they are parsed.
+     *
+     * If a subclass overrides <tt>getDataAsTree()</tt> the listener is
+     * ignored and the tree is obtained from that method.
+     *
+     * @param listener The listener told about the top level nodes. May
+     * be null.
+     * @see TreeParseListener
+     */
+    public DefaultMutableTreeNode getDataAsTree(TreeParseListener listener) {
+	if (listener == null || isOverridden(TOCView.class, "getDataAsTree")) {
+	    return getDataAsTree();
+	}
+	return getDataAsTree(getHelpSet(), listener);
+    }
+
+    private DefaultMutableTreeNode getDataAsTree(HelpSet hs,
+						 TreeParseListener listener) {
 	Hashtable params = getParameters();
 	URL url;
 
@@ -149,7 +176,8 @@ public class TOCView extends NavigatorView {
 	    throw new Error("Trouble getting URL to TOC data; "+ex);
 	}
 
-	return parse(url, hs, hs.getLocale(), new DefaultTOCFactory(), this);
+	return parse(url, hs, hs.getLocale(), new DefaultTOCFactory(), this,
+		     listener);
     }
 
     /**
@@ -199,13 +227,43 @@ public class TOCView extends NavigatorView {
 					       Locale locale,
 					       TreeItemFactory factory,
 					       TOCView view) {
+	return parse(url, hs, locale, factory, view, null);
+    }
+
+    /**
+     * Public method for parsing a TOC in a URL that reports the top level
+     * nodes to a listener while they are parsed.
+     * Returns a DefaultMutableTreeNode whose children are the DefaultMutableTreeNode
+     * corresponding to the tocitem's in the TOC.
+     * The factory is invoked to create the TreeItems that are included in the
+     * DefaultMutableTreeNode as user data.
+     * The factory is also invoked with start data, and whenever any parsing error
+     * is found.
+     *
+     * @param url Where the TOC lives. If null, returns a null value.
+     * @param hs The HelpSet context for this TOC. Null hs is ignored.
+     * @param locale The default locale to interpret the data in this TOC. Null locale 
+     * is treated as the default locale.
+     * @param factory A factory instance used to create the TOCItems.
+     * @param view The TOCView instance. May be null
+     * @param listener The listener told about the top level nodes. May be null.
+     * @return A TreeNode that represents the TOC. Returns null if parsing errors were
+     * encountered.
+     * @see TreeParseListener
+     */
+    public static DefaultMutableTreeNode parse(URL url,
+					       HelpSet hs,
+					       Locale locale,
+					       TreeItemFactory factory,
+					       TOCView view,
+					       TreeParseListener listener) {
 	Reader src;
 	DefaultMutableTreeNode node = null;
 	try {
 	    URLConnection uc = url.openConnection();
 	    src = XmlReader.createReader(uc);
 	    factory.parsingStarted(url);
-	    TOCParser tocParser = new TOCParser(factory, view);
+	    TOCParser tocParser = new TOCParser(factory, view, listener);
 	    node = (tocParser.parse(src, hs, locale));
 	    src.close();
 	} catch (Exception e) {
@@ -464,7 +522,7 @@ public class TOCView extends NavigatorView {
      * real XML parser.  This is not a public class.  Clients should only use
      * the parse method in the enclosing class.
      */
-    private static class TOCParser implements ParserListener {
+    private static class TOCParser {
 	private HelpSet currentParseHS;	// HelpSet we are parsing into
 	private Stack nodeStack;	// to track the parsing
 	private Stack itemStack;
@@ -474,6 +532,9 @@ public class TOCView extends NavigatorView {
 	private Locale lastLocale;
 	private TreeItemFactory factory;
 	private TOCView tocView;
+	private TreeParseListener listener;
+	private Vector batch;		// top level nodes not reported yet
+	private int batchSize;
 
 
 	/**
@@ -483,9 +544,11 @@ public class TOCView extends NavigatorView {
 	 * has been recognized.
 	 */
 
-	TOCParser(TreeItemFactory factory, TOCView tocView) {
+	TOCParser(TreeItemFactory factory, TOCView tocView,
+		  TreeParseListener listener) {
 	    this.factory = factory;
 	    this.tocView = tocView;
+	    this.listener = listener;
 	}
 
 	/**
@@ -508,52 +571,71 @@ public class TOCView extends NavigatorView {
 	    }
 	    lastLocale = defaultLocale;
 	    
+	    batch = new Vector();
+	    batchSize = FIRST_BATCH;
+
 	    DefaultMutableTreeNode node = new DefaultMutableTreeNode();
 	    nodeStack.push(node);
 	    
 	    currentParseHS = context;
 	    
 	    Parser parser = new Parser(src); // the XML parser instance
-	    parser.addParserListener(this);
-	    parser.parse();
+	    for (int type = parser.next(); type != Parser.END_DOCUMENT;
+		 type = parser.next()) {
+		switch (type) {
+		case Parser.TAG:
+		    tagFound(parser);
+		    break;
+		case Parser.TEXT:
+		    textFound(parser);
+		    break;
+		case Parser.ERROR:
+		    factory.reportMessage(parser.getText(), false);
+		    break;
+		}
+	    }
+	    flush();
 	    return node;
 	}
 
 	/**
 	 *  A Tag was parsed.
 	 */
-	public void tagFound(ParserEvent e) {
+	private void tagFound(Parser parser) {
 	    Locale locale = null;
-	    Tag tag = e.getTag();
-	    debug("TagFound: "+tag.name);
-	    TagProperties attr = tag.atts;
-
-	    if (attr != null) {
-		String lang = attr.getProperty("xml:lang");
+	    String name = parser.getName();
+	    boolean isEnd = parser.isEndTag();
+	    boolean isEmpty = parser.isEmptyTag();
+	    debug("TagFound: "+name);
+	    boolean hasAttributes = parser.getAttributeCount() > 0;
+
+	    if (hasAttributes) {
+		String lang = parser.getAttributeValue("xml:lang");
 		locale = HelpUtilities.localeFromLang(lang);
 	    }
 	    if (locale == null) {
 		locale = lastLocale;
 	    }
 
-	    if (tag.name.equals("tocitem")) {
+	    if (name.equals("tocitem")) {
 		if (!startedtoc) {
 		    factory.reportMessage(HelpUtilities.getText("toc.invalidTOCFormat"), false);
 		}
-		if (tag.isEnd && !tag.isEmpty) {
-		    nodeStack.pop();
+		if (isEnd && !isEmpty) {
+		    DefaultMutableTreeNode done =
+			(DefaultMutableTreeNode) nodeStack.pop();
 		    itemStack.pop();
-		    removeTag(tag);
+		    removeTag(name);
+		    if (nodeStack.size() == 1) {
+			topLevelNodeParsed(done);
+		    }
 		    return;
 		}
 
 
 		TOCItem item;
 		try {
-		    Hashtable t = null;
-		    if (attr != null) {
-			t = attr.getHashtable();
-		    }
+		    Hashtable t = parser.getAttributes();
 		    item = (TOCItem) factory.createItem("tocitem",
 							t,
 							currentParseHS,
@@ -562,9 +644,9 @@ public class TOCView extends NavigatorView {
 		    if (warningOfFailures) {
 			String id = null;
 			String imageID = null;
-			if (attr != null) {
-			    id = attr.getProperty("target");
-			    imageID = attr.getProperty("image");
+			if (hasAttributes) {
+			    id = parser.getAttributeValue("target");
+			    imageID = parser.getAttributeValue("image");
 			}
 			System.err.println("Failure in IndexItem Creation; ");
 			System.err.println("  id: "+id);
@@ -585,61 +667,50 @@ public class TOCView extends NavigatorView {
 		DefaultMutableTreeNode parent =
 		    (DefaultMutableTreeNode) nodeStack.peek();
 		parent.add(node);
-		if (! tag.isEmpty) {
+		if (! isEmpty) {
 		    itemStack.push(item);
 		    nodeStack.push(node);
-		    addTag(tag, locale);
+		    addTag(name, locale);
+		} else if (nodeStack.size() == 1) {
+		    topLevelNodeParsed(node);
 		}
-	    } else if (tag.name.equals("toc")) {
-		debug("attr: "+attr);
-		if (!tag.isEnd) {
-		    if (attr != null) {
-		        String version = attr.getProperty("version");
+	    } else if (name.equals("toc")) {
+		if (!isEnd) {
+		    if (hasAttributes) {
+		        String version = parser.getAttributeValue("version");
 			if (version != null && 
 			    (version.compareTo("1.0") != 0 &&
 			     version.compareTo("2.0") != 0)) {
 			    factory.reportMessage(HelpUtilities.getText("toc.unknownVersion",version), false);
 			}
 			if (tocView != null) {
-			    tocView.setCategoryOpenImageID(attr.getProperty("categoryopenimage"));
-			    tocView.setCategoryClosedImageID(attr.getProperty("categoryclosedimage"));
-			    tocView.setTopicImageID(attr.getProperty("topicimage"));
+			    tocView.setCategoryOpenImageID(parser.getAttributeValue("categoryopenimage"));
+			    tocView.setCategoryClosedImageID(parser.getAttributeValue("categoryclosedimage"));
+			    tocView.setTopicImageID(parser.getAttributeValue("topicimage"));
 			}
 		    }
 		    if (startedtoc) {
 			factory.reportMessage(HelpUtilities.getText("toc.invalidTOCFormat"), false);
 		    }
 		    startedtoc = true;
-		    addTag(tag, locale);
+		    addTag(name, locale);
 		} else {
 		    if (startedtoc) {
 			startedtoc = false;
 		    }
-		    removeTag(tag);
+		    removeTag(name);
 		}
 		return;
 	    }
 	}
 
-	/**
-	 *  A PI was parsed.  This method is not intended for general use.
-	 */
-	public void piFound(ParserEvent e) {
-	    // ignore
-	}
-
-	/**
-	 *  A DOCTYPE was parsed.  This method is not intended for general use.
-	 */
-	public void doctypeFound(ParserEvent e) {
-	    // ignore for now
-	}
-
 	/**
 	 * A continous block of text was parsed.
 	 */
-	public void textFound(ParserEvent e) {
-	    debug("TextFound: "+e.getText().trim());
+	private void textFound(Parser parser) {
+	    if (debug) {
+		debug("TextFound: "+parser.getText().trim());
+	    }
 
 	    // Ignore text if there isn't a tag
 	    if (tagStack.empty()) {
@@ -651,25 +722,49 @@ public class TOCView extends NavigatorView {
 		TOCItem item = (TOCItem) itemStack.peek();
 		String oldName = item.getName();
 		if (oldName == null) {
-		    item.setName(e.getText().trim());
-		} else {
-		    item.setName(oldName.concat(e.getText()).trim());
+		    item.setName(parser.getText().trim());
+		} else if (!parser.isWhitespace() || oldName.trim() != oldName) {
+		    // white space after a trimmed name leaves it unchanged
+		    item.setName(oldName.concat(parser.getText()).trim());
 		}
 	    } 
 	}
 
-	// The remaing events from Parser are ignored
-	public void commentFound(ParserEvent e) {}
+	/**
+	 * Queues a complete top level node for the listener.
+	 */
+	private void topLevelNodeParsed(DefaultMutableTreeNode node) {
+	    if (listener == null) {
+		return;
+	    }
+	    batch.addElement(node);
+	    if (batch.size() >= batchSize) {
+		flush();
+		// small batches first to show something quickly
+		batchSize = Math.min(batchSize * 2, MAX_BATCH);
+	    }
+	}
 
-	public void errorFound(ParserEvent e){
-	    factory.reportMessage(e.getText(), false);
+	/**
+	 * Reports the queued top level nodes to the listener.
+	 */
+	private void flush() {
+	    if (listener == null || batch.size() == 0) {
+		return;
+	    }
+	    DefaultMutableTreeNode[] nodes =
+		new DefaultMutableTreeNode[batch.size()];
+	    batch.copyInto(nodes);
+	    batch.removeAllElements();
+	    listener.nodesParsed(nodes);
 	}
 
 	/**
 	 * Tracks tags and their locale attributes.
 	 */
-	protected void addTag(Tag tag, Locale locale) {
-	    LangElement el = new LangElement(tag, locale);
+	protected void addTag(String name, Locale locale) {
+	    LangElement el =
+		new LangElement(new Tag(name, null, false, false), locale);
 	    tagStack.push(el);
 	    // It's possible for lastLocale not be specified ergo null.
 	    // If it is then set lastLocale to null even if locale is null.
@@ -691,9 +786,8 @@ public class TOCView extends NavigatorView {
 	 * Removes a tag from the tagStack. The tagStack is
 	 * used to track tags and locales.
 	 */
-	protected void removeTag(Tag tag) {
+	protected void removeTag(String name) {
 	    LangElement el;
-	    String name = tag.name;
 	    Locale newLocale = null;
 
 	    for (;;) {
@@ -0,0 +1,59 @@
+/*
+ * @(#)TreeParseListener.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package javax.help;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+
+/**
+ * A listener that is told about the top level nodes of a TOC or Index
+ * while the TOC or Index is being parsed. This lets a navigator show
+ * the first entries of a large file before the rest of the file has
+ * been read.
+ *
+ * @see TOCView#parse(java.net.URL, HelpSet, java.util.Locale, TreeItemFactory, TOCView, TreeParseListener)
+ * @see IndexView#parse(java.net.URL, HelpSet, java.util.Locale, TreeItemFactory, TreeParseListener)
+ *
+ * @version	1.1	10/19/26
+ */
+
+public interface TreeParseListener {
+    /**
+     * Top level nodes have been parsed. The nodes are complete: the
+     * parser does not change them or their descendants after this call.
+     * They remain children of the tree being built, so they must not be
+     * modified or added to another tree; copy them instead.
+     * <p>
+     * Called on the parsing thread. Nodes are reported in batches and in
+     * document order. The tree returned by the parse may still differ
+     * from the reported nodes, for example when a merge type sorts the
+     * top level nodes or when the parse fails.
+     *
+     * @param nodes The nodes parsed since the last call.
+     */
+    public void nodesParsed(DefaultMutableTreeNode[] nodes);
+}
@@ -78,6 +78,10 @@ public class UniteAppendMerge extends Merge{
     
     /**
      * Merge Nodes. Merge two nodes according to the UniteAppend merging rules 
+     * <p>
+     * A slave child is matched with the first master child whose name
+     * compares equal. The names are looked up in a table of collation
+     * keys, so merging is linear in the number of children.
      *
      * @param masterNode The master node to merge with 
      * @param slaveNode The node to merge into the master
@@ -90,45 +94,41 @@ public class UniteAppendMerge extends Merge{
 
 
        int masterCnt = masterNode.getChildCount();
+       // Only the original children of the master are matched
+       MergeHelpUtilities.NameTable names =
+	   new MergeHelpUtilities.NameTable(masterNode, masterCnt);
 
        // loop thru the slaves
        while (slaveNode.getChildCount() > 0) {
 	    DefaultMutableTreeNode slaveNodeChild = 
 		(DefaultMutableTreeNode)slaveNode.getFirstChild();
 	    
-	    //loop thru the master children
-	    for (int m=0; m < masterCnt; m++) {
-		DefaultMutableTreeNode masterAtM = 
-		    (DefaultMutableTreeNode)masterNode.getChildAt(m);
-		
-		// see if the names are the same
-		if (MergeHelpUtilities.compareNames(masterAtM, 
-						    slaveNodeChild) == 0) {
-		    // See if the IDs are the same
-		    if (MergeHelpUtilities.haveEqualID(masterAtM,
-							  slaveNodeChild)) {
-			// ID and name the same merge the slave node in
-			MergeHelpUtilities.mergeNodes("javax.help.UniteAppendMerge",
-						      masterAtM,
-						      slaveNodeChild);
-			// Need to remove the slaveNodeChild from the list
-			slaveNodeChild.removeFromParent();
-			slaveNodeChild = null;
-			break;
-		    } else {
-			// Names are the same but the ID are not
-			// Mark the nodes and add the slaveChild
-			MergeHelpUtilities.markNodes(masterAtM, 
+	    // find the first master child with the same name
+	    int m = names.indexOf(slaveNodeChild);
+	    if (m == -1) {
+		masterNode.add(slaveNodeChild);
+		MergeHelpUtilities.mergeNodeChildren("javax.help.UniteAppendMerge",
 						     slaveNodeChild);
-			masterNode.add(slaveNodeChild);
-			MergeHelpUtilities.mergeNodeChildren("javax.help.UniteAppendMerge",
-							     slaveNodeChild);
-			slaveNodeChild = null;
-			break;
-		    }
-		}
+		continue;
 	    }
-	    if (slaveNodeChild != null) {
+	    DefaultMutableTreeNode masterAtM = 
+		(DefaultMutableTreeNode)masterNode.getChildAt(m);
+		
+	    // See if the IDs are the same
+	    if (MergeHelpUtilities.haveEqualID(masterAtM,
+					       slaveNodeChild)) {
+		// ID and name the same merge the slave node in
+		MergeHelpUtilities.mergeNodes("javax.help.UniteAppendMerge",
+					      masterAtM,
+					      slaveNodeChild);
+		// Need to remove the slaveNodeChild from the list
+		slaveNodeChild.removeFromParent();
+	    } else {
+		// Names are the same but the ID are not
+		// Mark the nodes and add the slaveChild
+		MergeHelpUtilities.markNodes(masterAtM, 
+					     slaveNodeChild);
+		names.nameChanged(m);
 		masterNode.add(slaveNodeChild);
 		MergeHelpUtilities.mergeNodeChildren("javax.help.UniteAppendMerge",
 						     slaveNodeChild);
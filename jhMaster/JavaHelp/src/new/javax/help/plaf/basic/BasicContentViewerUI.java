@@ -46,13 +46,11 @@ import javax.swing.plaf.TextUI;
 import javax.swing.border.*;
 import javax.swing.event.*;
 import javax.swing.text.html.*;
-import javax.swing.text.html.parser.*;
 import javax.swing.text.Element;
 import java.awt.*;
 import java.awt.event.*;
 import java.net.URL;
 import java.net.MalformedURLException;
-import java.net.URLConnection;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.*;
@@ -83,6 +81,8 @@ implements HelpModelListener, TextHelpModelListener, HyperlinkListener, Property
     private Hashtable registry;
     private boolean loadingURL;
     private TextHelpModelEvent pendingHighlightsEvent;
+    private DocumentCache documentCache;
+    private PageLoader pendingLoader;	// the link being loaded, if any
     
     public static ComponentUI createUI(JComponent x) {
         debug("createUI");
@@ -161,6 +161,9 @@ implements HelpModelListener, TextHelpModelListener, HyperlinkListener, Property
         html.setEditable(false);
         html.addHyperlinkListener(this);
 
+        documentCache = new DocumentCache(html, DocumentCache.DEFAULT_SIZE);
+        DocumentCache.register(model, documentCache);
+
 	// if the model has a current URL then set it
 	if (model != null) {
 	    URL url = model.getCurrentURL();
@@ -195,6 +198,8 @@ implements HelpModelListener, TextHelpModelListener, HyperlinkListener, Property
             model.removeHelpModelListener(this);
             model.removeTextHelpModelListener(this);
         }
+        DocumentCache.unregister(model, documentCache);
+        documentCache.dispose();
         viewer.setLayout(null);
         viewer.removeAll();
     }
@@ -221,6 +226,12 @@ implements HelpModelListener, TextHelpModelListener, HyperlinkListener, Property
         debug("  my helpModel: "+model);
         
         model.setDocumentTitle(null);
+
+        // a link still being loaded would replace this page
+        if (pendingLoader != null && !pendingLoader.shown) {
+            html.setCursor(pendingLoader.cursor);
+            pendingLoader = null;
+        }
         
         // HERE - REMIND - event should be generated after visit
         // with the title already in there - epll.
@@ -230,7 +241,13 @@ implements HelpModelListener, TextHelpModelListener, HyperlinkListener, Property
             h.removeAllHighlights();
             try {
                 loadingURL = true;
-                html.setPage(url);
+                Document doc = documentCache.get(url);
+                if (doc != null) {
+                    debug("using cached document");
+                    showDocument(doc, url);
+                } else {
+                    html.setPage(url);
+                }
             } catch (Exception ex) {
                 loadingURL = false;
                 // IGNORE FOR EA2 --- !! - epll
@@ -245,6 +262,32 @@ implements HelpModelListener, TextHelpModelListener, HyperlinkListener, Property
         debug("done with idChanged");
     }
     
+    /**
+     * Displays a document that has already been parsed.
+     * The page is completed as if it had been loaded by the JEditorPane
+     * itself.
+     */
+    private void showDocument(Document doc, URL url) throws IOException {
+        EditorKit kit = html.getEditorKitForContentType("text/html");
+        if (html.getEditorKit() != kit) {
+            html.setEditorKit(kit);
+        }
+        if (html.getDocument() != doc) {
+            html.setDocument(doc);
+            if (url.getRef() == null) {
+                html.scrollRectToVisible(new Rectangle(0, 0, 1, 1));
+            }
+        }
+        // The document is for the same file so setPage only scrolls to the
+        // reference. It fires the page property change only when the URL
+        // differs from the one the document was loaded from.
+        boolean samePage = url.equals(html.getPage());
+        html.setPage(url);
+        if (samePage) {
+            pageLoaded();
+        }
+    }
+    
     private void rebuild() {
         debug("rebuild");
         TextHelpModel model = theViewer.getModel();
@@ -289,6 +332,8 @@ implements HelpModelListener, TextHelpModelListener, HyperlinkListener, Property
                     newModel.addHelpModelListener(this);
                     newModel.addTextHelpModelListener(this);
                 }
+                DocumentCache.unregister(oldModel, documentCache);
+                DocumentCache.register(newModel, documentCache);
                 rebuild();
             } else if (changeName.equals("font")) {
                 debug("font changed");
@@ -321,12 +366,16 @@ implements HelpModelListener, TextHelpModelListener, HyperlinkListener, Property
                      */
                     styleSheet = ((HTMLDocument) html.getDocument()).getStyleSheet();
                     styleSheet.addRule(cssData);
+
+                    // cached documents were styled with the old font
+                    documentCache.clear();
                 }
             }else if (changeName.equals("clear")) {
                 html.setText("");
             }else if (changeName.equals("reload")) {
 		URL url = html.getPage();
 		if (url != null) {
+		    documentCache.remove(url);
 		    try {
 			html.setPage(url);
 		    } catch (IOException ex) {
@@ -337,27 +386,37 @@ implements HelpModelListener, TextHelpModelListener, HyperlinkListener, Property
         } else if (event.getSource() == html) {
             String changeName = event.getPropertyName();
             if (changeName.equals("page")) {
-                debug("page finished loading");
-                loadingURL = false;
-                if (pendingHighlightsEvent != null) {
-                    debug("Loading the highlights now");
-                    highlightsChanged(pendingHighlightsEvent);
-                    pendingHighlightsEvent = null;
-                }
-                Document doc = html.getDocument();
-                String title = (String)doc.getProperty(Document.TitleProperty);
-                TextHelpModel model = theViewer.getModel();
-                model.setDocumentTitle(title);
-                
-                // Propogate this to property listeners of the ContentViewer.
-                // Can't acutally send the real thing because Objects and
-                // Strings aren't supported.
-                theViewer.firePropertyChange(event.getPropertyName(),
-                false, true);
+                pageLoaded();
             }
         }
     }
     
+    /**
+     * Completes the page shown in the JEditorPane: pending highlights are
+     * applied and the document title is set.
+     */
+    private void pageLoaded() {
+        debug("page finished loading");
+        loadingURL = false;
+        if (pendingHighlightsEvent != null) {
+            debug("Loading the highlights now");
+            highlightsChanged(pendingHighlightsEvent);
+            pendingHighlightsEvent = null;
+        }
+        Document doc = html.getDocument();
+        if (doc instanceof HTMLDocument) {
+            documentCache.put(html.getPage(), doc);
+        }
+        String title = (String)doc.getProperty(Document.TitleProperty);
+        TextHelpModel model = theViewer.getModel();
+        model.setDocumentTitle(title);
+        
+        // Propogate this to property listeners of the ContentViewer.
+        // Can't acutally send the real thing because Objects and
+        // Strings aren't supported.
+        theViewer.firePropertyChange("page", false, true);
+    }
+    
     /**
      * Notification of a change relative to a
      * hyperlink.
@@ -388,7 +447,8 @@ implements HelpModelListener, TextHelpModelListener, HyperlinkListener, Property
      */
     protected void linkActivated(URL u) {
         debug("linkActivated - URL=" + u );
-        Cursor c = html.getCursor();
+        // while a link is loading the cursor is already the wait cursor
+        Cursor c = pendingLoader != null ? pendingLoader.cursor : html.getCursor();
         Cursor waitCursor = Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR);
         html.setCursor(waitCursor);
         // workaround for bug #418959
@@ -411,16 +471,21 @@ implements HelpModelListener, TextHelpModelListener, HyperlinkListener, Property
                 debug("new u=" + u);
             }
         }
-        SwingUtilities.invokeLater(new PageLoader(u, c));
+        pendingLoader = new PageLoader(u, c);
+        SwingUtilities.invokeLater(pendingLoader);
     }
     
     /**
-     * Temporary class that loads synchronously (although
-     * later than the request so that a cursor change
-     * can be done).
+     * Class that loads the page through the document cache.
+     * The document is parsed once on the loader thread; the title is taken
+     * from the parsed document. The page is displayed once it has been
+     * parsed and the cursor is reverted after it has been painted.
+     * A loader that has been superseded by a later link or by a change
+     * of the current ID in the model is ignored when its document arrives.
      */
-    class PageLoader implements Runnable {
+    class PageLoader implements Runnable, DocumentCache.Callback {
         String title = null;
+        boolean shown = false;
         PageLoader(URL u, Cursor c) {
             url = u;
             cursor = c;
@@ -428,93 +493,63 @@ implements HelpModelListener, TextHelpModelListener, HyperlinkListener, Property
         
         public void run() {
             if (url == null) {
-                // restore the original cursor
-                html.setCursor(cursor);
+                // restore the original cursor unless a later link is loading
+                if (pendingLoader == this) {
+                    pendingLoader = null;
+                    html.setCursor(cursor);
+                }
                 
                 RepaintManager.currentManager(html).markCompletelyDirty(html);
             } else {
-                Document doc= html.getDocument();
-                //String title;
-                try {
-                    html.setPage(url);
-                    loadingURL = true;
-                    doc = html.getDocument();
-                    title = (String)doc.getProperty(Document.TitleProperty);                    
-                    String anchor = url.getRef();
-                    //if the title is not known (Hyperlink without anchor activated) parse title
-                    if(title == null)
-                        title = findTitle(url);
-                    //in case there is an anchor append it to the title
-                    if(anchor != null)
-                        title = title + "-" + anchor;
-                    TextHelpModel model = theViewer.getModel();
-                    model.setDocumentTitle(title);
-                    ID id = model.getHelpSet().getCombinedMap().getIDFromURL(url);
-                    if (id != null) {
-                        try {
-                            model.setCurrentID(id,title, (JHelpNavigator)null);
-                        } catch (InvalidHelpSetContextException ex) {
-                            model.setCurrentURL(url, title,(JHelpNavigator)null);
-                        }
-                    } else {
-                        model.setCurrentURL(url, title, (JHelpNavigator)null);
-                    }
-                } catch (IOException ioe) {
-                    loadingURL = false;
-                    html.setDocument(doc);
-                    html.getToolkit().beep();
-                } finally {
-                    // schedule the cursor to revert after
-                    // the paint has happended.
-                    url = null;
-                    SwingUtilities.invokeLater(this);
-                }
+                documentCache.load(url, this);
             }
         }
         
-        URL url;
-        Cursor cursor;
-        
-        /**
-         * Finds the title of HTML document on given URL
-         *
-         * @param url The URL of HTML file
-         * @return The title of the document
-         */
-        private String findTitle(URL url){
-            HTMLEditorKit.ParserCallback callback;
-            try{
-                URLConnection conn = url.openConnection();
-                Reader rd = new InputStreamReader(conn.getInputStream());                
-                ParserDelegator parser = new ParserDelegator();
-                callback = new Callback();
-                parser.parse(rd,callback,true);
-            }catch (Exception exp){
-                System.err.println(exp);
+        public void documentLoaded(URL u, Document loaded) {
+            if (pendingLoader != this) {
+                return;
             }
-            return title;
-            
-        }
-        
-        /**
-         * Class provided the parser callback
-         */
-        class Callback extends HTMLEditorKit.ParserCallback{
-            boolean wasTitle = false;
-            
-            public void handleStartTag(HTML.Tag t, MutableAttributeSet a, int pos){
-                if(t.equals(HTML.Tag.TITLE)){
-                    wasTitle = true;
+            shown = true;
+            Document doc= html.getDocument();
+            try {
+                if (loaded != null) {
+                    showDocument(loaded, url);
+                } else {
+                    // not an HTML document; let the JEditorPane handle it
+                    loadingURL = true;
+                    html.setPage(url);
                 }
-            }
-            public void handleText(char[] data, int pos){
-                if(wasTitle){
-                    title = new String(data);
-                    wasTitle = false;
+                title = (String)html.getDocument().getProperty(Document.TitleProperty);
+                String anchor = url.getRef();
+                //in case there is an anchor append it to the title
+                if(anchor != null && title != null)
+                    title = title + "-" + anchor;
+                TextHelpModel model = theViewer.getModel();
+                model.setDocumentTitle(title);
+                ID id = model.getHelpSet().getCombinedMap().getIDFromURL(url);
+                if (id != null) {
+                    try {
+                        model.setCurrentID(id,title, (JHelpNavigator)null);
+                    } catch (InvalidHelpSetContextException ex) {
+                        model.setCurrentURL(url, title,(JHelpNavigator)null);
+                    }
+                } else {
+                    model.setCurrentURL(url, title, (JHelpNavigator)null);
                 }
+            } catch (IOException ioe) {
+                loadingURL = false;
+                html.setDocument(doc);
+                html.getToolkit().beep();
+            } finally {
+                // schedule the cursor to revert after
+                // the paint has happended.
+                url = null;
+                SwingUtilities.invokeLater(this);
             }
-            
         }
+        
+        URL url;
+        Cursor cursor;
     }
     
     
@@ -547,24 +582,30 @@ implements HelpModelListener, TextHelpModelListener, HyperlinkListener, Property
         TextHelpModel m = (TextHelpModel) e.getSource();
         TextHelpModel.Highlight highlights[] = m.getHighlights();
         
-        Highlighter.HighlightPainter p =
-        new DefaultHighlighter.DefaultHighlightPainter(html.getSelectionColor());
+        if (highlights.length == 0) {
+            RepaintManager.currentManager(html).markCompletelyDirty(html);
+            return;
+        }
+
+        // all highlights are painted by one Highlighter entry
+        int starts[] = new int[highlights.length];
+        int ends[] = new int[highlights.length];
         for (int i=0; i<highlights.length; i++) {
-            int pos0 = highlights[i].getStartOffset();
-            int pos1 = highlights[i].getEndOffset();
-            debug("  highlight: "+pos0+", "+pos1);
-            try {
-                h.addHighlight(pos0, pos1, p);
-                
-                // scroll to the first position
-                if (i == 0) {
-                    Runnable callScrollToPosition = new ScrollToPosition(html,
-                    pos1);
-                    SwingUtilities.invokeLater(callScrollToPosition);
-                }
-            } catch (BadLocationException bl) {
-                debug("badLocationExcetpion thrown - " + bl);
-            }
+            starts[i] = highlights[i].getStartOffset();
+            ends[i] = highlights[i].getEndOffset();
+            debug("  highlight: "+starts[i]+", "+ends[i]);
+        }
+        HighlightBatchPainter p =
+        new HighlightBatchPainter(starts, ends, html.getSelectionColor());
+        try {
+            h.addHighlight(0, html.getDocument().getLength(), p);
+            
+            // scroll to the first position
+            Runnable callScrollToPosition = new ScrollToPosition(html,
+            ends[0]);
+            SwingUtilities.invokeLater(callScrollToPosition);
+        } catch (BadLocationException bl) {
+            debug("badLocationExcetpion thrown - " + bl);
         }
         RepaintManager.currentManager(html).markCompletelyDirty(html);
     }
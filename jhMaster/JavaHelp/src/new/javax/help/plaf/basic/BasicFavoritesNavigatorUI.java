@@ -58,6 +58,7 @@ import java.net.MalformedURLException;
 import java.util.HashSet;
 import javax.help.event.HelpSetListener;
 import javax.help.event.HelpSetEvent;
+import com.sun.java.help.impl.SwingWorker;
 import java.awt.Cursor;
 import java.awt.image.BufferedImage;
 import java.awt.geom.Rectangle2D.Float;
@@ -100,6 +101,9 @@ PropertyChangeListener, TreeModelListener, Serializable {
     private   FavoritesNode favNode = null;
     // node which contents will be saved
     private   FavoritesNode rootNode = null;
+    private   SwingWorker worker = null;
+    // favorites were saved while the worker was loading them
+    private   boolean savedWhileLoading = false;
     private   Locale locale = null;
     private   FavoritesNode selectedNode = null;
     private   FavoritesItem selectedItem = null;
@@ -278,22 +282,43 @@ PropertyChangeListener, TreeModelListener, Serializable {
     private void reloadData() {
         debug("reloadData");
         
-        //needs refactoring - sholudn't parse each time!!! - only once
-        
         if (favorites.getModel() == null) {
             return;
         }
         
-        // remove all children
-        topNode.removeAllChildren();
-        
         FavoritesView view = (FavoritesView) favorites.getNavigatorView();
         
         if (view == null) {
             return;
         }
 
-        favNode = view.getDataAsTree();
+        if (worker != null) {
+            // Something is still going on. Stop it and start over
+            worker.interrupt();
+        }
+        // the favorites file is parsed off the event dispatching thread
+        savedWhileLoading = false;
+        worker = new NavSwingWorker(view);
+        worker.start(Thread.MIN_PRIORITY);
+    }
+    
+    /*
+     * Presents the data loaded by the NavSwingWorker. Will be run on the
+     * Swing event thread. Favorites added before the first data was
+     * presented are added to it and saved.
+     */
+    private void presentData(FavoritesNode node) {
+        Vector added = new Vector();
+        if (rootNode == null) {
+            for (Enumeration en = topNode.children(); en.hasMoreElements();) {
+                added.addElement(en.nextElement());
+            }
+        }
+        
+        // remove all children
+        topNode.removeAllChildren();
+        
+        favNode = node;
         rootNode = favNode.getDeepCopy();
 
         classifyNode(favNode);
@@ -309,6 +334,44 @@ PropertyChangeListener, TreeModelListener, Serializable {
         
         setVisibility(topNode);        
         
+        if (added.size() > 0) {
+            DefaultTreeModel model = (DefaultTreeModel)tree.getModel();
+            for (int i = 0; i < added.size(); i++) {
+                FavoritesNode addedNode = (FavoritesNode)added.elementAt(i);
+                model.insertNodeInto(addedNode, topNode, topNode.getChildCount());
+            }
+            saveFavorites();
+        }
+    }
+    
+    private class NavSwingWorker extends SwingWorker {
+	FavoritesView view;
+
+	public NavSwingWorker (FavoritesView view) {
+	    super();
+	    this.view = view;
+	}
+
+	public Object construct() {
+	    return view.getDataAsTree();
+	}
+
+	public void finished() {
+	    // a newer worker replaces this one's data
+	    if (worker != this) {
+		return;
+	    }
+	    worker = null;
+	    if (savedWhileLoading && favorites != null) {
+		// the data doesn't hold the changes saved meanwhile
+		reloadData();
+		return;
+	    }
+	    FavoritesNode node = (FavoritesNode) get();
+	    if (node != null && favorites != null) {
+		presentData(node);
+	    }
+	}
     }
     
     /**
@@ -825,8 +888,14 @@ PropertyChangeListener, TreeModelListener, Serializable {
      * Saves favorites to the file
      */
     public void saveFavorites(){
+        // don't overwrite the file before it has been loaded; favorites
+        // added meanwhile are saved when it has been
+        if (rootNode == null)
+            return;
         FavoritesView view = (FavoritesView)favorites.getNavigatorView();
         view.saveFavorites(rootNode);
+        if (worker != null)
+            savedWhileLoading = true;
     }
     
     public void treeStructureChanged(javax.swing.event.TreeModelEvent treeModelEvent) {
@@ -845,6 +914,8 @@ PropertyChangeListener, TreeModelListener, Serializable {
         FavoritesNode rootParent = (FavoritesNode)connections.get(parent);
         if(rootParent == null)
             rootParent = rootNode;
+        if(rootParent == null)
+            return;
         
         debug("root parent "+rootParent);
         //nodes were inserted into first place in parent
@@ -76,6 +76,7 @@ PropertyChangeListener, ActionListener, Serializable {
     protected String oldText;
     protected DefaultMutableTreeNode currentFindNode;
     protected JHelpContentViewer viewer;
+    private MergeQueue mergeQueue = new MergeQueue(new MergeNavigator(), this);
     
     /**
      * Creates UI
@@ -198,7 +199,7 @@ PropertyChangeListener, ActionListener, Serializable {
 	loadData(view);
     }
 
-    private void loadData(GlossaryView view) {
+    private synchronized void loadData(GlossaryView view) {
 
        if (view == null) {
             return;
@@ -207,6 +208,10 @@ PropertyChangeListener, ActionListener, Serializable {
         // remove all children
         topNode.removeAllChildren();
         
+        // the data of all sub HelpSets is loaded below
+        
+        mergeQueue.reloaded();
+        
         String mergeType = view.getMergeType();
         
         Locale locale = view.getHelpSet().getLocale();
@@ -263,16 +268,27 @@ PropertyChangeListener, ActionListener, Serializable {
      */
     protected void addSubHelpSets(HelpSet hs){
 	debug ("addSubHelpSets");
+	Vector views = new Vector();
+	getSubHelpSetViews(hs, views);
+	NavigatorView[] slaves = new NavigatorView[views.size()];
+	views.copyInto(slaves);
+	// read the views in parallel and merge them in order
+	Merge.processMerge(topNode, glossary.getNavigatorView(), slaves);
+    }
+
+    /**
+     * Collects the views of the sub HelpSets that can be merged.
+     */
+    private void getSubHelpSetViews(HelpSet hs, Vector views) {
         for( Enumeration e = hs.getHelpSets(); e.hasMoreElements(); ) {
-            HelpSet ehs = (HelpSet) e.nextElement();
-            // merge views
-            NavigatorView[] views = ehs.getNavigatorViews();
-            for(int i = 0; i < views.length; i++){
-                if(glossary.canMerge(views[i]))
-                    merge(views[i]);
+	    HelpSet ehs = (HelpSet) e.nextElement();
+            NavigatorView[] eviews = ehs.getNavigatorViews();
+            for(int i = 0; i < eviews.length; i++){
+                if(glossary.canMerge(eviews[i]))
+                    views.addElement(eviews[i]);
             }
-            addSubHelpSets( ehs );
-        }
+            getSubHelpSetViews(ehs, views);
+	}
     }
 
     /**
@@ -389,6 +405,8 @@ PropertyChangeListener, ActionListener, Serializable {
 
     /**
      * Merges in the navigational data from another TOCView.
+     * The data is merged in the background, together with the data of
+     * other views merged in the meantime.
      *
      * @param view A GlossaryView.  Note the actual argument is a NavigatorView type
      * so it replaces the correct NavigatorUI method.
@@ -396,11 +414,7 @@ PropertyChangeListener, ActionListener, Serializable {
     
     public void merge(NavigatorView view) {
         debug("merging data");
-	doMerge(view);
-
-        //reload the tree data
-	((DefaultTreeModel)tree.getModel()).reload(); 
-	setVisibility(topNode);
+	mergeQueue.merge(view);
     }
 
     /**
@@ -412,6 +426,7 @@ PropertyChangeListener, ActionListener, Serializable {
     
     public void remove(NavigatorView view) {
         debug("removing "+view);
+	mergeQueue.removed();
         
 	remove(topNode, view.getHelpSet());
         
@@ -420,6 +435,28 @@ PropertyChangeListener, ActionListener, Serializable {
         setVisibility(topNode);
     }
     
+    /**
+     * The tree the merge queue merges into.
+     */
+    private class MergeNavigator implements MergeQueue.Navigator {
+	public NavigatorView getNavigatorView() {
+	    return glossary.getNavigatorView();
+	}
+
+	public DefaultMutableTreeNode getTopNode() {
+	    return topNode;
+	}
+
+	public void setTopNode(DefaultMutableTreeNode node) {
+	    synchronized (BasicGlossaryNavigatorUI.this) {
+		topNode = node;
+		currentFindNode = null;
+	    }
+	    ((DefaultTreeModel)tree.getModel()).setRoot(topNode);
+	    setVisibility(topNode);
+	}
+    }
+
     /**
      * Recursively removes all children of the node that have either hs or a HelpSet that
      * is included in hs as their HelpSet data.
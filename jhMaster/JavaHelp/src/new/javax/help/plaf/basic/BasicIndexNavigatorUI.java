@@ -94,7 +94,9 @@ public class BasicIndexNavigatorUI extends HelpNavigatorUI
     protected RuleBasedCollator rbc;
     protected String oldText;
     protected DefaultMutableTreeNode currentFindNode;
+    private boolean inRestoreSelection = false;
     private SwingWorker worker = null;
+    private MergeQueue mergeQueue = new MergeQueue(new MergeNavigator(), this);
 
 
     public static ComponentUI createUI(JComponent x) {
@@ -222,19 +224,24 @@ public class BasicIndexNavigatorUI extends HelpNavigatorUI
      * load the data for the navigator. Will be run on a separate
      * thread.
      */
-    private synchronized Object loadData(IndexView view) {
+    private synchronized Object loadData(IndexView view, TreePreview preview) {
 	if (view == null) {
 	    return Boolean.FALSE;
 	}
 
 	// remove all children
 	topNode.removeAllChildren(); 
+
+	// the data of all sub HelpSets is loaded below
+
+	mergeQueue.reloaded();
 	    
 	String mergeType = view.getMergeType();
 	    
 	Locale locale = view.getHelpSet().getLocale();
 	    
-	DefaultMutableTreeNode node = view.getDataAsTree();
+	// the top level nodes are shown while they are parsed
+	DefaultMutableTreeNode node = view.getDataAsTree(preview);
 	    
 	    // Make sure the children are all handled correctly
 	MergeHelpUtilities.mergeNodeChildren(mergeType, node);
@@ -256,12 +263,14 @@ public class BasicIndexNavigatorUI extends HelpNavigatorUI
      * Presents the data loaded in loadData. Will be run on the
      * Swing event thread.
      */
-    private void presentData() {
-	// reload the tree data
-	((DefaultTreeModel)tree.getModel()).reload(); 
+    private void presentData(TreePreview preview) {
+	// replace the preview, if any, and reload the tree data
+	((DefaultTreeModel)tree.getModel()).setRoot(topNode);
 	    
 	setVisibility(topNode);
 
+	// keep what the user opened and selected in the preview
+	TreePath[] selection = preview.restoreState(topNode);
 	    
 	if (index.getModel() != null) {
 	    ID id = index.getModel().getCurrentID();
@@ -270,23 +279,45 @@ public class BasicIndexNavigatorUI extends HelpNavigatorUI
 		selectNode(selectedNode);
 	    }
 	}
+
+	if (selection != null) {
+	    // the items were acted on when the user selected them
+	    inRestoreSelection = true;
+	    try {
+		tree.setSelectionPaths(selection);
+	    } finally {
+		inRestoreSelection = false;
+	    }
+	}
     }
 
     private class NavSwingWorker extends SwingWorker {
 	IndexView view;
+	TreePreview preview;
 
 	public NavSwingWorker (IndexView view) {
 	    super();
 	    this.view = view;
+	    preview = new TreePreview(tree) {
+		void setVisibility(DefaultMutableTreeNode node) {
+		    BasicIndexNavigatorUI.this.setVisibility(node);
+		}
+	    };
 	}
 
 	public Object construct() {
-	    return loadData(view);
+	    return loadData(view, preview);
+	}
+
+	public void interrupt() {
+	    preview.close();
+	    super.interrupt();
 	}
 
 	public void finished() {
+	    preview.close();
 	    if ((Boolean)get() == Boolean.TRUE) {
-		presentData();
+		presentData(preview);
 	    }
 	}
     }
@@ -328,15 +359,32 @@ public class BasicIndexNavigatorUI extends HelpNavigatorUI
      */
     protected void addSubHelpSets(HelpSet hs){
 	debug ("addSubHelpSets");
+	Vector views = new Vector();
+	getSubHelpSetViews(hs, views);
+	if (isDoMergeOverridden()) {
+	    for (int i = 0; i < views.size(); i++) {
+		doMerge((NavigatorView) views.elementAt(i));
+	    }
+	    return;
+	}
+	NavigatorView[] slaves = new NavigatorView[views.size()];
+	views.copyInto(slaves);
+	// read the views in parallel and merge them in order
+	Merge.processMerge(topNode, index.getNavigatorView(), slaves);
+    }
+
+    /**
+     * Collects the views of the sub HelpSets that can be merged.
+     */
+    private void getSubHelpSetViews(HelpSet hs, Vector views) {
         for( Enumeration e = hs.getHelpSets(); e.hasMoreElements(); ) {
 	    HelpSet ehs = (HelpSet) e.nextElement();
-            // merge views
-            NavigatorView[] views = ehs.getNavigatorViews();
-            for(int i = 0; i < views.length; i++){
-                if(index.canMerge(views[i]))
-                    doMerge(views[i]);
+            NavigatorView[] eviews = ehs.getNavigatorViews();
+            for(int i = 0; i < eviews.length; i++){
+                if(index.canMerge(eviews[i]))
+                    views.addElement(eviews[i]);
             }
-            addSubHelpSets( ehs );
+            getSubHelpSetViews(ehs, views);
 	}
     }
 
@@ -440,6 +488,9 @@ public class BasicIndexNavigatorUI extends HelpNavigatorUI
 
     /**
      * Merges in the navigational data from another IndexView.
+     * Subclasses that override this method have all the merges of the
+     * navigator done by it, synchronously, as merge and addSubHelpSets
+     * did before merges were queued.
      */
 
     public void doMerge(NavigatorView view) {
@@ -454,6 +505,10 @@ public class BasicIndexNavigatorUI extends HelpNavigatorUI
 
     /**
      * Merges in the navigational data from another IndexView.
+     * The data is merged in the background, together with the data of
+     * other views merged in the meantime, and shows in the tree once
+     * merged: this method returns before then. If a subclass overrides
+     * doMerge the data is merged by doMerge before this method returns.
      *
      * @param view A IndexView.  Note the actual argument is a NavigatorView type
      * so it replaces the correct NavigatorUI method.
@@ -461,11 +516,32 @@ public class BasicIndexNavigatorUI extends HelpNavigatorUI
 
     public void merge(NavigatorView view) {
 	debug("merge");
-        doMerge(view);
+	if (isDoMergeOverridden()) {
+	    synchronized (this) {
+		doMerge(view);
+	    }
+	    //reload the tree data
+	    ((DefaultTreeModel)tree.getModel()).reload(); 
+	    setVisibility(topNode);
+	    return;
+	}
+	mergeQueue.merge(view);
+    }
 
-        //reload the tree data
-	((DefaultTreeModel)tree.getModel()).reload(); 
-	setVisibility(topNode);
+    /**
+     * Returns true if a subclass overrides doMerge.
+     */
+    private boolean isDoMergeOverridden() {
+	try {
+	    Method m = getClass().getMethod("doMerge",
+					    new Class[] { NavigatorView.class });
+	    return m.getDeclaringClass() != BasicIndexNavigatorUI.class;
+	} catch (NoSuchMethodException ex) {
+	    return false;
+	} catch (SecurityException ex) {
+	    // assume the worst
+	    return true;
+	}
     }
 
     /**
@@ -477,14 +553,40 @@ public class BasicIndexNavigatorUI extends HelpNavigatorUI
 
     public void remove(NavigatorView view) {
 	debug("removing "+view);
+	mergeQueue.removed();
 
-	remove(topNode, view.getHelpSet());
+	// the merge queue copies the tree holding the same lock
+	synchronized (this) {
+	    remove(topNode, view.getHelpSet());
+	}
 	
 	// reload the tree data
 	((DefaultTreeModel)tree.getModel()).reload(); 
 	setVisibility(topNode);
     }
 
+    /**
+     * The tree the merge queue merges into.
+     */
+    private class MergeNavigator implements MergeQueue.Navigator {
+	public NavigatorView getNavigatorView() {
+	    return index.getNavigatorView();
+	}
+
+	public DefaultMutableTreeNode getTopNode() {
+	    return topNode;
+	}
+
+	public void setTopNode(DefaultMutableTreeNode node) {
+	    synchronized (BasicIndexNavigatorUI.this) {
+		topNode = node;
+		currentFindNode = null;
+	    }
+	    ((DefaultTreeModel)tree.getModel()).setRoot(topNode);
+	    setVisibility(topNode);
+	}
+    }
+
     /**
      * Recursively removes all children of the node that have either hs or a HelpSet that
      * is included in hs as their HelpSet data.
@@ -680,6 +782,9 @@ public class BasicIndexNavigatorUI extends HelpNavigatorUI
             }
         }
         navigator.setSelectedItems(items);        
+	if (inRestoreSelection) {
+	    return;
+	}
         
         // change current id only if one items is selected
         if (items != null && items.length == 1) {
@@ -698,7 +698,7 @@ public class BasicSearchNavigatorUI extends HelpNavigatorUI
 		debug("  item: "+item);
 		URL url;
 		try {
-		    url = new URL(item.getBase(), item.getFilename());
+		    url = item.getURL();
 		} catch (MalformedURLException me) {
 		    System.err.println ("Failed to create URL from " + item.getBase() + "|" +
 					item.getFilename());
@@ -756,6 +756,7 @@ public class BasicSearchNavigatorUI extends HelpNavigatorUI
 			tsm.clearSelection();
 			tsm.setSelectionPath(new TreePath(node.getPath()));
 		    }
+		    prefetchHits();
 		} else {
 		    // beep
 		    searchnav.getToolkit().beep();
@@ -768,6 +769,27 @@ public class BasicSearchNavigatorUI extends HelpNavigatorUI
     }
 					   
 
+    /**
+     * The number of top search hits the content viewer is asked to
+     * load ahead, in addition to the selected one.
+     */
+    private static final int PREFETCH_HITS = 3;
+
+    /**
+     * Hints the content viewer to load the best hits after the first
+     * one, which is being displayed.
+     */
+    private void prefetchHits() {
+	HelpModel helpmodel = searchnav.getModel();
+	int count = Math.min(topNode.getChildCount(), PREFETCH_HITS + 1);
+	for (int i = 1; i < count; i++) {
+	    DefaultMutableTreeNode node =
+		(DefaultMutableTreeNode) topNode.getChildAt(i);
+	    SearchTOCItem item = (SearchTOCItem) node.getUserObject();
+	    DocumentCache.prefetch(helpmodel, item.getURL());
+	}
+    }
+
     /**
      * For printf debugging.
      */
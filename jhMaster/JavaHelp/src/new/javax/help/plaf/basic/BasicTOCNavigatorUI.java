@@ -54,6 +54,7 @@ import java.awt.*;
 import java.io.Reader;
 import java.io.Serializable;
 import java.net.URL;
+import java.net.MalformedURLException;
 import java.net.URLConnection;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
@@ -82,7 +83,9 @@ public class BasicTOCNavigatorUI extends HelpNavigatorUI
     protected DefaultMutableTreeNode topNode;
     protected JTree tree;
     private boolean inInstallUI = false;
+    private boolean inRestoreSelection = false;
     private SwingWorker worker = null;
+    private MergeQueue mergeQueue = new MergeQueue(new MergeNavigator(), this);
 
     public static ComponentUI createUI(JComponent x) {
         return new BasicTOCNavigatorUI((JHelpTOCNavigator) x);
@@ -200,19 +203,24 @@ public class BasicTOCNavigatorUI extends HelpNavigatorUI
      * load the data for the navigator. Will be run on a separate
      * thread.
      */
-    private synchronized Object loadData(TOCView view) {
+    private synchronized Object loadData(TOCView view, TreePreview preview) {
 	if (view == null) {
 	    return Boolean.FALSE;
 	}
 
 	// remove all children
 	topNode.removeAllChildren(); 
+
+	// the data of all sub HelpSets is loaded below
+
+	mergeQueue.reloaded();
 	    
 	String mergeType = view.getMergeType();
 	    
 	Locale locale = view.getHelpSet().getLocale();
 	    
-	DefaultMutableTreeNode node = view.getDataAsTree();
+	// the top level nodes are shown while they are parsed
+	DefaultMutableTreeNode node = view.getDataAsTree(preview);
 	    
 	    // Make sure the children are all handled correctly
 	MergeHelpUtilities.mergeNodeChildren(mergeType, node);
@@ -234,12 +242,14 @@ public class BasicTOCNavigatorUI extends HelpNavigatorUI
      * Presents the data loaded in loadData. Will be run on the
      * Swing event thread.
      */
-    private void presentData() {
-	// reload the tree data
-	((DefaultTreeModel)tree.getModel()).reload(); 
+    private void presentData(TreePreview preview) {
+	// replace the preview, if any, and reload the tree data
+	((DefaultTreeModel)tree.getModel()).setRoot(topNode);
 	    
 	setVisibility(topNode);
 
+	// keep what the user opened and selected in the preview
+	TreePath[] selection = preview.restoreState(topNode);
 	    
 	if (toc.getModel() != null) {
 	    ID id = toc.getModel().getCurrentID();
@@ -248,23 +258,45 @@ public class BasicTOCNavigatorUI extends HelpNavigatorUI
 		selectNode(selectedNode);
 	    }
 	}
+
+	if (selection != null) {
+	    // the items were acted on when the user selected them
+	    inRestoreSelection = true;
+	    try {
+		tree.setSelectionPaths(selection);
+	    } finally {
+		inRestoreSelection = false;
+	    }
+	}
     }
 
     private class NavSwingWorker extends SwingWorker {
 	TOCView view;
+	TreePreview preview;
 
 	public NavSwingWorker (TOCView view) {
 	    super();
 	    this.view = view;
+	    preview = new TreePreview(tree) {
+		void setVisibility(DefaultMutableTreeNode node) {
+		    BasicTOCNavigatorUI.this.setVisibility(node);
+		}
+	    };
 	}
 
 	public Object construct() {
-	    return loadData(view);
+	    return loadData(view, preview);
+	}
+
+	public void interrupt() {
+	    preview.close();
+	    super.interrupt();
 	}
 
 	public void finished() {
+	    preview.close();
 	    if ((Boolean)get() == Boolean.TRUE) {
-		presentData();
+		presentData(preview);
 	    }
 	}
     }
@@ -307,15 +339,32 @@ public class BasicTOCNavigatorUI extends HelpNavigatorUI
      */
     protected void addSubHelpSets(HelpSet hs){
 	debug("addSubHelpSets");
+	Vector views = new Vector();
+	getSubHelpSetViews(hs, views);
+	if (isDoMergeOverridden()) {
+	    for (int i = 0; i < views.size(); i++) {
+		doMerge((NavigatorView) views.elementAt(i));
+	    }
+	    return;
+	}
+	NavigatorView[] slaves = new NavigatorView[views.size()];
+	views.copyInto(slaves);
+	// read the views in parallel and merge them in order
+	Merge.processMerge(topNode, toc.getNavigatorView(), slaves);
+    }
+
+    /**
+     * Collects the views of the sub HelpSets that can be merged.
+     */
+    private void getSubHelpSetViews(HelpSet hs, Vector views) {
         for( Enumeration e = hs.getHelpSets(); e.hasMoreElements(); ) {
 	    HelpSet ehs = (HelpSet) e.nextElement();
-            // merge views
-            NavigatorView[] views = ehs.getNavigatorViews();
-            for(int i = 0; i < views.length; i++){
-                if(toc.canMerge(views[i]))
-                    doMerge(views[i]);
+            NavigatorView[] eviews = ehs.getNavigatorViews();
+            for(int i = 0; i < eviews.length; i++){
+                if(toc.canMerge(eviews[i]))
+                    views.addElement(eviews[i]);
             }
-            addSubHelpSets( ehs );
+            getSubHelpSetViews(ehs, views);
 	}
     }
     
@@ -419,6 +468,9 @@ public class BasicTOCNavigatorUI extends HelpNavigatorUI
 
     /**
      * Merges in the navigational data from another IndexView.
+     * Subclasses that override this method have all the merges of the
+     * navigator done by it, synchronously, as merge and addSubHelpSets
+     * did before merges were queued.
      */
 
     public void doMerge(NavigatorView view) {
@@ -433,6 +485,10 @@ public class BasicTOCNavigatorUI extends HelpNavigatorUI
 
     /**
      * Merges in the navigational data from another TOCView.
+     * The data is merged in the background, together with the data of
+     * other views merged in the meantime, and shows in the tree once
+     * merged: this method returns before then. If a subclass overrides
+     * doMerge the data is merged by doMerge before this method returns.
      *
      * @param view A TOCView.  Note the actual argument is of a NavigatorView type
      * so it replaces the correct NavigatorUI method.
@@ -440,11 +496,32 @@ public class BasicTOCNavigatorUI extends HelpNavigatorUI
 
     public void merge(NavigatorView view) {
 	debug("merging "+view);
-        doMerge(view);
+	if (isDoMergeOverridden()) {
+	    synchronized (this) {
+		doMerge(view);
+	    }
+	    //reload the tree data
+	    ((DefaultTreeModel)tree.getModel()).reload(); 
+	    setVisibility(topNode);
+	    return;
+	}
+	mergeQueue.merge(view);
+    }
 
-        //reload the tree data
-	((DefaultTreeModel)tree.getModel()).reload(); 
-	setVisibility(topNode);
+    /**
+     * Returns true if a subclass overrides doMerge.
+     */
+    private boolean isDoMergeOverridden() {
+	try {
+	    Method m = getClass().getMethod("doMerge",
+					    new Class[] { NavigatorView.class });
+	    return m.getDeclaringClass() != BasicTOCNavigatorUI.class;
+	} catch (NoSuchMethodException ex) {
+	    return false;
+	} catch (SecurityException ex) {
+	    // assume the worst
+	    return true;
+	}
     }
 
     /**
@@ -456,14 +533,39 @@ public class BasicTOCNavigatorUI extends HelpNavigatorUI
 
     public void remove(NavigatorView view) {
 	debug("removing "+view);
+	mergeQueue.removed();
 
-	remove(topNode, view.getHelpSet());
+	// the merge queue copies the tree holding the same lock
+	synchronized (this) {
+	    remove(topNode, view.getHelpSet());
+	}
 	
 	// reload the tree data
 	((DefaultTreeModel)tree.getModel()).reload(); 
 	setVisibility(topNode);
     }
 
+    /**
+     * The tree the merge queue merges into.
+     */
+    private class MergeNavigator implements MergeQueue.Navigator {
+	public NavigatorView getNavigatorView() {
+	    return toc.getNavigatorView();
+	}
+
+	public DefaultMutableTreeNode getTopNode() {
+	    return topNode;
+	}
+
+	public void setTopNode(DefaultMutableTreeNode node) {
+	    synchronized (BasicTOCNavigatorUI.this) {
+		topNode = node;
+	    }
+	    ((DefaultTreeModel)tree.getModel()).setRoot(topNode);
+	    setVisibility(topNode);
+	}
+    }
+
     /**
      * Recursively removes all children of the node that have either hs or a HelpSet that
      * is included in hs as their HelpSet data.
@@ -669,6 +771,9 @@ public class BasicTOCNavigatorUI extends HelpNavigatorUI
             }
         }
         navigator.setSelectedItems(items);
+	if (inRestoreSelection) {
+	    return;
+	}
 
         // change current id only if one items is selected
         if (items != null && items.length == 1) {
@@ -684,6 +789,8 @@ public class BasicTOCNavigatorUI extends HelpNavigatorUI
 			System.err.println("BadID: "+item.getID());
 			return;
 		    }
+		    prefetchNeighbors((DefaultMutableTreeNode) paths[0].getLastPathComponent(),
+				      helpmodel);
 		} else {
 		    // Tricky situation here
 		    // Don't select a Tree item if we're installing
@@ -745,6 +852,43 @@ public class BasicTOCNavigatorUI extends HelpNavigatorUI
         }
     }
 
+    /**
+     * Hints the content viewer to load the topics before and after
+     * the node in the TOC, so the next and previous topics display quickly.
+     */
+    private void prefetchNeighbors(DefaultMutableTreeNode node,
+				   HelpModel helpmodel) {
+	DefaultMutableTreeNode next = node.getNextNode();
+	while (next != null && !hasTopic(next)) {
+	    next = next.getNextNode();
+	}
+	DefaultMutableTreeNode previous = node.getPreviousNode();
+	while (previous != null && !hasTopic(previous)) {
+	    previous = previous.getPreviousNode();
+	}
+	try {
+	    if (next != null) {
+		DocumentCache.prefetch(helpmodel,
+				       ((TOCItem) next.getUserObject()).getID().getURL());
+	    }
+	    if (previous != null) {
+		DocumentCache.prefetch(helpmodel,
+				       ((TOCItem) previous.getUserObject()).getID().getURL());
+	    }
+	} catch (MalformedURLException ex) {
+	    // ignore - it is only a hint
+	}
+    }
+
+    private boolean hasTopic(DefaultMutableTreeNode node) {
+	Object obj = node.getUserObject();
+	if (!(obj instanceof TOCItem)) {
+	    return false;
+	}
+	TOCItem item = (TOCItem) obj;
+	return item.getID() != null && item.getPresentation() == null;
+    }
+
     public void propertyChange(PropertyChangeEvent event) {
 	debug(this + " " + "propertyChange: " + event.getSource() + " "  +
 	      event.getPropertyName());
@@ -0,0 +1,471 @@
+/*
+ * @(#)DocumentCache.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package javax.help.plaf.basic;
+
+import javax.help.HelpModel;
+import javax.swing.JEditorPane;
+import javax.swing.SwingUtilities;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.ChangedCharSetException;
+import javax.swing.text.Document;
+import javax.swing.text.EditorKit;
+import javax.swing.text.html.HTMLEditorKit;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.Vector;
+import java.util.WeakHashMap;
+
+/**
+ * A bounded cache of parsed HTML documents for a content viewer.
+ * <p>
+ * Documents are keyed by the external form of their URL without the
+ * reference. Documents missing from the cache are read by a background
+ * thread, either on demand, when the viewer navigates to a page, or
+ * speculatively, when a navigator hints that a page is likely to be
+ * visited next.
+ * <p>
+ * Each cache is registered against the HelpModel of its viewer so
+ * navigators sharing that model can send prefetch hints.
+ *
+ * @version	1.1	10/19/26
+ */
+
+class DocumentCache {
+    /**
+     * The default number of documents kept in a cache.
+     */
+    static final int DEFAULT_SIZE = 16;
+
+    /**
+     * The maximum number of pending prefetch requests. Older prefetches
+     * are dropped first.
+     */
+    static final int MAX_PREFETCH = 8;
+
+    private static WeakHashMap caches = new WeakHashMap();
+
+    private JEditorPane html;
+    private LinkedHashMap docs;
+    private Vector queue;
+    private Hashtable pending;
+    private Thread loader;
+    private boolean disposed = false;
+
+    /**
+     * Callback for documents loaded through the cache.
+     * It is always invoked on the event dispatching thread.
+     */
+    interface Callback {
+	/**
+	 * @param url The URL requested
+	 * @param doc The parsed document or null if the URL could not be
+	 * read or is not an HTML document.
+	 */
+	public void documentLoaded(URL url, Document doc);
+    }
+
+    /**
+     * Creates a cache for the documents of an editor pane.
+     * The HTML EditorKit of the pane is used to create and read documents.
+     *
+     * @param html The JEditorPane the documents will be displayed in.
+     * @param size The maximum number of documents kept in the cache.
+     */
+    DocumentCache(JEditorPane html, final int size) {
+	this.html = html;
+	docs = new LinkedHashMap(size + 1, 0.75f, true) {
+	    protected boolean removeEldestEntry(java.util.Map.Entry eldest) {
+		return size() > size;
+	    }
+	};
+	queue = new Vector();
+	pending = new Hashtable();
+    }
+
+    /**
+     * Registers the cache as the document cache of a HelpModel.
+     */
+    static synchronized void register(HelpModel model, DocumentCache cache) {
+	if (model != null) {
+	    caches.put(model, cache);
+	}
+    }
+
+    /**
+     * Removes the registration of a cache for a HelpModel.
+     */
+    static synchronized void unregister(HelpModel model, DocumentCache cache) {
+	if (model != null && caches.get(model) == cache) {
+	    caches.remove(model);
+	}
+    }
+
+    /**
+     * Returns the cache registered for a HelpModel or null if there is
+     * none.
+     */
+    static synchronized DocumentCache getCache(HelpModel model) {
+	if (model == null) {
+	    return null;
+	}
+	return (DocumentCache) caches.get(model);
+    }
+
+    /**
+     * Hints that the URL is likely to be displayed by the content viewer
+     * of the HelpModel. Does nothing if the viewer has no cache.
+     * Must be called on the event dispatching thread.
+     */
+    static void prefetch(HelpModel model, URL url) {
+	DocumentCache cache = getCache(model);
+	if (cache != null && url != null) {
+	    cache.prefetch(url);
+	}
+    }
+
+    /**
+     * Returns the cached document for the URL or null.
+     */
+    synchronized Document get(URL url) {
+	if (url == null) {
+	    return null;
+	}
+	return (Document) docs.get(getKey(url));
+    }
+
+    /**
+     * Adds a fully loaded document to the cache.
+     */
+    synchronized void put(URL url, Document doc) {
+	if (url != null && doc != null) {
+	    docs.put(getKey(url), doc);
+	}
+    }
+
+    /**
+     * Removes the document for the URL from the cache.
+     */
+    synchronized void remove(URL url) {
+	if (url != null) {
+	    docs.remove(getKey(url));
+	}
+    }
+
+    /**
+     * Removes all documents from the cache.
+     * Pending loads are not affected.
+     */
+    synchronized void clear() {
+	docs.clear();
+    }
+
+    /**
+     * Loads the document for the URL ahead of other pending requests.
+     * If the document is cached the callback is invoked immediately.
+     * Must be called on the event dispatching thread.
+     */
+    void load(URL url, Callback callback) {
+	Document doc = get(url);
+	if (doc != null) {
+	    callback.documentLoaded(url, doc);
+	    return;
+	}
+	if (!enqueue(url, callback, true)) {
+	    callback.documentLoaded(url, null);
+	}
+    }
+
+    /**
+     * Loads the document for the URL in the background if it isn't
+     * already cached or pending.
+     * Must be called on the event dispatching thread.
+     */
+    void prefetch(URL url) {
+	if (get(url) != null) {
+	    return;
+	}
+	enqueue(url, null, false);
+    }
+
+    /**
+     * Stops the loader thread and empties the cache.
+     */
+    synchronized void dispose() {
+	disposed = true;
+	queue.removeAllElements();
+	pending.clear();
+	docs.clear();
+	notifyAll();
+    }
+
+    /**
+     * Adds a request for the URL.
+     * Returns false if the document can not be created.
+     */
+    private boolean enqueue(URL url, Callback callback, boolean urgent) {
+	String key = getKey(url);
+	synchronized (this) {
+	    if (disposed) {
+		return false;
+	    }
+	    Request req = (Request) pending.get(key);
+	    if (req != null) {
+		if (callback != null) {
+		    req.callbacks.addElement(callback);
+		}
+		if (urgent && queue.removeElement(req)) {
+		    queue.insertElementAt(req, 0);
+		}
+		return true;
+	    }
+	}
+
+	// The document is created on the calling thread, as JEditorPane does
+	EditorKit kit = html.getEditorKitForContentType("text/html");
+	if (!(kit instanceof HTMLEditorKit)) {
+	    return false;
+	}
+	Document doc = kit.createDefaultDocument();
+	doc.putProperty(Document.StreamDescriptionProperty, url);
+
+	synchronized (this) {
+	    Request req = new Request(url, key, kit, doc);
+	    if (callback != null) {
+		req.callbacks.addElement(callback);
+	    }
+	    pending.put(key, req);
+	    if (urgent) {
+		queue.insertElementAt(req, 0);
+	    } else {
+		queue.addElement(req);
+		trimPrefetches();
+	    }
+	    if (loader == null) {
+		loader = new Thread(new Loader(), "JavaHelp document loader");
+		loader.setDaemon(true);
+		loader.setPriority(Thread.MIN_PRIORITY);
+		loader.start();
+	    }
+	    notifyAll();
+	}
+	return true;
+    }
+
+    /**
+     * Drops the oldest prefetch requests nobody is waiting for.
+     */
+    private void trimPrefetches() {
+	int count = 0;
+	for (int i = queue.size() - 1; i >= 0; i--) {
+	    Request req = (Request) queue.elementAt(i);
+	    if (req.callbacks.size() == 0 && ++count > MAX_PREFETCH) {
+		queue.removeElementAt(i);
+		pending.remove(req.key);
+	    }
+	}
+    }
+
+    private synchronized Request nextRequest() throws InterruptedException {
+	while (queue.size() == 0 && !disposed) {
+	    wait();
+	}
+	if (disposed) {
+	    return null;
+	}
+	Request req = (Request) queue.elementAt(0);
+	queue.removeElementAt(0);
+	return req;
+    }
+
+    private void finished(final Request req, boolean loaded) {
+	final Vector callbacks;
+	synchronized (this) {
+	    if (disposed) {
+		return;
+	    }
+	    pending.remove(req.key);
+	    if (loaded) {
+		docs.put(req.key, req.doc);
+	    }
+	    callbacks = req.callbacks;
+	}
+	if (callbacks.size() == 0) {
+	    return;
+	}
+	final Document doc = loaded ? req.doc : null;
+	SwingUtilities.invokeLater(new Runnable() {
+	    public void run() {
+		for (Enumeration e = callbacks.elements();
+		     e.hasMoreElements(); ) {
+		    Callback callback = (Callback) e.nextElement();
+		    callback.documentLoaded(req.url, doc);
+		}
+	    }
+	});
+    }
+
+    /**
+     * Reads a document with the given charset, starting over if the
+     * document declares a different one.
+     */
+    private static void read(Request req) throws IOException {
+	URLConnection conn = req.url.openConnection();
+	String type = conn.getContentType();
+	if (type != null && !type.toLowerCase().startsWith("text/html")) {
+	    throw new IOException("not an HTML document: " + type);
+	}
+	String charset = getCharset(type);
+	InputStream in = conn.getInputStream();
+	try {
+	    req.kit.read(createReader(in, charset), req.doc, 0);
+	} catch (ChangedCharSetException ex) {
+	    String spec = ex.getCharSetSpec();
+	    charset = ex.keyEqualsCharSet() ? spec : getCharset(spec);
+	    in.close();
+	    in = req.url.openConnection().getInputStream();
+	    try {
+		req.doc.remove(0, req.doc.getLength());
+		req.doc.putProperty("IgnoreCharsetDirective", Boolean.TRUE);
+		req.kit.read(createReader(in, charset), req.doc, 0);
+	    } catch (BadLocationException ble) {
+		throw new IOException(ble.getMessage());
+	    }
+	} catch (BadLocationException ble) {
+	    throw new IOException(ble.getMessage());
+	} finally {
+	    in.close();
+	}
+    }
+
+    private static Reader createReader(InputStream in, String charset)
+	throws IOException {
+	if (charset == null) {
+	    return new InputStreamReader(in);
+	}
+	return new InputStreamReader(in, charset);
+    }
+
+    /**
+     * Returns the charset parameter of a content type or null.
+     */
+    private static String getCharset(String type) {
+	if (type == null) {
+	    return null;
+	}
+	int index = type.toLowerCase().indexOf("charset=");
+	if (index == -1) {
+	    return null;
+	}
+	String charset = type.substring(index + 8);
+	int end = charset.indexOf(';');
+	if (end != -1) {
+	    charset = charset.substring(0, end);
+	}
+	charset = charset.trim();
+	if (charset.startsWith("\"") && charset.endsWith("\"") &&
+	    charset.length() > 1) {
+	    charset = charset.substring(1, charset.length() - 1);
+	}
+	return charset.length() == 0 ? null : charset;
+    }
+
+    /**
+     * URLs are not used as keys as URL.equals may resolve host names.
+     */
+    private static String getKey(URL url) {
+	String key = url.toExternalForm();
+	int index = key.indexOf('#');
+	if (index != -1) {
+	    key = key.substring(0, index);
+	}
+	return key;
+    }
+
+    /**
+     * A pending load.
+     */
+    private static class Request {
+	URL url;
+	String key;
+	EditorKit kit;
+	Document doc;
+	Vector callbacks = new Vector(1);
+
+	Request(URL url, String key, EditorKit kit, Document doc) {
+	    this.url = url;
+	    this.key = key;
+	    this.kit = kit;
+	    this.doc = doc;
+	}
+    }
+
+    /**
+     * The body of the loader thread.
+     */
+    private class Loader implements Runnable {
+	public void run() {
+	    while (true) {
+		Request req;
+		try {
+		    req = nextRequest();
+		} catch (InterruptedException ex) {
+		    return;
+		}
+		if (req == null) {
+		    return;
+		}
+		boolean loaded = false;
+		try {
+		    debug("loading " + req.url);
+		    read(req);
+		    loaded = true;
+		} catch (Exception ex) {
+		    debug("failed to load " + req.url + ": " + ex);
+		}
+		finished(req, loaded);
+	    }
+	}
+    }
+
+    /**
+     * For printf debugging.
+     */
+    private final static boolean debug = false;
+    private static void debug(String str) {
+	if (debug) {
+	    System.out.println("DocumentCache: " + str);
+	}
+    }
+}
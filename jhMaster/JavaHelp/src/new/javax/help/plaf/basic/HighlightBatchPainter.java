@@ -0,0 +1,159 @@
+/*
+ * @(#)HighlightBatchPainter.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package javax.help.plaf.basic;
+
+import java.awt.Color;
+import java.awt.Graphics;
+import java.awt.Rectangle;
+import java.awt.Shape;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultHighlighter;
+import javax.swing.text.Document;
+import javax.swing.text.Highlighter;
+import javax.swing.text.JTextComponent;
+
+/**
+ * Paints a set of highlights as a single Highlighter entry.
+ * <p>
+ * Adding every search hit to the Highlighter separately makes each
+ * paint of the content viewer visit every hit. This painter keeps the
+ * highlights sorted, remembers the vertical extent of each one for the
+ * current layout and only paints the highlights intersecting the clip.
+ *
+ * @version	1.1	10/19/26
+ */
+
+class HighlightBatchPainter implements Highlighter.HighlightPainter {
+    private int[] starts;
+    private int[] ends;
+    private int count;
+    private Highlighter.HighlightPainter painter;
+
+    // vertical extents of the highlights for the cached layout
+    private int[] tops;
+    private int[] bottoms;
+    private Document layoutDoc;
+    private int layoutWidth = -1;
+    private int layoutHeight = -1;
+
+    /**
+     * Creates a painter for highlights given as parallel arrays of
+     * start and end offsets. Empty ranges are ignored.
+     *
+     * @param starts The start offsets.
+     * @param ends The end offsets.
+     * @param color The color of the highlights.
+     */
+    HighlightBatchPainter(int[] starts, int[] ends, Color color) {
+	long[] ranges = new long[starts.length];
+	for (int i = 0; i < starts.length; i++) {
+	    if (starts[i] < ends[i]) {
+		ranges[count++] = ((long) starts[i] << 32) | ends[i];
+	    }
+	}
+	java.util.Arrays.sort(ranges, 0, count);
+	this.starts = new int[count];
+	this.ends = new int[count];
+	for (int i = 0; i < count; i++) {
+	    this.starts[i] = (int) (ranges[i] >>> 32);
+	    this.ends[i] = (int) ranges[i];
+	}
+	painter = new DefaultHighlighter.DefaultHighlightPainter(color);
+    }
+
+    /**
+     * Returns the number of highlights painted.
+     */
+    int getCount() {
+	return count;
+    }
+
+    /**
+     * Paints the highlights intersecting the clip of the graphics.
+     * The offsets p0 and p1 are those of the Highlighter entry and
+     * are ignored.
+     */
+    public void paint(Graphics g, int p0, int p1, Shape bounds,
+		      JTextComponent c) {
+	if (count == 0) {
+	    return;
+	}
+	Rectangle clip = g.getClipBounds();
+	if (clip == null) {
+	    for (int i = 0; i < count; i++) {
+		painter.paint(g, starts[i], ends[i], bounds, c);
+	    }
+	    return;
+	}
+	validateLayout(c);
+	int clipTop = clip.y;
+	int clipBottom = clip.y + clip.height;
+	for (int i = 0; i < count; i++) {
+	    if (bottoms[i] >= clipTop && tops[i] <= clipBottom) {
+		painter.paint(g, starts[i], ends[i], bounds, c);
+	    }
+	}
+    }
+
+    /**
+     * Recomputes the vertical extents if the document or the size of
+     * the component has changed since they were computed.
+     */
+    private void validateLayout(JTextComponent c) {
+	Document doc = c.getDocument();
+	if (doc == layoutDoc && c.getWidth() == layoutWidth &&
+	    c.getHeight() == layoutHeight) {
+	    return;
+	}
+	if (tops == null) {
+	    tops = new int[count];
+	    bottoms = new int[count];
+	}
+	int length = doc.getLength();
+	for (int i = 0; i < count; i++) {
+	    // unknown extents are always painted
+	    tops[i] = Integer.MIN_VALUE;
+	    bottoms[i] = Integer.MAX_VALUE;
+	    if (ends[i] > length) {
+		continue;
+	    }
+	    try {
+		Rectangle r0 = c.modelToView(starts[i]);
+		Rectangle r1 = c.modelToView(ends[i]);
+		if (r0 != null && r1 != null) {
+		    tops[i] = Math.min(r0.y, r1.y);
+		    bottoms[i] = Math.max(r0.y + r0.height, r1.y + r1.height);
+		}
+	    } catch (BadLocationException e) {
+	    }
+	}
+	layoutDoc = doc;
+	layoutWidth = c.getWidth();
+	layoutHeight = c.getHeight();
+    }
+}
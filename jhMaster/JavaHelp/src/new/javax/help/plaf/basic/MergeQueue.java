@@ -0,0 +1,250 @@
+/*
+ * @(#)MergeQueue.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package javax.help.plaf.basic;
+
+import javax.help.HelpSet;
+import javax.help.Merge;
+import javax.help.NavigatorView;
+import javax.help.TreeItem;
+import javax.swing.tree.DefaultMutableTreeNode;
+import com.sun.java.help.impl.SwingWorker;
+import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Vector;
+
+/**
+ * Merges NavigatorViews into the tree of a navigator in the background.
+ * <p>
+ * Views merged while a merge is in progress are queued and merged
+ * together by the next one. A merge works on a copy of the tree of the
+ * navigator, the merged tree replaces the tree of the navigator on the
+ * event dispatching thread. Adding many HelpSets thus causes few tree
+ * reloads, and none of the merging is done on the event dispatching
+ * thread.
+ *
+ * @version	1.1	10/19/26
+ */
+
+class MergeQueue {
+
+    /**
+     * The navigator whose tree is merged into.
+     */
+    interface Navigator {
+	/**
+	 * Returns the master view.
+	 */
+	public NavigatorView getNavigatorView();
+
+	/**
+	 * Returns the top node of the tree.
+	 */
+	public DefaultMutableTreeNode getTopNode();
+
+	/**
+	 * Replaces the top node of the tree. Called on the event dispatching
+	 * thread.
+	 */
+	public void setTopNode(DefaultMutableTreeNode node);
+    }
+
+    private Navigator navigator;
+    private Object lock;
+    private Vector pending = new Vector();
+    private boolean running = false;
+    private int reloads = 0;
+    private int removals = 0;
+
+    /**
+     * @param navigator The navigator
+     * @param lock The object the navigator synchronizes on while it
+     * changes its tree outside of the event dispatching thread.
+     */
+    MergeQueue(Navigator navigator, Object lock) {
+	this.navigator = navigator;
+	this.lock = lock;
+    }
+
+    /**
+     * Queues a view to merge.
+     */
+    synchronized void merge(NavigatorView view) {
+	pending.addElement(view);
+	if (!running) {
+	    running = true;
+	    new Worker().start(Thread.MIN_PRIORITY);
+	}
+    }
+
+    /**
+     * Tells the queue the navigator has reloaded its data, including the
+     * data of all the sub HelpSets. Pending merges are dropped.
+     */
+    synchronized void reloaded() {
+	pending.removeAllElements();
+	reloads++;
+    }
+
+    /**
+     * Tells the queue data has been removed from the tree of the
+     * navigator. A merge in progress is started again.
+     * Must be called on the event dispatching thread.
+     */
+    synchronized void removed() {
+	removals++;
+    }
+
+    /**
+     * Merges the pending views in the background.
+     */
+    private class Worker extends SwingWorker {
+	private NavigatorView[] views;
+	private int startReloads;
+	private int startRemovals;
+	private Map names;	// the names of the items before the merge
+
+	public Object construct() {
+	    synchronized (MergeQueue.this) {
+		views = new NavigatorView[pending.size()];
+		pending.copyInto(views);
+		pending.removeAllElements();
+		startReloads = reloads;
+		startRemovals = removals;
+	    }
+	    if (views.length == 0) {
+		return null;
+	    }
+	    NavigatorView master = navigator.getNavigatorView();
+	    HelpSet hs = master.getHelpSet();
+
+	    // Skip the views of HelpSets removed in the meantime
+	    Vector merged = new Vector();
+	    for (int i = 0; i < views.length; i++) {
+		if (hs.contains(views[i].getHelpSet())) {
+		    merged.addElement(views[i]);
+		}
+	    }
+	    NavigatorView[] slaves = new NavigatorView[merged.size()];
+	    merged.copyInto(slaves);
+
+	    try {
+		DefaultMutableTreeNode node;
+		synchronized (lock) {
+		    node = copy(navigator.getTopNode());
+		    names = new IdentityHashMap();
+		    saveNames(node, names);
+		}
+		return Merge.processMerge(node, master, slaves);
+	    } catch (RuntimeException ex) {
+		ex.printStackTrace();
+		return null;
+	    }
+	}
+
+	public void finished() {
+	    DefaultMutableTreeNode node = (DefaultMutableTreeNode) get();
+	    synchronized (MergeQueue.this) {
+		if (startReloads != reloads) {
+		    // the reload included the views
+		    node = null;
+		} else if (startRemovals != removals) {
+		    // merge again into the current tree
+		    for (int i = views.length - 1; i >= 0; i--) {
+			pending.insertElementAt(views[i], 0);
+		    }
+		    node = null;
+		}
+	    }
+	    if (node == null && names != null) {
+		// the tree keeps the items, undo their renaming
+		restoreNames(names);
+	    }
+	    if (node != null) {
+		debug("merged " + views.length + " views");
+		navigator.setTopNode(node);
+	    }
+	    synchronized (MergeQueue.this) {
+		if (pending.size() > 0) {
+		    new Worker().start(Thread.MIN_PRIORITY);
+		} else {
+		    running = false;
+		}
+	    }
+	}
+    }
+
+    /**
+     * Copies the structure of a tree. The user objects are shared, so the
+     * items a merge renames (see MergeHelpUtilities.markNodes) are renamed
+     * in the tree of the navigator too. Their names are saved before the
+     * merge and restored if the merged tree is dropped.
+     */
+    static DefaultMutableTreeNode copy(DefaultMutableTreeNode node) {
+	DefaultMutableTreeNode copy =
+	    new DefaultMutableTreeNode(node.getUserObject());
+	for (Enumeration e = node.children(); e.hasMoreElements(); ) {
+	    copy.add(copy((DefaultMutableTreeNode) e.nextElement()));
+	}
+	return copy;
+    }
+
+    /**
+     * Saves the names of the TreeItems of a tree.
+     */
+    private static void saveNames(DefaultMutableTreeNode node, Map names) {
+	Object item = node.getUserObject();
+	if (item instanceof TreeItem) {
+	    names.put(item, ((TreeItem) item).getName());
+	}
+	for (Enumeration e = node.children(); e.hasMoreElements(); ) {
+	    saveNames((DefaultMutableTreeNode) e.nextElement(), names);
+	}
+    }
+
+    /**
+     * Gives TreeItems back the names saved by saveNames.
+     */
+    private static void restoreNames(Map names) {
+	for (Iterator i = names.entrySet().iterator(); i.hasNext(); ) {
+	    Map.Entry entry = (Map.Entry) i.next();
+	    ((TreeItem) entry.getKey()).setName((String) entry.getValue());
+	}
+    }
+
+    /**
+     * For printf debugging.
+     */
+    private final static boolean debug = false;
+    private static void debug(String str) {
+	if (debug) {
+	    System.out.println("MergeQueue: " + str);
+	}
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * @(#)TreePreview.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+package javax.help.plaf.basic;
+
+import javax.help.TreeParseListener;
+import javax.swing.JTree;
+import javax.swing.SwingUtilities;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+import javax.swing.tree.TreePath;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.Vector;
+
+/**
+ * Shows the top level nodes of a TOC or Index in a navigator tree while
+ * the TOC or Index is being parsed.
+ * <p>
+ * The nodes reported by the parser are copied and queued; the queued
+ * nodes are added to a preview root on the event dispatching thread, one
+ * insert event for all the nodes queued since the last one. The preview
+ * root becomes the root of the tree with the first nodes. When loading
+ * is done the navigator closes the preview and sets its own root. The
+ * nodes the user expanded, collapsed or selected in the preview are then
+ * expanded, collapsed or selected in the new tree: the copies share their
+ * items with the nodes of the new tree.
+ *
+ * @version	1.1	10/19/26
+ */
+
+abstract class TreePreview implements TreeParseListener {
+    private JTree tree;
+    private DefaultMutableTreeNode root = new DefaultMutableTreeNode();
+    private Vector pending = new Vector();
+    private boolean posted = false;
+    private boolean closed = false;
+    // the preview nodes expanded and selected when it was closed
+    private HashSet expanded = null;
+    private TreePath[] selection = null;
+
+    /**
+     * @param tree The tree of the navigator
+     */
+    TreePreview(JTree tree) {
+	this.tree = tree;
+    }
+
+    /**
+     * Expands a node added to the preview as the navigator would.
+     * Called on the event dispatching thread.
+     */
+    abstract void setVisibility(DefaultMutableTreeNode node);
+
+    /**
+     * Queues copies of the nodes. Called on the parsing thread.
+     */
+    public void nodesParsed(DefaultMutableTreeNode[] nodes) {
+	Vector copies = new Vector(nodes.length);
+	for (int i = 0; i < nodes.length; i++) {
+	    copies.addElement(MergeQueue.copy(nodes[i]));
+	}
+	synchronized (this) {
+	    if (closed) {
+		return;
+	    }
+	    for (int i = 0; i < copies.size(); i++) {
+		pending.addElement(copies.elementAt(i));
+	    }
+	    if (!posted) {
+		posted = true;
+		SwingUtilities.invokeLater(new Runnable() {
+		    public void run() {
+			insertPending();
+		    }
+		});
+	    }
+	}
+    }
+
+    /**
+     * Stops the preview. Nodes queued but not yet shown are dropped.
+     * Must be called on the event dispatching thread.
+     */
+    synchronized void close() {
+	closed = true;
+	pending.removeAllElements();
+	if (expanded == null && tree.getModel().getRoot() == root) {
+	    expanded = new HashSet();
+	    Enumeration e = tree.getExpandedDescendants(new TreePath(root));
+	    while (e != null && e.hasMoreElements()) {
+		expanded.add(((TreePath) e.nextElement()).getLastPathComponent());
+	    }
+	    selection = tree.getSelectionPaths();
+	}
+    }
+
+    /**
+     * Expands and collapses the nodes of the new root of the tree as they
+     * were in the preview when it was closed. Returns the paths of the
+     * nodes selected in the preview, or null. Must be called on the event
+     * dispatching thread after the navigator has set its root.
+     */
+    TreePath[] restoreState(DefaultMutableTreeNode top) {
+	if (expanded == null) {
+	    return null;
+	}
+	restoreExpansion(root, new TreePath(top));
+	Vector paths = new Vector();
+	for (int i = 0; selection != null && i < selection.length; i++) {
+	    TreePath path = new TreePath(top);
+	    Object[] nodes = selection[i].getPath();
+	    for (int j = 1; path != null && j < nodes.length; j++) {
+		path = findChild(path, (DefaultMutableTreeNode) nodes[j]);
+	    }
+	    if (path != null) {
+		paths.addElement(path);
+	    }
+	}
+	if (paths.size() == 0) {
+	    return null;
+	}
+	TreePath[] result = new TreePath[paths.size()];
+	paths.copyInto(result);
+	return result;
+    }
+
+    /**
+     * Gives the children of a node of the new tree the expansion of the
+     * children of a preview node.
+     */
+    private void restoreExpansion(DefaultMutableTreeNode previewNode,
+				  TreePath path) {
+	for (Enumeration e = previewNode.children(); e.hasMoreElements(); ) {
+	    DefaultMutableTreeNode child =
+		(DefaultMutableTreeNode) e.nextElement();
+	    if (child.isLeaf()) {
+		continue;
+	    }
+	    TreePath childPath = findChild(path, child);
+	    if (childPath == null) {
+		continue;
+	    }
+	    if (expanded.contains(child)) {
+		tree.expandPath(childPath);
+		restoreExpansion(child, childPath);
+	    } else {
+		tree.collapsePath(childPath);
+	    }
+	}
+    }
+
+    /**
+     * Returns the path of the child of the last node of a path that holds
+     * the item of a preview node, or null.
+     */
+    private static TreePath findChild(TreePath path,
+				      DefaultMutableTreeNode previewNode) {
+	DefaultMutableTreeNode node =
+	    (DefaultMutableTreeNode) path.getLastPathComponent();
+	Object item = previewNode.getUserObject();
+	for (Enumeration e = node.children(); e.hasMoreElements(); ) {
+	    DefaultMutableTreeNode child =
+		(DefaultMutableTreeNode) e.nextElement();
+	    if (child.getUserObject() == item) {
+		return path.pathByAddingChild(child);
+	    }
+	}
+	return null;
+    }
+
+    /**
+     * Adds the queued nodes to the preview root.
+     */
+    private void insertPending() {
+	DefaultMutableTreeNode[] nodes;
+	synchronized (this) {
+	    posted = false;
+	    if (closed || pending.size() == 0) {
+		return;
+	    }
+	    nodes = new DefaultMutableTreeNode[pending.size()];
+	    pending.copyInto(nodes);
+	    pending.removeAllElements();
+	}
+	debug("inserting " + nodes.length + " nodes");
+
+	DefaultTreeModel model = (DefaultTreeModel) tree.getModel();
+	int start = root.getChildCount();
+	for (int i = 0; i < nodes.length; i++) {
+	    root.add(nodes[i]);
+	}
+	if (model.getRoot() != root) {
+	    model.setRoot(root);
+	    tree.expandPath(new TreePath(root));
+	} else {
+	    int[] indices = new int[nodes.length];
+	    for (int i = 0; i < nodes.length; i++) {
+		indices[i] = start + i;
+	    }
+	    model.nodesWereInserted(root, indices);
+	}
+	for (int i = 0; i < nodes.length; i++) {
+	    setVisibility(nodes[i]);
+	}
+    }
+
+    /**
+     * For printf debugging.
+     */
+    private final static boolean debug = false;
+    private static void debug(String str) {
+	if (debug) {
+	    System.out.println("TreePreview: " + str);
+	}
+    }
+}
@@ -30,6 +30,7 @@ package javax.help.search;
 import java.util.Vector;
 import java.util.Enumeration;
 import java.net.URL;
+import java.net.MalformedURLException;
 
 /**
  * A SearchItem corresponds to one specific item found in a search query.
@@ -52,6 +53,7 @@ public class SearchItem {
     private int begin;
     private int end;
     private Vector concepts;
+    private URL url;
 
     /**
      * Constructs a SearchItem
@@ -129,6 +131,20 @@ public class SearchItem {
 	return filename;
     }
     
+    /**
+     * Gets the URL of the document, getFilename() resolved against
+     * getBase().
+     *
+     * @return The URL of the document containing the hit.
+     * @exception MalformedURLException if the filename can't be resolved.
+     */
+    public URL getURL() throws MalformedURLException {
+	if (url == null) {
+	    url = new URL(base, filename);
+	}
+	return url;
+    }
+
     /**
      * Gets the confidence value for the hit.
      *
@@ -176,7 +192,7 @@ public class SearchItem {
 	    result.append("}");
 	    return result.toString();
 	}
-	Enumeration enum1 = concepts.elements();
+	Enumeration enum1 = getConcepts();
 	while(enum1.hasMoreElements()) {
 	    String concept = (String)enum1.nextElement();
 	    result.append(concept);
@@ -209,7 +209,7 @@ public class SearchTOCItemTag extends BodyTagSupport implements SearchListener{
 	    SearchItem item = (SearchItem) itemEnum.nextElement();
 	    URL url;
 	    try {
-		url = new URL(item.getBase(), item.getFilename());
+		url = item.getURL();
 	    } catch (MalformedURLException me) {
 		debug ("Failed to create URL from " + item.getBase() + "|" +
 		       item.getFilename());
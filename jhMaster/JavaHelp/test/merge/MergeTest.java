@@ -0,0 +1,444 @@
+/*
+ * @(#)MergeTest.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+/*
+ * MergeTest.java
+ */
+
+import javax.help.*;
+import javax.swing.tree.*;
+import java.net.URL;
+import java.text.*;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.Random;
+import java.util.Vector;
+
+/**
+ * Differential test of the TOC and Index merge types. Random trees are
+ * merged with MergeHelpUtilities and with a copy of the original merge
+ * algorithms, which compare every pair of names and dispatch through
+ * the merge type names. The resulting trees must be identical.
+ *
+ * Usage: java MergeTest [trials] [seed]
+ */
+public class MergeTest {
+
+    static String[] mergeTypes = {
+	null,
+	"javax.help.AppendMerge",
+	"javax.help.UniteAppendMerge",
+	"javax.help.SortMerge",
+	"javax.help.NoMerge"
+    };
+
+    // Names that compare equal, differ only in case or accents, or differ
+    static String[] names = {
+	"alpha", "Alpha", "ALPHA", "beta", "Beta", "resume", "r\u00e9sum\u00e9",
+	"R\u00e9sum\u00e9", "gamma", "delta", "a", "A", "b", "z", " "
+    };
+
+    static final String FAILED = "failed";
+
+    static String[] ids = { null, "one", "two", "three" };
+
+    static Locale[] locales = { null, Locale.ENGLISH, Locale.FRENCH };
+
+    public static void main(String args[]) throws Exception {
+	int trials = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+	long seed = args.length > 1 ? Long.parseLong(args[1]) : 19980313L;
+
+	int failures = 0;
+	for (int i = 0; i < trials; i++) {
+	    long trialSeed = seed + i;
+	    String type = mergeTypes[1 + (int) (trialSeed % 4)];
+	    String expected = run(trialSeed, type, true);
+	    String actual = run(trialSeed, type, false);
+	    if (expected.equals(FAILED) && !actual.equals(FAILED)) {
+		// The original sortNode failed on entries without a name,
+		// they are now sorted as a space.
+		continue;
+	    }
+	    if (!expected.equals(actual)) {
+		failures++;
+		System.out.println("Trial " + i + " (seed " + trialSeed +
+				   ", " + type + ") differs");
+		System.out.println("  expected: " + expected);
+		System.out.println("  actual:   " + actual);
+	    }
+	}
+
+	// a wide merge, which used to be quadratic
+	long start = System.currentTimeMillis();
+	String expected = runWide(2000, true);
+	long reference = System.currentTimeMillis() - start;
+	start = System.currentTimeMillis();
+	String actual = runWide(2000, false);
+	long current = System.currentTimeMillis() - start;
+	if (!expected.equals(actual)) {
+	    failures++;
+	    System.out.println("Wide merge differs");
+	}
+	System.out.println("Wide merge: reference " + reference +
+			   " msec, current " + current + " msec");
+
+	if (failures > 0) {
+	    throw new Error(failures + " of " + (trials + 1) +
+			    " merges differ");
+	}
+	System.out.println("All " + (trials + 1) + " merges identical");
+    }
+
+    /**
+     * Builds a master and a slave tree from the seed, merges them and
+     * returns the resulting master tree.
+     */
+    static String run(long seed, String type, boolean reference)
+	throws Exception {
+	Random random = new Random(seed);
+	HelpSet masterHS = createHelpSet("Master");
+	HelpSet slaveHS = createHelpSet("Slave");
+	DefaultMutableTreeNode master = new DefaultMutableTreeNode();
+	DefaultMutableTreeNode slave = new DefaultMutableTreeNode();
+	addChildren(random, master, masterHS, 3);
+	addChildren(random, slave, slaveHS, 3);
+	try {
+	    if (reference) {
+		Reference.mergeNodes(type, master, slave);
+	    } else {
+		MergeHelpUtilities.mergeNodes(type, master, slave);
+	    }
+	} catch (RuntimeException ex) {
+	    // both must fail, not necessarily in the same place
+	    return FAILED;
+	}
+	return toString(master);
+    }
+
+    static String runWide(int width, boolean reference) throws Exception {
+	Random random = new Random(width);
+	HelpSet masterHS = createHelpSet("Master");
+	HelpSet slaveHS = createHelpSet("Slave");
+	DefaultMutableTreeNode master = new DefaultMutableTreeNode();
+	DefaultMutableTreeNode slave = new DefaultMutableTreeNode();
+	for (int i = 0; i < width; i++) {
+	    master.add(createNode("entry" + random.nextInt(width),
+				  null, masterHS, null));
+	    slave.add(createNode("entry" + random.nextInt(width),
+				 null, slaveHS, null));
+	}
+	String type = "javax.help.UniteAppendMerge";
+	if (reference) {
+	    Reference.mergeNodes(type, master, slave);
+	} else {
+	    MergeHelpUtilities.mergeNodes(type, master, slave);
+	}
+	return toString(master);
+    }
+
+    static void addChildren(Random random, DefaultMutableTreeNode parent,
+			    HelpSet hs, int depth) throws Exception {
+	if (depth == 0) {
+	    return;
+	}
+	int count = random.nextInt(7);
+	for (int i = 0; i < count; i++) {
+	    // null names are rare, SortMerge can't sort them
+	    String name = random.nextInt(40) == 0 ?
+		null : names[random.nextInt(names.length)];
+	    String id = ids[random.nextInt(ids.length)];
+	    String type = mergeTypes[random.nextInt(mergeTypes.length)];
+	    DefaultMutableTreeNode node = createNode(name, id, hs, type);
+	    TreeItem item = (TreeItem) node.getUserObject();
+	    Locale locale = locales[random.nextInt(locales.length)];
+	    if (locale != null) {
+		item = new TreeItem(item.getID(), hs, locale);
+		item.setName(name);
+		item.setMergeType(type);
+		node.setUserObject(item);
+	    }
+	    parent.add(node);
+	    addChildren(random, node, hs, depth - 1);
+	}
+    }
+
+    static DefaultMutableTreeNode createNode(String name, String id,
+					     HelpSet hs, String type)
+	throws Exception {
+	TreeItem item = new TreeItem(Map.ID.create(id, hs), hs, null);
+	item.setName(name);
+	item.setMergeType(type);
+	return new DefaultMutableTreeNode(item);
+    }
+
+    static HelpSet createHelpSet(String title) {
+	HelpSet hs = new HelpSet();
+	hs.setTitle(title);
+	hs.setLocalMap(new AnyMap());
+	return hs;
+    }
+
+    static String toString(DefaultMutableTreeNode node) {
+	StringBuffer buf = new StringBuffer();
+	append(buf, node);
+	return buf.toString();
+    }
+
+    private static void append(StringBuffer buf, DefaultMutableTreeNode node) {
+	TreeItem item = (TreeItem) node.getUserObject();
+	if (item != null) {
+	    buf.append(item.getName());
+	    Map.ID id = item.getID();
+	    if (id != null) {
+		buf.append('#').append(id.id);
+	    }
+	}
+	if (!node.isLeaf()) {
+	    buf.append('[');
+	    for (int i = 0; i < node.getChildCount(); i++) {
+		if (i > 0) {
+		    buf.append(',');
+		}
+		append(buf, (DefaultMutableTreeNode) node.getChildAt(i));
+	    }
+	    buf.append(']');
+	}
+    }
+
+    /**
+     * A Map that accepts any ID.
+     */
+    static class AnyMap implements Map {
+	public boolean isValidID(String id, HelpSet hs) {
+	    return true;
+	}
+	public Enumeration getAllIDs() {
+	    return new Vector().elements();
+	}
+	public URL getURLFromID(ID id) {
+	    return null;
+	}
+	public boolean isID(URL url) {
+	    return false;
+	}
+	public ID getIDFromURL(URL url) {
+	    return null;
+	}
+	public ID getClosestID(URL url) {
+	    return null;
+	}
+	public Enumeration getIDs(URL url) {
+	    return new Vector().elements();
+	}
+    }
+
+    /**
+     * The merge algorithms as they were before names were compared
+     * through collation keys.
+     */
+    static class Reference {
+
+	static void mergeNodes(String masterMergeType,
+			       DefaultMutableTreeNode masterNode,
+			       DefaultMutableTreeNode slaveNode) {
+	    if (slaveNode.isLeaf()) {
+		return;
+	    }
+	    String mergeType = getMergeType(masterNode);
+	    if (mergeType == null) {
+		mergeType = masterMergeType;
+	    }
+	    if (mergeType.equals("javax.help.AppendMerge")) {
+		appendMergeNodes(masterNode, slaveNode);
+	    } else if (mergeType.equals("javax.help.UniteAppendMerge")) {
+		uniteAppendMergeNodes(masterNode, slaveNode);
+	    } else if (mergeType.equals("javax.help.SortMerge")) {
+		sortMergeNodes(masterNode, slaveNode);
+	    }
+	}
+
+	static void mergeNodeChildren(String masterMergeType,
+				      DefaultMutableTreeNode node) {
+	    if (node.isLeaf()) {
+		return;
+	    }
+	    String mergeType = getMergeType(node);
+	    if (mergeType == null) {
+		mergeType = masterMergeType;
+	    }
+	    if (mergeType.equals("javax.help.NoMerge")) {
+		return;
+	    }
+	    if (mergeType.equals("javax.help.SortMerge")) {
+		sortNode(node, MergeHelpUtilities.getLocale(node));
+	    }
+	    for (int i = 0; i < node.getChildCount(); i++) {
+		DefaultMutableTreeNode child =
+		    (DefaultMutableTreeNode) node.getChildAt(i);
+		if (!child.isLeaf()) {
+		    mergeNodeChildren(mergeType, child);
+		}
+	    }
+	}
+
+	static String getMergeType(DefaultMutableTreeNode node) {
+	    TreeItem item = (TreeItem) node.getUserObject();
+	    return item == null ? null : item.getMergeType();
+	}
+
+	static int compareNames(DefaultMutableTreeNode master,
+				DefaultMutableTreeNode slave) {
+	    String masterName = MergeHelpUtilities.getNodeName(master);
+	    String slaveName = MergeHelpUtilities.getNodeName(slave);
+	    if (masterName == null) {
+		masterName = " ";
+	    }
+	    if (slaveName == null) {
+		slaveName = " ";
+	    }
+	    Collator collator =
+		Collator.getInstance(MergeHelpUtilities.getLocale(master));
+	    return collator.compare(masterName, slaveName);
+	}
+
+	static void appendMergeNodes(DefaultMutableTreeNode masterNode,
+				     DefaultMutableTreeNode slaveNode) {
+	    while (slaveNode.getChildCount() > 0) {
+		DefaultMutableTreeNode slaveNodeChild =
+		    (DefaultMutableTreeNode) slaveNode.getFirstChild();
+		masterNode.add(slaveNodeChild);
+		mergeNodeChildren("javax.help.AppendMerge", slaveNodeChild);
+	    }
+	}
+
+	static void uniteAppendMergeNodes(DefaultMutableTreeNode masterNode,
+					  DefaultMutableTreeNode slaveNode) {
+	    int masterCnt = masterNode.getChildCount();
+	    while (slaveNode.getChildCount() > 0) {
+		DefaultMutableTreeNode slaveNodeChild =
+		    (DefaultMutableTreeNode) slaveNode.getFirstChild();
+		for (int m = 0; m < masterCnt; m++) {
+		    DefaultMutableTreeNode masterAtM =
+			(DefaultMutableTreeNode) masterNode.getChildAt(m);
+		    if (compareNames(masterAtM, slaveNodeChild) == 0) {
+			if (MergeHelpUtilities.haveEqualID(masterAtM,
+							   slaveNodeChild)) {
+			    mergeNodes("javax.help.UniteAppendMerge",
+				       masterAtM, slaveNodeChild);
+			    slaveNodeChild.removeFromParent();
+			} else {
+			    MergeHelpUtilities.markNodes(masterAtM,
+							 slaveNodeChild);
+			    masterNode.add(slaveNodeChild);
+			    mergeNodeChildren("javax.help.UniteAppendMerge",
+					      slaveNodeChild);
+			}
+			slaveNodeChild = null;
+			break;
+		    }
+		}
+		if (slaveNodeChild != null) {
+		    masterNode.add(slaveNodeChild);
+		    mergeNodeChildren("javax.help.UniteAppendMerge",
+				      slaveNodeChild);
+		}
+	    }
+	    slaveNode.removeFromParent();
+	}
+
+	static void sortMergeNodes(DefaultMutableTreeNode masterNode,
+				   DefaultMutableTreeNode slaveNode) {
+	    sortNode(slaveNode, MergeHelpUtilities.getLocale(slaveNode));
+	    int masterCnt = masterNode.getChildCount();
+	    int m = 0;
+	    DefaultMutableTreeNode masterAtM = null;
+	    if (masterCnt > 0) {
+		masterAtM = (DefaultMutableTreeNode) masterNode.getChildAt(m);
+	    }
+	    DefaultMutableTreeNode slaveNodeChild = null;
+	    while (slaveNode.getChildCount() > 0 && masterAtM != null) {
+		slaveNodeChild =
+		    (DefaultMutableTreeNode) slaveNode.getFirstChild();
+		int compareVal = compareNames(masterAtM, slaveNodeChild);
+		if (compareVal < 0) {
+		    ++m;
+		    if (m >= masterCnt) {
+			break;
+		    }
+		    masterAtM =
+			(DefaultMutableTreeNode) masterNode.getChildAt(m);
+		} else if (compareVal > 0) {
+		    masterNode.add(slaveNodeChild);
+		    mergeNodeChildren("javax.help.SortMerge", slaveNodeChild);
+		} else if (MergeHelpUtilities.haveEqualID(masterAtM,
+							  slaveNodeChild)) {
+		    mergeNodes("javax.help.SortMerge", masterAtM,
+			       slaveNodeChild);
+		    slaveNodeChild.removeFromParent();
+		} else {
+		    MergeHelpUtilities.markNodes(masterAtM, slaveNodeChild);
+		    masterNode.add(slaveNodeChild);
+		    mergeNodeChildren("javax.help.SortMerge", slaveNodeChild);
+		}
+	    }
+	    while (slaveNode.getChildCount() > 0) {
+		slaveNodeChild =
+		    (DefaultMutableTreeNode) slaveNode.getFirstChild();
+		masterNode.add(slaveNodeChild);
+		mergeNodeChildren("javax.help.SortMerge", slaveNodeChild);
+	    }
+	    mergeNodeChildren("javax.help.SortMerge", masterNode);
+	}
+
+	static void sortNode(DefaultMutableTreeNode node, Locale locale) {
+	    if (locale == null) {
+		locale = Locale.getDefault();
+	    }
+	    int size = node.getChildCount();
+	    DefaultMutableTreeNode sortedNode = new DefaultMutableTreeNode();
+	    Collator collator = Collator.getInstance(locale);
+	    CollationKey[] keys = new CollationKey[size];
+	    for (int i = 0; i < size; i++) {
+		String string = MergeHelpUtilities.getNodeName
+		    ((DefaultMutableTreeNode) node.getChildAt(i));
+		keys[i] = collator.getCollationKey(string);
+	    }
+	    Arrays.sort(keys);
+	    for (int i = 0; i < size; i++) {
+		DefaultMutableTreeNode child = MergeHelpUtilities.
+		    getChildWithName(node, keys[i].getSourceString());
+		if (child != null) {
+		    sortedNode.add(child);
+		}
+	    }
+	    while (sortedNode.getChildCount() > 0) {
+		node.add((DefaultMutableTreeNode) sortedNode.getFirstChild());
+	    }
+	}
+    }
+}
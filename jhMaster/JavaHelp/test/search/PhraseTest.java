@@ -0,0 +1,154 @@
+/*
+ * @(#)PhraseTest.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+/*
+ * PhraseTest.java
+ */
+
+import javax.help.search.*;
+import com.sun.java.help.search.DefaultSearchEngine;
+import com.sun.java.help.search.Indexer;
+import java.io.*;
+import java.net.URL;
+import java.util.Hashtable;
+import java.util.Locale;
+import java.util.Vector;
+
+/**
+ * Tests queries with stopwords in phrases and required words. A small
+ * index is built and every query must find exactly the expected pages.
+ *
+ * Usage: java PhraseTest
+ */
+public class PhraseTest {
+
+    static String[][] pages = {
+	{ "contents.html", "The table of contents lists the topics." },
+	{ "lists.html", "A table lists the contents of the topics." },
+	{ "viewer.html", "Help with the viewer." },
+    };
+
+    static String[][] queries = {
+	{ "\"table of contents\"", "contents.html" },
+	{ "\"table contents\"", "" },
+	{ "+of table", "contents.html lists.html" },
+	{ "+table +of +contents", "contents.html lists.html" },
+	{ "\"of the viewer\"", "viewer.html" },
+    };
+
+    public static void main(String args[]) throws Exception {
+	File dir = File.createTempFile("phrase", "");
+	dir.delete();
+	dir.mkdir();
+	String files[] = new String[pages.length + 2];
+	files[0] = "-db";
+	files[1] = new File(dir, "db").getPath();
+	for (int i = 0; i < pages.length; i++) {
+	    File file = new File(dir, pages[i][0]);
+	    PrintWriter out = new PrintWriter(new FileWriter(file));
+	    out.println("<html><body><p>" + pages[i][1] + "</p></body></html>");
+	    out.close();
+	    files[i + 2] = file.getPath();
+	}
+	new Indexer().compile(files);
+
+	Hashtable params = new Hashtable();
+	params.put("data", files[1]);
+	SearchEngine engine =
+	    new DefaultSearchEngine(dir.toURI().toURL(), params);
+
+	int failures = 0;
+	for (int i = 0; i < queries.length; i++) {
+	    String found = search(engine, queries[i][0]);
+	    if (!found.equals(queries[i][1])) {
+		failures++;
+		System.out.println(queries[i][0] + " found \"" + found +
+				   "\" instead of \"" + queries[i][1] + "\"");
+	    }
+	}
+	delete(dir);
+	if (failures > 0) {
+	    throw new Error(failures + " of " + queries.length +
+			    " queries failed");
+	}
+	System.out.println("All " + queries.length + " queries passed");
+    }
+
+    /**
+     * Returns the sorted names of the pages found by the query.
+     */
+    static String search(SearchEngine engine, String text) throws Exception {
+	final Vector names = new Vector();
+	final boolean done[] = new boolean[1];
+	SearchQuery query = engine.createQuery();
+	query.addSearchListener(new SearchListener() {
+	    public void itemsFound(SearchEvent e) {
+		for (java.util.Enumeration en = e.getSearchItems();
+		     en.hasMoreElements(); ) {
+		    SearchItem item = (SearchItem) en.nextElement();
+		    String name = new File(item.getFilename()).getName();
+		    if (!names.contains(name)) {
+			names.addElement(name);
+		    }
+		}
+	    }
+	    public void searchStarted(SearchEvent e) {
+	    }
+	    public void searchFinished(SearchEvent e) {
+		synchronized (done) {
+		    done[0] = true;
+		    done.notifyAll();
+		}
+	    }
+	});
+	query.start(text, Locale.ENGLISH);
+	synchronized (done) {
+	    while (!done[0]) {
+		done.wait();
+	    }
+	}
+	String sorted[] = new String[names.size()];
+	names.copyInto(sorted);
+	java.util.Arrays.sort(sorted);
+	StringBuffer buf = new StringBuffer();
+	for (int i = 0; i < sorted.length; i++) {
+	    if (i > 0) {
+		buf.append(' ');
+	    }
+	    buf.append(sorted[i]);
+	}
+	return buf.toString();
+    }
+
+    static void delete(File file) {
+	File children[] = file.listFiles();
+	for (int i = 0; children != null && i < children.length; i++) {
+	    delete(children[i]);
+	}
+	file.delete();
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * @(#)CachedPageTest.java	1.1 26/10/19
+ * 
+ * Copyright (c) 2006 Sun Microsystems, Inc.  All Rights Reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ * 
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.  Sun designates this
+ * particular file as subject to the "Classpath" exception as provided
+ * by Sun in the LICENSE file that accompanied this code.
+ * 
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ * 
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ * 
+ * Please contact Sun Microsystems, Inc., 4150 Network Circle, Santa Clara,
+ * CA 95054 USA or visit www.sun.com if you need additional information or
+ * have any questions.
+ */
+
+/*
+ * CachedPageTest.java
+ */
+
+import javax.help.*;
+import javax.swing.*;
+import javax.swing.text.*;
+import java.awt.*;
+import java.io.*;
+import java.net.URL;
+
+/**
+ * Tests that a page shown from the document cache of the content viewer
+ * completes like a page loaded from its URL: the search highlights set
+ * with the page are applied and the document title is set.
+ *
+ * Usage: java CachedPageTest
+ */
+public class CachedPageTest {
+
+    static JHelpContentViewer viewer;
+    static TextHelpModel model;
+
+    public static void main(String args[]) throws Exception {
+	File dir = createPages();
+	final URL first = new File(dir, "first.html").toURI().toURL();
+	final URL second = new File(dir, "second.html").toURI().toURL();
+
+	SwingUtilities.invokeAndWait(new Runnable() {
+	    public void run() {
+		viewer = new JHelpContentViewer(new HelpSet());
+		model = viewer.getModel();
+	    }
+	});
+
+	// load both pages, the first is now in the cache
+	show(first, "First");
+	show(second, "Second");
+
+	// back to the first page, with highlights as the search navigator
+	// sets them
+	show(first, "First");
+	int highlights = countHighlights();
+	if (highlights == 0) {
+	    throw new Error("highlights of the cached page are not applied");
+	}
+
+	// the same page again, at a reference
+	show(new URL(first, "first.html#words"), "First");
+	if (countHighlights() == 0) {
+	    throw new Error("highlights of the cached reference are not applied");
+	}
+	System.out.println("Cached pages completed");
+	System.exit(0);
+    }
+
+    /**
+     * Shows the URL with a highlight and waits until its title is set.
+     */
+    static void show(final URL url, String title) throws Exception {
+	SwingUtilities.invokeAndWait(new Runnable() {
+	    public void run() {
+		model.setCurrentURL(url);
+		model.setHighlights(new TextHelpModel.Highlight[] {
+		    new DefaultHelpModel.DefaultHighlight(0, 4)
+		});
+	    }
+	});
+	final String[] current = new String[1];
+	for (int i = 0; i < 500; i++) {
+	    SwingUtilities.invokeAndWait(new Runnable() {
+		public void run() {
+		    current[0] = model.getDocumentTitle();
+		}
+	    });
+	    if (title.equals(current[0])) {
+		return;
+	    }
+	    Thread.sleep(10);
+	}
+	throw new Error(url + " did not finish loading, title is " +
+			current[0]);
+    }
+
+    static int countHighlights() throws Exception {
+	final int count[] = new int[1];
+	SwingUtilities.invokeAndWait(new Runnable() {
+	    public void run() {
+		JEditorPane html = findEditor(viewer);
+		count[0] = html.getHighlighter().getHighlights().length;
+	    }
+	});
+	return count[0];
+    }
+
+    static JEditorPane findEditor(Container c) {
+	for (int i = 0; i < c.getComponentCount(); i++) {
+	    Component child = c.getComponent(i);
+	    if (child instanceof JEditorPane) {
+		return (JEditorPane) child;
+	    }
+	    if (child instanceof Container) {
+		JEditorPane html = findEditor((Container) child);
+		if (html != null) {
+		    return html;
+		}
+	    }
+	}
+	return null;
+    }
+
+    static File createPages() throws IOException {
+	File dir = File.createTempFile("cached", "");
+	dir.delete();
+	dir.mkdir();
+	dir.deleteOnExit();
+	writePage(new File(dir, "first.html"), "First");
+	writePage(new File(dir, "second.html"), "Second");
+	return dir;
+    }
+
+    static void writePage(File file, String title) throws IOException {
+	PrintWriter out = new PrintWriter(new FileWriter(file));
+	out.println("<html><head><title>" + title + "</title></head><body>");
+	out.println("<p>Some text of the page.</p>");
+	out.println("<p><a name=\"words\">More</a> words.</p>");
+	out.println("</body></html>");
+	out.close();
+	file.deleteOnExit();
+    }
+}